@@ -1887,13 +1887,15 @@ export const FileAttachmentsApiAxiosParamCreator = function (configuration?: Con
             };
         },
         /**
-         * Get all attachments for the current user
+         * Get the current user\&#39;s attachments, newest first, one page at a time. The next page is linked from the Link (rel=\&quot;next\&quot;) and X-Next-Cursor headers.
          * @summary List user attachments
          * @param {string} xUserId 
+         * @param {string} [cursor] Cursor from the previous page\&#39;s X-Next-Cursor header
+         * @param {number} [limit] Page size (1-100)
          * @param {*} [options] Override http request option.
          * @throws {RequiredError}
          */
-        listForUser: async (xUserId: string, options: RawAxiosRequestConfig = {}): Promise<RequestArgs> => {
+        listForUser: async (xUserId: string, cursor?: string, limit?: number, options: RawAxiosRequestConfig = {}): Promise<RequestArgs> => {
             // verify required parameter 'xUserId' is not null or undefined
             assertParamExists('listForUser', 'xUserId', xUserId)
             const localVarPath = `/attachments/`;
@@ -1911,6 +1913,14 @@ export const FileAttachmentsApiAxiosParamCreator = function (configuration?: Con
             // authentication XUserIdHeader required
             await setApiKeyToObject(localVarHeaderParameter, "X-User-Id", configuration)
 
+            if (cursor !== undefined) {
+                localVarQueryParameter['cursor'] = cursor;
+            }
+
+            if (limit !== undefined) {
+                localVarQueryParameter['limit'] = limit;
+            }
+
 
     
             if (xUserId != null) {
@@ -2111,14 +2121,16 @@ export const FileAttachmentsApiFp = function(configuration?: Configuration) {
             return (axios, basePath) => createRequestFunction(localVarAxiosArgs, globalAxios, BASE_PATH, configuration)(axios, localVarOperationServerBasePath || basePath);
         },
         /**
-         * Get all attachments for the current user
+         * Get the current user\&#39;s attachments, newest first, one page at a time. The next page is linked from the Link (rel=\&quot;next\&quot;) and X-Next-Cursor headers.
          * @summary List user attachments
          * @param {string} xUserId 
+         * @param {string} [cursor] Cursor from the previous page\&#39;s X-Next-Cursor header
+         * @param {number} [limit] Page size (1-100)
          * @param {*} [options] Override http request option.
          * @throws {RequiredError}
          */
-        async listForUser(xUserId: string, options?: RawAxiosRequestConfig): Promise<(axios?: AxiosInstance, basePath?: string) => AxiosPromise<Array<AttachmentInfo>>> {
-            const localVarAxiosArgs = await localVarAxiosParamCreator.listForUser(xUserId, options);
+        async listForUser(xUserId: string, cursor?: string, limit?: number, options?: RawAxiosRequestConfig): Promise<(axios?: AxiosInstance, basePath?: string) => AxiosPromise<Array<AttachmentInfo>>> {
+            const localVarAxiosArgs = await localVarAxiosParamCreator.listForUser(xUserId, cursor, limit, options);
             const localVarOperationServerIndex = configuration?.serverIndex ?? 0;
             const localVarOperationServerBasePath = operationServerMap['FileAttachmentsApi.listForUser']?.[localVarOperationServerIndex]?.url;
             return (axios, basePath) => createRequestFunction(localVarAxiosArgs, globalAxios, BASE_PATH, configuration)(axios, localVarOperationServerBasePath || basePath);
@@ -2219,14 +2231,16 @@ export const FileAttachmentsApiFactory = function (configuration?: Configuration
             return localVarFp.listForTask(taskId, xUserId, options).then((request) => request(axios, basePath));
         },
         /**
-         * Get all attachments for the current user
+         * Get the current user\&#39;s attachments, newest first, one page at a time. The next page is linked from the Link (rel=\&quot;next\&quot;) and X-Next-Cursor headers.
          * @summary List user attachments
          * @param {string} xUserId 
+         * @param {string} [cursor] Cursor from the previous page\&#39;s X-Next-Cursor header
+         * @param {number} [limit] Page size (1-100)
          * @param {*} [options] Override http request option.
          * @throws {RequiredError}
          */
-        listForUser(xUserId: string, options?: RawAxiosRequestConfig): AxiosPromise<Array<AttachmentInfo>> {
-            return localVarFp.listForUser(xUserId, options).then((request) => request(axios, basePath));
+        listForUser(xUserId: string, cursor?: string, limit?: number, options?: RawAxiosRequestConfig): AxiosPromise<Array<AttachmentInfo>> {
+            return localVarFp.listForUser(xUserId, cursor, limit, options).then((request) => request(axios, basePath));
         },
         /**
          * Upload a file without linking it to a specific task
@@ -2317,14 +2331,16 @@ export interface FileAttachmentsApiInterface {
     listForTask(taskId: string, xUserId: string, options?: RawAxiosRequestConfig): AxiosPromise<Array<AttachmentInfo>>;
 
     /**
-     * Get all attachments for the current user
+     * Get the current user\&#39;s attachments, newest first, one page at a time. The next page is linked from the Link (rel=\&quot;next\&quot;) and X-Next-Cursor headers.
      * @summary List user attachments
      * @param {string} xUserId 
+     * @param {string} [cursor] Cursor from the previous page\&#39;s X-Next-Cursor header
+     * @param {number} [limit] Page size (1-100)
      * @param {*} [options] Override http request option.
      * @throws {RequiredError}
      * @memberof FileAttachmentsApiInterface
      */
-    listForUser(xUserId: string, options?: RawAxiosRequestConfig): AxiosPromise<Array<AttachmentInfo>>;
+    listForUser(xUserId: string, cursor?: string, limit?: number, options?: RawAxiosRequestConfig): AxiosPromise<Array<AttachmentInfo>>;
 
     /**
      * Upload a file without linking it to a specific task
@@ -2425,15 +2441,17 @@ export class FileAttachmentsApi extends BaseAPI implements FileAttachmentsApiInt
     }
 
     /**
-     * Get all attachments for the current user
+     * Get the current user\&#39;s attachments, newest first, one page at a time. The next page is linked from the Link (rel=\&quot;next\&quot;) and X-Next-Cursor headers.
      * @summary List user attachments
      * @param {string} xUserId 
+     * @param {string} [cursor] Cursor from the previous page\&#39;s X-Next-Cursor header
+     * @param {number} [limit] Page size (1-100)
      * @param {*} [options] Override http request option.
      * @throws {RequiredError}
      * @memberof FileAttachmentsApi
      */
-    public listForUser(xUserId: string, options?: RawAxiosRequestConfig) {
-        return FileAttachmentsApiFp(this.configuration).listForUser(xUserId, options).then((request) => request(this.axios, this.basePath));
+    public listForUser(xUserId: string, cursor?: string, limit?: number, options?: RawAxiosRequestConfig) {
+        return FileAttachmentsApiFp(this.configuration).listForUser(xUserId, cursor, limit, options).then((request) => request(this.axios, this.basePath));
     }
 
     /**
@@ -1,5 +1,9 @@
+import type { AttachmentInfo } from "../generated/api";
 import { attachmentApi } from "./generatedApi";
 
+// The largest page the API serves
+const USER_ATTACHMENTS_PAGE_SIZE = 100;
+
 export interface ApiResponse<T = unknown> {
   code: number;
   msg: string;
@@ -167,13 +171,24 @@ class AttachmentService {
     }
   }
 
+  /**
+   * Get all of the user's attachments. The API returns them a page at a time,
+   * so this follows the X-Next-Cursor header until the last page.
+   */
   async getUserAttachments(userId: string): Promise<ApiResponse<unknown>> {
     try {
-      const response = await attachmentApi.listForUser(userId);
+      const attachments: AttachmentInfo[] = [];
+      let cursor: string | undefined;
+      do {
+        const response = await attachmentApi.listForUser(userId, cursor, USER_ATTACHMENTS_PAGE_SIZE);
+        attachments.push(...response.data);
+        const next = response.headers["x-next-cursor"];
+        cursor = typeof next === "string" && next !== "" ? next : undefined;
+      } while (cursor);
       return {
         code: 200,
         msg: "Success",
-        data: response.data,
+        data: attachments,
       };
     } catch (error: unknown) {
       console.error("Get user attachments error:", error);
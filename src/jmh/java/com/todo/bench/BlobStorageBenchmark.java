@@ -0,0 +1,161 @@
+package com.todo.bench;
+
+import com.todo.storage.BlobContent;
+import com.todo.storage.BlobStorage;
+import com.todo.storage.BlobStorageImpl.LocalBlobStorageImpl;
+import com.todo.storage.BlobStorageImpl.MemoryBlobStorageImpl;
+import com.todo.storage.BlobStorageImpl.S3BlobStorageImpl;
+import com.todo.storage.InMemoryS3Client;
+import io.awspring.cloud.s3.S3Template;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Store, load and delete throughput of each {@link BlobStorage} backend across object sizes: "memory"
+ * (off-heap), "local" (a temporary directory) and "s3" (S3BlobStorageImpl against the in-process S3
+ * stand-in). {@code latencyMillis} adds a per-request delay to the memory and s3 backends to approximate a
+ * remote store. Run with {@code -prof gc} for allocation rates, e.g.
+ * {@code mvn -Pbench verify -Djmh.args="BlobStorageBenchmark -f 1 -wi 2 -i 3 -prof gc"}.
+ * <p>
+ * Stored objects are deleted after each invocation so the stores do not grow during a run; for the
+ * smallest sizes that per-invocation bookkeeping is a visible part of the time.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlobStorageBenchmark {
+
+    @Param({"memory", "local", "s3"})
+    public String backend;
+
+    @Param({"4096", "1048576", "16777216"})
+    public int fileSize;
+
+    @Param({"0"})
+    public long latencyMillis;
+
+    private byte[] payload;
+    private BlobStorage storage;
+    private Path dir;
+    private String loadKey;
+    private S3BlobStorageImpl s3Storage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        payload = new byte[fileSize];
+        new Random(11).nextBytes(payload);
+        dir = Files.createTempDirectory("blob-bench-");
+
+        switch (backend) {
+            case "memory" -> {
+                MemoryBlobStorageImpl memory = new MemoryBlobStorageImpl();
+                ReflectionTestUtils.setField(memory, "maxSize", DataSize.ofGigabytes(4));
+                ReflectionTestUtils.setField(memory, "latency", Duration.ofMillis(latencyMillis));
+                ReflectionTestUtils.setField(memory, "bandwidth", DataSize.ofBytes(0));
+                ReflectionTestUtils.setField(memory, "stagingDir", dir.toString());
+                ReflectionTestUtils.invokeMethod(memory, "init");
+                storage = memory;
+            }
+            case "local" -> {
+                LocalBlobStorageImpl local = new LocalBlobStorageImpl();
+                ReflectionTestUtils.setField(local, "rootDir", dir.toString());
+                ReflectionTestUtils.invokeMethod(local, "init");
+                storage = local;
+            }
+            case "s3" -> {
+                s3Storage = new S3BlobStorageImpl(Mockito.mock(S3Template.class), new InMemoryS3Client(latencyMillis, 0),
+                        Mockito.mock(S3AsyncClient.class));
+                ReflectionTestUtils.setField(s3Storage, "bucket", "bench");
+                ReflectionTestUtils.setField(s3Storage, "prefix", "attachments");
+                ReflectionTestUtils.setField(s3Storage, "multipartThreshold", 16L * 1024 * 1024);
+                ReflectionTestUtils.setField(s3Storage, "partSize", 8L * 1024 * 1024);
+                ReflectionTestUtils.setField(s3Storage, "partConcurrency", 4);
+                ReflectionTestUtils.setField(s3Storage, "partMaxAttempts", 3);
+                ReflectionTestUtils.invokeMethod(s3Storage, "init");
+                storage = s3Storage;
+            }
+            default -> throw new IllegalArgumentException("Unknown backend " + backend);
+        }
+        loadKey = write();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (s3Storage != null) {
+            ReflectionTestUtils.invokeMethod(s3Storage, "shutdown");
+        }
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    /** An object written just for one invocation of {@link #delete}, or left by {@link #store}. */
+    @State(Scope.Thread)
+    public static class Scratch {
+        String key;
+
+        @Setup(Level.Invocation)
+        public void create(BlobStorageBenchmark bench) throws IOException {
+            key = bench.write();
+        }
+
+        @TearDown(Level.Invocation)
+        public void cleanUp(BlobStorageBenchmark bench) throws IOException {
+            if (key != null) {
+                bench.storage.delete(key);
+            }
+        }
+    }
+
+    /** Holds the key written by {@link #store} so it can be deleted outside the measurement. */
+    @State(Scope.Thread)
+    public static class Written {
+        String key;
+
+        @TearDown(Level.Invocation)
+        public void cleanUp(BlobStorageBenchmark bench) throws IOException {
+            if (key != null) {
+                bench.storage.delete(key);
+                key = null;
+            }
+        }
+    }
+
+    @Benchmark
+    public String store(Written written) throws IOException {
+        written.key = write();
+        return written.key;
+    }
+
+    @Benchmark
+    public long load() throws IOException {
+        try (BlobContent content = storage.open(loadKey, 0, -1)) {
+            return content.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public void delete(Scratch scratch) throws IOException {
+        storage.delete(scratch.key);
+        scratch.key = null;
+    }
+
+    private String write() throws IOException {
+        return storage.store(new ByteArrayInputStream(payload), "bench.bin", "application/octet-stream", payload.length)
+                .getKey();
+    }
+}
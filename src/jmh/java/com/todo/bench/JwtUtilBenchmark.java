@@ -0,0 +1,46 @@
+package com.todo.bench;
+
+import com.todo.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token work done on every authenticated request (parse and validate) and on every login (generate).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+    private final String userId = UUID.randomUUID().toString();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "bench-only-secret-0123456789abcdef0123456789abcdef");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        token = jwtUtil.generateToken("bench-user", userId);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtil.generateToken("bench-user", userId);
+    }
+
+    @Benchmark
+    public String parse() {
+        return jwtUtil.extractUserId(token);
+    }
+
+    @Benchmark
+    public Boolean validate() {
+        return jwtUtil.validateToken(token, "bench-user");
+    }
+}
@@ -0,0 +1,34 @@
+package com.todo.bench;
+
+import com.todo.util.PaginationUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the page, size and sort parameters of every paged listing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class PaginationBenchmark {
+
+    // "none" stands for a request without a sort parameter
+    @Param({"none", "title,asc", " dueDate , DESC "})
+    public String sort;
+
+    private String sortParam;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sortParam = "none".equals(sort) ? null : sort;
+    }
+
+    @Benchmark
+    public Pageable buildPageable() {
+        return PaginationUtils.buildPageable(3, 20, sortParam);
+    }
+}
@@ -0,0 +1,69 @@
+package com.todo.bench;
+
+import com.todo.storage.BlobStorage;
+import com.todo.storage.BlobStorageImpl.S3BlobStorageImpl;
+import com.todo.storage.InMemoryS3Client;
+import io.awspring.cloud.s3.S3Template;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upload time of a large attachment through S3BlobStorageImpl against the in-process S3 stand-in,
+ * single PUT versus multipart. The stand-in adds 20ms per request and caps each connection at 50MB/s,
+ * roughly what a single TCP stream to a remote region achieves.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class S3MultipartBenchmark {
+
+    @Param({"26214400", "67108864"})
+    public int fileSize;
+
+    @Param({"single", "multipart"})
+    public String mode;
+
+    private byte[] payload;
+    private InMemoryS3Client s3;
+    private S3BlobStorageImpl storage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        payload = new byte[fileSize];
+        new Random(7).nextBytes(payload);
+
+        s3 = new InMemoryS3Client(20, 50L * 1024 * 1024);
+        storage = new S3BlobStorageImpl(Mockito.mock(S3Template.class), s3, Mockito.mock(S3AsyncClient.class));
+        ReflectionTestUtils.setField(storage, "bucket", "bench");
+        ReflectionTestUtils.setField(storage, "prefix", "attachments");
+        ReflectionTestUtils.setField(storage, "multipartThreshold", "single".equals(mode) ? Long.MAX_VALUE : 16L * 1024 * 1024);
+        ReflectionTestUtils.setField(storage, "partSize", 8L * 1024 * 1024);
+        ReflectionTestUtils.setField(storage, "partConcurrency", 4);
+        ReflectionTestUtils.setField(storage, "partMaxAttempts", 3);
+        ReflectionTestUtils.invokeMethod(storage, "init");
+    }
+
+    @TearDown(Level.Invocation)
+    public void dropUploadedObjects() {
+        s3.objects().clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(storage, "shutdown");
+    }
+
+    @Benchmark
+    public BlobStorage.StoredObject upload() throws Exception {
+        return storage.store(new ByteArrayInputStream(payload), "video.mp4", "video/mp4", payload.length);
+    }
+}
@@ -0,0 +1,47 @@
+package com.todo.bench;
+
+import com.todo.storage.BlobStreams;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SHA-256 as the blob stores compute it: {@link BlobStreams#copy} hashes while copying the upload through
+ * its buffer. "digestOnly" is the bare MessageDigest over the same bytes, so the difference is the cost
+ * of the copy loop.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class Sha256Benchmark {
+
+    @Param({"4096", "1048576", "16777216"})
+    public int size;
+
+    private byte[] data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new byte[size];
+        new Random(42).nextBytes(data);
+    }
+
+    @Benchmark
+    public BlobStreams.Digested copyAndHash() throws IOException {
+        return BlobStreams.copy(new ByteArrayInputStream(data), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public byte[] digestOnly() {
+        MessageDigest md = BlobStreams.sha256();
+        md.update(data);
+        return md.digest();
+    }
+}
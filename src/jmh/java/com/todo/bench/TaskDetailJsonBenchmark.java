@@ -0,0 +1,79 @@
+package com.todo.bench;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.todo.api.dto.AttachmentInfo;
+import com.todo.api.dto.TaskDetailInfo;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of task detail lists, configured like the application's ObjectMapper (ISO-8601
+ * dates). Each task carries a few categories, comments and attachments.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class TaskDetailJsonBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int tasks;
+
+    private ObjectWriter writer;
+    private List<TaskDetailInfo> details;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+                .writerFor(List.class);
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        details = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            List<TaskDetailInfo.CommentInfo> comments = new ArrayList<>();
+            List<AttachmentInfo> attachments = new ArrayList<>();
+            for (int j = 0; j < 3; j++) {
+                comments.add(new TaskDetailInfo.CommentInfo(UUID.randomUUID(), "Comment " + j + " on task " + i,
+                        now, "user" + j));
+                attachments.add(AttachmentInfo.builder()
+                        .id(UUID.randomUUID())
+                        .fileName("file-" + j + ".pdf")
+                        .contentType("application/pdf")
+                        .sizeBytes(100_000L * (j + 1))
+                        .checksumSha256("ab".repeat(32))
+                        .createdAt(now)
+                        .updatedAt(now)
+                        .build());
+            }
+            details.add(TaskDetailInfo.builder()
+                    .id(UUID.randomUUID())
+                    .title("Task " + i)
+                    .description("Description of task " + i + " with a few words of detail")
+                    .createdAt(now)
+                    .dueDate(now.plus(i % 30, ChronoUnit.DAYS))
+                    .isCompleted(i % 3 == 0)
+                    .daysUntilDue((long) (i % 30))
+                    .categories(List.of("work", "q" + (i % 4 + 1)))
+                    .comments(comments)
+                    .attachments(attachments)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), details);
+    }
+}
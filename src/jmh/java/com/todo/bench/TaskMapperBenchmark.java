@@ -0,0 +1,87 @@
+package com.todo.bench;
+
+import com.todo.api.dto.TaskSummary;
+import com.todo.api.mapper.TaskMapper;
+import com.todo.entity.Task;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping of task listings. "wide" is a page of tasks with a few subtasks each, "deep" a
+ * single chain of nested subtasks; the recursive mapping walks the whole tree in both.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class TaskMapperBenchmark {
+
+    @Param({"wide", "deep"})
+    public String shape;
+
+    private List<Task> page;
+    private Task root;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("wide".equals(shape)) {
+            // 100 top-level tasks with 5 subtasks each, which have 2 each
+            page = new ArrayList<>();
+            root = task(null, 0);
+            for (int i = 0; i < 100; i++) {
+                Task t = task(root, i);
+                for (int j = 0; j < 5; j++) {
+                    Task sub = task(t, j);
+                    task(sub, 0);
+                    task(sub, 1);
+                }
+                page.add(t);
+            }
+        } else {
+            // 50 levels of single subtasks
+            root = task(null, 0);
+            Task parent = root;
+            for (int i = 0; i < 50; i++) {
+                parent = task(parent, i);
+            }
+            page = List.of(root);
+        }
+    }
+
+    @Benchmark
+    public void toTaskSummary(Blackhole bh) {
+        for (Task t : page) {
+            bh.consume(TaskMapper.toTaskSummary(t));
+        }
+    }
+
+    @Benchmark
+    public TaskSummary toTaskSummaryWithSubtasks() {
+        return TaskMapper.toTaskSummaryWithSubtasks(root, 64);
+    }
+
+    private static Task task(Task parent, int i) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Task t = Task.builder()
+                .id(UUID.randomUUID())
+                .title("Task " + i)
+                .description("Description of task " + i + " with a few words of detail")
+                .createdAt(now)
+                .dueDate(now.plus(i, ChronoUnit.DAYS))
+                .isCompleted(i % 3 == 0)
+                .parentTask(parent)
+                .build();
+        if (parent != null) {
+            parent.getSubtasks().add(t);
+        }
+        return t;
+    }
+}
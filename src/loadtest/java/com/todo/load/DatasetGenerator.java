@@ -0,0 +1,219 @@
+package com.todo.load;
+
+import com.todo.storage.BlobStorage;
+import com.todo.util.JwtUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Fills the schema with synthetic users, task trees and attachments through batched JDBC inserts, so a
+ * dataset of tens of thousands of rows is ready in seconds instead of going through the API.
+ * <p>
+ * Every user gets {@code rootTasks} top-level tasks, each the root of a tree {@code depth} levels deep in
+ * which every task has {@code fanOut} subtasks. Attachments are linked to random tasks of their owner and
+ * share a small pool of stored objects (half compressible text, half random bytes), which are written
+ * through the application's {@link BlobStorage} so downloads exercise the real read path.
+ */
+@Slf4j
+public class DatasetGenerator {
+
+    public static final String PASSWORD = "loadtest-password";
+
+    private final JdbcTemplate jdbc;
+    private final BlobStorage blobStorage;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtUtil jwtUtil;
+    private final Random random = new Random(42);
+
+    public record Spec(int users, int rootTasks, int depth, int fanOut, int attachments, int distinctBlobs,
+                       int blobSize, int batchSize) {
+
+        /** Tasks per user: every root plus its full tree. */
+        public long tasksPerUser() {
+            long perTree = 0;
+            long level = 1;
+            for (int d = 0; d <= depth; d++) {
+                perTree += level;
+                level *= fanOut;
+            }
+            return rootTasks * perTree;
+        }
+    }
+
+    /** What the load driver needs to address one generated user's data. */
+    public record UserData(UUID id, String username, String token, List<UUID> rootTaskIds, List<UUID> taskIds,
+                           List<UUID> attachedTaskIds, List<UUID> attachmentIds) {}
+
+    private record Blob(String key, String contentType, long size, String checksum) {}
+
+    public DatasetGenerator(JdbcTemplate jdbc, BlobStorage blobStorage, PasswordEncoder passwordEncoder,
+                            JwtUtil jwtUtil) {
+        this.jdbc = jdbc;
+        this.blobStorage = blobStorage;
+        this.passwordEncoder = passwordEncoder;
+        this.jwtUtil = jwtUtil;
+    }
+
+    public List<UserData> generate(Spec spec) throws IOException {
+        long started = System.nanoTime();
+        // One hash for all users; BCrypt would otherwise dominate generation time
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+        List<Blob> blobs = storeBlobs(spec);
+
+        Batch users = new Batch("INSERT INTO users (id, username, email, password_hash, first_name, last_name, "
+                + "created_at, updated_at, is_active) VALUES (?, ?, ?, ?, ?, ?, ?, ?, TRUE)", spec.batchSize());
+        Batch tasks = new Batch("INSERT INTO task (id, user_id, title, description, created_at, due_date, "
+                + "is_completed, is_deleted, display_order, parent_task_id) VALUES (?, ?, ?, ?, ?, ?, ?, FALSE, ?, ?)",
+                spec.batchSize(), users);
+        Batch attachments = new Batch("INSERT INTO attachment (id, user_id, filename, content_type, size_bytes, "
+                + "checksum_sha256, storage_path, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                spec.batchSize(), users);
+        Batch links = new Batch("INSERT INTO task_attachment (task_id, attachment_id, created_at) VALUES (?, ?, ?)",
+                spec.batchSize(), tasks, attachments);
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        List<UserData> generated = new ArrayList<>(spec.users());
+        int[] refs = new int[blobs.size()];
+        for (int u = 0; u < spec.users(); u++) {
+            UUID userId = UUID.randomUUID();
+            String username = "load" + u;
+            Timestamp createdAt = Timestamp.from(now.minus(Duration.ofDays(random.nextInt(365))));
+            users.add(userId, username, username + "@load.test", passwordHash, "Load", "User " + u, createdAt, createdAt);
+
+            List<UUID> roots = new ArrayList<>(spec.rootTasks());
+            List<UUID> all = new ArrayList<>((int) spec.tasksPerUser());
+            for (int r = 0; r < spec.rootTasks(); r++) {
+                roots.add(addTree(tasks, userId, null, r, spec.depth(), spec.fanOut(), now, all));
+            }
+
+            List<UUID> attachmentIds = new ArrayList<>(spec.attachments());
+            List<UUID> attachedTasks = new ArrayList<>();
+            for (int a = 0; a < spec.attachments(); a++) {
+                int b = random.nextInt(blobs.size());
+                Blob blob = blobs.get(b);
+                refs[b]++;
+                UUID attachmentId = UUID.randomUUID();
+                Timestamp at = Timestamp.from(now.minus(Duration.ofMinutes(random.nextInt(100_000))));
+                attachments.add(attachmentId, userId, "file-" + a + extension(blob.contentType()), blob.contentType(),
+                        blob.size(), blob.checksum(), blob.key(), at, at);
+                UUID taskId = all.get(random.nextInt(all.size()));
+                links.add(taskId, attachmentId, at);
+                attachmentIds.add(attachmentId);
+                attachedTasks.add(taskId);
+            }
+
+            generated.add(new UserData(userId, username, jwtUtil.generateToken(username, userId.toString()),
+                    roots, all, attachedTasks, attachmentIds));
+        }
+        links.flush();
+
+        Batch storedBlobs = new Batch("INSERT INTO stored_blob (checksum_sha256, storage_path, size_bytes, ref_count, "
+                + "created_at) VALUES (?, ?, ?, ?, ?)", spec.batchSize());
+        for (int b = 0; b < blobs.size(); b++) {
+            Blob blob = blobs.get(b);
+            storedBlobs.add(blob.checksum(), blob.key(), blob.size(), refs[b], Timestamp.from(now));
+        }
+        storedBlobs.flush();
+
+        log.info("Generated {} users, {} tasks and {} attachments in {} ms", spec.users(),
+                spec.users() * spec.tasksPerUser(), (long) spec.users() * spec.attachments(),
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+        return generated;
+    }
+
+    private UUID addTree(Batch tasks, UUID userId, UUID parentId, int order, int depth, int fanOut, Instant now,
+                         List<UUID> all) {
+        UUID id = UUID.randomUUID();
+        Instant createdAt = now.minus(Duration.ofMinutes(random.nextInt(500_000)));
+        Timestamp due = random.nextInt(3) == 0 ? null : Timestamp.from(now.plus(Duration.ofDays(random.nextInt(60) - 10)));
+        tasks.add(id, userId, "Task " + id.toString().substring(0, 8),
+                "Synthetic task at depth " + depth + " with a description of typical length for the list views",
+                Timestamp.from(createdAt), due, random.nextInt(4) == 0, order, parentId);
+        all.add(id);
+        if (depth > 0) {
+            for (int i = 0; i < fanOut; i++) {
+                addTree(tasks, userId, id, i, depth - 1, fanOut, now, all);
+            }
+        }
+        return id;
+    }
+
+    private List<Blob> storeBlobs(Spec spec) throws IOException {
+        List<Blob> blobs = new ArrayList<>(spec.distinctBlobs());
+        for (int i = 0; i < spec.distinctBlobs(); i++) {
+            boolean text = i % 2 == 0;
+            byte[] bytes = text ? text(spec.blobSize(), i) : new byte[spec.blobSize()];
+            if (!text) {
+                random.nextBytes(bytes);
+            }
+            String contentType = text ? "text/plain" : "application/octet-stream";
+            BlobStorage.StoredObject stored = blobStorage.store(new ByteArrayInputStream(bytes),
+                    "blob-" + i + extension(contentType), contentType, bytes.length);
+            blobs.add(new Blob(stored.getKey(), contentType, stored.getSize(), stored.getChecksumSha256()));
+        }
+        return blobs;
+    }
+
+    private static byte[] text(int size, int seed) {
+        StringBuilder sb = new StringBuilder(size + 64);
+        int line = 0;
+        while (sb.length() < size) {
+            sb.append("line ").append(line++).append(" of synthetic attachment ").append(seed)
+                    .append(": the quick brown fox jumps over the lazy dog\n");
+        }
+        sb.setLength(size);
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String extension(String contentType) {
+        return "text/plain".equals(contentType) ? ".txt" : ".bin";
+    }
+
+    /**
+     * Rows for one statement, sent as a JDBC batch whenever {@code size} have accumulated. The batches of
+     * the tables it references are flushed first, so foreign keys always find their rows; within the task
+     * batch the trees are added depth-first, parents before children.
+     */
+    private final class Batch {
+        private final String sql;
+        private final int size;
+        private final Batch[] parents;
+        private final List<Object[]> rows = new ArrayList<>();
+
+        private Batch(String sql, int size, Batch... parents) {
+            this.sql = sql;
+            this.size = size;
+            this.parents = parents;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+            if (rows.size() == size) {
+                flush();
+            }
+        }
+
+        void flush() {
+            for (Batch parent : parents) {
+                parent.flush();
+            }
+            if (!rows.isEmpty()) {
+                jdbc.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.todo.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Open-model load driver: requests arrive as a Poisson process at a fixed rate, whether or not earlier
+ * ones have completed, and each is sent asynchronously. Latency is measured from the moment a request
+ * was scheduled to be sent rather than from when it actually went out, so a stalled server shows up in
+ * the percentiles instead of silently lowering the offered load (coordinated omission).
+ * <p>
+ * Every arrival picks an endpoint from a weighted mix and a random generated user. Latencies are recorded
+ * per endpoint in HdrHistogram recorders with microsecond resolution; requests scheduled during warmup
+ * are sent but not recorded.
+ */
+@Slf4j
+public class LoadDriver {
+
+    /** The default request mix, roughly a client browsing its tasks and opening the odd attachment. */
+    public static final String DEFAULT_MIX = "tasks.list:30,tasks.detail:15,tasks.withSubtasks:10,tasks.create:5,"
+            + "tasks.complete:5,attachments.listForTask:10,attachments.download:15,auth.me:8,auth.login:2";
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<DatasetGenerator.UserData> users;
+    private final Map<String, Function<DatasetGenerator.UserData, HttpRequest.Builder>> endpoints = new LinkedHashMap<>();
+    private final SplittableRandom random = new SplittableRandom(7);
+
+    public record Settings(double rate, Duration warmup, Duration duration, int maxOutstanding, String mix) {}
+
+    /** Recorded results of one endpoint; latencies are in microseconds. */
+    public record Result(String endpoint, Histogram latency, long errors, String firstError, long dropped,
+                         Duration measured) {
+
+        public double throughput() {
+            return latency.getTotalCount() / (measured.toNanos() / 1e9);
+        }
+    }
+
+    private static final class Stats {
+        final Recorder latency = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final AtomicReference<String> firstError = new AtomicReference<>();
+    }
+
+    public LoadDriver(String baseUrl, List<DatasetGenerator.UserData> users) {
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(8))
+                .build();
+        registerEndpoints();
+    }
+
+    private void registerEndpoints() {
+        endpoints.put("tasks.list", u -> get(u, "/tasks?page=" + random.nextInt(5) + "&size=20&sort=createdAt,desc"));
+        endpoints.put("tasks.detail", u -> get(u, "/tasks/id/" + pick(u.taskIds()) + "/detail"));
+        endpoints.put("tasks.withSubtasks", u -> get(u, "/tasks/id/" + pick(u.rootTaskIds()) + "/with-subtasks"));
+        endpoints.put("tasks.create", u -> authorized(u, "/tasks")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"title\":\"Load task\",\"description\":\"created by the load driver\","
+                        + "\"parentTaskId\":\"" + pick(u.rootTaskIds()) + "\"}")));
+        endpoints.put("tasks.complete", u -> authorized(u, "/tasks/id/" + pick(u.taskIds()) + "/complete?value="
+                + random.nextBoolean()).method("PATCH", HttpRequest.BodyPublishers.noBody()));
+        endpoints.put("attachments.listForTask", u -> get(u, "/attachments/task/" + pick(u.attachedTaskIds())));
+        endpoints.put("attachments.download", u -> get(u, "/attachments/" + pick(u.attachmentIds()) + "/download")
+                .header("Accept-Encoding", "gzip"));
+        endpoints.put("auth.me", u -> get(u, "/auth/me"));
+        endpoints.put("auth.login", u -> HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"usernameOrEmail\":\"" + u.username()
+                        + "\",\"password\":\"" + DatasetGenerator.PASSWORD + "\"}")));
+    }
+
+    public List<Result> run(Settings settings) throws InterruptedException {
+        List<String> names = new ArrayList<>();
+        List<Integer> cumulative = new ArrayList<>();
+        int totalWeight = parseMix(settings.mix(), names, cumulative);
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        names.forEach(name -> stats.put(name, new Stats()));
+
+        AtomicInteger outstanding = new AtomicInteger();
+        long meanGapNanos = (long) (1e9 / settings.rate());
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+        log.info("Offering {} req/s for {} after {} of warmup", settings.rate(), settings.duration(), settings.warmup());
+
+        long intended = start;
+        while (intended < end) {
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            int roll = random.nextInt(totalWeight);
+            int i = 0;
+            while (cumulative.get(i) <= roll) {
+                i++;
+            }
+            String name = names.get(i);
+            Stats s = stats.get(name);
+            boolean measured = intended >= measureFrom;
+            if (outstanding.get() >= settings.maxOutstanding()) {
+                // The client cannot keep up: count the arrival instead of queueing it unboundedly
+                if (measured) {
+                    s.dropped.increment();
+                }
+            } else {
+                send(endpoints.get(name).apply(pick(users)), intended, measured, s, outstanding);
+            }
+            intended += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        if (outstanding.get() > 0) {
+            log.warn("{} requests still outstanding after the drain timeout", outstanding.get());
+        }
+
+        Duration measuredFor = settings.duration();
+        List<Result> results = new ArrayList<>();
+        stats.forEach((name, s) -> results.add(new Result(name, s.latency.getIntervalHistogram(),
+                s.errors.sum(), s.firstError.get(), s.dropped.sum(), measuredFor)));
+        return results;
+    }
+
+    private void send(HttpRequest.Builder request, long intended, boolean measured, Stats s, AtomicInteger outstanding) {
+        outstanding.incrementAndGet();
+        client.sendAsync(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    outstanding.decrementAndGet();
+                    if (!measured) {
+                        return;
+                    }
+                    s.latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended),
+                            HIGHEST_TRACKABLE_MICROS));
+                    if (failure != null) {
+                        s.errors.increment();
+                        s.firstError.compareAndSet(null, failure.toString());
+                    } else if (response.statusCode() >= 400) {
+                        s.errors.increment();
+                        s.firstError.compareAndSet(null, "HTTP " + response.statusCode() + " from " + response.uri());
+                    }
+                });
+    }
+
+    private int parseMix(String mix, List<String> names, List<Integer> cumulative) {
+        int total = 0;
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2 || !endpoints.containsKey(parts[0])) {
+                throw new IllegalArgumentException("Unknown mix entry '" + entry + "', expected one of "
+                        + endpoints.keySet() + " as name:weight");
+            }
+            int weight = Integer.parseInt(parts[1]);
+            if (weight > 0) {
+                total += weight;
+                names.add(parts[0]);
+                cumulative.add(total);
+            }
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("The request mix has no positive weights");
+        }
+        return total;
+    }
+
+    private HttpRequest.Builder get(DatasetGenerator.UserData user, String path) {
+        return authorized(user, path).GET();
+    }
+
+    private HttpRequest.Builder authorized(DatasetGenerator.UserData user, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + user.token())
+                .header("X-User-Id", user.id().toString());
+    }
+
+    private <T> T pick(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    public void shutdown() {
+        client.executor().ifPresent(executor -> ((ExecutorService) executor).shutdownNow());
+    }
+
+    /** Prints count, throughput, errors and latency percentiles (ms) per endpoint and over all of them. */
+    public static void report(List<Result> results, PrintStream out) {
+        out.printf("%n%-26s %9s %9s %7s %7s %9s %9s %9s %9s %9s%n", "endpoint", "count", "req/s", "errors",
+                "dropped", "p50", "p90", "p99", "p99.9", "max");
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long errors = 0;
+        long dropped = 0;
+        Duration measured = Duration.ZERO;
+        for (Result r : results) {
+            row(out, r.endpoint(), r.latency(), r.throughput(), r.errors(), r.dropped());
+            total.add(r.latency());
+            errors += r.errors();
+            dropped += r.dropped();
+            measured = r.measured();
+        }
+        row(out, "total", total, new Result("total", total, errors, null, dropped, measured).throughput(), errors,
+                dropped);
+        for (Result r : results) {
+            if (r.firstError() != null) {
+                out.printf("first error of %s: %s%n", r.endpoint(), r.firstError());
+            }
+        }
+    }
+
+    private static void row(PrintStream out, String name, Histogram h, double rps, long errors, long dropped) {
+        out.printf("%-26s %9d %9.1f %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, h.getTotalCount(), rps, errors,
+                dropped, ms(h, 50), ms(h, 90), ms(h, 99), ms(h, 99.9), h.getMaxValue() / 1000.0);
+    }
+
+    private static double ms(Histogram h, double percentile) {
+        return h.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /** Writes one percentile distribution file per endpoint, loadable in the HdrHistogram plotter. */
+    public static void writeDistributions(List<Result> results, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        for (Result r : results) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(r.endpoint() + ".hgrm")))) {
+                // Values are in microseconds; scale so the file reads in milliseconds
+                r.latency().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.todo.load;
+
+import com.todo.TodoApplication;
+import com.todo.storage.BlobStorage;
+import com.todo.util.JwtUtil;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end load test: boots the application on a random local port against an in-memory H2 database
+ * and in-memory blob storage, fills it with {@link DatasetGenerator}, replays the request mix with
+ * {@link LoadDriver} and prints per-endpoint throughput and latency percentiles. Nothing outside the JVM
+ * is needed.
+ * <p>
+ * Arguments are {@code key=value} pairs, for example {@code users=200 depth=3 rate=500 duration=PT1M}.
+ * With {@code jdbc-url} (plus {@code jdbc-user} and {@code jdbc-password}) the application runs against an
+ * existing, empty Postgres database instead, with its schema created by the Flyway migrations. Arguments
+ * starting with {@code --} are passed on to the application as property overrides.
+ */
+public final class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("users", "100"),
+            Map.entry("roots", "10"),
+            Map.entry("depth", "2"),
+            Map.entry("fanout", "3"),
+            Map.entry("attachments", "5"),
+            Map.entry("distinct-blobs", "16"),
+            Map.entry("blob-size", "65536"),
+            Map.entry("batch", "500"),
+            Map.entry("rate", "200"),
+            Map.entry("warmup", "PT10S"),
+            Map.entry("duration", "PT30S"),
+            Map.entry("max-outstanding", "1000"),
+            Map.entry("mix", LoadDriver.DEFAULT_MIX),
+            Map.entry("hgrm-dir", "target/loadtest"));
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        List<String> springArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                springArgs.add(arg);
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got '" + arg + "'");
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        // Devtools would relaunch main in a restart class loader with the application arguments instead of ours
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TodoApplication.class)
+                .run(applicationArgs(options, springArgs))) {
+            String port = context.getEnvironment().getRequiredProperty("local.server.port");
+            String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+            String baseUrl = "http://127.0.0.1:" + port + contextPath;
+
+            DatasetGenerator generator = new DatasetGenerator(context.getBean(JdbcTemplate.class),
+                    context.getBean(BlobStorage.class), context.getBean(PasswordEncoder.class),
+                    context.getBean(JwtUtil.class));
+            List<DatasetGenerator.UserData> users = generator.generate(new DatasetGenerator.Spec(
+                    integer(options, "users"), integer(options, "roots"), integer(options, "depth"),
+                    integer(options, "fanout"), integer(options, "attachments"), integer(options, "distinct-blobs"),
+                    integer(options, "blob-size"), integer(options, "batch")));
+
+            LoadDriver driver = new LoadDriver(baseUrl, users);
+            try {
+                List<LoadDriver.Result> results = driver.run(new LoadDriver.Settings(
+                        Double.parseDouble(options.get("rate")), Duration.parse(options.get("warmup")),
+                        Duration.parse(options.get("duration")), integer(options, "max-outstanding"),
+                        options.get("mix")));
+                LoadDriver.report(results, System.out);
+                if (!options.get("hgrm-dir").isBlank()) {
+                    LoadDriver.writeDistributions(results, Path.of(options.get("hgrm-dir")));
+                }
+            } finally {
+                driver.shutdown();
+            }
+        }
+    }
+
+    private static String[] applicationArgs(Map<String, String> options, List<String> overrides) {
+        List<String> props = new ArrayList<>(List.of(
+                "server.port=0",
+                "server.address=127.0.0.1",
+                "server.ssl.enabled=false",
+                "spring.main.banner-mode=off",
+                "spring.dotenv.enabled=false",
+                "spring.cloud.aws.enabled=false",
+                "spring.cloud.aws.s3.enabled=false",
+                "STORAGE_TYPE=memory",
+                "app.storage.type=memory",
+                "app.outbox.relay.enabled=false",
+                "app.storage.gc.enabled=false",
+                "app.quota.reconcile.enabled=false",
+                "jwt.secret=load-test-jwt-secret-key-not-for-production-use",
+                "jwt.expiration=86400000",
+                "logging.level.root=WARN",
+                "logging.level.ACCESS_LOG=WARN",
+                "logging.level.com.todo.load=INFO"));
+        String jdbcUrl = options.get("jdbc-url");
+        if (jdbcUrl == null) {
+            // The migrations rely on Postgres extensions, so on H2 Hibernate creates the same tables instead
+            props.addAll(List.of(
+                    "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                    "spring.datasource.driver-class-name=org.h2.Driver",
+                    "spring.datasource.username=sa",
+                    "spring.datasource.password=",
+                    "spring.jpa.hibernate.ddl-auto=create",
+                    "spring.flyway.enabled=false"));
+        } else {
+            props.addAll(List.of(
+                    "spring.datasource.url=" + jdbcUrl,
+                    "spring.datasource.username=" + options.getOrDefault("jdbc-user", ""),
+                    "spring.datasource.password=" + options.getOrDefault("jdbc-password", ""),
+                    "spring.jpa.hibernate.ddl-auto=validate",
+                    "spring.flyway.enabled=true"));
+        }
+        List<String> args = new ArrayList<>(props.stream().map(p -> "--" + p).toList());
+        args.addAll(overrides);
+        return args.toArray(String[]::new);
+    }
+
+    private static int integer(Map<String, String> options, String key) {
+        return Integer.parseInt(options.get(key));
+    }
+}
@@ -0,0 +1,27 @@
+package com.todo.api.dto;
+
+import com.todo.storage.BlobContent;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Result of opening an attachment for download: its metadata plus the open byte stream.
+ * Never serialized; the controller streams {@link #content} and closes it. When {@link #notModified}
+ * is set the client's copy is current and there is no content.
+ */
+@Getter
+@Builder
+public class AttachmentDownload {
+    private final AttachmentInfo info;
+    private final BlobContent content;
+
+    // Inclusive byte range served, and the full object size (for Content-Range)
+    private final long rangeStart;
+    private final long rangeEnd;
+    private final long totalSize;
+    private final boolean partial;
+
+    // Strong entity tag of the representation sent, null for content without a checksum
+    private final String etag;
+    private final boolean notModified;
+}
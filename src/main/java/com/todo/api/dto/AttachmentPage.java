@@ -0,0 +1,17 @@
+package com.todo.api.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One keyset page of attachments. {@link #nextCursor} is null on the last page; the controller sends it
+ * as headers, so the response body stays a plain list.
+ */
+@Getter
+@Builder
+public class AttachmentPage {
+    private final List<AttachmentInfo> items;
+    private final String nextCursor;
+}
@@ -0,0 +1,15 @@
+package com.todo.api.dto;
+
+import com.todo.storage.BlobContent;
+import lombok.Builder;
+import lombok.Getter;
+
+/** An open thumbnail stream. Never serialized; the controller streams {@link #content} and closes it. */
+@Getter
+@Builder
+public class AttachmentThumbnail {
+    private final String contentType;
+    private final int width;
+    private final int height;
+    private final BlobContent content;
+}
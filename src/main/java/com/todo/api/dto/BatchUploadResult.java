@@ -0,0 +1,28 @@
+package com.todo.api.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Outcome of a multi-file upload, one item per file in request order. Files fail independently, so a
+ * batch can partly succeed; check each item's {@code status}.
+ */
+@Getter
+@Builder
+public class BatchUploadResult {
+    private final int succeeded;
+    private final int failed;
+    private final List<Item> items;
+
+    @Getter
+    @Builder
+    public static class Item {
+        private final String fileName;
+        /** HTTP status this file would have had as a single upload. */
+        private final int status;
+        private final AttachmentInfo attachment;
+        private final String error;
+    }
+}
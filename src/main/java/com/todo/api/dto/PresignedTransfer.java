@@ -0,0 +1,19 @@
+package com.todo.api.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/** A signed request the client sends straight to the object store. */
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class PresignedTransfer {
+    private UUID uploadId; // only set for uploads; pass to the confirm call
+    private String method;
+    private String url;
+    private Map<String, String> headers;
+    private Instant expiresAt;
+}
@@ -0,0 +1,18 @@
+package com.todo.api.dto;
+
+import com.todo.storage.ZipBundleStreamer;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The attachments of one task, resolved and access-checked before the ZIP response starts, so errors
+ * can still be reported with a status code.
+ */
+@Getter
+@Builder
+public class TaskArchive {
+    private final String fileName;
+    private final List<ZipBundleStreamer.Entry> entries;
+}
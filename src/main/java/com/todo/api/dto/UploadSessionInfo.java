@@ -0,0 +1,19 @@
+package com.todo.api.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** State of a resumable upload: the next chunk must start at {@link #offset}. */
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class UploadSessionInfo {
+    private UUID id;
+    private String fileName;
+    private String contentType;
+    private long length;
+    private long offset;
+    private Instant expiresAt;
+}
@@ -3,6 +3,9 @@ package com.todo.api.mapper;
 import com.todo.api.dto.AttachmentInfo;
 import com.todo.entity.Attachment;
 
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 public final class AttachmentMapper {
@@ -32,5 +35,32 @@ public final class AttachmentMapper {
                 .taskId(taskId)
                 .build();
     }
-}
 
+    /** Maps a row of {@code AttachmentRepository.findPageWithFirstTask}. */
+    public static AttachmentInfo fromListRow(Object[] row) {
+        return AttachmentInfo.builder()
+                .id((UUID) row[0])
+                .fileName((String) row[1])
+                .contentType((String) row[2])
+                .sizeBytes(((Number) row[3]).longValue())
+                .checksumSha256((String) row[4])
+                .createdAt(toInstant(row[5]))
+                .updatedAt(toInstant(row[6]))
+                .taskId((UUID) row[7])
+                .build();
+    }
+
+    // Native queries return timestamptz as OffsetDateTime or Timestamp depending on driver and dialect
+    private static Instant toInstant(Object value) {
+        if (value == null || value instanceof Instant) {
+            return (Instant) value;
+        }
+        if (value instanceof OffsetDateTime odt) {
+            return odt.toInstant();
+        }
+        if (value instanceof Timestamp ts) {
+            return ts.toInstant();
+        }
+        throw new IllegalArgumentException("Unexpected timestamp type " + value.getClass().getName());
+    }
+}
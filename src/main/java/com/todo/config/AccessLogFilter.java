@@ -0,0 +1,222 @@
+package com.todo.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Writes exactly one structured (JSON) access-log record per request to the {@code ACCESS_LOG} logger.
+ * The logger is routed through a bounded, non-blocking async appender (see logback-spring.xml), so the
+ * request thread only pays for building the record, never for I/O.
+ * Verbose fields (query string, user agent, headers) are only included for a sampled fraction of
+ * requests and for every failed request; sensitive headers are always redacted.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    public static final String ACCESS_LOGGER = "ACCESS_LOG";
+
+    private static final Logger accessLog = LoggerFactory.getLogger(ACCESS_LOGGER);
+    private static final String REDACTED = "[REDACTED]";
+
+    private final double sampleRate;
+    private final Set<String> redactHeaders;
+
+    public AccessLogFilter(
+            @Value("${app.access-log.sample-rate:0.01}") double sampleRate,
+            @Value("${app.access-log.redact-headers:authorization,cookie,set-cookie,proxy-authorization,x-api-key}")
+            List<String> redactHeaders) {
+        this.sampleRate = sampleRate;
+        this.redactHeaders = redactHeaders.stream()
+                .map(h -> h.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!accessLog.isInfoEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (failure == null && request.isAsyncStarted()) {
+                // Streaming responses finish on another thread; log once the exchange actually completes
+                request.getAsyncContext().addListener(new CompletionListener(request, response, start));
+            } else {
+                write(request, response, start, failure);
+            }
+        }
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, long start, Throwable failure) {
+        try {
+            accessLog.info(buildRecord(request, response, start, failure));
+        } catch (RuntimeException e) {
+            // Access logging must never break a request
+            log.warn("Failed to write access log record: {}", e.toString());
+        }
+    }
+
+    String buildRecord(HttpServletRequest request, HttpServletResponse response, long start, Throwable failure) {
+        int status = failure != null ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+        long durationMicros = (System.nanoTime() - start) / 1_000;
+        String method = request.getMethod();
+
+        StringBuilder sb = new StringBuilder(256);
+        sb.append('{');
+        field(sb, "method", method);
+        field(sb, "path", request.getRequestURI());
+        sb.append(",\"status\":").append(status);
+        sb.append(",\"durationMs\":").append(durationMicros / 1000.0);
+        sb.append(",\"requestBytes\":").append(request.getContentLengthLong());
+        field(sb, "remote", request.getRemoteAddr());
+        field(sb, "userId", request.getHeader("X-User-Id"));
+        if (failure != null) {
+            field(sb, "error", failure.getClass().getName());
+        }
+        if (hasControlCharacters(method)) {
+            sb.append(",\"suspicious\":true");
+        }
+
+        if (status >= 500 || failure != null || sampled()) {
+            field(sb, "query", request.getQueryString());
+            field(sb, "userAgent", request.getHeader("User-Agent"));
+            field(sb, "contentType", request.getContentType());
+            appendHeaders(sb, request);
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    private void appendHeaders(StringBuilder sb, HttpServletRequest request) {
+        sb.append(",\"headers\":{");
+        boolean first = true;
+        Enumeration<String> names = request.getHeaderNames();
+        while (names != null && names.hasMoreElements()) {
+            String name = names.nextElement();
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append('"');
+            escape(sb, name);
+            sb.append("\":\"");
+            escape(sb, redactHeaders.contains(name.toLowerCase(Locale.ROOT)) ? REDACTED : request.getHeader(name));
+            sb.append('"');
+        }
+        sb.append('}');
+    }
+
+    private static void field(StringBuilder sb, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        if (sb.length() > 1) {
+            sb.append(',');
+        }
+        sb.append('"').append(name).append("\":\"");
+        escape(sb, value);
+        sb.append('"');
+    }
+
+    private static void escape(StringBuilder sb, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20 || c == 0x7F) {
+                        sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean hasControlCharacters(String method) {
+        if (method == null) {
+            return false;
+        }
+        for (int i = 0; i < method.length(); i++) {
+            char c = method.charAt(i);
+            if (c < 0x20 || c >= 0x7F) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class CompletionListener implements AsyncListener {
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final long start;
+        private Throwable failure;
+
+        private CompletionListener(HttpServletRequest request, HttpServletResponse response, long start) {
+            this.request = request;
+            this.response = response;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            write(request, response, start, failure);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            failure = event.getThrowable();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
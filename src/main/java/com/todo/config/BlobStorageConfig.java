@@ -0,0 +1,79 @@
+package com.todo.config;
+
+import com.todo.storage.BlobStorage;
+import com.todo.storage.BlobStorageImpl.LocalBlobStorageImpl;
+import com.todo.storage.CachingBlobStorage;
+import com.todo.storage.CompressingBlobStorage;
+import com.todo.storage.MeteredBlobStorage;
+import com.todo.storage.TieredBlobStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Assembles the {@link BlobStorage} every consumer gets: the configured backend, wrapped in a read-through
+ * {@link CachingBlobStorage} when it is S3, and then in {@link CompressingBlobStorage}. Compression sits
+ * outermost so the cache holds the smaller stored bytes. The backend bean stays available under the
+ * {@code blobStorageBackend} qualifier. The finished chain is wrapped in {@link MeteredBlobStorage}, so its
+ * timers show storage latency as requests see it, cache hits included.
+ * <p>
+ * With {@code app.storage.tiering.enabled}, S3 becomes the cold tier of a {@link TieredBlobStorage} instead,
+ * and there is no cache: the local tier already serves recently used objects from disk.
+ */
+@Configuration
+public class BlobStorageConfig {
+
+    public static final String BACKEND = "blobStorageBackend";
+
+    @Bean
+    @ConditionalOnExpression("'${app.storage.type:local}' == 's3' && ${app.storage.tiering.enabled:false}")
+    public TieredBlobStorage tieredBlobStorage(
+            @Qualifier(BACKEND) BlobStorage backend,
+            @Value("${app.storage.tiering.local-dir:${app.storage.root-dir:./uploads}}") String localDir) throws IOException {
+        return new TieredBlobStorage(new LocalBlobStorageImpl(localDir), backend);
+    }
+
+    @Bean
+    @Primary
+    public BlobStorage blobStorage(
+            @Qualifier(BACKEND) BlobStorage backend,
+            ObjectProvider<TieredBlobStorage> tiered,
+            MeterRegistry registry,
+            @Value("${app.storage.type:local}") String type,
+            @Value("${app.storage.cache.enabled:true}") boolean cacheEnabled,
+            @Value("${app.storage.cache.dir:${java.io.tmpdir}/blob-cache}") Path dir,
+            @Value("${app.storage.cache.memory.max-object-size:64KB}") DataSize memoryMaxObjectSize,
+            @Value("${app.storage.cache.memory.max-size:32MB}") DataSize memoryMaxSize,
+            @Value("${app.storage.cache.disk.max-object-size:64MB}") DataSize diskMaxObjectSize,
+            @Value("${app.storage.cache.disk.max-size:2GB}") DataSize diskMaxSize,
+            @Value("${app.storage.cache.fill-concurrency:8}") int cacheFillConcurrency,
+            @Value("${app.storage.compression.enabled:true}") boolean compressionEnabled,
+            @Value("${app.storage.compression.min-size:1KB}") DataSize compressionMinSize,
+            @Value("${app.storage.compression.level:6}") int compressionLevel,
+            @Value("${app.storage.compression.max-ratio:0.9}") double compressionMaxRatio) throws IOException {
+        BlobStorage storage = tiered.getIfAvailable();
+        if (storage == null) {
+            storage = backend;
+            if ("s3".equals(type) && cacheEnabled) {
+                storage = new CachingBlobStorage(storage, dir,
+                        memoryMaxObjectSize.toBytes(), memoryMaxSize.toBytes(),
+                        diskMaxObjectSize.toBytes(), diskMaxSize.toBytes(),
+                        cacheFillConcurrency, registry);
+            }
+        }
+        if (compressionEnabled) {
+            storage = new CompressingBlobStorage(storage, compressionMinSize.toBytes(), compressionLevel,
+                    compressionMaxRatio);
+        }
+        return new MeteredBlobStorage(storage, registry);
+    }
+}
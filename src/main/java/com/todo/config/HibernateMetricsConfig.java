@@ -0,0 +1,59 @@
+package com.todo.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes Hibernate's session factory statistics: statements and queries executed, entity and collection
+ * loads and fetches, and second-level cache hits, misses and puts. Fetches are the lazy loads triggered by
+ * navigating associations, so a fetch count growing with the result size is the usual sign of an N+1.
+ * <p>
+ * The counters are read from {@link Statistics} when the registry is scraped; nothing runs per query beyond
+ * Hibernate's own bookkeeping, which {@code hibernate.generate_statistics} turns on.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.generate_statistics", havingValue = "true")
+public class HibernateMetricsConfig {
+
+    @Bean
+    public MeterBinder hibernateMetrics(EntityManagerFactory entityManagerFactory) {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            counter(registry, "hibernate.statements", "JDBC statements prepared", stats,
+                    Statistics::getPrepareStatementCount);
+            counter(registry, "hibernate.query.executions", "HQL and criteria queries executed", stats,
+                    Statistics::getQueryExecutionCount);
+            counter(registry, "hibernate.entities.loads", "Entities loaded from the database", stats,
+                    Statistics::getEntityLoadCount);
+            counter(registry, "hibernate.entities.fetches", "Entities fetched lazily through an association", stats,
+                    Statistics::getEntityFetchCount);
+            counter(registry, "hibernate.collections.loads", "Collections loaded from the database", stats,
+                    Statistics::getCollectionLoadCount);
+            counter(registry, "hibernate.collections.fetches", "Collections fetched lazily on first access", stats,
+                    Statistics::getCollectionFetchCount);
+            FunctionCounter.builder("hibernate.second.level.cache.requests", stats, Statistics::getSecondLevelCacheHitCount)
+                    .description("Second-level cache lookups").tag("result", "hit").register(registry);
+            FunctionCounter.builder("hibernate.second.level.cache.requests", stats, Statistics::getSecondLevelCacheMissCount)
+                    .description("Second-level cache lookups").tag("result", "miss").register(registry);
+            counter(registry, "hibernate.second.level.cache.puts", "Entries put into the second-level cache", stats,
+                    Statistics::getSecondLevelCachePutCount);
+            Gauge.builder("hibernate.query.executions.max", stats, Statistics::getQueryExecutionMaxTime)
+                    .description("Slowest query execution so far").baseUnit("milliseconds").register(registry);
+        };
+    }
+
+    private static void counter(MeterRegistry registry, String name, String description,
+                                Statistics stats, ToDoubleFunction<Statistics> count) {
+        FunctionCounter.builder(name, stats, count).description(description).register(registry);
+    }
+}
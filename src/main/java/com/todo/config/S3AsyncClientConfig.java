@@ -0,0 +1,48 @@
+package com.todo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.providers.AwsRegionProvider;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * The non-blocking S3 client behind the async reads of {@code S3BlobStorageImpl}. It shares region,
+ * credentials and endpoint settings with the blocking client Spring Cloud AWS configures, and runs on a
+ * Netty event loop with its own connection pool, sized to the storage's in-flight cap.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "s3")
+public class S3AsyncClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public S3AsyncClient s3AsyncClient(
+            AwsCredentialsProvider credentials,
+            AwsRegionProvider region,
+            @Value("${spring.cloud.aws.s3.endpoint:}") String endpoint,
+            @Value("${spring.cloud.aws.s3.path-style-access-enabled:false}") boolean pathStyle,
+            @Value("${app.storage.s3.async.max-in-flight:64}") int maxConcurrency,
+            @Value("${app.storage.s3.async.connection-acquire-timeout:PT5S}") Duration acquireTimeout,
+            @Value("${app.storage.s3.async.read-timeout:PT30S}") Duration readTimeout) {
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                .credentialsProvider(credentials)
+                .region(region.getRegion())
+                .forcePathStyle(pathStyle)
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxConcurrency)
+                        .connectionAcquisitionTimeout(acquireTimeout)
+                        .readTimeout(readTimeout));
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.todo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on {@code @Scheduled} background jobs (e.g. the orphan blob collector). Each job has its own
+ * {@code enabled} switch, so this only provides the scheduler.
+ * <p>
+ * The scheduler's pool ({@code spring.task.scheduling.pool.size}) has a thread for every job. A job blocks
+ * its thread until it returns, and with fewer threads than jobs a long sweep would delay the others.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -58,6 +58,8 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(Arrays.asList("*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // Paged listings link the next page in these; browsers hide them from cross-origin callers otherwise
+        configuration.setExposedHeaders(Arrays.asList("X-Next-Cursor", "Link"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
@@ -0,0 +1,83 @@
+package com.todo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements each request runs (see {@link SqlStatementCounter}) into the
+ * {@code http.server.requests.statements} summary, tagged like the request timers by method and URI
+ * template. Requests running more than {@code app.sql.budget.max-statements} are logged with the
+ * statement that repeated most, which for an N+1 is the per-row query, and counted in
+ * {@code sql.budget.exceeded}.
+ * <p>
+ * Statements run while an async result is rendered are not included; the database work of async
+ * requests happens before the request thread is released.
+ */
+@Component
+@Slf4j
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final int maxStatements;
+    private final MeterRegistry registry;
+
+    // Web slices without metrics auto-configuration still create this filter; it then records into a private registry
+    public SqlBudgetFilter(@Value("${app.sql.budget.max-statements:20}") int maxStatements,
+                           ObjectProvider<MeterRegistry> registries) {
+        this.maxStatements = maxStatements;
+        this.registry = registries.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementCounter.Scope scope = SqlStatementCounter.open();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+            record(request, scope);
+        }
+    }
+
+    void record(HttpServletRequest request, SqlStatementCounter.Scope scope) {
+        // The matched pattern is only known once the request was dispatched; unmatched paths share one tag
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : UNKNOWN_URI;
+        int count = scope.count();
+        DistributionSummary.builder("http.server.requests.statements")
+                .description("SQL statements run per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(registry)
+                .record(count);
+        if (count > maxStatements) {
+            Counter.builder("sql.budget.exceeded")
+                    .description("Requests that ran more SQL statements than the budget allows")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(registry)
+                    .increment();
+            scope.mostRepeated().ifPresentOrElse(
+                    shape -> log.warn("{} {} ran {} SQL statements (budget {}); repeated {} times: {}",
+                            request.getMethod(), uri, count, maxStatements, shape.count(), shape.sql()),
+                    () -> log.warn("{} {} ran {} SQL statements (budget {})",
+                            request.getMethod(), uri, count, maxStatements));
+        }
+    }
+}
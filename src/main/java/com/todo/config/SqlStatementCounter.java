@@ -0,0 +1,100 @@
+package com.todo.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Counts the SQL Hibernate sends on the current thread while a {@link Scope} is open, so a unit of work
+ * (an HTTP request, a test) can be held to a statement budget. Statements are also tallied by shape, so
+ * the query that ran once per row of an N+1 stands out as the most repeated one.
+ * <p>
+ * Registered as Hibernate's statement inspector; it leaves the SQL unchanged. Outside a scope it costs a
+ * thread-local lookup per statement. Only statements going through Hibernate are seen, which is every
+ * query this application runs.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    // Bounds the memory of a scope that runs many different statements; the count itself stays exact
+    private static final int MAX_DISTINCT_STATEMENTS = 256;
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\((\\s*\\?\\s*,)+\\s*\\?\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    /** A repeated statement: its normalized SQL and how often it ran. */
+    public record Shape(String sql, int count) {}
+
+    @Override
+    public String inspect(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.record(sql);
+        }
+        return sql;
+    }
+
+    /** Starts counting on this thread. Scopes nest; closing one restores the enclosing scope. */
+    public static Scope open() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /** The SQL with whitespace collapsed and bind-parameter lists of any length written as one. */
+    static String shape(String sql) {
+        String collapsed = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return IN_LIST.matcher(collapsed).replaceAll("in (?...)");
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final Scope enclosing;
+        private int count;
+        // Keyed by the exact SQL: Hibernate renders the same query identically, so shapes are only
+        // computed when a report is asked for
+        private final Map<String, Integer> statements = new HashMap<>();
+
+        private Scope(Scope enclosing) {
+            this.enclosing = enclosing;
+        }
+
+        private void record(String sql) {
+            count++;
+            if (statements.size() < MAX_DISTINCT_STATEMENTS || statements.containsKey(sql)) {
+                statements.merge(sql, 1, Integer::sum);
+            }
+            if (enclosing != null) {
+                enclosing.record(sql);
+            }
+        }
+
+        public int count() {
+            return count;
+        }
+
+        /** The statement shape that ran most often, if any ran more than once. */
+        public Optional<Shape> mostRepeated() {
+            Map<String, Integer> shapes = new LinkedHashMap<>();
+            statements.forEach((sql, n) -> shapes.merge(shape(sql), n, Integer::sum));
+            return shapes.entrySet().stream()
+                    .filter(e -> e.getValue() > 1)
+                    .max(Comparator.comparingInt(Map.Entry::getValue))
+                    .map(e -> new Shape(e.getKey(), e.getValue()));
+        }
+
+        @Override
+        public void close() {
+            if (enclosing != null) {
+                CURRENT.set(enclosing);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
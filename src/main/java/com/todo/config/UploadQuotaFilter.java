@@ -0,0 +1,82 @@
+package com.todo.config;
+
+import com.todo.service.QuotaService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Refuses multipart attachment uploads that cannot fit in the user's quota from their {@code Content-Length}
+ * alone, before the body is read, so nothing is parsed or streamed to storage. The length includes the
+ * multipart framing, a few hundred bytes more than the file. Uploads without a length, or that pass here,
+ * are still held to the quota when the attachment is saved.
+ */
+@Component
+public class UploadQuotaFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+
+    private final QuotaService quotaService;
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public UploadQuotaFilter(QuotaService quotaService,
+                             @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver) {
+        this.quotaService = quotaService;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        if (!"POST".equals(request.getMethod()) || contentType == null
+                || !contentType.toLowerCase(Locale.ROOT).startsWith(MediaType.MULTIPART_FORM_DATA_VALUE)) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.equals("/attachments") && !PATHS.match("/attachments/task/*", path)
+                && !PATHS.match("/attachments/task/*/batch", path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        UUID userId = userId(request);
+        if (userId != null) {
+            try {
+                quotaService.checkUpload(userId, request.getContentLengthLong());
+            } catch (ResponseStatusException e) {
+                // Do not wait for a body that will never be read
+                response.setHeader(HttpHeaders.CONNECTION, "close");
+                exceptionResolver.resolveException(request, response, null, e);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // A missing or malformed header is left for the controller to reject
+    private static UUID userId(HttpServletRequest request) {
+        String header = request.getHeader("X-User-Id");
+        if (header == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(header.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
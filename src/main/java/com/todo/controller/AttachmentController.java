@@ -1,9 +1,16 @@
 package com.todo.controller;
 
+import com.todo.api.dto.AttachmentDownload;
 import com.todo.api.dto.AttachmentInfo;
+import com.todo.api.dto.AttachmentPage;
+import com.todo.api.dto.AttachmentThumbnail;
+import com.todo.api.dto.BatchUploadResult;
 import com.todo.entity.User;
 import com.todo.service.AttachmentService;
+import com.todo.service.ThumbnailService;
 import com.todo.service.UserService;
+import com.todo.storage.BlobContent;
+import com.todo.util.PaginationUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,15 +21,26 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 @RestController
@@ -33,6 +51,10 @@ import java.util.UUID;
 public class AttachmentController {
     private final AttachmentService attachmentService;
     private final UserService userService;
+    private final ThumbnailService thumbnailService;
+
+    @Value("${app.attachments.download.max-age:P365D}")
+    private Duration downloadMaxAge;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(
@@ -69,6 +91,26 @@ public class AttachmentController {
         return ResponseEntity.ok(attachmentService.uploadAndAttach(taskId, file, userId));
     }
 
+    @PostMapping(path = "/task/{taskId}/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(
+        summary = "Upload many files for task",
+        description = "Upload several files in one request and attach them to a task. Files are stored in "
+            + "parallel and succeed or fail individually; each item of the result carries its own status."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Per-file results, possibly including failures"),
+        @ApiResponse(responseCode = "400", description = "No files, or too many files"),
+        @ApiResponse(responseCode = "404", description = "Task not found"),
+        @ApiResponse(responseCode = "413", description = "Storage quota exceeded"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<BatchUploadResult> uploadBatchForTask(
+            @Parameter(description = "Task ID") @PathVariable UUID taskId,
+            @Parameter(description = "Files to upload") @RequestPart("files") List<MultipartFile> files,
+            @RequestHeader("X-User-Id") UUID userId) {
+        return ResponseEntity.ok(attachmentService.uploadBatch(taskId, files, userId));
+    }
+
     @GetMapping("/task/{taskId}")
     @Operation(
         summary = "List task attachments",
@@ -90,16 +132,24 @@ public class AttachmentController {
     @GetMapping("/")
     @Operation(
             summary = "List user attachments",
-            description = "Get all attachments for the current user"
+            description = "Get the current user's attachments, newest first, one page at a time. "
+                    + "The next page is linked from the Link (rel=\"next\") and X-Next-Cursor headers."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Attachments retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor"),
             @ApiResponse(responseCode = "404", description = "User not found"),
             @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
     public ResponseEntity<List<AttachmentInfo>> listForUser(
+            @Parameter(description = "Cursor from the previous page's X-Next-Cursor header")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (1-100)") @RequestParam(defaultValue = "50") int limit,
             @RequestHeader("X-User-Id") UUID userId) {
-        return ResponseEntity.ok(attachmentService.listByUser(userId));
+        AttachmentPage page = attachmentService.listByUser(userId, cursor, limit);
+        return ResponseEntity.ok()
+                .headers(PaginationUtils.buildCursorHeaders(page.getNextCursor()))
+                .body(page.getItems());
     }
 
 
@@ -139,24 +189,169 @@ public class AttachmentController {
     @GetMapping("/{id}/download")
     @Operation(
         summary = "Download file",
-        description = "Download a file attachment"
+        description = "Stream a file attachment. Supports a single HTTP Range for partial (206) responses, "
+            + "and If-None-Match against the checksum-based ETag (304)."
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "File downloaded successfully", 
                     content = @Content(mediaType = "application/octet-stream")),
+        @ApiResponse(responseCode = "206", description = "Requested byte range returned",
+                    content = @Content(mediaType = "application/octet-stream")),
+        @ApiResponse(responseCode = "304", description = "If-None-Match matches; the cached copy is current"),
         @ApiResponse(responseCode = "404", description = "File not found"),
+        @ApiResponse(responseCode = "416", description = "Requested range not satisfiable"),
+        @ApiResponse(responseCode = "503", description = "Storage busy or not answering; retry later"),
         @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
-    public ResponseEntity<byte[]> download(
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> download(
             @Parameter(description = "Attachment ID") @PathVariable UUID id,
-            @RequestHeader("X-User-Id") UUID userId) throws IOException {
-        AttachmentInfo info = attachmentService.getInfo(id, userId);
-        byte[] bytes = attachmentService.loadBytes(id, userId);
-        return ResponseEntity.ok()
+            @RequestHeader("X-User-Id") UUID userId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // The request thread is released while the store opens the content
+        DeferredResult<ResponseEntity<StreamingResponseBody>> result = new DeferredResult<>();
+        attachmentService.openDownload(id, userId, singleRange(rangeHeader), acceptsGzip(acceptEncoding), ifNoneMatch)
+                .whenComplete((download, failure) -> {
+                    if (failure != null) {
+                        result.setErrorResult(failure instanceof CompletionException && failure.getCause() != null
+                                ? failure.getCause() : failure);
+                    } else if (!result.setResult(toResponse(download)) && download.getContent() != null) {
+                        // Timed out or disconnected meanwhile; nothing will stream it
+                        closeQuietly(download.getContent());
+                    }
+                });
+        return result;
+    }
+
+    private ResponseEntity<StreamingResponseBody> toResponse(AttachmentDownload download) {
+        // Stored content never changes, so clients may keep it without revalidating until max-age
+        CacheControl cacheControl = download.getEtag() != null
+                ? CacheControl.maxAge(downloadMaxAge).cachePrivate().immutable()
+                : CacheControl.noCache().cachePrivate();
+        if (download.isNotModified()) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(download.getEtag())
+                    .cacheControl(cacheControl)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        AttachmentInfo info = download.getInfo();
+        BlobContent content = download.getContent();
+
+        StreamingResponseBody body = out -> {
+            try (content) {
+                content.transferTo(out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = download.isPartial()
+                ? ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes " + download.getRangeStart() + "-"
+                                + download.getRangeEnd() + "/" + download.getTotalSize())
+                : ResponseEntity.ok();
+        // Content stored compressed is sent as-is to clients that accept it; Content-Length is then the encoded size
+        if (content.getContentEncoding() != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, content.getContentEncoding());
+        }
+        return response
                 .contentType(MediaType.parseMediaType(info.getContentType()))
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + info.getFileName() + "\"")
-                .contentLength(bytes.length)
-                .body(bytes);
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .eTag(download.getEtag())
+                .cacheControl(cacheControl)
+                .contentLength(content.getLength())
+                .body(body);
+    }
+
+    private static void closeQuietly(BlobContent content) {
+        try {
+            content.close();
+        } catch (IOException e) {
+            log.warn("Failed to close unsent download content", e);
+        }
+    }
+
+    // True if the client lists gzip (or *) without q=0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            if (!coding.equals("gzip") && !coding.equals("x-gzip") && !coding.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim().toLowerCase(Locale.ROOT);
+                if (param.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Only a single range is served as 206; malformed or multi-range requests get the whole file (RFC 9110 allows this)
+    private static HttpRange singleRange(String rangeHeader) {
+        if (rangeHeader == null || rangeHeader.isBlank()) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @GetMapping("/{id}/thumbnail")
+    @Operation(
+        summary = "Get thumbnail",
+        description = "Stream a downscaled preview of an image attachment, fitting the requested size (px, longer side)"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Thumbnail returned",
+                    content = @Content(mediaType = "image/jpeg")),
+        @ApiResponse(responseCode = "202", description = "Thumbnail is still being generated; retry later"),
+        @ApiResponse(responseCode = "400", description = "Invalid size"),
+        @ApiResponse(responseCode = "404", description = "File not found or not an image"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<StreamingResponseBody> thumbnail(
+            @Parameter(description = "Attachment ID") @PathVariable UUID id,
+            @Parameter(description = "Longest side in pixels") @RequestParam(defaultValue = "128") int size,
+            @RequestHeader("X-User-Id") UUID userId) throws IOException {
+        if (size < 1 || size > 4096) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and 4096");
+        }
+        Optional<AttachmentThumbnail> thumbnail = thumbnailService.open(id, userId, size);
+        if (thumbnail.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).header(HttpHeaders.RETRY_AFTER, "2").build();
+        }
+
+        BlobContent content = thumbnail.get().getContent();
+        StreamingResponseBody body = out -> {
+            try (content) {
+                content.transferTo(out);
+            }
+        };
+        // A thumbnail is derived from immutable content, so the browser may keep it
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(thumbnail.get().getContentType()))
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate())
+                .contentLength(content.getLength())
+                .body(body);
     }
 
     @DeleteMapping("/{id}")
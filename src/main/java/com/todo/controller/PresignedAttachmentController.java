@@ -0,0 +1,83 @@
+package com.todo.controller;
+
+import com.todo.api.dto.AttachmentInfo;
+import com.todo.api.dto.PresignedTransfer;
+import com.todo.service.PresignedAttachmentService;
+import com.todo.web.dto.PresignedUploadRequest;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/attachments")
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${app.storage.type:local}' == 's3' && ${app.storage.s3.presigned.enabled:false}")
+@Tag(name = "File Attachments", description = "APIs for managing file attachments to tasks")
+@SecurityRequirement(name = "XUserIdHeader")
+public class PresignedAttachmentController {
+    private final PresignedAttachmentService presignedAttachmentService;
+
+    @PostMapping("/presigned")
+    @Operation(
+        summary = "Start direct upload",
+        description = "Get a short-lived signed PUT to upload a file straight to storage. "
+                + "Send the returned headers unchanged, then call confirm."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Upload signed"),
+        @ApiResponse(responseCode = "400", description = "Invalid request"),
+        @ApiResponse(responseCode = "404", description = "Task not found"),
+        @ApiResponse(responseCode = "413", description = "File too large"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<PresignedTransfer> initiateUpload(
+            @Validated @RequestBody PresignedUploadRequest request,
+            @RequestHeader("X-User-Id") UUID userId) {
+        return ResponseEntity.ok(presignedAttachmentService.initiateUpload(request, userId));
+    }
+
+    @PostMapping("/presigned/{uploadId}/confirm")
+    @Operation(
+        summary = "Confirm direct upload",
+        description = "Verify the uploaded object's size and checksum and create the attachment"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Attachment created"),
+        @ApiResponse(responseCode = "404", description = "Upload not found"),
+        @ApiResponse(responseCode = "409", description = "Nothing uploaded yet"),
+        @ApiResponse(responseCode = "410", description = "Upload expired before the file arrived"),
+        @ApiResponse(responseCode = "422", description = "Uploaded content does not match; it has been discarded"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<AttachmentInfo> confirmUpload(
+            @Parameter(description = "Upload ID") @PathVariable UUID uploadId,
+            @RequestHeader("X-User-Id") UUID userId) {
+        return ResponseEntity.ok(presignedAttachmentService.confirmUpload(uploadId, userId));
+    }
+
+    @GetMapping("/{id}/download-url")
+    @Operation(
+        summary = "Get download URL",
+        description = "Get a short-lived signed URL to download the file straight from storage"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Download signed"),
+        @ApiResponse(responseCode = "404", description = "File not found"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<PresignedTransfer> downloadUrl(
+            @Parameter(description = "Attachment ID") @PathVariable UUID id,
+            @RequestHeader("X-User-Id") UUID userId) {
+        return ResponseEntity.ok(presignedAttachmentService.downloadUrl(id, userId));
+    }
+}
@@ -0,0 +1,145 @@
+package com.todo.controller;
+
+import com.todo.api.dto.AttachmentInfo;
+import com.todo.api.dto.UploadSessionInfo;
+import com.todo.service.ResumableUploadService;
+import com.todo.web.dto.CreateUploadRequest;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * tus-style resumable uploads: create a session, PATCH chunks with {@code Upload-Offset}, HEAD to learn
+ * the offset after a dropped connection, then complete. Chunks are raw request bodies, so they are not
+ * subject to the multipart size limit.
+ */
+@RestController
+@RequestMapping("/attachments/uploads")
+@RequiredArgsConstructor
+@Tag(name = "File Attachments", description = "APIs for managing file attachments to tasks")
+@SecurityRequirement(name = "XUserIdHeader")
+public class ResumableUploadController {
+    static final String UPLOAD_OFFSET = "Upload-Offset";
+    static final String UPLOAD_LENGTH = "Upload-Length";
+
+    private final ResumableUploadService resumableUploadService;
+
+    @PostMapping
+    @Operation(
+        summary = "Start resumable upload",
+        description = "Open an upload session for a file of known length. Send the content with PATCH."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Session created; Location points at it"),
+        @ApiResponse(responseCode = "400", description = "Invalid request"),
+        @ApiResponse(responseCode = "413", description = "File too large"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<UploadSessionInfo> create(
+            @Validated @RequestBody CreateUploadRequest request,
+            @RequestHeader("X-User-Id") UUID userId) {
+        UploadSessionInfo session = resumableUploadService.create(request, userId);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}").buildAndExpand(session.getId()).toUri();
+        return ResponseEntity.created(location)
+                .header(UPLOAD_OFFSET, "0")
+                .header(UPLOAD_LENGTH, Long.toString(session.getLength()))
+                .body(session);
+    }
+
+    @RequestMapping(path = "/{uploadId}", method = RequestMethod.HEAD)
+    @Operation(
+        summary = "Get upload offset",
+        description = "Returns how many bytes have been received in the Upload-Offset header"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Offset returned"),
+        @ApiResponse(responseCode = "404", description = "Upload not found"),
+        @ApiResponse(responseCode = "410", description = "Upload expired"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<Void> offset(
+            @Parameter(description = "Upload ID") @PathVariable UUID uploadId,
+            @RequestHeader("X-User-Id") UUID userId) {
+        UploadSessionInfo session = resumableUploadService.status(uploadId, userId);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(UPLOAD_OFFSET, Long.toString(session.getOffset()))
+                .header(UPLOAD_LENGTH, Long.toString(session.getLength()))
+                .build();
+    }
+
+    @PatchMapping("/{uploadId}")
+    @Operation(
+        summary = "Upload chunk",
+        description = "Append the request body at Upload-Offset, which must equal the current offset. "
+                + "Bytes received before a connection drops are kept; ask for the offset and continue from there."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Chunk stored; Upload-Offset is the new offset"),
+        @ApiResponse(responseCode = "404", description = "Upload not found"),
+        @ApiResponse(responseCode = "409", description = "Offset mismatch, or another chunk is being written"),
+        @ApiResponse(responseCode = "410", description = "Upload expired or its data is no longer available"),
+        @ApiResponse(responseCode = "413", description = "Chunk runs past the declared length"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<Void> append(
+            @Parameter(description = "Upload ID") @PathVariable UUID uploadId,
+            @RequestHeader(UPLOAD_OFFSET) long offset,
+            @RequestHeader("X-User-Id") UUID userId,
+            HttpServletRequest request) throws IOException {
+        long newOffset = resumableUploadService.append(uploadId, userId, offset, request.getInputStream());
+        return ResponseEntity.noContent()
+                .header(UPLOAD_OFFSET, Long.toString(newOffset))
+                .build();
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    @Operation(
+        summary = "Complete resumable upload",
+        description = "Create the attachment once every byte has been received"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Attachment created"),
+        @ApiResponse(responseCode = "404", description = "Upload not found"),
+        @ApiResponse(responseCode = "409", description = "Bytes still missing"),
+        @ApiResponse(responseCode = "410", description = "Upload expired"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<AttachmentInfo> complete(
+            @Parameter(description = "Upload ID") @PathVariable UUID uploadId,
+            @RequestHeader("X-User-Id") UUID userId) throws IOException {
+        return ResponseEntity.ok(resumableUploadService.complete(uploadId, userId));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    @Operation(
+        summary = "Cancel resumable upload",
+        description = "Discard the session and everything received so far"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Upload discarded"),
+        @ApiResponse(responseCode = "404", description = "Upload not found"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<Void> cancel(
+            @Parameter(description = "Upload ID") @PathVariable UUID uploadId,
+            @RequestHeader("X-User-Id") UUID userId) {
+        resumableUploadService.cancel(uploadId, userId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,9 +1,11 @@
 package com.todo.controller;
 
+import com.todo.api.dto.TaskArchive;
 import com.todo.api.dto.TaskDetailInfo;
 import com.todo.api.dto.TaskSummary;
 import com.todo.api.mapper.TaskMapper;
 import com.todo.entity.Task;
+import com.todo.service.AttachmentService;
 import com.todo.service.TaskService;
 import com.todo.service.UserService;
 import com.todo.util.PaginationUtils;
@@ -11,6 +13,7 @@ import com.todo.web.dto.CreateTaskRequest;
 import com.todo.web.dto.UpdateTaskRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -19,9 +22,11 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
@@ -38,6 +43,7 @@ public class TaskController {
 
     public final TaskService taskService;
     private final UserService userService;
+    private final AttachmentService attachmentService;
 
     @GetMapping("/id/{id}/detail")
     @Operation(
@@ -232,6 +238,31 @@ public class TaskController {
 
 
 
+    @GetMapping("/id/{id}/attachments.zip")
+    @Operation(
+            summary = "Download all attachments of a task",
+            description = "Stream every attachment of the task as one ZIP archive, built while it is sent"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Archive streamed",
+                    content = @Content(mediaType = "application/zip")),
+            @ApiResponse(responseCode = "404", description = "Task not found"),
+            @ApiResponse(responseCode = "503", description = "Too many downloads in progress; retry later"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<StreamingResponseBody> downloadAttachments(
+            @Parameter(description = "Task ID") @PathVariable UUID id,
+            @RequestHeader("X-User-Id") UUID userId) {
+        TaskArchive archive = attachmentService.openTaskArchive(id, userId);
+        StreamingResponseBody body = out -> attachmentService.writeTaskArchive(archive, out);
+        // The length is only known once everything is written, so the archive goes out chunked. It is written
+        // on the response-streaming pool with no time limit (StreamingConfig), however long the archive takes
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archive.getFileName() + "\"")
+                .body(body);
+    }
+
     // Subtask endpoints
     @GetMapping("/id/{id}/subtasks")
     @Operation(
@@ -36,7 +36,7 @@ public class Attachment {
     private String checksumSha256;
 
     @Column(name = "storage_path", nullable = false)
-    private String storagePath; // provider key (local = absolute file path)
+    private String storagePath; // provider key (local = path relative to the storage root)
 
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
@@ -0,0 +1,31 @@
+package com.todo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * When an object in the local storage tier was last read. Written in batches from the access times
+ * {@link com.todo.storage.TieredBlobStorage} collects in memory, so the read path never touches the database.
+ */
+@Entity
+@Table(name = "blob_access")
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class BlobAccess {
+
+    @Id
+    @Column(name = "storage_path")
+    private String storagePath;
+
+    @Column(name = "content_type", nullable = false, length = 255)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "last_accessed_at", nullable = false)
+    private Instant lastAccessedAt;
+}
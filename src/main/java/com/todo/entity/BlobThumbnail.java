@@ -0,0 +1,57 @@
+package com.todo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A downscaled preview of an image blob, stored as its own object in BlobStorage.
+ * Keyed by the source content hash, so every attachment with that content shares it.
+ */
+@Entity
+@Table(name = "blob_thumbnail",
+        uniqueConstraints = @UniqueConstraint(name = "uq_blob_thumbnail_checksum_dimension",
+                columnNames = {"checksum_sha256", "max_dimension"}))
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class BlobThumbnail {
+
+    @Id
+    @GeneratedValue @UuidGenerator
+    private UUID id;
+
+    @Column(name = "checksum_sha256", nullable = false, length = 64)
+    private String checksumSha256; // of the source image
+
+    @Column(name = "max_dimension", nullable = false)
+    private int maxDimension; // bounding box the image was scaled into
+
+    @Column(nullable = false)
+    private int width;
+
+    @Column(nullable = false)
+    private int height;
+
+    @Column(name = "content_type", nullable = false, length = 255)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "storage_path", nullable = false)
+    private String storagePath;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    void prePersist() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.todo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A presigned direct upload that the client has not confirmed yet. Holds what the client declared,
+ * so the confirm call can check it against what actually landed in the store.
+ */
+@Entity
+@Table(name = "pending_upload")
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class PendingUpload {
+
+    @Id
+    @GeneratedValue @UuidGenerator
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "task_id")
+    private UUID taskId; // attach to this task on confirm, if set
+
+    @Column(nullable = false, length = 255)
+    private String filename;
+
+    @Column(name = "content_type", nullable = false, length = 255)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "checksum_sha256", nullable = false, length = 64)
+    private String checksumSha256;
+
+    @Column(name = "storage_path", nullable = false)
+    private String storagePath;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    void prePersist() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+}
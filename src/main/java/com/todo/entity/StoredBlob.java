@@ -0,0 +1,41 @@
+package com.todo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * One physical object in BlobStorage, keyed by content hash and shared by every
+ * attachment with that content. {@code refCount} is the number of attachment rows pointing at it.
+ */
+@Entity
+@Table(name = "stored_blob")
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class StoredBlob {
+
+    @Id
+    @Column(name = "checksum_sha256", length = 64)
+    private String checksumSha256;
+
+    @Column(name = "storage_path", nullable = false)
+    private String storagePath;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    void prePersist() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+}
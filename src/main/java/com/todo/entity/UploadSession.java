@@ -0,0 +1,65 @@
+package com.todo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A resumable upload in progress. The bytes received so far are in a local part file;
+ * {@link #uploadOffset} counts those that have been written and hashed.
+ */
+@Entity
+@Table(name = "upload_session")
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class UploadSession {
+
+    @Id
+    @GeneratedValue @UuidGenerator
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false, length = 255)
+    private String filename;
+
+    @Column(name = "content_type", nullable = false, length = 255)
+    private String contentType;
+
+    @Column(name = "upload_length", nullable = false)
+    private long uploadLength;
+
+    @Column(name = "upload_offset", nullable = false)
+    private long uploadOffset;
+
+    @Column(name = "part_path", nullable = false)
+    private String partPath;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    void prePersist() {
+        Instant now = Instant.now();
+        if (createdAt == null) {
+            createdAt = now;
+        }
+        updatedAt = now;
+    }
+
+    @PreUpdate
+    void preUpdate() {
+        updatedAt = Instant.now();
+    }
+}
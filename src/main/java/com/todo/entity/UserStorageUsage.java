@@ -0,0 +1,32 @@
+package com.todo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Running totals of a user's attachments. Only ever changed with relative updates (see
+ * {@link com.todo.repository.UserStorageUsageRepository}), never by saving a loaded copy.
+ */
+@Entity
+@Table(name = "user_storage_usage")
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class UserStorageUsage {
+
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "bytes_used", nullable = false)
+    private long bytesUsed;
+
+    @Column(name = "attachment_count", nullable = false)
+    private long attachmentCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
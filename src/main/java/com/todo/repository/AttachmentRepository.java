@@ -1,12 +1,75 @@
 package com.todo.repository;
 
 import com.todo.entity.Attachment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface AttachmentRepository extends JpaRepository<Attachment, UUID> {
     // User-specific queries
     List<Attachment> findByUserId(UUID userId);
+
+    // Fetched through the link table in one query, in the order they were attached
+    @Query("SELECT a FROM TaskAttachment ta JOIN ta.attachment a WHERE ta.task.id = :taskId ORDER BY ta.createdAt, a.id")
+    List<Attachment> findByTaskId(@Param("taskId") UUID taskId);
+
+    /**
+     * One keyset page of a user's attachments, newest first, each with the task it was linked to first
+     * (null if none), in a single statement. Rows are read by {@code AttachmentMapper.fromListRow}; the
+     * keyset is the (created_at, id) of the last row of the previous page.
+     */
+    @Query(value = """
+        SELECT a.id, a.filename, a.content_type, a.size_bytes, a.checksum_sha256, a.created_at, a.updated_at,
+               ft.task_id
+        FROM attachment a
+        LEFT JOIN LATERAL (
+            SELECT ta.task_id FROM task_attachment ta
+            WHERE ta.attachment_id = a.id
+            ORDER BY ta.created_at, ta.task_id
+            LIMIT 1
+        ) ft ON TRUE
+        WHERE a.user_id = :userId
+          AND (a.created_at, a.id) < (:beforeCreatedAt, :beforeId)
+        ORDER BY a.created_at DESC, a.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Object[]> findPageWithFirstTask(@Param("userId") UUID userId,
+                                         @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                         @Param("beforeId") UUID beforeId,
+                                         @Param("limit") int limit);
+
+    // Storage maintenance: keyset-paginated walk over distinct storage paths under a prefix
+    @Query("""
+        SELECT DISTINCT a.storagePath FROM Attachment a
+        WHERE a.storagePath LIKE CONCAT(:prefix, '%') AND a.storagePath > :after
+        ORDER BY a.storagePath
+        """)
+    List<String> findStoragePathsAfter(@Param("prefix") String prefix, @Param("after") String after, Pageable page);
+
+    @Modifying
+    @Query("UPDATE Attachment a SET a.storagePath = :to WHERE a.storagePath = :from")
+    int updateStoragePath(@Param("from") String from, @Param("to") String to);
+
+    // Orphan blob collection: which of these keys are still referenced
+    @Query("SELECT DISTINCT a.storagePath FROM Attachment a WHERE a.storagePath IN :paths")
+    List<String> findStoragePathsIn(@Param("paths") Collection<String> paths);
+
+    // Actual totals per user, for reconciling user_storage_usage: [user_id, bytes, count]
+    @Query("SELECT a.userId, SUM(a.sizeBytes), COUNT(a) FROM Attachment a WHERE a.userId IN :userIds GROUP BY a.userId")
+    List<Object[]> sumUsageByUser(@Param("userIds") Collection<UUID> userIds);
+
+    // Users with attachments but no usage row yet (e.g. rows written before the row existed)
+    @Query(value = """
+        SELECT DISTINCT a.user_id FROM attachment a
+        WHERE a.user_id IS NOT NULL
+          AND NOT EXISTS (SELECT 1 FROM user_storage_usage u WHERE u.user_id = a.user_id)
+        """, nativeQuery = true)
+    List<UUID> findUserIdsWithoutUsage();
 }
@@ -0,0 +1,69 @@
+package com.todo.repository;
+
+import com.todo.entity.BlobAccess;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface BlobAccessRepository extends JpaRepository<BlobAccess, String> {
+
+    // Returns 0 when the object is already tracked
+    @Modifying
+    @Query(value = """
+        INSERT INTO blob_access (storage_path, content_type, size_bytes, last_accessed_at)
+        VALUES (:storagePath, :contentType, :sizeBytes, :accessedAt)
+        ON CONFLICT (storage_path) DO NOTHING
+        """, nativeQuery = true)
+    int insertIfAbsent(@Param("storagePath") String storagePath,
+                       @Param("contentType") String contentType,
+                       @Param("sizeBytes") long sizeBytes,
+                       @Param("accessedAt") Instant accessedAt);
+
+    // Tracks an object that was just moved into the hot tier, taking its metadata from the rows that use it
+    @Modifying
+    @Query(value = """
+        INSERT INTO blob_access (storage_path, content_type, size_bytes, last_accessed_at)
+        SELECT storage_path, content_type, size_bytes, :accessedAt
+        FROM (SELECT a.storage_path, a.content_type, a.size_bytes FROM attachment a WHERE a.storage_path = :storagePath
+              UNION ALL
+              SELECT t.storage_path, t.content_type, t.size_bytes FROM blob_thumbnail t WHERE t.storage_path = :storagePath
+              LIMIT 1) AS source
+        ON CONFLICT (storage_path) DO NOTHING
+        """, nativeQuery = true)
+    int insertFrom(@Param("storagePath") String storagePath, @Param("accessedAt") Instant accessedAt);
+
+    @Modifying
+    @Query("UPDATE BlobAccess b SET b.lastAccessedAt = :accessedAt WHERE b.storagePath IN :paths AND b.lastAccessedAt < :accessedAt")
+    int touch(@Param("paths") Collection<String> paths, @Param("accessedAt") Instant accessedAt);
+
+    @Query("SELECT b FROM BlobAccess b WHERE b.lastAccessedAt < :before ORDER BY b.lastAccessedAt")
+    List<BlobAccess> findIdle(@Param("before") Instant before, Pageable page);
+
+    // Claims an idle object for demotion; returns 0 if it was read again since it was selected
+    @Modifying
+    @Query("DELETE FROM BlobAccess b WHERE b.storagePath = :path AND b.lastAccessedAt < :before")
+    int deleteIdle(@Param("path") String path, @Param("before") Instant before);
+
+    // Hot objects that lost their row (e.g. the instance stopped before flushing it); they start out as just read
+    @Modifying
+    @Query(value = """
+        INSERT INTO blob_access (storage_path, content_type, size_bytes, last_accessed_at)
+        SELECT DISTINCT a.storage_path, a.content_type, a.size_bytes, NOW()
+        FROM attachment a
+        WHERE a.storage_path LIKE :prefix || '%'
+          AND NOT EXISTS (SELECT 1 FROM blob_access b WHERE b.storage_path = a.storage_path)
+        UNION
+        SELECT t.storage_path, t.content_type, t.size_bytes, NOW()
+        FROM blob_thumbnail t
+        WHERE t.storage_path LIKE :prefix || '%'
+          AND NOT EXISTS (SELECT 1 FROM blob_access b WHERE b.storage_path = t.storage_path)
+        ON CONFLICT (storage_path) DO NOTHING
+        """, nativeQuery = true)
+    int insertMissing(@Param("prefix") String prefix);
+}
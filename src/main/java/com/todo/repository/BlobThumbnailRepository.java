@@ -0,0 +1,32 @@
+package com.todo.repository;
+
+import com.todo.entity.BlobThumbnail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface BlobThumbnailRepository extends JpaRepository<BlobThumbnail, UUID> {
+    List<BlobThumbnail> findByChecksumSha256OrderByMaxDimension(String checksumSha256);
+
+    @Modifying
+    @Query("UPDATE BlobThumbnail t SET t.storagePath = :to WHERE t.storagePath = :from")
+    int updateStoragePath(@Param("from") String from, @Param("to") String to);
+
+    @Query("SELECT t.storagePath FROM BlobThumbnail t WHERE t.storagePath IN :paths")
+    List<String> findStoragePathsIn(@Param("paths") Collection<String> paths);
+
+    // Thumbnails whose source content no attachment uses any more (e.g. a failed cleanup on delete)
+    @Modifying
+    @Query("""
+        DELETE FROM BlobThumbnail t
+        WHERE t.createdAt < :before
+          AND NOT EXISTS (SELECT 1 FROM Attachment a WHERE a.checksumSha256 = t.checksumSha256)
+        """)
+    int deleteOrphaned(@Param("before") Instant before);
+}
@@ -0,0 +1,22 @@
+package com.todo.repository;
+
+import com.todo.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Rows locked by another relay are skipped rather than waited for, so instances drain in parallel
+    @Query(value = """
+        SELECT * FROM outbox_event
+        WHERE dead_at IS NULL AND available_at <= :now
+        ORDER BY id
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<OutboxEvent> lockDue(@Param("now") Instant now, @Param("limit") int limit);
+}
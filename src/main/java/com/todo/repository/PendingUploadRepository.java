@@ -0,0 +1,22 @@
+package com.todo.repository;
+
+import com.todo.entity.PendingUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface PendingUploadRepository extends JpaRepository<PendingUpload, UUID> {
+
+    @Query("SELECT p.storagePath FROM PendingUpload p WHERE p.storagePath IN :paths")
+    List<String> findStoragePathsIn(@Param("paths") Collection<String> paths);
+
+    @Modifying
+    @Query("DELETE FROM PendingUpload p WHERE p.expiresAt < :before")
+    int deleteExpired(@Param("before") Instant before);
+}
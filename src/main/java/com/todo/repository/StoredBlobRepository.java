@@ -0,0 +1,44 @@
+package com.todo.repository;
+
+import com.todo.entity.StoredBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    // Atomic reference counting; the row lock is held until the surrounding transaction commits
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount + 1 WHERE b.checksumSha256 = :checksum")
+    int incrementRefCount(@Param("checksum") String checksum);
+
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount - 1 WHERE b.checksumSha256 = :checksum AND b.refCount > 0")
+    int decrementRefCount(@Param("checksum") String checksum);
+
+    @Modifying
+    @Query("DELETE FROM StoredBlob b WHERE b.checksumSha256 = :checksum AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("checksum") String checksum);
+
+    // Returns 0 when a concurrent upload registered the same content first
+    @Modifying
+    @Query(value = """
+        INSERT INTO stored_blob (checksum_sha256, storage_path, size_bytes, ref_count, created_at)
+        VALUES (:checksum, :storagePath, :sizeBytes, 1, NOW())
+        ON CONFLICT (checksum_sha256) DO NOTHING
+        """, nativeQuery = true)
+    int insertIfAbsent(@Param("checksum") String checksum,
+                       @Param("storagePath") String storagePath,
+                       @Param("sizeBytes") long sizeBytes);
+
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.storagePath = :to WHERE b.storagePath = :from")
+    int updateStoragePath(@Param("from") String from, @Param("to") String to);
+
+    @Query("SELECT b.storagePath FROM StoredBlob b WHERE b.storagePath IN :paths")
+    List<String> findStoragePathsIn(@Param("paths") Collection<String> paths);
+}
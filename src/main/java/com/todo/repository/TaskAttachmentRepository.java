@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -19,6 +20,15 @@ public interface TaskAttachmentRepository extends JpaRepository<TaskAttachment,
     @Query("SELECT ta FROM TaskAttachment ta WHERE ta.attachment.id = :attachmentId")
     List<TaskAttachment> findByAttachmentId(@Param("attachmentId") UUID attachmentId);
 
+    // The task an attachment was linked to first, without loading the link or the task
+    @Query(value = """
+        SELECT task_id FROM task_attachment
+        WHERE attachment_id = :attachmentId
+        ORDER BY created_at, task_id
+        LIMIT 1
+        """, nativeQuery = true)
+    Optional<UUID> findFirstTaskId(@Param("attachmentId") UUID attachmentId);
+
     @Query("SELECT ta FROM TaskAttachment ta WHERE ta.task.id = :taskId AND ta.attachment.id = :attachmentId")
     TaskAttachment findByTaskIdAndAttachmentId(@Param("taskId") UUID taskId, @Param("attachmentId") UUID attachmentId);
 
@@ -0,0 +1,16 @@
+package com.todo.repository;
+
+import com.todo.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+    @Query("SELECT s FROM UploadSession s WHERE s.expiresAt < :before")
+    List<UploadSession> findExpired(@Param("before") Instant before);
+}
@@ -0,0 +1,55 @@
+package com.todo.repository;
+
+import com.todo.entity.UserStorageUsage;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface UserStorageUsageRepository extends JpaRepository<UserStorageUsage, UUID> {
+
+    // Checks and reserves in one statement; returns 0 if the row is missing or the quota would be exceeded.
+    // The row lock is held until the surrounding transaction commits.
+    @Modifying
+    @Query("""
+        UPDATE UserStorageUsage u
+        SET u.bytesUsed = u.bytesUsed + :bytes, u.attachmentCount = u.attachmentCount + 1, u.updatedAt = CURRENT_INSTANT
+        WHERE u.userId = :userId AND u.bytesUsed + :bytes <= :maxBytes AND u.attachmentCount + 1 <= :maxCount
+        """)
+    int reserve(@Param("userId") UUID userId, @Param("bytes") long bytes,
+                @Param("maxBytes") long maxBytes, @Param("maxCount") long maxCount);
+
+    @Modifying
+    @Query("""
+        UPDATE UserStorageUsage u
+        SET u.bytesUsed = CASE WHEN u.bytesUsed > :bytes THEN u.bytesUsed - :bytes ELSE 0 END,
+            u.attachmentCount = CASE WHEN u.attachmentCount > 0 THEN u.attachmentCount - 1 ELSE 0 END,
+            u.updatedAt = CURRENT_INSTANT
+        WHERE u.userId = :userId
+        """)
+    int release(@Param("userId") UUID userId, @Param("bytes") long bytes);
+
+    // First attachment of a user; returns 0 if a concurrent upload created the row first
+    @Modifying
+    @Query(value = """
+        INSERT INTO user_storage_usage (user_id, bytes_used, attachment_count, updated_at)
+        VALUES (:userId, 0, 0, NOW())
+        ON CONFLICT (user_id) DO NOTHING
+        """, nativeQuery = true)
+    int insertIfAbsent(@Param("userId") UUID userId);
+
+    @Query("SELECT u.userId FROM UserStorageUsage u WHERE u.userId > :after ORDER BY u.userId")
+    List<UUID> findUserIdsAfter(@Param("after") UUID after, Pageable page);
+
+    // Locks the rows against concurrent reserve/release while they are recounted
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM UserStorageUsage u WHERE u.userId IN :userIds")
+    List<UserStorageUsage> lockAll(@Param("userIds") Collection<UUID> userIds);
+}
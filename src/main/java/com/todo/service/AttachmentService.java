@@ -1,20 +1,44 @@
 package com.todo.service;
 
+import com.todo.api.dto.AttachmentDownload;
 import com.todo.api.dto.AttachmentInfo;
+import com.todo.api.dto.AttachmentPage;
+import com.todo.api.dto.BatchUploadResult;
+import com.todo.api.dto.TaskArchive;
 import com.todo.entity.User;
+import com.todo.storage.StagedObject;
+import org.springframework.http.HttpRange;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface AttachmentService {
     AttachmentInfo uploadUnlinked(MultipartFile file, UUID userId) throws IOException;
+    /**
+     * Stores content that has already been staged and hashed (e.g. an assembled resumable upload) as an
+     * unlinked attachment, exactly as {@link #uploadUnlinked} would.
+     */
+    AttachmentInfo createUnlinked(StagedObject staged, String fileName, UUID userId) throws IOException;
+
     AttachmentInfo uploadAndAttach(UUID taskId, MultipartFile file, UUID userId) throws IOException;
 
+    /**
+     * Stores many files concurrently and attaches all that succeeded to the task in one transaction.
+     * Per-file failures (unreadable file, storage error, quota) are reported in the result, not thrown.
+     */
+    BatchUploadResult uploadBatch(UUID taskId, List<MultipartFile> files, UUID userId);
+
     List<AttachmentInfo> listByTask(UUID taskId, UUID userId);
 
-    List<AttachmentInfo> listByUser(UUID userId);
+    /**
+     * One page of the user's attachments, newest first, each with the task it was linked to first.
+     * {@code cursor} is the {@code nextCursor} of the previous page, or null for the first page.
+     */
+    AttachmentPage listByUser(UUID userId, String cursor, int limit);
 
     AttachmentInfo attach(UUID attachmentId, UUID taskId, UUID userId);
     AttachmentInfo detach(UUID attachmentId, UUID userId);
@@ -23,5 +47,28 @@ public interface AttachmentService {
 
     byte[] loadBytes(UUID attachmentId, UUID userId) throws IOException;
 
+    /**
+     * Looks up the attachment once and opens its content for streaming.
+     * A non-null {@code range} is resolved against the stored size; unsatisfiable ranges raise 416.
+     * When the whole file is requested and {@code acceptsGzip} is set, content stored gzip-compressed is
+     * returned as-is and its {@link com.todo.storage.BlobContent#getContentEncoding() encoding} says so.
+     * If {@code ifNoneMatch} matches the attachment's entity tag, nothing is opened and the result is
+     * {@link AttachmentDownload#isNotModified() not modified}.
+     * <p>
+     * The lookup and those checks happen on the calling thread; the future completes once the store has
+     * opened the content, and fails with 503 if the store is saturated or does not answer in time.
+     */
+    CompletableFuture<AttachmentDownload> openDownload(UUID attachmentId, UUID userId, HttpRange range,
+                                                       boolean acceptsGzip, String ifNoneMatch);
+
+    /**
+     * Resolves the attachments of a task owned by the user for a ZIP download; 404 if there is no such task.
+     * The archive is then written with {@link #writeTaskArchive}.
+     */
+    TaskArchive openTaskArchive(UUID taskId, UUID userId);
+
+    /** Streams the archive as a ZIP to {@code out}; content is read from storage as it is written. */
+    void writeTaskArchive(TaskArchive archive, OutputStream out) throws IOException;
+
     AttachmentInfo getInfo(UUID attachmentId, UUID userId);
 }
@@ -0,0 +1,13 @@
+package com.todo.service;
+
+/**
+ * Carries out one type of outbox event. Handlers must be idempotent: an event can be delivered again
+ * if the relay fails after the side effect but before the event is removed.
+ */
+public interface OutboxHandler {
+
+    String type();
+
+    /** Any exception makes the relay retry the event later. */
+    void handle(String payload) throws Exception;
+}
@@ -0,0 +1,19 @@
+package com.todo.service;
+
+/**
+ * Transactional outbox: side effects are recorded as rows in the caller's transaction and carried out
+ * by a background relay after it commits, with retries. A rolled-back transaction leaves nothing behind,
+ * and a committed one is guaranteed to have its side effects run at least once.
+ */
+public interface OutboxService {
+
+    /** Records an event for the {@link OutboxHandler} of {@code type}. Must be called inside a transaction. */
+    void enqueue(String type, String payload);
+
+    /**
+     * Runs the handlers of every due event, batch by batch, until none are left.
+     *
+     * @return the number of events handled successfully
+     */
+    int drain();
+}
@@ -0,0 +1,25 @@
+package com.todo.service;
+
+import com.todo.api.dto.AttachmentInfo;
+import com.todo.api.dto.PresignedTransfer;
+import com.todo.web.dto.PresignedUploadRequest;
+
+import java.util.UUID;
+
+/**
+ * Direct-to-S3 attachment transfers. Bytes go between the client and the bucket;
+ * the application only signs requests and records metadata.
+ */
+public interface PresignedAttachmentService {
+
+    /** Records a pending upload and signs a PUT for exactly the declared size and checksum. */
+    PresignedTransfer initiateUpload(PresignedUploadRequest request, UUID userId);
+
+    /**
+     * Verifies the uploaded object against what was declared and creates the attachment.
+     * Returns 409 if nothing has been uploaded yet and 422 (discarding the object) if it does not match.
+     */
+    AttachmentInfo confirmUpload(UUID uploadId, UUID userId);
+
+    PresignedTransfer downloadUrl(UUID attachmentId, UUID userId);
+}
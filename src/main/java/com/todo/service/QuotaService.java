@@ -0,0 +1,40 @@
+package com.todo.service;
+
+import java.util.UUID;
+
+/**
+ * Per-user storage quotas (total bytes and number of attachments), backed by a usage row per user that
+ * is adjusted in the same transaction as every attachment insert and delete, so no check ever sums a
+ * user's attachments.
+ */
+public interface QuotaService {
+
+    /**
+     * Cheap early rejection before an upload is read: throws 413 if {@code bytes} more would exceed the
+     * user's quota according to a briefly cached copy of their usage. Not a guarantee; see {@link #reserve}.
+     */
+    void checkUpload(UUID userId, long bytes);
+
+    /**
+     * Adds one attachment of {@code bytes} to the user's usage, or throws 413 if that would exceed the
+     * quota. Must be called inside the transaction that creates the attachment, which holds the usage row
+     * locked until it commits.
+     */
+    void reserve(UUID userId, long bytes);
+
+    /**
+     * Like {@link #reserve} but returns false instead of throwing, for callers that must not mark their
+     * transaction for rollback because one of several files does not fit.
+     */
+    boolean tryReserve(UUID userId, long bytes);
+
+    /** Removes one attachment of {@code bytes}. Must be called inside the transaction that deletes it. */
+    void release(UUID userId, long bytes);
+
+    /**
+     * Recomputes every user's usage from their attachments and corrects rows that have drifted.
+     *
+     * @return the number of rows corrected
+     */
+    int reconcile();
+}
@@ -0,0 +1,36 @@
+package com.todo.service;
+
+import com.todo.api.dto.AttachmentInfo;
+import com.todo.api.dto.UploadSessionInfo;
+import com.todo.web.dto.CreateUploadRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * Resumable uploads: the client opens a session for a file of known length, sends it in chunks at
+ * explicit offsets, asks for the current offset after a dropped connection, and completes the session
+ * once every byte has arrived. Missing, foreign and expired sessions are 404/404/410.
+ */
+public interface ResumableUploadService {
+
+    /** Opens a session; 413 if {@code length} exceeds the configured maximum. */
+    UploadSessionInfo create(CreateUploadRequest request, UUID userId);
+
+    UploadSessionInfo status(UUID uploadId, UUID userId);
+
+    /**
+     * Appends {@code body} at {@code offset} and returns the new offset. 409 if {@code offset} is not the
+     * current offset or another chunk is being written, 413 if the body runs past the declared length.
+     * Bytes received before a connection drops are kept.
+     */
+    long append(UUID uploadId, UUID userId, long offset, InputStream body) throws IOException;
+
+    /**
+     * Creates the attachment, exactly as a single-request upload would. 409 while bytes are missing.
+     */
+    AttachmentInfo complete(UUID uploadId, UUID userId) throws IOException;
+
+    void cancel(UUID uploadId, UUID userId);
+}
@@ -0,0 +1,27 @@
+package com.todo.service;
+
+import com.todo.api.dto.AttachmentThumbnail;
+import com.todo.entity.Attachment;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Background generation of downscaled previews for image attachments.
+ * Work runs on a bounded pool, never on the request thread.
+ */
+public interface ThumbnailService {
+
+    /** Queues thumbnail generation for an image attachment, after the current transaction commits. */
+    void generateAsync(Attachment attachment);
+
+    /**
+     * Opens the smallest thumbnail at least {@code size} pixels on its longer side (or the largest there is).
+     * Empty while generation is still pending; 404 if the attachment is not an image.
+     */
+    Optional<AttachmentThumbnail> open(UUID attachmentId, UUID userId, int size) throws IOException;
+
+    /** Deletes the thumbnails of content whose last blob reference has gone; their blobs go after commit. */
+    void deleteFor(String checksumSha256);
+}
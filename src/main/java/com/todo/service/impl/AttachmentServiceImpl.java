@@ -1,6 +1,10 @@
 package com.todo.service.impl;
 
+import com.todo.api.dto.AttachmentDownload;
 import com.todo.api.dto.AttachmentInfo;
+import com.todo.api.dto.AttachmentPage;
+import com.todo.api.dto.BatchUploadResult;
+import com.todo.api.dto.TaskArchive;
 import com.todo.api.mapper.AttachmentMapper;
 import com.todo.entity.Attachment;
 import com.todo.entity.Task;
@@ -11,20 +15,40 @@ import com.todo.repository.TaskAttachmentRepository;
 import com.todo.repository.TaskRepository;
 import com.todo.repository.UserRepository;
 import com.todo.service.AttachmentService;
+import com.todo.service.QuotaService;
+import com.todo.service.ThumbnailService;
+import com.todo.storage.BatchBlobWriter;
+import com.todo.storage.BlobContent;
 import com.todo.storage.BlobStorage;
+import com.todo.storage.ContentAddressedBlobStore;
+import com.todo.storage.StagedObject;
+import com.todo.storage.StorageUnavailableException;
+import com.todo.storage.ZipBundleStreamer;
+import com.todo.util.PaginationUtils;
+import com.todo.util.PaginationUtils.KeysetCursor;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.service.spi.ServiceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 @Service
 @Slf4j
@@ -37,26 +61,20 @@ public class AttachmentServiceImpl implements AttachmentService {
     private final TaskAttachmentRepository taskAttachmentRepo;
     private final UserRepository userRepository;
     private final BlobStorage blobStorage;
+    private final ContentAddressedBlobStore contentStore;
+    private final ThumbnailService thumbnailService;
+    private final ZipBundleStreamer zipBundleStreamer;
+    private final QuotaService quotaService;
+    private final BatchBlobWriter batchBlobWriter;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.uploads.batch.max-files:50}")
+    private int maxBatchFiles;
 
     @Override
     public AttachmentInfo uploadUnlinked(MultipartFile file, UUID userId) throws IOException {
         try {
-            var stored = blobStorage.store(file.getInputStream(),
-                    file.getOriginalFilename(), file.getContentType(), file.getSize());
-
-            Attachment a = Attachment.builder()
-                    .userId(userId)
-                    .filename(file.getOriginalFilename() != null ? file.getOriginalFilename() : "file")
-                    .contentType(stored.getContentType())
-                    .sizeBytes(stored.getSize())
-                    .checksumSha256(stored.getChecksumSha256())
-                    .storagePath(stored.getKey())
-                    .createdAt(Instant.now())
-                    .updatedAt(Instant.now())
-                    .build();
-
-            a = attachmentRepo.save(a);
-            return AttachmentMapper.toInfo(a, null); // No taskId for unlinked attachments
+            return storeWithinQuota(file, userId, stored -> saveUnlinked(stored, file.getOriginalFilename(), userId));
         } catch (ResponseStatusException e) {
             throw e;
         } catch (Exception e) {
@@ -65,6 +83,49 @@ public class AttachmentServiceImpl implements AttachmentService {
         }
     }
 
+    @Override
+    public AttachmentInfo createUnlinked(StagedObject staged, String fileName, UUID userId) throws IOException {
+        // Before the staged content is committed to the store, so a rejected upload leaves nothing behind
+        quotaService.reserve(userId, staged.getSize());
+        return saveUnlinked(contentStore.storeStaged(staged, fileName), fileName, userId);
+    }
+
+    /**
+     * Stores an uploaded file the way {@link #uploadBatch} does: prepare, check the quota on the prepared size,
+     * then register. A rejected (or failed) upload's object is deleted when the prepared content is closed,
+     * instead of waiting for the orphan collector.
+     */
+    private <T> T storeWithinQuota(MultipartFile file, UUID userId, Function<BlobStorage.StoredObject, T> save)
+            throws IOException {
+        try (InputStream in = file.getInputStream();
+             ContentAddressedBlobStore.Prepared prepared =
+                     contentStore.prepare(in, file.getOriginalFilename(), file.getContentType())) {
+            quotaService.reserve(userId, prepared.getSize());
+            try {
+                return save.apply(contentStore.register(prepared, file.getOriginalFilename()));
+            } catch (RuntimeException e) {
+                prepared.discard();
+                throw e;
+            }
+        }
+    }
+
+    private AttachmentInfo saveUnlinked(BlobStorage.StoredObject stored, String fileName, UUID userId) {
+        Attachment a = Attachment.builder()
+                .userId(userId)
+                .filename(fileName != null ? fileName : "file")
+                .contentType(stored.getContentType())
+                .sizeBytes(stored.getSize())
+                .checksumSha256(stored.getChecksumSha256())
+                .storagePath(stored.getKey())
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build();
+
+        a = attachmentRepo.save(a);
+        thumbnailService.generateAsync(a);
+        return AttachmentMapper.toInfo(a, null); // No taskId for unlinked attachments
+    }
 
     @Override
     public AttachmentInfo uploadAndAttach(UUID taskId, MultipartFile file, UUID userId) throws IOException {
@@ -75,10 +136,7 @@ public class AttachmentServiceImpl implements AttachmentService {
             Task task = taskRepo.findByIdAndUserAndIsDeletedFalse(taskId, user)
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Task not found"));
 
-            var stored = blobStorage.store(file.getInputStream(),
-                    file.getOriginalFilename(), file.getContentType(), file.getSize());
-
-            Attachment a = Attachment.builder()
+            Attachment a = storeWithinQuota(file, userId, stored -> attachmentRepo.save(Attachment.builder()
                     .userId(userId)
                     .filename(file.getOriginalFilename() != null ? file.getOriginalFilename() : "file")
                     .contentType(stored.getContentType())
@@ -87,8 +145,8 @@ public class AttachmentServiceImpl implements AttachmentService {
                     .storagePath(stored.getKey())
                     .createdAt(Instant.now())
                     .updatedAt(Instant.now())
-                    .build();
-            a = attachmentRepo.save(a);
+                    .build()));
+            thumbnailService.generateAsync(a);
             
             // Create many-to-many relationship
             TaskAttachment taskAttachment = TaskAttachment.builder()
@@ -106,6 +164,120 @@ public class AttachmentServiceImpl implements AttachmentService {
         }
     }
 
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public BatchUploadResult uploadBatch(UUID taskId, List<MultipartFile> files, UUID userId) {
+        if (files == null || files.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No files to upload");
+        }
+        if (files.size() > maxBatchFiles) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxBatchFiles + " files per batch");
+        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        taskRepo.findByIdAndUserAndIsDeletedFalse(taskId, user)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Task not found"));
+
+        // Storage writes run in parallel without holding a connection; only the rows share a transaction
+        List<BatchBlobWriter.Result> written = batchBlobWriter.write(files.stream()
+                .map(f -> new BatchBlobWriter.Upload(f.getOriginalFilename(), f.getContentType(), f::getInputStream))
+                .toList());
+        BatchUploadResult.Item[] items = new BatchUploadResult.Item[files.size()];
+        try {
+            transactionTemplate.executeWithoutResult(tx -> saveBatch(taskId, userId, files, written, items));
+        } catch (RuntimeException e) {
+            log.error("uploadBatch failed (taskId={}, files={})", taskId, files.size(), e);
+            written.stream().filter(r -> r.prepared() != null).forEach(r -> r.prepared().discard());
+            for (int i = 0; i < items.length; i++) {
+                if (items[i] == null || items[i].getAttachment() != null) {
+                    items[i] = failedItem(files.get(i), HttpStatus.INTERNAL_SERVER_ERROR, "Failed to save attachment");
+                }
+            }
+        } finally {
+            for (BatchBlobWriter.Result result : written) {
+                if (result.prepared() != null) {
+                    try {
+                        result.prepared().close();
+                    } catch (IOException e) {
+                        log.warn("Failed to clean up batch upload", e);
+                    }
+                }
+            }
+        }
+
+        int succeeded = 0;
+        for (BatchUploadResult.Item item : items) {
+            succeeded += item.getAttachment() != null ? 1 : 0;
+        }
+        return BatchUploadResult.builder()
+                .succeeded(succeeded)
+                .failed(items.length - succeeded)
+                .items(List.of(items))
+                .build();
+    }
+
+    private void saveBatch(UUID taskId, UUID userId, List<MultipartFile> files, List<BatchBlobWriter.Result> written,
+                           BatchUploadResult.Item[] items) {
+        Task task = taskRepo.getReferenceById(taskId);
+        List<Attachment> attachments = new ArrayList<>(files.size());
+        List<Integer> positions = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            BatchBlobWriter.Result result = written.get(i);
+            if (result.error() != null) {
+                log.warn("Batch upload of {} failed", file.getOriginalFilename(), result.error());
+                items[i] = result.error() instanceof ResponseStatusException rse
+                        ? failedItem(file, HttpStatus.valueOf(rse.getStatusCode().value()), rse.getReason())
+                        : failedItem(file, HttpStatus.INTERNAL_SERVER_ERROR, "Failed to store file");
+                continue;
+            }
+            // Not a throwing reserve: an exception here would roll back the files that do fit
+            if (!quotaService.tryReserve(userId, result.prepared().getSize())) {
+                items[i] = failedItem(file, HttpStatus.PAYLOAD_TOO_LARGE, "Storage quota exceeded");
+                continue;
+            }
+            BlobStorage.StoredObject stored;
+            try {
+                stored = contentStore.register(result.prepared(), file.getOriginalFilename());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            attachments.add(Attachment.builder()
+                    .userId(userId)
+                    .filename(file.getOriginalFilename() != null ? file.getOriginalFilename() : "file")
+                    .contentType(stored.getContentType())
+                    .sizeBytes(stored.getSize())
+                    .checksumSha256(stored.getChecksumSha256())
+                    .storagePath(stored.getKey())
+                    .createdAt(Instant.now())
+                    .updatedAt(Instant.now())
+                    .build());
+            positions.add(i);
+        }
+
+        List<Attachment> saved = attachmentRepo.saveAll(attachments);
+        taskAttachmentRepo.saveAll(saved.stream()
+                .map(a -> TaskAttachment.builder().task(task).attachment(a).build())
+                .toList());
+        for (int j = 0; j < saved.size(); j++) {
+            Attachment a = saved.get(j);
+            thumbnailService.generateAsync(a);
+            items[positions.get(j)] = BatchUploadResult.Item.builder()
+                    .fileName(a.getFilename())
+                    .status(HttpStatus.CREATED.value())
+                    .attachment(AttachmentMapper.toInfo(a, taskId))
+                    .build();
+        }
+    }
+
+    private static BatchUploadResult.Item failedItem(MultipartFile file, HttpStatus status, String error) {
+        return BatchUploadResult.Item.builder()
+                .fileName(file.getOriginalFilename())
+                .status(status.value())
+                .error(error)
+                .build();
+    }
+
 
     @Override
     @Transactional(Transactional.TxType.SUPPORTS)
@@ -119,15 +291,25 @@ public class AttachmentServiceImpl implements AttachmentService {
 
     @Override
     @Transactional(Transactional.TxType.SUPPORTS)
-    public List<AttachmentInfo> listByUser(UUID userId) {
-        return attachmentRepo.findByUserId(userId).stream()
-                .map(attachment -> {
-                    // Find the first task this attachment is linked to
-                    List<TaskAttachment> taskAttachments = taskAttachmentRepo.findByAttachmentId(attachment.getId());
-                    UUID taskId = taskAttachments.isEmpty() ? null : taskAttachments.get(0).getTask().getId();
-                    return AttachmentMapper.toInfo(attachment, taskId);
-                })
+    public AttachmentPage listByUser(UUID userId, String cursor, int limit) {
+        KeysetCursor after = PaginationUtils.decodeCursor(cursor);
+        int size = PaginationUtils.clampPageSize(limit);
+
+        // One extra row tells whether there is a next page
+        List<AttachmentInfo> rows = attachmentRepo
+                .findPageWithFirstTask(userId, after.createdAt(), after.id(), size + 1).stream()
+                .map(AttachmentMapper::fromListRow)
                 .toList();
+        if (rows.size() <= size) {
+            return AttachmentPage.builder().items(rows).build();
+        }
+
+        List<AttachmentInfo> page = rows.subList(0, size);
+        AttachmentInfo last = page.get(size - 1);
+        return AttachmentPage.builder()
+                .items(page)
+                .nextCursor(PaginationUtils.encodeCursor(new KeysetCursor(last.getCreatedAt(), last.getId())))
+                .build();
     }
 
 
@@ -206,15 +388,14 @@ public class AttachmentServiceImpl implements AttachmentService {
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Attachment does not belong to user");
             }
 
-            // Delete the attachment - Hibernate will cascade delete task attachments due to orphanRemoval = true
-            try {
-                blobStorage.delete(a.getStoragePath());
-            } catch (IOException io) {
-                log.warn("Failed to delete underlying blob for {}", attachmentId, io);
+            // Drop this attachment's reference; the blob itself goes only when no other attachment shares it
+            if (contentStore.release(a.getChecksumSha256(), a.getStoragePath())) {
+                thumbnailService.deleteFor(a.getChecksumSha256());
             }
             
             // Let Hibernate handle the cascade delete of task attachments
             attachmentRepo.delete(a);
+            quotaService.release(userId, a.getSizeBytes());
         } catch (ResponseStatusException e) {
             throw e;
         } catch (Exception e) {
@@ -239,6 +420,137 @@ public class AttachmentServiceImpl implements AttachmentService {
         return blobStorage.load(a.getStoragePath());
     }
 
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public CompletableFuture<AttachmentDownload> openDownload(UUID attachmentId, UUID userId, HttpRange range,
+                                                              boolean acceptsGzip, String ifNoneMatch) {
+        Attachment a = attachmentRepo.findById(attachmentId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Attachment not found"));
+
+        // Verify attachment belongs to user
+        if (!a.getUserId().equals(userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Attachment does not belong to user");
+        }
+
+        // Content never changes under a checksum, so a matching tag is answered without touching storage
+        String matched = matchingTag(ifNoneMatch, a.getChecksumSha256());
+        if (matched != null) {
+            return CompletableFuture.completedFuture(AttachmentDownload.builder()
+                    .info(AttachmentMapper.toInfo(a))
+                    .totalSize(a.getSizeBytes())
+                    .etag(matched)
+                    .notModified(true)
+                    .build());
+        }
+
+        long total = a.getSizeBytes();
+        long start = 0;
+        long end = total - 1;
+        boolean partial = false;
+        if (range != null) {
+            try {
+                start = range.getRangeStart(total);
+                end = range.getRangeEnd(total);
+            } catch (IllegalArgumentException e) {
+                start = total;
+            }
+            if (start >= total || end < start) {
+                throw new ResponseStatusException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE,
+                        "Range not satisfiable for size " + total);
+            }
+            partial = true;
+        }
+
+        // Ranges always address the original bytes, so only whole-file reads can skip decompression
+        CompletableFuture<BlobContent> opening;
+        if (partial) {
+            opening = blobStorage.openAsync(a.getStoragePath(), start, end - start + 1);
+        } else if (acceptsGzip) {
+            opening = blobStorage.openRawAsync(a.getStoragePath());
+        } else {
+            opening = blobStorage.openAsync(a.getStoragePath(), 0, -1);
+        }
+
+        AttachmentInfo info = AttachmentMapper.toInfo(a);
+        long rangeStart = start;
+        long rangeEnd = end;
+        boolean isPartial = partial;
+        return opening
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof StorageUnavailableException) {
+                        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, cause.getMessage(), cause);
+                    }
+                    throw new CompletionException(cause);
+                })
+                .thenApply(content -> AttachmentDownload.builder()
+                        .info(info)
+                        .content(content)
+                        .rangeStart(rangeStart)
+                        .rangeEnd(rangeEnd)
+                        .totalSize(total)
+                        .partial(isPartial)
+                        .etag(entityTag(a.getChecksumSha256(), content.getContentEncoding()))
+                        .build());
+    }
+
+    /**
+     * Strong tag per representation: the gzip-encoded bytes sent to clients that accept them differ from
+     * the identity bytes, so they get their own tag.
+     */
+    private static String entityTag(String checksum, String contentEncoding) {
+        if (checksum == null) {
+            return null;
+        }
+        return contentEncoding != null ? "\"" + checksum + "-" + contentEncoding + "\"" : "\"" + checksum + "\"";
+    }
+
+    // The tag in If-None-Match naming one of this content's representations (weak comparison), else null
+    private static String matchingTag(String ifNoneMatch, String checksum) {
+        if (ifNoneMatch == null || checksum == null) {
+            return null;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return entityTag(checksum, null);
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(entityTag(checksum, null)) || tag.equals(entityTag(checksum, "gzip"))) {
+                return tag;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public TaskArchive openTaskArchive(UUID taskId, UUID userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        Task task = taskRepo.findByIdAndUserAndIsDeletedFalse(taskId, user)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Task not found"));
+
+        List<ZipBundleStreamer.Entry> entries = attachmentRepo.findByTaskId(task.getId()).stream()
+                .filter(attachment -> attachment.getUserId().equals(userId))
+                .map(a -> new ZipBundleStreamer.Entry(a.getFilename(), a.getStoragePath(), a.getContentType(),
+                        a.getSizeBytes(), a.getCreatedAt()))
+                .toList();
+        return TaskArchive.builder()
+                .fileName("task-" + taskId + "-attachments.zip")
+                .entries(entries)
+                .build();
+    }
+
+    // Runs after the response has started and can take long; it must not hold a connection or transaction
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public void writeTaskArchive(TaskArchive archive, OutputStream out) throws IOException {
+        zipBundleStreamer.write(archive.getEntries(), out);
+    }
+
     @Override
     @Transactional(Transactional.TxType.SUPPORTS)
     public AttachmentInfo getInfo(UUID attachmentId, UUID userId) {
@@ -251,9 +563,8 @@ public class AttachmentServiceImpl implements AttachmentService {
         }
 
         // Find the first task this attachment is linked to
-        List<TaskAttachment> taskAttachments = taskAttachmentRepo.findByAttachmentId(attachmentId);
-        UUID taskId = taskAttachments.isEmpty() ? null : taskAttachments.get(0).getTask().getId();
-        
+        UUID taskId = taskAttachmentRepo.findFirstTaskId(attachmentId).orElse(null);
+
         return AttachmentMapper.toInfo(a, taskId);
     }
 }
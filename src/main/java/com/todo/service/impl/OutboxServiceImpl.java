@@ -0,0 +1,164 @@
+package com.todo.service.impl;
+
+import com.todo.entity.OutboxEvent;
+import com.todo.repository.OutboxEventRepository;
+import com.todo.service.OutboxHandler;
+import com.todo.service.OutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Database-backed outbox. The relay claims due events with {@code FOR UPDATE SKIP LOCKED}, so several
+ * application instances can drain the table concurrently without handing the same event to two of them.
+ * Each batch runs in its own short transaction: handled events are deleted, failed ones are rescheduled
+ * with exponential backoff, and events that keep failing are parked as dead for inspection.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxServiceImpl implements OutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final OutboxEventRepository outboxRepo;
+    private final List<OutboxHandler> handlerList;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry registry;
+
+    @Value("${app.outbox.relay.enabled:true}")
+    private boolean relayEnabled;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.initial-backoff:PT5S}")
+    private Duration initialBackoff;
+
+    @Value("${app.outbox.max-backoff:PT1H}")
+    private Duration maxBackoff;
+
+    private Map<String, OutboxHandler> handlers;
+    private Counter handled;
+    private Counter retried;
+    private Counter dead;
+
+    @PostConstruct
+    void init() {
+        handlers = handlerList.stream().collect(Collectors.toUnmodifiableMap(OutboxHandler::type, Function.identity()));
+        handled = events(registry, "handled");
+        retried = events(registry, "retried");
+        dead = events(registry, "dead");
+    }
+
+    private static Counter events(MeterRegistry registry, String result) {
+        return Counter.builder("outbox.events")
+                .description("Outbox events processed by the relay, by outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void enqueue(String type, String payload) {
+        if (!handlers.containsKey(type)) {
+            throw new IllegalArgumentException("No outbox handler for " + type);
+        }
+        outboxRepo.save(OutboxEvent.builder().type(type).payload(payload).build());
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval:PT1S}",
+            initialDelayString = "${app.outbox.relay.initial-delay:PT10S}")
+    public void relay() {
+        if (!relayEnabled) {
+            return;
+        }
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.error("Outbox relay failed", e);
+        }
+    }
+
+    @Override
+    public int drain() {
+        int total = 0;
+        while (true) {
+            Batch batch = transactionTemplate.execute(tx -> processBatch());
+            total += batch.handled();
+            // A short batch means the table is drained (or the rest is locked by another instance)
+            if (batch.claimed() < batchSize) {
+                return total;
+            }
+        }
+    }
+
+    private record Batch(int claimed, int handled) {}
+
+    private Batch processBatch() {
+        Instant now = Instant.now();
+        List<OutboxEvent> events = outboxRepo.lockDue(now, batchSize);
+        List<OutboxEvent> done = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            try {
+                OutboxHandler handler = handlers.get(event.getType());
+                if (handler == null) {
+                    throw new IllegalStateException("No outbox handler for " + event.getType());
+                }
+                handler.handle(event.getPayload());
+                done.add(event);
+                handled.increment();
+            } catch (Exception e) {
+                reschedule(event, e, now);
+            }
+        }
+        outboxRepo.deleteAllInBatch(done);
+        return new Batch(events.size(), done.size());
+    }
+
+    // The event is managed, so these changes are flushed when the batch commits
+    private void reschedule(OutboxEvent event, Exception e, Instant now) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(truncate(e.toString()));
+        if (attempts >= maxAttempts) {
+            event.setDeadAt(now);
+            dead.increment();
+            log.error("Outbox event {} ({}) failed {} times, giving up", event.getId(), event.getType(), attempts, e);
+            return;
+        }
+        event.setAvailableAt(now.plus(backoff(attempts)));
+        retried.increment();
+        log.warn("Outbox event {} ({}) failed, attempt {} of {}: {}",
+                event.getId(), event.getType(), attempts, maxAttempts, e.toString());
+    }
+
+    /** Delay before attempt {@code attempts + 1}: doubles from the initial backoff, capped at the maximum. */
+    public Duration backoff(int attempts) {
+        long factor = 1L << Math.min(attempts - 1, 30);
+        Duration delay = initialBackoff.multipliedBy(factor);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,193 @@
+package com.todo.service.impl;
+
+import com.todo.api.dto.AttachmentInfo;
+import com.todo.api.dto.PresignedTransfer;
+import com.todo.api.mapper.AttachmentMapper;
+import com.todo.entity.Attachment;
+import com.todo.entity.PendingUpload;
+import com.todo.entity.Task;
+import com.todo.entity.TaskAttachment;
+import com.todo.entity.User;
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.PendingUploadRepository;
+import com.todo.repository.TaskAttachmentRepository;
+import com.todo.repository.TaskRepository;
+import com.todo.repository.UserRepository;
+import com.todo.service.PresignedAttachmentService;
+import com.todo.service.QuotaService;
+import com.todo.service.ThumbnailService;
+import com.todo.storage.BlobStorage;
+import com.todo.storage.ContentAddressedBlobStore;
+import com.todo.storage.PresignedBlobStorage;
+import com.todo.storage.TieredBlobStorage;
+import com.todo.web.dto.PresignedUploadRequest;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.UUID;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@Transactional
+@ConditionalOnExpression("'${app.storage.type:local}' == 's3' && ${app.storage.s3.presigned.enabled:false}")
+public class PresignedAttachmentServiceImpl implements PresignedAttachmentService {
+
+    private final PendingUploadRepository pendingUploadRepo;
+    private final AttachmentRepository attachmentRepo;
+    private final TaskRepository taskRepo;
+    private final TaskAttachmentRepository taskAttachmentRepo;
+    private final UserRepository userRepository;
+    private final ContentAddressedBlobStore contentStore;
+    private final PresignedBlobStorage presignedStorage;
+    private final ThumbnailService thumbnailService;
+    private final QuotaService quotaService;
+    private final PlatformTransactionManager transactionManager;
+
+    // A single presigned PUT is limited to 5GB by S3
+    @Value("${app.storage.s3.presigned.max-size:5368709120}")
+    private long maxSize;
+
+    @Override
+    public PresignedTransfer initiateUpload(PresignedUploadRequest request, UUID userId) {
+        if (request.getSizeBytes() > maxSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Direct uploads are limited to " + maxSize + " bytes");
+        }
+        quotaService.checkUpload(userId, request.getSizeBytes());
+        if (request.getTaskId() != null) {
+            findTask(request.getTaskId(), userId); // fail now rather than after the upload
+        }
+
+        String contentType = request.getContentType() == null || request.getContentType().isBlank()
+                ? MediaType.APPLICATION_OCTET_STREAM_VALUE
+                : request.getContentType();
+        String checksum = request.getChecksumSha256().toLowerCase(Locale.ROOT);
+        String key = presignedStorage.newKey(request.getFileName());
+
+        PresignedBlobStorage.PresignedRequest signed =
+                presignedStorage.presignUpload(key, contentType, request.getSizeBytes(), checksum);
+
+        PendingUpload pending = pendingUploadRepo.save(PendingUpload.builder()
+                .userId(userId)
+                .taskId(request.getTaskId())
+                .filename(request.getFileName())
+                .contentType(contentType)
+                .sizeBytes(request.getSizeBytes())
+                .checksumSha256(checksum)
+                .storagePath(key)
+                .expiresAt(signed.getExpiresAt())
+                .build());
+
+        return toTransfer(pending.getId(), signed);
+    }
+
+    @Override
+    public AttachmentInfo confirmUpload(UUID uploadId, UUID userId) {
+        PendingUpload pending = pendingUploadRepo.findById(uploadId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found"));
+
+        // Verify upload belongs to user
+        if (!pending.getUserId().equals(userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Upload does not belong to user");
+        }
+
+        BlobStorage.StoredObject uploaded = presignedStorage.describe(pending.getStoragePath())
+                .orElseThrow(() -> pending.getExpiresAt().isBefore(Instant.now())
+                        ? new ResponseStatusException(HttpStatus.GONE, "Upload URL has expired")
+                        : new ResponseStatusException(HttpStatus.CONFLICT, "Nothing has been uploaded yet"));
+
+        if (uploaded.getSize() != pending.getSizeBytes()
+                || !pending.getChecksumSha256().equals(uploaded.getChecksumSha256())) {
+            log.warn("Discarding direct upload {}: declared {} bytes/{}, stored {} bytes/{}", uploadId,
+                    pending.getSizeBytes(), pending.getChecksumSha256(), uploaded.getSize(), uploaded.getChecksumSha256());
+            presignedStorage.delete(pending.getStoragePath());
+            discard(pending);
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Uploaded content does not match the declared size and checksum");
+        }
+
+        Task task = pending.getTaskId() != null ? findTask(pending.getTaskId(), userId) : null;
+
+        BlobStorage.StoredObject stored = contentStore.adopt(new BlobStorage.StoredObject(
+                pending.getStoragePath(), pending.getContentType(), uploaded.getSize(), uploaded.getChecksumSha256()));
+
+        Attachment a = attachmentRepo.save(Attachment.builder()
+                .userId(userId)
+                .filename(pending.getFilename())
+                .contentType(pending.getContentType())
+                .sizeBytes(stored.getSize())
+                .checksumSha256(stored.getChecksumSha256())
+                .storagePath(stored.getKey())
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build());
+        quotaService.reserve(userId, a.getSizeBytes());
+        thumbnailService.generateAsync(a);
+
+        if (task != null) {
+            taskAttachmentRepo.save(TaskAttachment.builder()
+                    .task(task)
+                    .attachment(a)
+                    .build());
+        }
+        pendingUploadRepo.delete(pending);
+
+        return AttachmentMapper.toInfo(a, task != null ? task.getId() : null);
+    }
+
+    // The confirmation fails and rolls back, so the pending row is removed in a transaction of its own;
+    // otherwise it would outlive the object it points to
+    private void discard(PendingUpload pending) {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        requiresNew.executeWithoutResult(tx -> pendingUploadRepo.delete(pending));
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public PresignedTransfer downloadUrl(UUID attachmentId, UUID userId) {
+        Attachment a = attachmentRepo.findById(attachmentId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Attachment not found"));
+
+        // Verify attachment belongs to user
+        if (!a.getUserId().equals(userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Attachment does not belong to user");
+        }
+        if (TieredBlobStorage.isLocal(a.getStoragePath())) {
+            // Not in the bucket while it is in the local tier
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Attachment is not in the bucket; use the regular download");
+        }
+
+        return toTransfer(null, presignedStorage.presignDownload(a.getStoragePath(), a.getFilename(), a.getContentType()));
+    }
+
+    private Task findTask(UUID taskId, UUID userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        return taskRepo.findByIdAndUserAndIsDeletedFalse(taskId, user)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Task not found"));
+    }
+
+    private static PresignedTransfer toTransfer(UUID uploadId, PresignedBlobStorage.PresignedRequest signed) {
+        return PresignedTransfer.builder()
+                .uploadId(uploadId)
+                .method(signed.getMethod())
+                .url(signed.getUrl())
+                .headers(signed.getHeaders())
+                .expiresAt(signed.getExpiresAt())
+                .build();
+    }
+}
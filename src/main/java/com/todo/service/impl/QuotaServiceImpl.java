@@ -0,0 +1,250 @@
+package com.todo.service.impl;
+
+import com.todo.entity.UserStorageUsage;
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.UserStorageUsageRepository;
+import com.todo.service.QuotaService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The quota is enforced by a single guarded {@code UPDATE} on the user's usage row, run in the upload's
+ * transaction: it checks and adds in one statement, and the row lock it takes serialises concurrent
+ * uploads of the same user until the attachment row commits. Deletes subtract in their transaction.
+ * <p>
+ * {@link #checkUpload} reads a copy of the row cached for {@code cache-ttl}, so request bodies that cannot
+ * fit are refused without a query. Entries are dropped when this instance changes the row; other
+ * instances see the change within the TTL. A stale entry can only make the early check wrong, never the
+ * reservation.
+ * <p>
+ * Counters can still drift (rows edited by hand, attachments removed by a cascade), so a periodic job
+ * recounts users page by page under a row lock and corrects them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QuotaServiceImpl implements QuotaService {
+
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private final UserStorageUsageRepository usageRepo;
+    private final AttachmentRepository attachmentRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry registry;
+
+    @Value("${app.quota.max-bytes:10GB}")
+    private DataSize maxBytes;
+
+    @Value("${app.quota.max-attachments:10000}")
+    private long maxAttachments;
+
+    @Value("${app.quota.cache-ttl:PT30S}")
+    private Duration cacheTtl;
+
+    @Value("${app.quota.cache-max-entries:10000}")
+    private int cacheMaxEntries;
+
+    @Value("${app.quota.reconcile.enabled:true}")
+    private boolean reconcileEnabled;
+
+    @Value("${app.quota.reconcile.batch-size:500}")
+    private int batchSize;
+
+    private final Map<UUID, CachedUsage> cache = new ConcurrentHashMap<>();
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    private Counter rejected;
+    private Counter corrected;
+
+    private record CachedUsage(long bytesUsed, long attachmentCount, long loadedAt) {}
+
+    @PostConstruct
+    void init() {
+        rejected = Counter.builder("storage.quota.rejected")
+                .description("Uploads refused because they would exceed the user's storage quota")
+                .register(registry);
+        corrected = Counter.builder("storage.usage.corrected")
+                .description("Per-user usage rows corrected by reconciliation")
+                .register(registry);
+    }
+
+    @Override
+    public void checkUpload(UUID userId, long bytes) {
+        CachedUsage usage = cached(userId);
+        if (exceeds(usage.bytesUsed(), usage.attachmentCount(), Math.max(bytes, 0))) {
+            rejected.increment();
+            throw overQuota();
+        }
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void reserve(UUID userId, long bytes) {
+        if (!tryReserve(userId, bytes)) {
+            throw overQuota();
+        }
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public boolean tryReserve(UUID userId, long bytes) {
+        long limit = maxBytes.toBytes();
+        if (usageRepo.reserve(userId, bytes, limit, maxAttachments) == 0) {
+            // Either the user's first attachment or over quota; a missing row is created and retried once
+            usageRepo.insertIfAbsent(userId);
+            if (usageRepo.reserve(userId, bytes, limit, maxAttachments) == 0) {
+                rejected.increment();
+                return false;
+            }
+        }
+        evictAfterCommit(userId);
+        return true;
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void release(UUID userId, long bytes) {
+        usageRepo.release(userId, bytes);
+        evictAfterCommit(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.quota.reconcile.interval:PT6H}",
+            initialDelayString = "${app.quota.reconcile.initial-delay:PT20M}")
+    public void scheduledReconcile() {
+        if (!reconcileEnabled) {
+            return;
+        }
+        try {
+            int fixed = reconcile();
+            log.info("Storage usage reconciliation corrected {} users", fixed);
+        } catch (RuntimeException e) {
+            log.error("Storage usage reconciliation failed", e);
+        }
+    }
+
+    @Override
+    public int reconcile() {
+        if (!reconciling.compareAndSet(false, true)) {
+            log.info("Storage usage reconciliation already running, skipping");
+            return 0;
+        }
+        try {
+            // Users whose attachments predate their usage row get one, which the recount below fills in
+            List<UUID> missing = attachmentRepo.findUserIdsWithoutUsage();
+            for (int i = 0; i < missing.size(); i += batchSize) {
+                List<UUID> batch = missing.subList(i, Math.min(i + batchSize, missing.size()));
+                transactionTemplate.executeWithoutResult(tx -> batch.forEach(usageRepo::insertIfAbsent));
+            }
+
+            int total = 0;
+            UUID after = FIRST_ID;
+            while (true) {
+                List<UUID> userIds = usageRepo.findUserIdsAfter(after, PageRequest.of(0, batchSize));
+                if (userIds.isEmpty()) {
+                    return total;
+                }
+                List<UUID> fixed = transactionTemplate.execute(tx -> recount(userIds));
+                if (fixed != null) {
+                    fixed.forEach(cache::remove);
+                    total += fixed.size();
+                }
+                if (userIds.size() < batchSize) {
+                    return total;
+                }
+                after = userIds.get(userIds.size() - 1);
+            }
+        } finally {
+            reconciling.set(false);
+        }
+    }
+
+    // Holding the row locks means no upload or delete of these users is in flight while they are summed
+    private List<UUID> recount(List<UUID> userIds) {
+        List<UserStorageUsage> rows = usageRepo.lockAll(userIds);
+        Map<UUID, long[]> actual = new HashMap<>(userIds.size() * 2);
+        for (Object[] row : attachmentRepo.sumUsageByUser(userIds)) {
+            actual.put((UUID) row[0], new long[]{((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+        }
+
+        List<UUID> fixed = new ArrayList<>();
+        for (UserStorageUsage row : rows) {
+            long[] sums = actual.getOrDefault(row.getUserId(), new long[2]);
+            if (row.getBytesUsed() == sums[0] && row.getAttachmentCount() == sums[1]) {
+                continue;
+            }
+            log.warn("Corrected storage usage of user {}: recorded {} bytes in {} attachments, actual {} in {}",
+                    row.getUserId(), row.getBytesUsed(), row.getAttachmentCount(), sums[0], sums[1]);
+            row.setBytesUsed(sums[0]);
+            row.setAttachmentCount(sums[1]);
+            row.setUpdatedAt(Instant.now());
+            corrected.increment();
+            fixed.add(row.getUserId());
+        }
+        return fixed;
+    }
+
+    private CachedUsage cached(UUID userId) {
+        long now = System.nanoTime();
+        CachedUsage usage = cache.get(userId);
+        if (usage != null && now - usage.loadedAt() < cacheTtl.toNanos()) {
+            return usage;
+        }
+        usage = usageRepo.findById(userId)
+                .map(u -> new CachedUsage(u.getBytesUsed(), u.getAttachmentCount(), now))
+                .orElseGet(() -> new CachedUsage(0, 0, now));
+        if (cache.size() >= cacheMaxEntries) {
+            cache.values().removeIf(u -> now - u.loadedAt() >= cacheTtl.toNanos());
+            if (cache.size() >= cacheMaxEntries) {
+                cache.clear();
+            }
+        }
+        cache.put(userId, usage);
+        return usage;
+    }
+
+    private boolean exceeds(long bytesUsed, long attachmentCount, long bytes) {
+        return bytesUsed + bytes > maxBytes.toBytes() || attachmentCount + 1 > maxAttachments;
+    }
+
+    private void evictAfterCommit(UUID userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.remove(userId);
+                }
+            });
+        } else {
+            cache.remove(userId);
+        }
+    }
+
+    private ResponseStatusException overQuota() {
+        return new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Storage quota exceeded: at most "
+                + maxBytes.toMegabytes() + " MB in " + maxAttachments + " attachments per user");
+    }
+}
@@ -0,0 +1,289 @@
+package com.todo.service.impl;
+
+import com.todo.api.dto.AttachmentInfo;
+import com.todo.api.dto.UploadSessionInfo;
+import com.todo.entity.UploadSession;
+import com.todo.repository.UploadSessionRepository;
+import com.todo.service.AttachmentService;
+import com.todo.service.QuotaService;
+import com.todo.service.ResumableUploadService;
+import com.todo.storage.BlobStreams;
+import com.todo.storage.StagedObject;
+import com.todo.web.dto.CreateUploadRequest;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Chunks are appended to a local part file while a SHA-256 is updated with exactly those bytes, so
+ * completing an upload neither re-reads nor re-hashes it; the part file is then handed to the store as
+ * an already-staged object. The hash state lives in memory. After a restart, or the first time this
+ * instance sees a session, it is rebuilt from the durable part of the file, and anything past the
+ * recorded offset (a write that was not acknowledged) is cut off.
+ * <p>
+ * Part files are local, so all requests for one session must reach the instance that holds its file
+ * (sticky routing, or a shared {@code app.uploads.resumable.dir}). Otherwise the session answers 410.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResumableUploadServiceImpl implements ResumableUploadService {
+
+    private final UploadSessionRepository sessionRepo;
+    private final AttachmentService attachmentService;
+    private final QuotaService quotaService;
+
+    @Value("${app.uploads.resumable.dir:${java.io.tmpdir}/resumable-uploads}")
+    private String dir;
+
+    @Value("${app.uploads.resumable.max-size:5368709120}")
+    private long maxSize;
+
+    @Value("${app.uploads.resumable.expiry:PT24H}")
+    private Duration expiry;
+
+    private Path partDir;
+
+    // Per-session lock and hash state on this instance
+    private final Map<UUID, Progress> progress = new ConcurrentHashMap<>();
+
+    private static final class Progress {
+        final ReentrantLock lock = new ReentrantLock();
+        MessageDigest digest;
+        long offset = -1;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        partDir = Path.of(dir).toAbsolutePath();
+        Files.createDirectories(partDir);
+    }
+
+    @Override
+    public UploadSessionInfo create(CreateUploadRequest request, UUID userId) {
+        if (request.getLength() > maxSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "File exceeds " + maxSize + " bytes");
+        }
+        quotaService.checkUpload(userId, request.getLength());
+        Path part;
+        try {
+            part = Files.createTempFile(partDir, "upload-", ".part");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        UploadSession session = UploadSession.builder()
+                .userId(userId)
+                .filename(request.getFileName())
+                .contentType(request.getContentType() != null && !request.getContentType().isBlank()
+                        ? request.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                .uploadLength(request.getLength())
+                .partPath(part.toString())
+                .expiresAt(Instant.now().plus(expiry))
+                .build();
+        return toInfo(sessionRepo.save(session));
+    }
+
+    @Override
+    public UploadSessionInfo status(UUID uploadId, UUID userId) {
+        return toInfo(find(uploadId, userId));
+    }
+
+    @Override
+    public long append(UUID uploadId, UUID userId, long offset, InputStream body) throws IOException {
+        Progress p = lockSession(uploadId, userId);
+        try {
+            UploadSession session = find(uploadId, userId);
+            if (offset != session.getUploadOffset()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Upload-Offset " + offset + " does not match current offset " + session.getUploadOffset());
+            }
+            Path part = Path.of(session.getPartPath());
+            resume(p, session, part);
+
+            long remaining = session.getUploadLength() - offset;
+            long written = 0;
+            boolean overflow = false;
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                channel.position(offset);
+                byte[] buffer = new byte[BlobStreams.BUFFER_SIZE];
+                try {
+                    int n;
+                    while ((n = body.read(buffer)) != -1) {
+                        if (n > remaining - written) {
+                            n = (int) (remaining - written);
+                            overflow = true;
+                        }
+                        channel.write(ByteBuffer.wrap(buffer, 0, n));
+                        p.digest.update(buffer, 0, n);
+                        written += n;
+                        if (overflow) {
+                            break;
+                        }
+                    }
+                } finally {
+                    // Whatever arrived before a disconnect is kept, so the client resumes from there. A
+                    // half-written buffer is cut off, which keeps the file in step with the hash.
+                    channel.truncate(offset + written);
+                    if (written > 0) {
+                        channel.force(false);
+                        p.offset = offset + written;
+                        session.setUploadOffset(p.offset);
+                        session.setExpiresAt(Instant.now().plus(expiry));
+                        sessionRepo.save(session);
+                    }
+                }
+            }
+            if (overflow) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                        "Chunk runs past the declared length of " + session.getUploadLength() + " bytes");
+            }
+            return p.offset;
+        } finally {
+            p.lock.unlock();
+        }
+    }
+
+    @Override
+    public AttachmentInfo complete(UUID uploadId, UUID userId) throws IOException {
+        Progress p = lockSession(uploadId, userId);
+        try {
+            UploadSession session = find(uploadId, userId);
+            if (session.getUploadOffset() < session.getUploadLength()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload incomplete: "
+                        + session.getUploadOffset() + " of " + session.getUploadLength() + " bytes received");
+            }
+            Path part = Path.of(session.getPartPath());
+            resume(p, session, part);
+            String checksum = BlobStreams.hex(p.digest);
+            p.digest = null; // digest() reset it
+
+            StagedObject staged = new StagedObject(part, session.getUploadLength(), checksum, session.getContentType());
+            AttachmentInfo info = attachmentService.createUnlinked(staged, session.getFilename(), userId);
+
+            sessionRepo.delete(session);
+            progress.remove(uploadId);
+            // Still here if the content was deduplicated or copied to a remote store
+            Files.deleteIfExists(part);
+            return info;
+        } finally {
+            p.lock.unlock();
+        }
+    }
+
+    @Override
+    public void cancel(UUID uploadId, UUID userId) {
+        Progress p = lockSession(uploadId, userId);
+        try {
+            discard(find(uploadId, userId));
+            progress.remove(uploadId);
+        } finally {
+            p.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.uploads.resumable.purge-interval:PT1H}",
+            initialDelayString = "${app.uploads.resumable.purge-initial-delay:PT10M}")
+    public void purgeExpired() {
+        for (UploadSession session : sessionRepo.findExpired(Instant.now())) {
+            Progress p = progress.get(session.getId());
+            if (p != null && !p.lock.tryLock()) {
+                continue; // a chunk is being written, which will extend it
+            }
+            try {
+                discard(session);
+                progress.remove(session.getId());
+            } catch (RuntimeException e) {
+                log.warn("Failed to purge expired upload {}", session.getId(), e);
+            } finally {
+                if (p != null) {
+                    p.lock.unlock();
+                }
+            }
+        }
+    }
+
+    private Progress lockSession(UUID uploadId, UUID userId) {
+        find(uploadId, userId); // 404 before allocating state for unknown ids
+        Progress p = progress.computeIfAbsent(uploadId, id -> new Progress());
+        if (!p.lock.tryLock()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Another request for this upload is in progress");
+        }
+        return p;
+    }
+
+    // Brings the in-memory hash in line with the recorded offset, rehashing the part file if needed
+    private void resume(Progress p, UploadSession session, Path part) throws IOException {
+        long offset = session.getUploadOffset();
+        if (p.digest != null && p.offset == offset) {
+            return;
+        }
+        if (!Files.exists(part) || Files.size(part) < offset) {
+            throw new ResponseStatusException(HttpStatus.GONE,
+                    "Received data for this upload is not available here; start a new upload");
+        }
+        MessageDigest digest = BlobStreams.sha256();
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.truncate(offset);
+            ByteBuffer buffer = ByteBuffer.allocate(BlobStreams.BUFFER_SIZE);
+            while (channel.read(buffer) > 0 || buffer.position() > 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        p.digest = digest;
+        p.offset = offset;
+    }
+
+    private UploadSession find(UUID uploadId, UUID userId) {
+        UploadSession session = sessionRepo.findById(uploadId)
+                .filter(s -> s.getUserId().equals(userId))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found"));
+        if (session.getExpiresAt().isBefore(Instant.now())) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Upload expired");
+        }
+        return session;
+    }
+
+    private void discard(UploadSession session) {
+        sessionRepo.delete(session);
+        try {
+            Files.deleteIfExists(Path.of(session.getPartPath()));
+        } catch (IOException e) {
+            log.warn("Failed to delete part file {}", session.getPartPath(), e);
+        }
+    }
+
+    private static UploadSessionInfo toInfo(UploadSession session) {
+        return UploadSessionInfo.builder()
+                .id(session.getId())
+                .fileName(session.getFilename())
+                .contentType(session.getContentType())
+                .length(session.getUploadLength())
+                .offset(session.getUploadOffset())
+                .expiresAt(session.getExpiresAt())
+                .build();
+    }
+}
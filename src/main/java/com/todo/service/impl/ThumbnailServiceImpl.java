@@ -0,0 +1,313 @@
+package com.todo.service.impl;
+
+import com.todo.api.dto.AttachmentThumbnail;
+import com.todo.entity.Attachment;
+import com.todo.entity.BlobThumbnail;
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.BlobThumbnailRepository;
+import com.todo.service.OutboxService;
+import com.todo.service.ThumbnailService;
+import com.todo.storage.BlobContent;
+import com.todo.storage.BlobDeleteHandler;
+import com.todo.storage.BlobStorage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ThumbnailServiceImpl implements ThumbnailService {
+
+    // Formats the JDK's ImageIO can decode without extra plugins
+    private static final Set<String> IMAGE_TYPES = Set.of("image/png", "image/jpeg", "image/jpg", "image/gif", "image/bmp");
+
+    private final AttachmentRepository attachmentRepo;
+    private final BlobThumbnailRepository thumbnailRepo;
+    private final BlobStorage blobStorage;
+    private final OutboxService outbox;
+
+    // Bounding boxes (longer side, px) generated for every image
+    @Value("${app.thumbnails.sizes:128,512}")
+    private List<Integer> sizes;
+
+    @Value("${app.thumbnails.concurrency:2}")
+    private int concurrency;
+
+    @Value("${app.thumbnails.queue-capacity:200}")
+    private int queueCapacity;
+
+    // Larger sources are skipped rather than decoded (decompression bombs)
+    @Value("${app.thumbnails.max-source-pixels:50000000}")
+    private long maxSourcePixels;
+
+    private ExecutorService executor;
+
+    // Checksums queued or being processed, so repeated uploads of one image do the work once
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void startExecutor() {
+        sizes = sizes.stream().sorted().distinct().toList();
+        AtomicInteger n = new AtomicInteger();
+        // Bounded queue with no caller-runs fallback: when full, work is dropped and redone lazily on first request
+        executor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "thumbnail-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    public static boolean isImage(String contentType) {
+        return contentType != null && IMAGE_TYPES.contains(contentType.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public void generateAsync(Attachment attachment) {
+        if (!isImage(attachment.getContentType())) {
+            return;
+        }
+        String checksum = attachment.getChecksumSha256();
+        String storagePath = attachment.getStoragePath();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Only once the upload is committed; a rolled-back upload needs no thumbnails
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(checksum, storagePath);
+                }
+            });
+        } else {
+            submit(checksum, storagePath);
+        }
+    }
+
+    private void submit(String checksum, String storagePath) {
+        if (!pending.add(checksum)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(checksum, storagePath);
+                } catch (Exception e) {
+                    log.warn("Thumbnail generation failed for {}", checksum, e);
+                } finally {
+                    pending.remove(checksum);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(checksum);
+            log.debug("Thumbnail queue full, {} will be generated on first request", checksum);
+        }
+    }
+
+    /** Generates whichever configured sizes are missing for this content. Runs on the calling thread. */
+    public void generate(String checksum, String storagePath) throws IOException {
+        Set<Integer> existing = thumbnailRepo.findByChecksumSha256OrderByMaxDimension(checksum).stream()
+                .map(BlobThumbnail::getMaxDimension)
+                .collect(Collectors.toSet());
+        List<Integer> missing = sizes.stream().filter(s -> !existing.contains(s)).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        BufferedImage source = decode(storagePath, missing.get(missing.size() - 1));
+        if (source == null) {
+            return;
+        }
+
+        for (int size : missing) {
+            BufferedImage scaled = scale(source, size);
+            boolean alpha = scaled.getColorModel().hasAlpha();
+            byte[] encoded = alpha ? encodePng(scaled) : encodeJpeg(scaled);
+            String contentType = alpha ? "image/png" : "image/jpeg";
+
+            BlobStorage.StoredObject stored = blobStorage.store(new ByteArrayInputStream(encoded),
+                    "thumb-" + size + (alpha ? ".png" : ".jpg"), contentType, encoded.length);
+            try {
+                thumbnailRepo.save(BlobThumbnail.builder()
+                        .checksumSha256(checksum)
+                        .maxDimension(size)
+                        .width(scaled.getWidth())
+                        .height(scaled.getHeight())
+                        .contentType(contentType)
+                        .sizeBytes(stored.getSize())
+                        .storagePath(stored.getKey())
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                // Another instance generated the same size first
+                blobStorage.delete(stored.getKey());
+            }
+        }
+    }
+
+    /**
+     * Decodes the image, subsampling while reading so that it is never held at much more than twice
+     * the largest thumbnail; a 40MP photo never has to fit in the heap at full resolution.
+     */
+    private BufferedImage decode(String storagePath, int largest) throws IOException {
+        try (BlobContent content = blobStorage.open(storagePath, 0, -1);
+             ImageInputStream in = ImageIO.createImageInputStream(content.getInputStream())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                log.debug("No image reader for {}", storagePath);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    log.info("Skipping thumbnails for {}: {}x{} exceeds the pixel limit", storagePath, width, height);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int factor = Math.max(1, Math.max(width, height) / (2 * largest));
+                param.setSourceSubsampling(factor, factor, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /** Fits the image into a {@code size} x {@code size} box, never upscaling. */
+    static BufferedImage scale(BufferedImage source, int size) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) size / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        boolean alpha = source.getColorModel().hasAlpha();
+
+        // Halve first so bilinear filtering never skips source pixels, then one final step to the exact size
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, alpha);
+        }
+        return draw(current, targetWidth, targetHeight, alpha);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, boolean alpha) {
+        BufferedImage target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.82f);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Optional<AttachmentThumbnail> open(UUID attachmentId, UUID userId, int size) throws IOException {
+        Attachment a = attachmentRepo.findById(attachmentId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Attachment not found"));
+
+        // Verify attachment belongs to user
+        if (!a.getUserId().equals(userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Attachment does not belong to user");
+        }
+        if (!isImage(a.getContentType())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Attachment has no thumbnail");
+        }
+
+        List<BlobThumbnail> thumbnails = thumbnailRepo.findByChecksumSha256OrderByMaxDimension(a.getChecksumSha256());
+        if (thumbnails.isEmpty()) {
+            // Uploaded before thumbnails existed, or dropped from a full queue
+            generateAsync(a);
+            return Optional.empty();
+        }
+
+        BlobThumbnail best = thumbnails.stream()
+                .filter(t -> t.getMaxDimension() >= size)
+                .findFirst()
+                .orElse(thumbnails.get(thumbnails.size() - 1));
+        return Optional.of(AttachmentThumbnail.builder()
+                .contentType(best.getContentType())
+                .width(best.getWidth())
+                .height(best.getHeight())
+                .content(blobStorage.open(best.getStoragePath(), 0, -1))
+                .build());
+    }
+
+    @Override
+    public void deleteFor(String checksumSha256) {
+        for (BlobThumbnail thumbnail : thumbnailRepo.findByChecksumSha256OrderByMaxDimension(checksumSha256)) {
+            // The blob goes once the row delete has committed
+            outbox.enqueue(BlobDeleteHandler.TYPE, thumbnail.getStoragePath());
+            thumbnailRepo.delete(thumbnail);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.todo.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes the files of one request to the store concurrently, outside any transaction, so a batch costs
+ * roughly its slowest write rather than the sum of all of them. The pool is shared by all requests and
+ * bounded; when its queue is full the request thread writes the file itself.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BatchBlobWriter {
+
+    private final ContentAddressedBlobStore contentStore;
+
+    @Value("${app.uploads.batch.threads:8}")
+    private int threads;
+
+    @Value("${app.uploads.batch.queue-capacity:64}")
+    private int queueCapacity;
+
+    private ExecutorService executor;
+
+    /** Supplies the content of one file; opened on a pool thread. */
+    @FunctionalInterface
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    public record Upload(String name, String contentType, Source source) {}
+
+    /** Exactly one of {@code prepared} and {@code error} is set. */
+    public record Result(ContentAddressedBlobStore.Prepared prepared, Exception error) {}
+
+    @PostConstruct
+    void startExecutor() {
+        AtomicInteger n = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "batch-upload-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Prepares every upload and waits for all of them. A failing file does not affect the others; its
+     * result carries the exception. The caller closes every prepared result.
+     */
+    public List<Result> write(List<Upload> uploads) {
+        List<Future<ContentAddressedBlobStore.Prepared>> futures = new ArrayList<>(uploads.size());
+        for (Upload upload : uploads) {
+            futures.add(executor.submit(() -> {
+                try (InputStream in = upload.source().open()) {
+                    return contentStore.prepare(in, upload.name(), upload.contentType());
+                }
+            }));
+        }
+
+        // Waits through interrupts: every write must finish and be handed back, or its object would leak
+        List<Result> results = new ArrayList<>(uploads.size());
+        boolean interrupted = false;
+        for (Future<ContentAddressedBlobStore.Prepared> future : futures) {
+            while (true) {
+                try {
+                    results.add(new Result(future.get(), null));
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    results.add(new Result(null, cause instanceof Exception ex ? ex : new IOException(cause)));
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return results;
+    }
+}
@@ -0,0 +1,36 @@
+package com.todo.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An open, streamable slice of a stored object returned by {@link BlobStorage#open}.
+ * Callers must close it once the bytes have been consumed.
+ */
+public interface BlobContent extends Closeable {
+
+    /** Number of bytes this content produces (the requested range, not the whole object). */
+    long getLength();
+
+    InputStream getInputStream() throws IOException;
+
+    /** SHA-256 (hex) of the whole object as recorded by the store, or null if the store does not provide it. */
+    default String getChecksumSha256() {
+        return null;
+    }
+
+    /** HTTP content coding the bytes are in (e.g. "gzip"), or null if they are the original content. */
+    default String getContentEncoding() {
+        return null;
+    }
+
+    /**
+     * Writes the content to {@code out}. Implementations backed by files override this
+     * to use zero-copy channel transfers.
+     */
+    default long transferTo(OutputStream out) throws IOException {
+        return getInputStream().transferTo(out);
+    }
+}
@@ -0,0 +1,29 @@
+package com.todo.storage;
+
+import com.todo.service.OutboxHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes a stored object once the transaction that dropped its last reference has committed.
+ * Goes through the primary {@link BlobStorage}, so cached copies are evicted as well. Deleting a key
+ * that is already gone succeeds, which makes redelivery harmless.
+ */
+@Component
+@RequiredArgsConstructor
+public class BlobDeleteHandler implements OutboxHandler {
+
+    public static final String TYPE = "blob.delete";
+
+    private final BlobStorage blobStorage;
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void handle(String storagePath) throws Exception {
+        blobStorage.delete(storagePath);
+    }
+}
@@ -5,6 +5,9 @@ import lombok.Data;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface BlobStorage {
     @Data
@@ -16,9 +19,77 @@ public interface BlobStorage {
         String checksumSha256;
     }
 
-    StoredObject store(InputStream in, String originalName, String contentType, long size) throws IOException;
+    /** An object found by {@link #list()}: its key, stored size and when it was written. */
+    record ListedObject(String key, long size, Instant lastModified) {}
+
+    /** Spools {@code in} to local staging while hashing it; nothing is written to the store yet. */
+    StagedObject stage(InputStream in, String contentType) throws IOException;
+
+    /** Writes a staged object to the store under a new key. The staging file may be moved away. */
+    StoredObject commit(StagedObject staged, String originalName) throws IOException;
+
+    default StoredObject store(InputStream in, String originalName, String contentType, long size) throws IOException {
+        try (StagedObject staged = stage(in, contentType)) {
+            return commit(staged, originalName);
+        }
+    }
 
     byte[] load(String key) throws IOException;
+
+    /**
+     * Opens {@code length} bytes of the object starting at {@code offset} for streaming.
+     * A negative length reads to the end of the object.
+     */
+    BlobContent open(String key, long offset, long length) throws IOException;
+
+    /**
+     * Opens the whole object exactly as it is stored. When that differs from the original content
+     * (e.g. it is kept compressed), {@link BlobContent#getContentEncoding()} names the encoding.
+     */
+    default BlobContent openRaw(String key) throws IOException {
+        return open(key, 0, -1);
+    }
+
     void delete(String key) throws IOException;
 
+    /**
+     * {@link #open} without holding the calling thread while the store answers, e.g. for async request
+     * processing. Stores with a non-blocking client override this; by default the object is opened right
+     * away and the returned future is already complete.
+     */
+    default CompletableFuture<BlobContent> openAsync(String key, long offset, long length) {
+        try {
+            return CompletableFuture.completedFuture(open(key, offset, length));
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** {@link #openRaw} without holding the calling thread; see {@link #openAsync}. */
+    default CompletableFuture<BlobContent> openRawAsync(String key) {
+        try {
+            return CompletableFuture.completedFuture(openRaw(key));
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** {@link #delete} without holding the calling thread; see {@link #openAsync}. */
+    default CompletableFuture<Void> deleteAsync(String key) {
+        try {
+            delete(key);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Lazily lists every committed object, fetching from the backend page by page. Staging areas are
+     * not included. The stream must be closed.
+     */
+    default Stream<ListedObject> list() throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot list its objects");
+    }
+
 }
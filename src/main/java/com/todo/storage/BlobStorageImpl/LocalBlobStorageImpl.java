@@ -1,73 +1,177 @@
 package com.todo.storage.BlobStorageImpl;
 
+import com.todo.storage.BlobContent;
 import com.todo.storage.BlobStorage;
+import com.todo.storage.BlobStreams;
+import com.todo.storage.FileChannelContent;
+import com.todo.storage.StagedObject;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.security.MessageDigest;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.HexFormat;
-import java.util.UUID;
+import java.util.Objects;
+import java.util.stream.Stream;
 
+/**
+ * Stores blobs on the local filesystem under a two-level fan-out ({@code ab/cd/<uuid>.ext}) so no single
+ * directory grows past a few hundred entries. Keys are relative to the root, so the data directory can be
+ * moved or remounted without touching the database. Absolute keys written by older versions are still read
+ * until {@link LocalLayoutMigration} has relocated them.
+ */
 @Component
+@Qualifier("blobStorageBackend")
 @RequiredArgsConstructor
 @Slf4j
 @ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
 public class LocalBlobStorageImpl implements BlobStorage {
+    private static final String STAGING_DIR = ".staging";
+
     @Value("${app.storage.root-dir:./uploads}")
     private String rootDir;
 
-    private Path root() throws IOException {
-        Path p = Paths.get(rootDir).toAbsolutePath().normalize();
-        Files.createDirectories(p);
-        return p;
-    }
+    // Resolved and created once; only shard directories are created on the write path, and only when missing
+    private Path root;
+    private Path staging;
 
-    private static String sha256(byte[] bytes) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            return HexFormat.of().formatHex(md.digest(bytes));
-        } catch (Exception e) {
-            throw new RuntimeException("Unable to compute checksum", e);
-        }
+    /** A store under {@code rootDir} outside the container, e.g. the local tier of {@link com.todo.storage.TieredBlobStorage}. */
+    public LocalBlobStorageImpl(String rootDir) throws IOException {
+        this.rootDir = rootDir;
+        init();
     }
 
-    @Override
-    public StoredObject store(InputStream in, String originalName, String contentType, long size) throws IOException {
-
-        byte[] bytes = in.readAllBytes();
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(rootDir).toAbsolutePath().normalize();
+        staging = root.resolve(STAGING_DIR);
+        Files.createDirectories(staging);
+    }
 
-        String ext = (originalName != null && originalName.contains("."))
-                ? originalName.substring(originalName.lastIndexOf(".") + 1)
-                :"bin";
+    public Path root() {
+        return root;
+    }
 
-        String fname = UUID.randomUUID() + (ext.isEmpty() ? "" : ("." + ext));
+    /** Relative key for a new object: two levels of two hex characters taken from its (random) name. */
+    public static String shardedKey(String objectName) {
+        String hex = objectName.replace("-", "");
+        if (hex.length() < 4 || !HexFormat.isHexDigit(hex.charAt(0)) || !HexFormat.isHexDigit(hex.charAt(1))
+                || !HexFormat.isHexDigit(hex.charAt(2)) || !HexFormat.isHexDigit(hex.charAt(3))) {
+            hex = String.format("%08x", objectName.hashCode()); // legacy names that are not uuids
+        }
+        return hex.substring(0, 2) + "/" + hex.substring(2, 4) + "/" + objectName;
+    }
 
-        Path dest = root().resolve(fname);
+    /** Maps a key to its file, rejecting relative keys that would escape the root. */
+    public Path resolve(String key) {
+        Path path = Paths.get(key);
+        if (path.isAbsolute()) {
+            return path; // legacy key, not yet migrated
+        }
+        Path resolved = root.resolve(path).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new IllegalArgumentException("Key escapes storage root: " + key);
+        }
+        return resolved;
+    }
 
-        Files.write(dest, bytes, StandardOpenOption.CREATE_NEW);
+    @Override
+    public StagedObject stage(InputStream in, String contentType) throws IOException {
+        // Stage inside the root so commit is a same-filesystem rename
+        return StagedObject.spool(in, contentType, staging);
+    }
 
-        String ct = (contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    @Override
+    public StoredObject commit(StagedObject staged, String originalName) throws IOException {
+        String key = shardedKey(BlobStreams.newObjectName(originalName, staged.getContentEncoding()));
+        Path dest = root.resolve(key);
+        try {
+            moveIn(staged.getFile(), dest);
+        } catch (NoSuchFileException e) {
+            // First object in this shard
+            Files.createDirectories(dest.getParent());
+            moveIn(staged.getFile(), dest);
+        }
+        return new StoredObject(key, staged.getContentType(), staged.getSize(), staged.getChecksumSha256());
+    }
 
-        return new StoredObject(dest.toString(), ct, bytes.length, sha256(bytes));
+    private void moveIn(Path source, Path dest) throws IOException {
+        try {
+            Files.move(source, dest, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Staged on another filesystem (e.g. a resumable upload's part file): copy it next to the store
+            // first, so the object still appears atomically
+            Path copy = Files.createTempFile(staging, "staged-", ".part");
+            try {
+                Files.copy(source, copy, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(copy, dest, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException ex) {
+                Files.deleteIfExists(copy);
+                throw ex;
+            }
+            Files.deleteIfExists(source);
+        }
     }
 
     @Override
     public byte[] load(String key) throws IOException {
-        return Files.readAllBytes(Paths.get(key));
+        return Files.readAllBytes(resolve(key));
+    }
+
+    @Override
+    public BlobContent open(String key, long offset, long length) throws IOException {
+        return FileChannelContent.open(resolve(key), offset, length);
     }
 
     @Override
     public void delete(String key) throws IOException {
-        Files.deleteIfExists(Paths.get(key));
+        Files.deleteIfExists(resolve(key));
+    }
+
+    /**
+     * Walks the shard directories only, so staging files and anything still in the legacy flat layout
+     * (referenced by absolute keys) are never listed.
+     */
+    @Override
+    public Stream<ListedObject> list() throws IOException {
+        return Files.walk(root, 3)
+                .filter(path -> root.relativize(path).getNameCount() == 3 && isShard(root.relativize(path)))
+                .map(this::listed)
+                .filter(Objects::nonNull);
+    }
+
+    private static boolean isShard(Path relative) {
+        return isShardName(relative.getName(0).toString()) && isShardName(relative.getName(1).toString());
+    }
+
+    private static boolean isShardName(String name) {
+        return name.length() == 2 && HexFormat.isHexDigit(name.charAt(0)) && HexFormat.isHexDigit(name.charAt(1));
+    }
+
+    // Null if the file went away while walking or is not a regular file
+    private ListedObject listed(Path file) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attrs.isRegularFile()) {
+                return null;
+            }
+            String key = root.relativize(file).toString().replace(File.separatorChar, '/');
+            return new ListedObject(key, attrs.size(), attrs.lastModifiedTime().toInstant());
+        } catch (IOException e) {
+            return null;
+        }
     }
 }
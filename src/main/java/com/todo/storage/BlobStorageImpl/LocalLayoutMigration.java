@@ -0,0 +1,130 @@
+package com.todo.storage.BlobStorageImpl;
+
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.StoredBlobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One-off relocation of files written by the old flat layout (absolute {@code storage_path}) into the sharded
+ * layout with relative keys. Runs at startup when {@code app.storage.local.migration.enabled=true}.
+ * <p>
+ * Works in batches of distinct paths, each in its own transaction. A file is first hard-linked (or copied)
+ * to its new location, the rows are repointed, and the old name is removed only after the batch commits,
+ * so a crash at any point leaves every row pointing at an existing file. Re-running is safe.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnExpression("'${app.storage.type:local}' == 'local' && ${app.storage.local.migration.enabled:false}")
+public class LocalLayoutMigration implements ApplicationRunner {
+
+    private final LocalBlobStorageImpl storage;
+    private final AttachmentRepository attachmentRepo;
+    private final StoredBlobRepository storedBlobRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.storage.local.migration.batch-size:500}")
+    private int batchSize;
+
+    // Root the legacy absolute paths were written under, if the data directory has since moved
+    @Value("${app.storage.local.migration.legacy-root:}")
+    private String legacyRoot;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Result result = migrate();
+        log.info("Local layout migration finished: {} relocated, {} missing", result.relocated(), result.missing());
+    }
+
+    public record Result(int relocated, int missing) {}
+
+    public Result migrate() {
+        Path oldRoot = legacyRoot == null || legacyRoot.isBlank()
+                ? storage.root()
+                : Paths.get(legacyRoot).toAbsolutePath().normalize();
+        String prefix = oldRoot + oldRoot.getFileSystem().getSeparator();
+
+        int relocated = 0;
+        int missing = 0;
+        String after = "";
+        while (true) {
+            String cursor = after;
+            List<String> paths = attachmentRepo.findStoragePathsAfter(prefix, cursor, PageRequest.of(0, batchSize));
+            if (paths.isEmpty()) {
+                break;
+            }
+            List<Path> relocatedFiles = new ArrayList<>();
+            int batchMissing = transactionTemplate.execute(tx -> relocateBatch(oldRoot, paths, relocatedFiles));
+
+            // The rows now point at the new location; drop the old names
+            for (Path old : relocatedFiles) {
+                try {
+                    Files.deleteIfExists(old);
+                } catch (IOException e) {
+                    log.warn("Relocated {} but could not remove the old file", old, e);
+                }
+            }
+            relocated += relocatedFiles.size();
+            missing += batchMissing;
+            after = paths.get(paths.size() - 1);
+            log.info("Local layout migration: {} relocated, {} missing so far", relocated, missing);
+        }
+        return new Result(relocated, missing);
+    }
+
+    private int relocateBatch(Path oldRoot, List<String> paths, List<Path> relocatedFiles) {
+        int missing = 0;
+        for (String oldKey : paths) {
+            Path legacy = Paths.get(oldKey);
+            if (!legacy.startsWith(oldRoot)) {
+                continue; // LIKE matched on a wildcard character in the root path
+            }
+            Path source = storage.root().resolve(oldRoot.relativize(legacy));
+            String newKey = LocalBlobStorageImpl.shardedKey(source.getFileName().toString());
+            Path target = storage.root().resolve(newKey);
+            try {
+                if (Files.exists(source)) {
+                    Files.createDirectories(target.getParent());
+                    linkOrCopy(source, target);
+                    relocatedFiles.add(source);
+                } else if (!Files.exists(target)) {
+                    log.warn("Skipping {}: file not found", oldKey);
+                    missing++;
+                    continue;
+                }
+                // else: moved by an earlier run that stopped before its rows were updated
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to relocate " + oldKey, e);
+            }
+            attachmentRepo.updateStoragePath(oldKey, newKey);
+            storedBlobRepo.updateStoragePath(oldKey, newKey);
+        }
+        return missing;
+    }
+
+    private static void linkOrCopy(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (FileAlreadyExistsException e) {
+            // left by an earlier interrupted run
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(source, target);
+        }
+    }
+}
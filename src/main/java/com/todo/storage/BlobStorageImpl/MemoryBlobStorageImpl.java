@@ -0,0 +1,241 @@
+package com.todo.storage.BlobStorageImpl;
+
+import com.todo.storage.BlobContent;
+import com.todo.storage.BlobStorage;
+import com.todo.storage.BlobStreams;
+import com.todo.storage.StagedObject;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Keeps objects in direct (off-heap) buffers, so tests and benchmarks need neither a data directory nor
+ * AWS, and stored bytes do not inflate heap and GC numbers. Content is lost on restart.
+ * <p>
+ * {@code latency} is added to every commit, open and delete, and {@code bandwidth} (bytes per second, 0 for
+ * unlimited) adds the time a transfer of that size would take, so a remote store can be approximated.
+ * Staging still spools to {@code staging-dir}, because a {@link StagedObject} is a file; point it at a
+ * tmpfs such as {@code /dev/shm} to keep everything in memory.
+ */
+@Component
+@Qualifier("blobStorageBackend")
+@Slf4j
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "memory")
+public class MemoryBlobStorageImpl implements BlobStorage {
+
+    @Value("${app.storage.memory.max-size:256MB}")
+    private DataSize maxSize;
+
+    @Value("${app.storage.memory.latency:0ms}")
+    private Duration latency;
+
+    @Value("${app.storage.memory.bandwidth:0}")
+    private DataSize bandwidth;
+
+    @Value("${app.storage.memory.staging-dir:${java.io.tmpdir}/memory-blob-staging}")
+    private String stagingDir;
+
+    private Path staging;
+    private final Map<String, MemoryObject> objects = new ConcurrentHashMap<>();
+    private final AtomicLong bytesStored = new AtomicLong();
+
+    private record MemoryObject(ByteBuffer buffer, String contentType, String checksumSha256, Instant lastModified) {}
+
+    @PostConstruct
+    void init() {
+        staging = Paths.get(stagingDir).toAbsolutePath().normalize();
+    }
+
+    /** Bytes currently held off-heap. */
+    public long bytesStored() {
+        return bytesStored.get();
+    }
+
+    @Override
+    public StagedObject stage(InputStream in, String contentType) throws IOException {
+        return StagedObject.spool(in, contentType, staging);
+    }
+
+    @Override
+    public StoredObject commit(StagedObject staged, String originalName) throws IOException {
+        long size = staged.getSize();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Object of " + size + " bytes is too large for the memory store");
+        }
+        if (bytesStored.addAndGet(size) > maxSize.toBytes()) {
+            bytesStored.addAndGet(-size);
+            throw new IOException("Memory store is full (" + maxSize.toMegabytes() + " MB)");
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+            try (FileChannel channel = FileChannel.open(staged.getFile(), StandardOpenOption.READ)) {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        throw new EOFException("Staged file is shorter than its recorded size " + size);
+                    }
+                }
+            }
+            buffer.flip();
+            simulateTransfer(size);
+            String key = BlobStreams.newObjectName(originalName, staged.getContentEncoding());
+            objects.put(key, new MemoryObject(buffer.asReadOnlyBuffer(), staged.getContentType(),
+                    staged.getChecksumSha256(), Instant.now()));
+            return new StoredObject(key, staged.getContentType(), size, staged.getChecksumSha256());
+        } catch (IOException | RuntimeException | Error e) {
+            bytesStored.addAndGet(-size);
+            throw e;
+        }
+    }
+
+    @Override
+    public byte[] load(String key) throws IOException {
+        ByteBuffer buffer = find(key).buffer().duplicate();
+        simulateTransfer(buffer.remaining());
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public BlobContent open(String key, long offset, long length) throws IOException {
+        MemoryObject object = find(key);
+        ByteBuffer buffer = object.buffer().duplicate();
+        int start = (int) Math.min(Math.max(offset, 0), buffer.limit());
+        int end = length < 0 ? buffer.limit() : (int) Math.min(buffer.limit(), start + length);
+        buffer.position(start).limit(end);
+        simulateTransfer(end - start);
+        return new BufferContent(buffer.slice(), object.checksumSha256());
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        simulateTransfer(0);
+        MemoryObject removed = objects.remove(key);
+        if (removed != null) {
+            // The direct buffer itself is freed when it is garbage collected
+            bytesStored.addAndGet(-removed.buffer().capacity());
+        }
+    }
+
+    @Override
+    public Stream<ListedObject> list() {
+        return objects.entrySet().stream()
+                .map(e -> new ListedObject(e.getKey(), e.getValue().buffer().capacity(), e.getValue().lastModified()));
+    }
+
+    private MemoryObject find(String key) throws NoSuchFileException {
+        MemoryObject object = objects.get(key);
+        if (object == null) {
+            throw new NoSuchFileException(key);
+        }
+        return object;
+    }
+
+    // Time to first byte plus the transfer itself, as one wait
+    private void simulateTransfer(long bytes) throws IOException {
+        long nanos = latency.toNanos();
+        if (bandwidth.toBytes() > 0) {
+            nanos += bytes * 1_000_000_000L / bandwidth.toBytes();
+        }
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during simulated transfer");
+        }
+    }
+
+    /** A read-only view of a stored buffer; reading it never copies the whole object to the heap. */
+    private static final class BufferContent implements BlobContent {
+        private final ByteBuffer buffer;
+        private final String checksumSha256;
+
+        private BufferContent(ByteBuffer buffer, String checksumSha256) {
+            this.buffer = buffer;
+            this.checksumSha256 = checksumSha256;
+        }
+
+        @Override
+        public long getLength() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            ByteBuffer view = buffer.duplicate();
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return view.hasRemaining() ? view.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (len == 0) {
+                        return 0;
+                    }
+                    if (!view.hasRemaining()) {
+                        return -1;
+                    }
+                    int n = Math.min(len, view.remaining());
+                    view.get(b, off, n);
+                    return n;
+                }
+
+                @Override
+                public int available() {
+                    return view.remaining();
+                }
+            };
+        }
+
+        @Override
+        public String getChecksumSha256() {
+            return checksumSha256;
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            ByteBuffer view = buffer.duplicate();
+            WritableByteChannel channel = Channels.newChannel(out);
+            long written = 0;
+            while (view.hasRemaining()) {
+                written += channel.write(view);
+            }
+            return written;
+        }
+
+        @Override
+        public void close() {
+            // nothing to release; the buffer belongs to the store
+        }
+    }
+}
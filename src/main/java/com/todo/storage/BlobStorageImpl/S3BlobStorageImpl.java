@@ -1,30 +1,88 @@
 package com.todo.storage.BlobStorageImpl;
 
+import com.todo.storage.BlobContent;
 import com.todo.storage.BlobStorage;
-import io.awspring.cloud.s3.ObjectMetadata;
+import com.todo.storage.BlobStreams;
+import com.todo.storage.InputStreamContent;
+import com.todo.storage.StagedObject;
+import com.todo.storage.StorageUnavailableException;
 import io.awspring.cloud.s3.S3Template;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.MessageDigest;
-import java.util.HexFormat;
-import java.util.UUID;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
+/**
+ * Blobs in an S3 bucket. Writes go through local staging and, above the multipart threshold, concurrent
+ * part uploads. Reads and deletes also have non-blocking variants on {@link S3AsyncClient}, so request
+ * threads are not held while S3 answers. At most {@code max-in-flight} of those are outstanding (an open
+ * counts until its content is closed); beyond that, and when S3 does not answer within the operation's
+ * timeout, they fail with {@link StorageUnavailableException}.
+ */
 @Component
+@Qualifier("blobStorageBackend")
 @RequiredArgsConstructor
 @Slf4j
 @ConditionalOnProperty(name = "app.storage.type", havingValue = "s3")
 public class S3BlobStorageImpl implements BlobStorage {
 
+    private static final int LIST_PAGE_SIZE = 1000;
+
     private final S3Template s3;
+    private final S3Client s3Client;
+    private final S3AsyncClient s3AsyncClient;
 
     @Value("${app.storage.s3.bucket}")
     private String bucket;
@@ -32,44 +90,195 @@ public class S3BlobStorageImpl implements BlobStorage {
     @Value("${app.storage.s3.prefix}")
     private String prefix;
 
+    // Objects at or above this size are sent as a multipart upload
+    @Value("${app.storage.s3.multipart.threshold:16777216}")
+    private long multipartThreshold;
 
-    private static String sha256(byte[] bytes) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            return HexFormat.of().formatHex(md.digest(bytes));
-        } catch (Exception e) {
-            throw new RuntimeException("Unable to compute checksum", e);
-        }
+    // S3 requires parts of at least 5MB (except the last one)
+    @Value("${app.storage.s3.multipart.part-size:8388608}")
+    private long partSize;
+
+    @Value("${app.storage.s3.multipart.concurrency:4}")
+    private int partConcurrency;
+
+    @Value("${app.storage.s3.multipart.max-attempts:3}")
+    private int partMaxAttempts;
+
+    @Value("${app.storage.s3.async.max-in-flight:64}")
+    private int maxInFlight;
+
+    // Until the response headers arrive; the body is then read at the consumer's pace
+    @Value("${app.storage.s3.async.timeout.open:PT10S}")
+    private Duration openTimeout;
+
+    @Value("${app.storage.s3.async.timeout.delete:PT10S}")
+    private Duration deleteTimeout;
+
+    private ExecutorService partExecutor;
+    private Semaphore inFlight;
+
+    @PostConstruct
+    void init() {
+        inFlight = new Semaphore(maxInFlight);
+        AtomicInteger n = new AtomicInteger();
+        // Bounded pool and queue; when both are full the uploading thread sends the part itself (back-pressure)
+        partExecutor = new ThreadPoolExecutor(partConcurrency, partConcurrency, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(partConcurrency * 4),
+                r -> {
+                    Thread t = new Thread(r, "s3-part-upload-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        partExecutor.shutdown();
     }
-    private String buildKey(String originalName) {
-        // Extract extension, fallback "bin"
-        String ext = (originalName != null && originalName.contains("."))
-                ? originalName.substring(originalName.lastIndexOf(".") + 1)
-                : "bin";
 
-        String fname = UUID.randomUUID() + (ext.isEmpty() ? "" : ("." + ext));
+    private String buildKey(String originalName, String contentEncoding) {
+        String fname = BlobStreams.newObjectName(originalName, contentEncoding);
 
         // Apply prefix if set
         return (prefix == null || prefix.isBlank()) ? fname : prefix + "/" + fname;
     }
 
     @Override
-    public StoredObject store(InputStream in, String originalName, String contentType, long size) throws IOException {
-        byte[] bytes = in.readAllBytes();
+    public StagedObject stage(InputStream in, String contentType) throws IOException {
+        // Spool to local disk while hashing, so the checksum is known before anything is sent
+        // and the upload itself streams from disk instead of a heap copy of the whole file.
+        return StagedObject.spool(in, contentType, Path.of(System.getProperty("java.io.tmpdir"), "s3-staging"));
+    }
 
-        String key = buildKey(originalName);
+    @Override
+    public StoredObject commit(StagedObject staged, String originalName) throws IOException {
+        String key = buildKey(originalName, staged.getContentEncoding());
 
-        String ct = (contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        if (staged.getSize() >= multipartThreshold) {
+            multipartUpload(staged.getFile(), key, staged.getContentType(), staged.getSize(), staged.getChecksumSha256());
+        } else {
+            PutObjectRequest request = PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .contentType(staged.getContentType())
+                    .contentLength(staged.getSize())
+                    .metadata(Map.of("sha256", staged.getChecksumSha256()))
+                    .build();
+
+            s3Client.putObject(request, RequestBody.fromFile(staged.getFile()));
+        }
+
+        return new StoredObject(key, staged.getContentType(), staged.getSize(), staged.getChecksumSha256());
+    }
 
-        ObjectMetadata metadata = ObjectMetadata.builder()
-                .contentType(ct)
-                .contentLength((long)  bytes.length)
-                .metadata("sha256", sha256(bytes))
+    /**
+     * Uploads the spooled file as fixed-size parts sent concurrently on the bounded part executor.
+     * Each part is read straight from its slice of the spool file, so retries need no heap copy.
+     * Any part failing after all attempts aborts the whole upload so no orphaned parts are billed:
+     * parts not yet started are skipped, parts being sent are interrupted, and the upload is aborted.
+     */
+    private void multipartUpload(Path spool, String key, String contentType, long size, String checksumSha256)
+            throws IOException {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .metadata(Map.of("sha256", checksumSha256))
+                .build()).uploadId();
+
+        int partCount = (int) ((size + partSize - 1) / partSize);
+        // The first part to fail for good; once set, the other parts stop instead of sending more bytes
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        CompletionService<CompletedPart> completion = new ExecutorCompletionService<>(partExecutor);
+        List<Future<CompletedPart>> parts = new ArrayList<>(partCount);
+        try {
+            for (int i = 0; i < partCount; i++) {
+                int partNumber = i + 1;
+                long offset = i * partSize;
+                long length = Math.min(partSize, size - offset);
+                parts.add(completion.submit(
+                        () -> uploadPart(spool, key, uploadId, partNumber, offset, length, failure)));
+            }
+            // Taken as they finish, so a failure is seen without waiting for the remaining parts
+            CompletedPart[] completed = new CompletedPart[partCount];
+            for (int i = 0; i < partCount; i++) {
+                CompletedPart part = completion.take().get();
+                completed[part.partNumber() - 1] = part;
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder()
+                            .parts(completed)
+                            .build())
+                    .build());
+        } catch (ExecutionException | InterruptedException | RuntimeException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            Throwable cause = failure.get() != null ? failure.get()
+                    : e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            failure.compareAndSet(null, new CancellationException("Multipart upload abandoned"));
+            parts.forEach(f -> f.cancel(true));
+            try {
+                s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(bucket).key(key).uploadId(uploadId).build());
+            } catch (RuntimeException abortFailure) {
+                log.warn("Failed to abort multipart upload {} for {}", uploadId, key, abortFailure);
+            }
+            throw new IOException("Multipart upload failed for " + key, cause);
+        }
+    }
+
+    private CompletedPart uploadPart(Path spool, String key, String uploadId, int partNumber, long offset, long length,
+                                     AtomicReference<RuntimeException> failure) {
+        UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength(length)
                 .build();
+        // A fresh stream over the part's slice for every (SDK or our own) attempt
+        RequestBody body = RequestBody.fromContentProvider(() -> openSlice(spool, offset, length),
+                length, MediaType.APPLICATION_OCTET_STREAM_VALUE);
 
-        s3.upload(bucket, key, new ByteArrayInputStream(bytes), metadata);
+        for (int attempt = 1; ; attempt++) {
+            if (failure.get() != null) {
+                throw new CancellationException("Part " + partNumber + " of " + key + " skipped, the upload failed");
+            }
+            try {
+                String eTag = s3Client.uploadPart(request, body).eTag();
+                return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+            } catch (SdkException e) {
+                if (attempt >= partMaxAttempts || failure.get() != null) {
+                    failure.compareAndSet(null, e);
+                    throw e;
+                }
+                log.warn("Part {} of {} failed (attempt {}/{}), retrying: {}",
+                        partNumber, key, attempt, partMaxAttempts, e.getMessage());
+                try {
+                    Thread.sleep(100L << (attempt - 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    failure.compareAndSet(null, e);
+                    throw e;
+                }
+            }
+        }
+    }
 
-        return new StoredObject(key, ct, bytes.length, sha256(bytes));
+    private static InputStream openSlice(Path file, long offset, long length) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            channel.position(offset);
+            return BlobStreams.limit(Channels.newInputStream(channel), length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
@@ -79,9 +288,141 @@ public class S3BlobStorageImpl implements BlobStorage {
         }
     }
 
+    @Override
+    public BlobContent open(String key, long offset, long length) throws IOException {
+        ResponseInputStream<GetObjectResponse> in = s3Client.getObject(getRequest(key, offset, length));
+        return new InputStreamContent(in, in.response().contentLength(), in.response().metadata().get("sha256"));
+    }
+
+    @Override
+    public CompletableFuture<BlobContent> openAsync(String key, long offset, long length) {
+        if (!inFlight.tryAcquire()) {
+            return CompletableFuture.failedFuture(busy());
+        }
+        CompletableFuture<ResponseInputStream<GetObjectResponse>> response;
+        try {
+            response = s3AsyncClient.getObject(getRequest(key, offset, length),
+                    AsyncResponseTransformer.toBlockingInputStream());
+        } catch (RuntimeException e) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        // Failing the SDK's future aborts the request
+        return response.orTimeout(openTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((in, failure) -> {
+                    if (failure != null) {
+                        inFlight.release();
+                        throw new CompletionException(translate(failure, "open", key, openTimeout));
+                    }
+                    // The connection is busy until the body is read, so the permit goes with the content
+                    return new PermitContent(new InputStreamContent(in, in.response().contentLength(),
+                            in.response().metadata().get("sha256")), inFlight);
+                });
+    }
+
+    @Override
+    public CompletableFuture<BlobContent> openRawAsync(String key) {
+        return openAsync(key, 0, -1);
+    }
+
     @Override
     public void delete(String key) throws IOException {
         s3.deleteObject(bucket, key);
     }
 
+    @Override
+    public CompletableFuture<Void> deleteAsync(String key) {
+        if (!inFlight.tryAcquire()) {
+            return CompletableFuture.failedFuture(busy());
+        }
+        try {
+            return s3AsyncClient.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build())
+                    .orTimeout(deleteTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .handle((response, failure) -> {
+                        inFlight.release();
+                        if (failure != null) {
+                            throw new CompletionException(translate(failure, "delete", key, deleteTimeout));
+                        }
+                        return null;
+                    });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private GetObjectRequest getRequest(String key, long offset, long length) {
+        GetObjectRequest.Builder request = GetObjectRequest.builder().bucket(bucket).key(key);
+        if (offset > 0 || length >= 0) {
+            // Ranged GET so only the requested slice leaves S3
+            String end = length >= 0 ? String.valueOf(offset + length - 1) : "";
+            request.range("bytes=" + offset + "-" + end);
+        }
+        return request.build();
+    }
+
+    private StorageUnavailableException busy() {
+        return new StorageUnavailableException(maxInFlight + " S3 requests already in flight");
+    }
+
+    // Timeouts become StorageUnavailableException; S3 errors keep the type the blocking calls throw
+    private static Throwable translate(Throwable failure, String operation, String key, Duration timeout) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        if (cause instanceof TimeoutException) {
+            return new StorageUnavailableException("S3 " + operation + " of " + key + " timed out after " + timeout, cause);
+        }
+        return cause;
+    }
+
+    /** Content that gives its in-flight permit back when closed. */
+    private static final class PermitContent implements BlobContent {
+        private final BlobContent delegate;
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private PermitContent(BlobContent delegate, Semaphore permits) {
+            this.delegate = delegate;
+            this.permits = permits;
+        }
+
+        @Override
+        public long getLength() {
+            return delegate.getLength();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return delegate.getInputStream();
+        }
+
+        @Override
+        public String getChecksumSha256() {
+            return delegate.getChecksumSha256();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                delegate.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        }
+    }
+
+    @Override
+    public Stream<ListedObject> list() {
+        // The paginator issues the next ListObjectsV2 call only once the previous page has been consumed
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix((prefix == null || prefix.isBlank()) ? null : prefix + "/")
+                .maxKeys(LIST_PAGE_SIZE)
+                .build();
+        return s3Client.listObjectsV2Paginator(request).contents().stream()
+                .map(o -> new ListedObject(o.key(), o.size(), o.lastModified()));
+    }
+
 }
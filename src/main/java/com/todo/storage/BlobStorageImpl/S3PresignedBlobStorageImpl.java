@@ -0,0 +1,119 @@
+package com.todo.storage.BlobStorageImpl;
+
+import com.todo.storage.BlobStorage;
+import com.todo.storage.BlobStreams;
+import com.todo.storage.CompressingBlobStorage;
+import com.todo.storage.PresignedBlobStorage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ChecksumMode;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${app.storage.type:local}' == 's3' && ${app.storage.s3.presigned.enabled:false}")
+public class S3PresignedBlobStorageImpl implements PresignedBlobStorage {
+
+    private final S3Presigner presigner;
+    private final S3Client s3Client;
+
+    @Value("${app.storage.s3.bucket}")
+    private String bucket;
+
+    @Value("${app.storage.s3.prefix}")
+    private String prefix;
+
+    @Value("${app.storage.s3.presigned.ttl:PT10M}")
+    private Duration ttl;
+
+    @Override
+    public String newKey(String originalName) {
+        String fname = BlobStreams.newObjectName(originalName);
+        return (prefix == null || prefix.isBlank()) ? fname : prefix + "/" + fname;
+    }
+
+    @Override
+    public PresignedRequest presignUpload(String key, String contentType, long size,
+                                                               String checksumSha256) {
+        PutObjectRequest put = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .contentLength(size)
+                // S3 recomputes this over the body and rejects the PUT on mismatch
+                .checksumSHA256(Base64.getEncoder().encodeToString(HexFormat.of().parseHex(checksumSha256)))
+                .metadata(Map.of("sha256", checksumSha256))
+                .build();
+        return toPresigned(presigner.presignPutObject(PutObjectPresignRequest.builder()
+                .signatureDuration(ttl)
+                .putObjectRequest(put)
+                .build()));
+    }
+
+    @Override
+    public PresignedRequest presignDownload(String key, String fileName, String contentType) {
+        GetObjectRequest get = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .responseContentType(contentType)
+                .responseContentDisposition("attachment; filename=\"" + fileName + "\"")
+                // Objects compressed at rest are handed out as stored, so clients must be told to decode them
+                .responseContentEncoding(CompressingBlobStorage.isCompressed(key) ? CompressingBlobStorage.GZIP : null)
+                .build();
+        return toPresigned(presigner.presignGetObject(GetObjectPresignRequest.builder()
+                .signatureDuration(ttl)
+                .getObjectRequest(get)
+                .build()));
+    }
+
+    @Override
+    public Optional<BlobStorage.StoredObject> describe(String key) {
+        HeadObjectResponse head;
+        try {
+            head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .checksumMode(ChecksumMode.ENABLED)
+                    .build());
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        }
+        String checksum = head.checksumSHA256() == null ? null
+                : HexFormat.of().formatHex(Base64.getDecoder().decode(head.checksumSHA256()));
+        return Optional.of(new BlobStorage.StoredObject(key, head.contentType(), head.contentLength(), checksum));
+    }
+
+    @Override
+    public void delete(String key) {
+        s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+    }
+
+    private static PresignedRequest toPresigned(software.amazon.awssdk.awscore.presigner.PresignedRequest signed) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        signed.signedHeaders().forEach((name, values) -> {
+            if (!"host".equalsIgnoreCase(name)) {
+                headers.put(name, String.join(",", values));
+            }
+        });
+        return new PresignedRequest(signed.httpRequest().method().name(),
+                signed.url().toString(), headers, signed.expiration());
+    }
+}
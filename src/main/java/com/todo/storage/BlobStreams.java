@@ -0,0 +1,126 @@
+package com.todo.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Stream helpers shared by the {@link BlobStorage} implementations.
+ * Everything here works with a fixed-size buffer so uploads never need heap proportional to the file.
+ */
+public final class BlobStreams {
+    private BlobStreams() {}
+
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Size and SHA-256 of a stream, computed in the same pass that copied it. */
+    public record Digested(long size, String checksumSha256) {}
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static String hex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Copies {@code in} to {@code out} through a {@link DigestInputStream}, returning the byte count and checksum.
+     * Neither stream is closed.
+     */
+    public static Digested copy(InputStream in, OutputStream out) throws IOException {
+        MessageDigest md = sha256();
+        DigestInputStream din = new DigestInputStream(in, md);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        int n;
+        while ((n = din.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+            total += n;
+        }
+        return new Digested(total, hex(md));
+    }
+
+    /** Wraps {@code in} so that at most {@code limit} bytes can be read from it. */
+    public static InputStream limit(InputStream in, long limit) {
+        return new LimitedInputStream(in, limit);
+    }
+
+    /** Random object name that keeps the original file extension, falling back to "bin". */
+    public static String newObjectName(String originalName) {
+        return newObjectName(originalName, null);
+    }
+
+    /**
+     * {@link #newObjectName(String)} for content stored in {@code contentEncoding}: gzip content also gets
+     * {@link CompressingBlobStorage#GZIP_SUFFIX}. A file name already ending in that suffix loses it, so
+     * only encoded content ever has it, whatever users call their files.
+     */
+    public static String newObjectName(String originalName, String contentEncoding) {
+        String name = originalName;
+        if (name != null && name.toLowerCase(Locale.ROOT).endsWith(CompressingBlobStorage.GZIP_SUFFIX)) {
+            name = name.substring(0, name.length() - CompressingBlobStorage.GZIP_SUFFIX.length());
+        }
+        String ext = (name != null && name.contains("."))
+                ? name.substring(name.lastIndexOf(".") + 1)
+                : "bin";
+        String suffix = CompressingBlobStorage.GZIP.equals(contentEncoding) ? CompressingBlobStorage.GZIP_SUFFIX : "";
+        return UUID.randomUUID() + (ext.isEmpty() ? "" : ("." + ext)) + suffix;
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.todo.storage;
+
+import com.todo.entity.BlobAccess;
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.BlobAccessRepository;
+import com.todo.repository.BlobThumbnailRepository;
+import com.todo.repository.StoredBlobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves objects between the tiers of {@link TieredBlobStorage}.
+ * <p>
+ * Every {@code flush-interval} the access times collected in memory are written to {@code blob_access}
+ * in one transaction, and the cold objects read since the last flush are queued for promotion on a small
+ * pool. Every {@code demote-interval} the hot objects not read for {@code demote-after} are copied to the
+ * cold tier, oldest first.
+ * <p>
+ * A move copies the object first, then repoints every row that references it in one transaction, and
+ * only then deletes the original. If nothing referenced the original any more, the copy is deleted
+ * instead. A demotion claims its {@code blob_access} row in the same transaction, so an object read
+ * again by another instance in the meantime stays hot.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnExpression("'${app.storage.type:local}' == 's3' && ${app.storage.tiering.enabled:false}")
+public class BlobTierManager {
+
+    private final TieredBlobStorage storage;
+    private final BlobAccessRepository accessRepo;
+    private final AttachmentRepository attachmentRepo;
+    private final StoredBlobRepository storedBlobRepo;
+    private final BlobThumbnailRepository thumbnailRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry registry;
+
+    @Value("${app.storage.tiering.demote-after:P30D}")
+    private Duration demoteAfter;
+
+    @Value("${app.storage.tiering.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.storage.tiering.promotion.threads:2}")
+    private int promotionThreads;
+
+    @Value("${app.storage.tiering.promotion.queue-capacity:100}")
+    private int promotionQueueCapacity;
+
+    private ExecutorService promotions;
+    // Cold keys queued or being copied, so repeated reads do not copy the same object twice
+    private final Set<String> promoting = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean demoting = new AtomicBoolean();
+
+    private Counter promoted;
+    private Counter demoted;
+    private Counter failed;
+
+    @PostConstruct
+    void startExecutor() {
+        promoted = Counter.builder("blob.tier.promoted").description("Objects moved back to the local tier on read")
+                .register(registry);
+        demoted = Counter.builder("blob.tier.demoted").description("Idle objects moved to the remote tier")
+                .register(registry);
+        failed = Counter.builder("blob.tier.failed").description("Moves between tiers that failed")
+                .register(registry);
+
+        AtomicInteger n = new AtomicInteger();
+        // No caller-runs: promotion is best effort and must not block the scheduler; a dropped key stays
+        // cold and is noted again on its next read
+        promotions = new ThreadPoolExecutor(promotionThreads, promotionThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(promotionQueueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "blob-promote-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        promotions.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.tiering.flush-interval:PT30S}",
+            initialDelayString = "${app.storage.tiering.flush-interval:PT30S}")
+    public void flush() {
+        recordAccess();
+        for (String key : storage.drainColdReads()) {
+            if (!promoting.add(key)) {
+                continue;
+            }
+            try {
+                promotions.execute(() -> {
+                    try {
+                        promote(key);
+                    } finally {
+                        promoting.remove(key);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                promoting.remove(key);
+            }
+        }
+    }
+
+    // Lost if this fails; the next demotion run re-adds rows for hot objects without one
+    private void recordAccess() {
+        Map<String, TieredBlobStorage.Written> written = storage.drainWritten();
+        Set<String> read = storage.drainHotReads();
+        if (written.isEmpty() && read.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                written.forEach((key, w) -> accessRepo.insertIfAbsent(key, w.contentType(), w.size(), now));
+                List<String> batch = new ArrayList<>(Math.min(read.size(), batchSize));
+                for (String key : read) {
+                    batch.add(key);
+                    if (batch.size() == batchSize) {
+                        accessRepo.touch(batch, now);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    accessRepo.touch(batch, now);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to record access times of {} local blobs", written.size() + read.size(), e);
+        }
+    }
+
+    /** Copies a cold object to the local tier and repoints its rows. Returns false if it stayed cold. */
+    public boolean promote(String key) {
+        TieredBlobStorage.Moved moved;
+        try {
+            moved = storage.promote(key);
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            log.warn("Failed to promote blob {}", key, e);
+            return false;
+        }
+        boolean repointed;
+        try {
+            repointed = Boolean.TRUE.equals(transactionTemplate.execute(tx -> {
+                if (repoint(moved) == 0) {
+                    return false;
+                }
+                accessRepo.insertFrom(moved.to(), Instant.now());
+                return true;
+            }));
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.warn("Failed to repoint promoted blob {}", key, e);
+            repointed = false;
+        }
+        finish(moved, repointed);
+        if (repointed) {
+            promoted.increment();
+        }
+        return repointed;
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.tiering.demote-interval:PT1H}",
+            initialDelayString = "${app.storage.tiering.demote-initial-delay:PT10M}")
+    public void scheduledDemote() {
+        try {
+            int count = demoteIdle();
+            if (count > 0) {
+                log.info("Moved {} idle blobs to the remote tier", count);
+            }
+        } catch (RuntimeException e) {
+            log.error("Blob demotion failed", e);
+        }
+    }
+
+    /** Demotes every hot object not read for {@code demote-after}; returns how many were moved. */
+    public int demoteIdle() {
+        if (!demoting.compareAndSet(false, true)) {
+            log.info("Blob demotion already running, skipping");
+            return 0;
+        }
+        try {
+            Integer recovered = transactionTemplate.execute(tx -> accessRepo.insertMissing(TieredBlobStorage.LOCAL_PREFIX));
+            if (recovered != null && recovered > 0) {
+                log.info("Started tracking {} local blobs that had no access time", recovered);
+            }
+            Instant before = Instant.now().minus(demoteAfter);
+            int count = 0;
+            while (true) {
+                List<BlobAccess> idle = accessRepo.findIdle(before, PageRequest.of(0, batchSize));
+                int moved = 0;
+                for (BlobAccess access : idle) {
+                    if (demote(access, before)) {
+                        moved++;
+                    }
+                }
+                count += moved;
+                // Rows that failed are selected again; stop once a batch makes no progress
+                if (idle.size() < batchSize || moved == 0) {
+                    return count;
+                }
+            }
+        } finally {
+            demoting.set(false);
+        }
+    }
+
+    private boolean demote(BlobAccess access, Instant before) {
+        String key = access.getStoragePath();
+        TieredBlobStorage.Moved moved;
+        try {
+            moved = storage.demote(key, access.getContentType());
+        } catch (NoSuchFileException e) {
+            // Deleted since it was last read
+            transactionTemplate.executeWithoutResult(tx -> accessRepo.deleteById(key));
+            return false;
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            log.warn("Failed to demote blob {}", key, e);
+            return false;
+        }
+        boolean repointed;
+        try {
+            repointed = Boolean.TRUE.equals(transactionTemplate.execute(tx ->
+                    accessRepo.deleteIdle(key, before) > 0 && repoint(moved) > 0));
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.warn("Failed to repoint demoted blob {}", key, e);
+            repointed = false;
+        }
+        finish(moved, repointed);
+        if (repointed) {
+            demoted.increment();
+        }
+        return repointed;
+    }
+
+    private int repoint(TieredBlobStorage.Moved moved) {
+        return attachmentRepo.updateStoragePath(moved.from(), moved.to())
+                + storedBlobRepo.updateStoragePath(moved.from(), moved.to())
+                + thumbnailRepo.updateStoragePath(moved.from(), moved.to());
+    }
+
+    // Drops whichever copy no row points at
+    private void finish(TieredBlobStorage.Moved moved, boolean repointed) {
+        String unused = repointed ? moved.from() : moved.to();
+        try {
+            storage.delete(unused);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to delete {} after moving it between tiers; the orphan collector will remove it",
+                    unused, e);
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package com.todo.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache in front of a remote {@link BlobStorage}.
+ * <p>
+ * Objects up to {@code memoryMaxObjectSize} are kept in a heap LRU bounded by {@code memoryMaxBytes};
+ * larger ones up to {@code diskMaxObjectSize} go to an LRU directory bounded by {@code diskMaxBytes}.
+ * Anything bigger is streamed straight from the delegate. Keys are never rewritten (every commit gets a
+ * fresh one), so entries only need to be dropped on delete. The whole object is fetched on a miss and
+ * verified against the checksum the store recorded before it is cached; range requests are then served
+ * from the cached copy. Concurrent misses for the same key share a single fetch.
+ * <p>
+ * {@link #openAsync} fills the cache the same way without holding the caller's thread: the delegate's
+ * non-blocking read supplies the object, and at most {@code fillConcurrency} bodies are copied into the
+ * cache at a time on a dedicated pool.
+ */
+@Slf4j
+public class CachingBlobStorage implements BlobStorage {
+
+    private static final int UNCACHEABLE_KEYS = 10_000;
+
+    private final BlobStorage delegate;
+    private final Path dir;
+    private final long memoryMaxObjectSize;
+    private final long memoryMaxBytes;
+    private final long diskMaxObjectSize;
+    private final long diskMaxBytes;
+
+    // Access-ordered maps give LRU iteration order; each is guarded by its own monitor
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes;
+    private final LinkedHashMap<String, DiskEntry> disk = new LinkedHashMap<>(256, 0.75f, true);
+    private long diskBytes;
+
+    // Keys known to be too large to cache, so they are not fetched whole again
+    private final Set<String> uncacheable = Collections.synchronizedSet(Collections.newSetFromMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > UNCACHEABLE_KEYS;
+                }
+            }));
+
+    private final ConcurrentHashMap<String, CompletableFuture<Cached>> inflight = new ConcurrentHashMap<>();
+    // Copies bodies opened by async misses into the cache; reading them would stall the delegate's threads
+    private final ExecutorService fillExecutor;
+
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter coalesced;
+    private final Counter misses;
+    private final Counter bypassed;
+
+    /** A cached object: either its bytes or the file holding them. */
+    private record Cached(byte[] bytes, Path file, String checksumSha256) {}
+
+    private record DiskEntry(Path file, long size) {}
+
+    public CachingBlobStorage(BlobStorage delegate, Path dir,
+                              long memoryMaxObjectSize, long memoryMaxBytes,
+                              long diskMaxObjectSize, long diskMaxBytes,
+                              int fillConcurrency, MeterRegistry registry) throws IOException {
+        this.delegate = delegate;
+        this.dir = dir;
+        this.memoryMaxObjectSize = memoryMaxObjectSize;
+        this.memoryMaxBytes = memoryMaxBytes;
+        this.diskMaxObjectSize = diskMaxObjectSize;
+        this.diskMaxBytes = diskMaxBytes;
+        AtomicInteger n = new AtomicInteger();
+        this.fillExecutor = Executors.newFixedThreadPool(fillConcurrency, r -> {
+            Thread t = new Thread(r, "blob-cache-fill-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        // The index is not persisted, so files left by a previous run are unreachable
+        Files.createDirectories(dir);
+        try (Stream<Path> leftovers = Files.list(dir)) {
+            leftovers.forEach(this::deleteQuietly);
+        }
+
+        memoryHits = requests(registry, "memory_hit");
+        diskHits = requests(registry, "disk_hit");
+        coalesced = requests(registry, "coalesced");
+        misses = requests(registry, "miss");
+        bypassed = requests(registry, "bypass");
+        Gauge.builder("blob.cache.hit.ratio", this, CachingBlobStorage::hitRatio)
+                .description("Share of blob reads served without fetching from the store")
+                .register(registry);
+        Gauge.builder("blob.cache.size", this, c -> c.memoryBytes()).tag("tier", "memory").baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("blob.cache.size", this, c -> c.diskBytes()).tag("tier", "disk").baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static Counter requests(MeterRegistry registry, String result) {
+        return Counter.builder("blob.cache.requests")
+                .description("Blob reads by cache outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public double hitRatio() {
+        double hits = memoryHits.count() + diskHits.count() + coalesced.count();
+        double total = hits + misses.count() + bypassed.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    public long memoryBytes() {
+        synchronized (memory) {
+            return memoryBytes;
+        }
+    }
+
+    public long diskBytes() {
+        synchronized (disk) {
+            return diskBytes;
+        }
+    }
+
+    @Override
+    public StagedObject stage(InputStream in, String contentType) throws IOException {
+        return delegate.stage(in, contentType);
+    }
+
+    @Override
+    public StoredObject commit(StagedObject staged, String originalName) throws IOException {
+        // Write-around: only objects that are actually read take cache space
+        return delegate.commit(staged, originalName);
+    }
+
+    @Override
+    public byte[] load(String key) throws IOException {
+        try (BlobContent content = open(key, 0, -1)) {
+            return content.getInputStream().readAllBytes();
+        }
+    }
+
+    @Override
+    public BlobContent open(String key, long offset, long length) throws IOException {
+        BlobContent hit = lookup(key, offset, length);
+        if (hit != null) {
+            return hit;
+        }
+        if (uncacheable.contains(key)) {
+            bypassed.increment();
+            return delegate.open(key, offset, length);
+        }
+
+        Cached cached = fill(key);
+        BlobContent content = cached != null ? serve(cached, offset, length) : null;
+        return content != null ? content : delegate.open(key, offset, length);
+    }
+
+    /**
+     * Serves hits at once. A miss starts a fill from the delegate's non-blocking read, or joins the fill
+     * already running for the key (blocking or not), and is served from the cached copy once it is in.
+     */
+    @Override
+    public CompletableFuture<BlobContent> openAsync(String key, long offset, long length) {
+        try {
+            BlobContent hit = lookup(key, offset, length);
+            if (hit != null) {
+                return CompletableFuture.completedFuture(hit);
+            }
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (uncacheable.contains(key)) {
+            bypassed.increment();
+            return delegate.openAsync(key, offset, length);
+        }
+
+        CompletableFuture<Cached> mine = new CompletableFuture<>();
+        CompletableFuture<Cached> running = inflight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return serveWhenFilled(running, key, offset, length);
+        }
+        misses.increment();
+        CompletableFuture<BlobContent> opening;
+        try {
+            opening = delegate.openAsync(key, 0, -1);
+        } catch (RuntimeException e) {
+            opening = CompletableFuture.failedFuture(e);
+        }
+        opening.whenComplete((content, failure) -> {
+            if (failure != null) {
+                inflight.remove(key, mine);
+                mine.completeExceptionally(failure);
+                return;
+            }
+            try {
+                fillExecutor.execute(() -> {
+                    try (content) {
+                        mine.complete(cache(key, content));
+                    } catch (IOException | RuntimeException e) {
+                        mine.completeExceptionally(e);
+                    } finally {
+                        inflight.remove(key, mine);
+                    }
+                });
+            } catch (RuntimeException e) {
+                closeQuietly(content);
+                inflight.remove(key, mine);
+                mine.completeExceptionally(e);
+            }
+        });
+        return serveWhenFilled(mine, key, offset, length);
+    }
+
+    // Too large to cache, or evicted before it could be served: read the range from the store
+    private CompletableFuture<BlobContent> serveWhenFilled(CompletableFuture<Cached> fill, String key,
+                                                          long offset, long length) {
+        return fill.thenCompose(cached -> {
+            try {
+                BlobContent content = cached != null ? serve(cached, offset, length) : null;
+                return content != null ? CompletableFuture.completedFuture(content)
+                        : delegate.openAsync(key, offset, length);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<BlobContent> openRawAsync(String key) {
+        return openAsync(key, 0, -1);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        delegate.delete(key);
+        evict(key);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(String key) {
+        return delegate.deleteAsync(key).thenRun(() -> evict(key));
+    }
+
+    private void evict(String key) {
+        uncacheable.remove(key);
+        synchronized (memory) {
+            byte[] bytes = memory.remove(key);
+            if (bytes != null) {
+                memoryBytes -= bytes.length;
+            }
+        }
+        DiskEntry entry;
+        synchronized (disk) {
+            entry = disk.remove(key);
+            if (entry != null) {
+                diskBytes -= entry.size();
+            }
+        }
+        if (entry != null) {
+            deleteQuietly(entry.file());
+        }
+    }
+
+    @Override
+    public Stream<ListedObject> list() throws IOException {
+        return delegate.list();
+    }
+
+    private BlobContent lookup(String key, long offset, long length) throws IOException {
+        byte[] bytes;
+        synchronized (memory) {
+            bytes = memory.get(key);
+        }
+        if (bytes != null) {
+            memoryHits.increment();
+            return slice(bytes, null, offset, length);
+        }
+
+        DiskEntry entry;
+        synchronized (disk) {
+            entry = disk.get(key);
+        }
+        if (entry != null) {
+            BlobContent content = openFile(entry.file(), offset, length);
+            if (content != null) {
+                diskHits.increment();
+                return content;
+            }
+        }
+        return null;
+    }
+
+    /** Fetches and caches the whole object, or joins a fetch already in progress. Null if it is too large. */
+    private Cached fill(String key) throws IOException {
+        CompletableFuture<Cached> mine = new CompletableFuture<>();
+        CompletableFuture<Cached> running = inflight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        misses.increment();
+        try {
+            Cached cached = fetch(key);
+            mine.complete(cached);
+            return cached;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, mine);
+        }
+    }
+
+    private static Cached await(CompletableFuture<Cached> running) throws IOException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a concurrent fetch");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private Cached fetch(String key) throws IOException {
+        try (BlobContent content = delegate.open(key, 0, -1)) {
+            return cache(key, content);
+        }
+    }
+
+    /** Copies the whole object into the cache. Null if it is too large. */
+    private Cached cache(String key, BlobContent content) throws IOException {
+        long size = content.getLength();
+        if (size > diskMaxObjectSize) {
+            uncacheable.add(key);
+            return null;
+        }
+
+        if (size <= memoryMaxObjectSize) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) size);
+            BlobStreams.Digested digested = BlobStreams.copy(content.getInputStream(), out);
+            verify(key, content, digested);
+            Cached cached = new Cached(out.toByteArray(), null, digested.checksumSha256());
+            putMemory(key, cached.bytes());
+            return cached;
+        }
+
+        Path tmp = Files.createTempFile(dir, "fill-", ".tmp");
+        try {
+            BlobStreams.Digested digested;
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                digested = BlobStreams.copy(content.getInputStream(), out);
+            }
+            verify(key, content, digested);
+            Path file = dir.resolve(UUID.randomUUID() + ".blob");
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+            putDisk(key, file, digested.size());
+            return new Cached(null, file, digested.checksumSha256());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void verify(String key, BlobContent content, BlobStreams.Digested digested) throws IOException {
+        if (digested.size() != content.getLength()) {
+            throw new IOException("Short read for " + key + ": " + digested.size() + " of " + content.getLength());
+        }
+        String expected = content.getChecksumSha256();
+        if (expected != null && !expected.equalsIgnoreCase(digested.checksumSha256())) {
+            throw new IOException("Checksum mismatch for " + key + ", not caching");
+        }
+    }
+
+    private BlobContent serve(Cached cached, long offset, long length) throws IOException {
+        return cached.bytes() != null
+                ? slice(cached.bytes(), cached.checksumSha256(), offset, length)
+                : openFile(cached.file(), offset, length);
+    }
+
+    private static BlobContent slice(byte[] bytes, String checksum, long offset, long length) {
+        int start = (int) Math.min(Math.max(0, offset), bytes.length);
+        int count = (int) (length < 0 ? bytes.length - start : Math.min(length, bytes.length - start));
+        return new InputStreamContent(new ByteArrayInputStream(bytes, start, count), count, checksum);
+    }
+
+    // Null if the file was evicted in the meantime; the caller falls back to the store
+    private static BlobContent openFile(Path file, long offset, long length) throws IOException {
+        try {
+            return FileChannelContent.open(file, offset, length);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void putMemory(String key, byte[] bytes) {
+        synchronized (memory) {
+            byte[] previous = memory.put(key, bytes);
+            memoryBytes += bytes.length - (previous != null ? previous.length : 0);
+            Iterator<byte[]> lru = memory.values().iterator();
+            while (memoryBytes > memoryMaxBytes && lru.hasNext()) {
+                memoryBytes -= lru.next().length;
+                lru.remove();
+            }
+        }
+    }
+
+    private void putDisk(String key, Path file, long size) {
+        List<Path> evicted = new ArrayList<>();
+        synchronized (disk) {
+            DiskEntry previous = disk.put(key, new DiskEntry(file, size));
+            if (previous != null) {
+                diskBytes -= previous.size();
+                evicted.add(previous.file());
+            }
+            diskBytes += size;
+            Iterator<DiskEntry> lru = disk.values().iterator();
+            while (diskBytes > diskMaxBytes && lru.hasNext()) {
+                DiskEntry victim = lru.next();
+                if (victim.file().equals(file)) {
+                    continue; // the entry just added is the most recent; everything before it goes first
+                }
+                diskBytes -= victim.size();
+                evicted.add(victim.file());
+                lru.remove();
+            }
+        }
+        // Readers holding an open channel keep reading the unlinked file
+        evicted.forEach(this::deleteQuietly);
+    }
+
+    private static void closeQuietly(BlobContent content) {
+        try {
+            content.close();
+        } catch (IOException e) {
+            log.warn("Failed to close unfilled blob content", e);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete cache file {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.todo.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compresses compressible content at rest and decompresses it, streaming, on read.
+ * <p>
+ * Whether to compress is decided from the content type plus a byte-entropy sniff of the first
+ * {@value #SNIFF_BYTES} bytes, and the compressed copy is only kept if it actually saves space.
+ * Compressed objects are plain gzip whose key ends in {@value #GZIP_SUFFIX}, which is the codec marker,
+ * so every reader of a key knows how to decode it. Stores add that suffix only for content staged as
+ * gzip-encoded (see {@link BlobStreams#newObjectName(String, String)}), never from a user's file name, so
+ * uploads such as {@code logs.tar.gz} keep their bytes as they are. The uncompressed length is carried in a gzip extra
+ * field so reads can report it without inflating the whole object. {@link #openRaw} hands out the gzip
+ * bytes untouched for clients that accept {@code Content-Encoding: gzip}.
+ * <p>
+ * Staging is left to the delegate, so sizes and checksums seen by callers (and used for deduplication)
+ * are always those of the original content.
+ */
+@Slf4j
+public class CompressingBlobStorage implements BlobStorage {
+
+    public static final String GZIP = "gzip";
+    public static final String GZIP_SUFFIX = ".gzc";
+    static final int SNIFF_BYTES = 16 * 1024;
+
+    // gzip extra subfield "TL": 8-byte little-endian uncompressed length
+    private static final byte SI1 = 'T';
+    private static final byte SI2 = 'L';
+    private static final int HEADER_LENGTH = 10 + 2 + 4 + 8;
+
+    private static final Set<String> COMPRESSIBLE_TYPES = Set.of(
+            "application/json", "application/xml", "application/csv", "application/x-ndjson",
+            "application/javascript", "application/x-yaml", "application/yaml", "application/sql",
+            "image/svg+xml", "image/bmp");
+
+    private static final Set<String> INCOMPRESSIBLE_TYPES = Set.of(
+            "application/zip", "application/gzip", "application/x-gzip", "application/x-7z-compressed",
+            "application/x-rar-compressed", "application/pdf", "image/jpeg", "image/png", "image/gif",
+            "image/webp");
+
+    private final BlobStorage delegate;
+    private final long minSize;
+    private final int level;
+    // Keep the compressed copy only if it is at most this fraction of the original
+    private final double maxRatio;
+
+    public CompressingBlobStorage(BlobStorage delegate, long minSize, int level, double maxRatio) {
+        this.delegate = delegate;
+        this.minSize = minSize;
+        this.level = level;
+        this.maxRatio = maxRatio;
+    }
+
+    public static boolean isCompressed(String key) {
+        return key != null && key.endsWith(GZIP_SUFFIX);
+    }
+
+    /** True for content types whose payload is already compressed, so deflating it again only costs CPU. */
+    public static boolean isPrecompressed(String contentType) {
+        String type = baseType(contentType);
+        return INCOMPRESSIBLE_TYPES.contains(type) || type.startsWith("video/") || type.startsWith("audio/");
+    }
+
+    @Override
+    public StagedObject stage(InputStream in, String contentType) throws IOException {
+        return delegate.stage(in, contentType);
+    }
+
+    @Override
+    public StoredObject commit(StagedObject staged, String originalName) throws IOException {
+        if (!shouldCompress(staged)) {
+            return delegate.commit(staged, originalName);
+        }
+
+        try (StagedObject compressed = compress(staged)) {
+            if (compressed.getSize() > staged.getSize() * maxRatio) {
+                return delegate.commit(staged, originalName);
+            }
+            // Staged as gzip-encoded, so the delegate ends the key in the codec marker
+            StoredObject stored = delegate.commit(compressed, originalName);
+            log.debug("Compressed {} from {} to {} bytes", stored.getKey(), staged.getSize(), compressed.getSize());
+            return new StoredObject(stored.getKey(), staged.getContentType(), staged.getSize(), staged.getChecksumSha256());
+        }
+    }
+
+    @Override
+    public byte[] load(String key) throws IOException {
+        try (BlobContent content = open(key, 0, -1)) {
+            return content.getInputStream().readAllBytes();
+        }
+    }
+
+    @Override
+    public BlobContent open(String key, long offset, long length) throws IOException {
+        if (!isCompressed(key)) {
+            return delegate.open(key, offset, length);
+        }
+
+        return decode(delegate.open(key, 0, -1), offset, length);
+    }
+
+    @Override
+    public CompletableFuture<BlobContent> openAsync(String key, long offset, long length) {
+        if (!isCompressed(key)) {
+            return delegate.openAsync(key, offset, length);
+        }
+        // Only the gzip header is read here, so decoding on the completing thread does not stall it
+        return delegate.openAsync(key, 0, -1).thenApply(raw -> {
+            try {
+                return decode(raw, offset, length);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    @Override
+    public BlobContent openRaw(String key) throws IOException {
+        BlobContent raw = delegate.open(key, 0, -1);
+        return isCompressed(key) ? new EncodedContent(raw, GZIP) : raw;
+    }
+
+    @Override
+    public CompletableFuture<BlobContent> openRawAsync(String key) {
+        return delegate.openAsync(key, 0, -1)
+                .thenApply(raw -> isCompressed(key) ? new EncodedContent(raw, GZIP) : raw);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        delegate.delete(key);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(String key) {
+        return delegate.deleteAsync(key);
+    }
+
+    @Override
+    public Stream<ListedObject> list() throws IOException {
+        return delegate.list();
+    }
+
+    // Takes ownership of raw: it is closed with the returned content, or here if decoding fails
+    private static BlobContent decode(BlobContent raw, long offset, long length) throws IOException {
+        try {
+            BufferedInputStream in = new BufferedInputStream(raw.getInputStream(), BlobStreams.BUFFER_SIZE);
+            long total = readLength(in);
+            GZIPInputStream gzip = new GZIPInputStream(in, BlobStreams.BUFFER_SIZE);
+
+            // gzip cannot seek: a range is served by inflating and discarding everything before it
+            long start = Math.min(Math.max(0, offset), total);
+            gzip.skipNBytes(start);
+            long count = length < 0 ? total - start : Math.min(length, total - start);
+            return new DecodedContent(raw, BlobStreams.limit(gzip, count), count);
+        } catch (IOException | RuntimeException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    private boolean shouldCompress(StagedObject staged) throws IOException {
+        if (staged.getSize() < minSize) {
+            return false;
+        }
+        String type = baseType(staged.getContentType());
+        if (isPrecompressed(type)) {
+            return false;
+        }
+        boolean declared = type.startsWith("text/") || COMPRESSIBLE_TYPES.contains(type)
+                || type.endsWith("+json") || type.endsWith("+xml");
+
+        // Text is ~4-5 bits/byte, already-compressed or encrypted data ~8. Labelled types get the benefit of
+        // the doubt up to 7.5 (e.g. base64 payloads); unlabelled data has to look clearly redundant.
+        double entropy = sniffEntropy(staged.getFile());
+        return entropy < (declared ? 7.5 : 6.0);
+    }
+
+    /** Shannon entropy in bits per byte of the start of the file. */
+    static double sniffEntropy(Path file) throws IOException {
+        byte[] sample = new byte[SNIFF_BYTES];
+        int n;
+        try (InputStream in = Files.newInputStream(file)) {
+            n = in.readNBytes(sample, 0, sample.length);
+        }
+        if (n == 0) {
+            return 0;
+        }
+        int[] counts = new int[256];
+        for (int i = 0; i < n; i++) {
+            counts[sample[i] & 0xFF]++;
+        }
+        double entropy = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                double p = (double) count / n;
+                entropy -= p * (Math.log(p) / Math.log(2));
+            }
+        }
+        return entropy;
+    }
+
+    private StagedObject compress(StagedObject staged) throws IOException {
+        Path file = Files.createTempFile(staged.getFile().getParent(), "gzip-", ".part");
+        try {
+            MessageDigest sha256 = BlobStreams.sha256();
+            try (InputStream in = Files.newInputStream(staged.getFile());
+                 OutputStream out = new DigestOutputStream(Files.newOutputStream(file), sha256)) {
+                writeGzip(in, out, staged.getSize(), level);
+            }
+            return new StagedObject(file, Files.size(file), BlobStreams.hex(sha256), staged.getContentType(), GZIP);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /** Writes a single gzip member whose header carries {@code length} in the "TL" extra subfield. */
+    static void writeGzip(InputStream in, OutputStream out, long length, int level) throws IOException {
+        byte[] header = new byte[HEADER_LENGTH];
+        header[0] = (byte) 0x1f;
+        header[1] = (byte) 0x8b;
+        header[2] = Deflater.DEFLATED;
+        header[3] = 0x04; // FEXTRA
+        // mtime 0, xfl 0
+        header[9] = (byte) 0xff; // OS unknown
+        header[10] = 12; // XLEN
+        header[12] = SI1;
+        header[13] = SI2;
+        header[14] = 8; // subfield LEN
+        for (int i = 0; i < 8; i++) {
+            header[16 + i] = (byte) (length >>> (8 * i));
+        }
+        out.write(header);
+
+        CRC32 crc = new CRC32();
+        Deflater deflater = new Deflater(level, true);
+        try {
+            DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater, BlobStreams.BUFFER_SIZE);
+            byte[] buffer = new byte[BlobStreams.BUFFER_SIZE];
+            long total = 0;
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, n);
+                deflate.write(buffer, 0, n);
+                total += n;
+            }
+            deflate.finish();
+            writeIntLE(out, (int) crc.getValue());
+            writeIntLE(out, (int) total);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** Reads the uncompressed length from the header without consuming it. */
+    private static long readLength(BufferedInputStream in) throws IOException {
+        in.mark(HEADER_LENGTH);
+        byte[] header = in.readNBytes(HEADER_LENGTH);
+        in.reset();
+        if (header.length < HEADER_LENGTH || (header[3] & 0x04) == 0 || header[12] != SI1 || header[13] != SI2) {
+            throw new EOFException("Not a length-tagged gzip object");
+        }
+        long length = 0;
+        for (int i = 7; i >= 0; i--) {
+            length = (length << 8) | (header[16 + i] & 0xFF);
+        }
+        return length;
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private static String baseType(String contentType) {
+        if (contentType == null) {
+            return "";
+        }
+        int semicolon = contentType.indexOf(';');
+        return (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Inflating view over a gzip object; closing it closes the underlying stored content. */
+    private static final class DecodedContent implements BlobContent {
+        private final BlobContent raw;
+        private final InputStream decoded;
+        private final long length;
+
+        private DecodedContent(BlobContent raw, InputStream decoded, long length) {
+            this.raw = raw;
+            this.decoded = decoded;
+            this.length = length;
+        }
+
+        @Override
+        public long getLength() {
+            return length;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return decoded;
+        }
+
+        @Override
+        public void close() throws IOException {
+            raw.close();
+        }
+    }
+
+    /** Stored bytes passed through as-is, tagged with the encoding they are in. */
+    private static final class EncodedContent implements BlobContent {
+        private final BlobContent raw;
+        private final String encoding;
+
+        private EncodedContent(BlobContent raw, String encoding) {
+            this.raw = raw;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public long getLength() {
+            return raw.getLength();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return raw.getInputStream();
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            return raw.transferTo(out);
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return encoding;
+        }
+
+        @Override
+        public void close() throws IOException {
+            raw.close();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.todo.storage;
+
+import com.todo.entity.StoredBlob;
+import com.todo.repository.StoredBlobRepository;
+import com.todo.service.OutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Deduplicates uploads by SHA-256 on top of {@link BlobStorage}.
+ * Content is staged and hashed first; if a blob with the same checksum is already registered in
+ * {@code stored_blob}, its reference count is bumped and nothing is written to the store.
+ * Callers must run inside a transaction so the reference count changes commit with the attachment rows.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ContentAddressedBlobStore {
+
+    private final BlobStorage blobStorage;
+    private final StoredBlobRepository storedBlobRepo;
+    private final OutboxService outbox;
+
+    public BlobStorage.StoredObject store(InputStream in, String originalName, String contentType, long size)
+            throws IOException {
+        try (StagedObject staged = blobStorage.stage(in, contentType)) {
+            return storeStaged(staged, originalName);
+        }
+    }
+
+    /** Links to an existing blob with the same content, or commits the staged object as a new one. */
+    public BlobStorage.StoredObject storeStaged(StagedObject staged, String originalName) throws IOException {
+        String checksum = staged.getChecksumSha256();
+
+        BlobStorage.StoredObject existing = link(checksum, staged.getContentType());
+        if (existing != null) {
+            return existing;
+        }
+
+        return register(blobStorage.commit(staged, originalName));
+    }
+
+    /**
+     * The I/O half of {@link #store}, safe to run outside a transaction and in parallel: stages and hashes
+     * the content and, unless that content is already registered, writes it to the store. Pass the result
+     * to {@link #register(Prepared, String)} inside the transaction, then close it.
+     */
+    public Prepared prepare(InputStream in, String originalName, String contentType) throws IOException {
+        StagedObject staged = blobStorage.stage(in, contentType);
+        if (storedBlobRepo.existsById(staged.getChecksumSha256())) {
+            return new Prepared(staged, null); // linked on register, nothing to write
+        }
+        try (staged) {
+            return new Prepared(null, blobStorage.commit(staged, originalName));
+        }
+    }
+
+    /** Links or registers prepared content; must run in a transaction, like {@link #store}. */
+    public BlobStorage.StoredObject register(Prepared prepared, String originalName) throws IOException {
+        BlobStorage.StoredObject stored = prepared.written != null
+                ? adopt(prepared.written)
+                : storeStaged(prepared.staged, originalName);
+        prepared.registered = true;
+        return stored;
+    }
+
+    /**
+     * Takes over an object that was written to the store directly (e.g. a presigned upload) and whose
+     * checksum has been verified. If the content is already registered, the new copy is deleted.
+     */
+    public BlobStorage.StoredObject adopt(BlobStorage.StoredObject written) {
+        BlobStorage.StoredObject existing = link(written.getChecksumSha256(), written.getContentType());
+        if (existing != null) {
+            deleteQuietly(written.getKey());
+            return existing;
+        }
+        return register(written);
+    }
+
+    private BlobStorage.StoredObject register(BlobStorage.StoredObject stored) {
+        String checksum = stored.getChecksumSha256();
+        if (storedBlobRepo.insertIfAbsent(checksum, stored.getKey(), stored.getSize()) > 0) {
+            return stored;
+        }
+
+        // A concurrent upload registered the same content first: use its blob and drop ours
+        deleteQuietly(stored.getKey());
+        BlobStorage.StoredObject existing = link(checksum, stored.getContentType());
+        if (existing == null) {
+            throw new IllegalStateException("Blob " + checksum + " vanished while linking");
+        }
+        return existing;
+    }
+
+    /**
+     * Drops one reference to the blob. The underlying object is deleted only when the last reference goes.
+     * Objects that predate the blob registry (no row) are deleted as well. The delete is queued in the
+     * outbox, so it only happens once the caller's transaction commits and is retried if it fails.
+     *
+     * @return true if the underlying object will be deleted
+     */
+    public boolean release(String checksum, String storagePath) {
+        if (storedBlobRepo.decrementRefCount(checksum) > 0 && storedBlobRepo.deleteIfUnreferenced(checksum) == 0) {
+            return false; // still referenced by other attachments
+        }
+        outbox.enqueue(BlobDeleteHandler.TYPE, storagePath);
+        return true;
+    }
+
+    private BlobStorage.StoredObject link(String checksum, String contentType) {
+        if (storedBlobRepo.incrementRefCount(checksum) == 0) {
+            return null;
+        }
+        StoredBlob blob = storedBlobRepo.findById(checksum)
+                .orElseThrow(() -> new IllegalStateException("Blob " + checksum + " vanished while linking"));
+        return new BlobStorage.StoredObject(blob.getStoragePath(), contentType, blob.getSizeBytes(), checksum);
+    }
+
+    /**
+     * Content prepared for registration. Closing it removes the staging file, and deletes the written
+     * object if it was never registered (or the registering transaction did not commit, see
+     * {@link #discard()}), leaving nothing for the orphan collector.
+     */
+    public final class Prepared implements Closeable {
+        private final StagedObject staged;
+        private final BlobStorage.StoredObject written;
+        private boolean registered;
+
+        private Prepared(StagedObject staged, BlobStorage.StoredObject written) {
+            this.staged = staged;
+            this.written = written;
+        }
+
+        public long getSize() {
+            return written != null ? written.getSize() : staged.getSize();
+        }
+
+        /** Marks a registration as void because its transaction rolled back. */
+        public void discard() {
+            registered = false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (staged != null) {
+                staged.close();
+            }
+            if (written != null && !registered) {
+                deleteQuietly(written.getKey());
+            }
+        }
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            blobStorage.delete(key);
+        } catch (IOException io) {
+            log.warn("Failed to delete underlying blob {}", key, io);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.todo.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** File-backed content that hands the byte range to {@link FileChannel#transferTo} instead of copying through the heap. */
+public final class FileChannelContent implements BlobContent {
+    private final FileChannel channel;
+    private final long offset;
+    private final long length;
+
+    private FileChannelContent(FileChannel channel, long offset, long length) {
+        this.channel = channel;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Opens {@code length} bytes of {@code file} starting at {@code offset}, clamped to the file size.
+     * A negative length reads to the end of the file.
+     */
+    public static FileChannelContent open(Path file, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            long start = Math.min(Math.max(0, offset), size);
+            long count = length < 0 ? size - start : Math.min(length, size - start);
+            return new FileChannelContent(channel, start, count);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return BlobStreams.limit(Channels.newInputStream(channel.position(offset)), length);
+    }
+
+    @Override
+    public long transferTo(OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long position = offset;
+        long remaining = length;
+        while (remaining > 0) {
+            long n = channel.transferTo(position, remaining, target);
+            if (n <= 0) {
+                break;
+            }
+            position += n;
+            remaining -= n;
+        }
+        return length - remaining;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
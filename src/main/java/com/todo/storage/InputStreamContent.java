@@ -0,0 +1,42 @@
+package com.todo.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/** {@link BlobContent} over an already-open stream of known length, e.g. an S3 GET response body. */
+public class InputStreamContent implements BlobContent {
+
+    private final InputStream in;
+    private final long length;
+    private final String checksumSha256;
+
+    public InputStreamContent(InputStream in, long length) {
+        this(in, length, null);
+    }
+
+    public InputStreamContent(InputStream in, long length, String checksumSha256) {
+        this.in = in;
+        this.length = length;
+        this.checksumSha256 = checksumSha256;
+    }
+
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return in;
+    }
+
+    @Override
+    public String getChecksumSha256() {
+        return checksumSha256;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,168 @@
+package com.todo.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Times every operation on the wrapped {@link BlobStorage} and counts the bytes going in and out.
+ * <p>
+ * Timers are {@code blob.storage.operations}, tagged with the operation and whether it succeeded; the
+ * asynchronous variants are timed until their future completes. {@code blob.storage.bytes} counts bytes
+ * written by commits and bytes handed out by loads and opens. For opens that is the length of the opened
+ * content, counted up front, so streams keep their zero-copy transfers; a client that disconnects early
+ * is still counted in full.
+ */
+public class MeteredBlobStorage implements BlobStorage {
+
+    private final BlobStorage delegate;
+    private final MeterRegistry registry;
+    private final Counter bytesRead;
+    private final Counter bytesWritten;
+    // Operation and outcome are both from small fixed sets, so this stays a handful of timers
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public MeteredBlobStorage(BlobStorage delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+        bytesRead = bytes(registry, "read");
+        bytesWritten = bytes(registry, "written");
+    }
+
+    private static Counter bytes(MeterRegistry registry, String direction) {
+        return Counter.builder("blob.storage.bytes")
+                .description("Bytes written to and read from blob storage")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .register(registry);
+    }
+
+    @Override
+    public StagedObject stage(InputStream in, String contentType) throws IOException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            StagedObject staged = delegate.stage(in, contentType);
+            ok = true;
+            return staged;
+        } finally {
+            record("stage", ok, start);
+        }
+    }
+
+    @Override
+    public StoredObject commit(StagedObject staged, String originalName) throws IOException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            StoredObject stored = delegate.commit(staged, originalName);
+            bytesWritten.increment(staged.getSize());
+            ok = true;
+            return stored;
+        } finally {
+            record("commit", ok, start);
+        }
+    }
+
+    @Override
+    public byte[] load(String key) throws IOException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            byte[] bytes = delegate.load(key);
+            bytesRead.increment(bytes.length);
+            ok = true;
+            return bytes;
+        } finally {
+            record("load", ok, start);
+        }
+    }
+
+    @Override
+    public BlobContent open(String key, long offset, long length) throws IOException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            BlobContent content = opened(delegate.open(key, offset, length));
+            ok = true;
+            return content;
+        } finally {
+            record("open", ok, start);
+        }
+    }
+
+    @Override
+    public BlobContent openRaw(String key) throws IOException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            BlobContent content = opened(delegate.openRaw(key));
+            ok = true;
+            return content;
+        } finally {
+            record("open", ok, start);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            delegate.delete(key);
+            ok = true;
+        } finally {
+            record("delete", ok, start);
+        }
+    }
+
+    @Override
+    public CompletableFuture<BlobContent> openAsync(String key, long offset, long length) {
+        long start = System.nanoTime();
+        return timed("open", delegate.openAsync(key, offset, length), start).thenApply(this::opened);
+    }
+
+    @Override
+    public CompletableFuture<BlobContent> openRawAsync(String key) {
+        long start = System.nanoTime();
+        return timed("open", delegate.openRawAsync(key), start).thenApply(this::opened);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(String key) {
+        long start = System.nanoTime();
+        return timed("delete", delegate.deleteAsync(key), start);
+    }
+
+    @Override
+    public Stream<ListedObject> list() throws IOException {
+        return delegate.list();
+    }
+
+    private BlobContent opened(BlobContent content) {
+        bytesRead.increment(content.getLength());
+        return content;
+    }
+
+    private <T> CompletableFuture<T> timed(String operation, CompletableFuture<T> future, long start) {
+        return future.whenComplete((result, failure) -> record(operation, failure == null, start));
+    }
+
+    private void record(String operation, boolean ok, long start) {
+        String outcome = ok ? "success" : "error";
+        timers.computeIfAbsent(operation + '/' + outcome, k -> Timer.builder("blob.storage.operations")
+                        .description("Blob storage operations as seen by the application")
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .register(registry))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,204 @@
+package com.todo.storage;
+
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.BlobThumbnailRepository;
+import com.todo.repository.PendingUploadRepository;
+import com.todo.repository.StoredBlobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Deletes stored objects that no row references any more: blobs whose delete failed or was rolled back,
+ * uploads that failed after commit, expired presigned uploads, thumbnails of deleted content, and the
+ * duplicate copies left behind by the V15 deduplication backfill.
+ * <p>
+ * The store is listed lazily, page by page, and keys are checked against the database in batches of
+ * {@code batch-size} with one {@code IN} query per referencing table. Only objects older than
+ * {@code grace-period} are candidates, which covers uploads that are committed to the store but whose
+ * rows are not committed yet. Deletes are throttled to {@code max-deletes-per-second}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "app.storage.gc.enabled", havingValue = "true")
+public class OrphanBlobCollector {
+
+    private final BlobStorage blobStorage;
+    private final AttachmentRepository attachmentRepo;
+    private final StoredBlobRepository storedBlobRepo;
+    private final BlobThumbnailRepository thumbnailRepo;
+    private final PendingUploadRepository pendingUploadRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry registry;
+
+    @Value("${app.storage.gc.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.storage.gc.grace-period:PT24H}")
+    private Duration gracePeriod;
+
+    @Value("${app.storage.gc.max-deletes-per-second:50}")
+    private double maxDeletesPerSecond;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private Counter scanned;
+    private Counter deleted;
+    private Counter reclaimed;
+    private Counter failed;
+
+    public record Result(long scanned, long deleted, long reclaimedBytes, long failed) {}
+
+    @PostConstruct
+    void init() {
+        scanned = Counter.builder("blob.gc.scanned").description("Stored objects examined by the orphan collector")
+                .register(registry);
+        deleted = Counter.builder("blob.gc.deleted").description("Orphaned objects deleted")
+                .register(registry);
+        reclaimed = Counter.builder("blob.gc.reclaimed").description("Bytes freed by deleting orphaned objects")
+                .baseUnit("bytes").register(registry);
+        failed = Counter.builder("blob.gc.failed").description("Orphaned objects that could not be deleted")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.gc.interval:PT6H}",
+            initialDelayString = "${app.storage.gc.initial-delay:PT15M}")
+    public void scheduledSweep() {
+        try {
+            Result result = sweep();
+            log.info("Orphan blob sweep: {} scanned, {} deleted, {} bytes reclaimed, {} failed",
+                    result.scanned(), result.deleted(), result.reclaimedBytes(), result.failed());
+        } catch (IOException | RuntimeException e) {
+            log.error("Orphan blob sweep failed", e);
+        }
+    }
+
+    public Result sweep() throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Orphan blob sweep already running, skipping");
+            return new Result(0, 0, 0, 0);
+        }
+        try {
+            Instant cutoff = Instant.now().minus(gracePeriod);
+            purgeStaleRows(cutoff);
+            return sweepObjects(cutoff);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Rows that only keep an object alive without anything able to use it; their objects are swept below
+    private void purgeStaleRows(Instant cutoff) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            int uploads = pendingUploadRepo.deleteExpired(cutoff);
+            int thumbnails = thumbnailRepo.deleteOrphaned(cutoff);
+            if (uploads > 0 || thumbnails > 0) {
+                log.info("Dropped {} expired pending uploads and {} orphaned thumbnails", uploads, thumbnails);
+            }
+        });
+    }
+
+    private Result sweepObjects(Instant cutoff) throws IOException {
+        Sweep sweep = new Sweep();
+        List<BlobStorage.ListedObject> batch = new ArrayList<>(batchSize);
+        try (Stream<BlobStorage.ListedObject> objects = blobStorage.list()) {
+            Iterator<BlobStorage.ListedObject> it = objects.iterator();
+            while (it.hasNext()) {
+                BlobStorage.ListedObject object = it.next();
+                sweep.scanned++;
+                scanned.increment();
+                if (object.lastModified().isBefore(cutoff)) {
+                    batch.add(object);
+                }
+                if (batch.size() == batchSize) {
+                    deleteUnreferenced(batch, sweep);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            deleteUnreferenced(batch, sweep);
+        }
+        return new Result(sweep.scanned, sweep.deleted, sweep.reclaimedBytes, sweep.failed);
+    }
+
+    private void deleteUnreferenced(List<BlobStorage.ListedObject> batch, Sweep sweep) throws IOException {
+        Set<String> keys = new HashSet<>(batch.size() * 2);
+        batch.forEach(o -> keys.add(o.key()));
+        Set<String> referenced = referenced(keys);
+
+        for (BlobStorage.ListedObject object : batch) {
+            if (referenced.contains(object.key())) {
+                continue;
+            }
+            sweep.throttle(maxDeletesPerSecond);
+            try {
+                blobStorage.delete(object.key());
+                sweep.deleted++;
+                sweep.reclaimedBytes += object.size();
+                deleted.increment();
+                reclaimed.increment(object.size());
+                log.debug("Deleted orphaned blob {} ({} bytes)", object.key(), object.size());
+            } catch (IOException | RuntimeException e) {
+                sweep.failed++;
+                failed.increment();
+                log.warn("Failed to delete orphaned blob {}", object.key(), e);
+            }
+        }
+    }
+
+    private Set<String> referenced(Set<String> keys) {
+        Set<String> referenced = new HashSet<>();
+        referenced.addAll(attachmentRepo.findStoragePathsIn(keys));
+        referenced.addAll(storedBlobRepo.findStoragePathsIn(keys));
+        referenced.addAll(thumbnailRepo.findStoragePathsIn(keys));
+        referenced.addAll(pendingUploadRepo.findStoragePathsIn(keys));
+        return referenced;
+    }
+
+    /** Running totals of one sweep, plus the delete pacing. */
+    private static final class Sweep {
+        long scanned;
+        long deleted;
+        long reclaimedBytes;
+        long failed;
+        private long nextDeleteAt = System.nanoTime();
+
+        void throttle(double perSecond) throws IOException {
+            if (perSecond <= 0) {
+                return;
+            }
+            long wait = nextDeleteAt - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while sweeping orphaned blobs");
+                }
+            }
+            nextDeleteAt = Math.max(nextDeleteAt, System.nanoTime()) + (long) (1_000_000_000L / perSecond);
+        }
+    }
+}
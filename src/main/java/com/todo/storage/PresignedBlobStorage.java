@@ -0,0 +1,39 @@
+package com.todo.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Direct-to-store transfers: the client moves the bytes with a short-lived signed URL,
+ * and the application only handles metadata. Only available for object stores that can sign URLs (S3).
+ */
+public interface PresignedBlobStorage {
+    @Data
+    @AllArgsConstructor
+    public class PresignedRequest {
+        String method;
+        String url;
+        Map<String, String> headers; // must be sent exactly as given, they are part of the signature
+        Instant expiresAt;
+    }
+
+    /** A fresh key for an object the client is about to upload. */
+    String newKey(String originalName);
+
+    /**
+     * Signs a single PUT of exactly {@code size} bytes. The SHA-256 is signed too, so the store
+     * rejects any body that does not match it.
+     */
+    PresignedRequest presignUpload(String key, String contentType, long size, String checksumSha256);
+
+    PresignedRequest presignDownload(String key, String fileName, String contentType);
+
+    /** Size and store-verified SHA-256 (hex, null if the store kept none) of an uploaded object, if it exists. */
+    Optional<BlobStorage.StoredObject> describe(String key);
+
+    void delete(String key);
+}
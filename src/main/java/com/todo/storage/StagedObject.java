@@ -0,0 +1,62 @@
+package com.todo.storage;
+
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An upload that has been spooled to a local file and hashed, but not yet written to the store.
+ * Knowing the checksum before committing lets callers skip the write entirely for duplicate content.
+ * Closing it removes the staging file if {@link BlobStorage#commit} did not consume it.
+ */
+@Getter
+public class StagedObject implements Closeable {
+    private final Path file;
+    private final long size;
+    private final String checksumSha256;
+    private final String contentType;
+    // Set when the staged bytes are already encoded (e.g. "gzip"); stores then give the key the codec marker
+    private final String contentEncoding;
+
+    public StagedObject(Path file, long size, String checksumSha256, String contentType) {
+        this(file, size, checksumSha256, contentType, null);
+    }
+
+    public StagedObject(Path file, long size, String checksumSha256, String contentType, String contentEncoding) {
+        this.file = file;
+        this.size = size;
+        this.checksumSha256 = checksumSha256;
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+    }
+
+    /** The same staging file, marked as holding content in {@code contentEncoding}. */
+    public StagedObject withContentEncoding(String contentEncoding) {
+        return new StagedObject(file, size, checksumSha256, contentType, contentEncoding);
+    }
+
+    /** Copies {@code in} into a new file under {@code dir}, computing size and SHA-256 in the same pass. */
+    public static StagedObject spool(InputStream in, String contentType, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path file = Files.createTempFile(dir, "staged-", ".part");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            BlobStreams.Digested digested = BlobStreams.copy(in, out);
+            String ct = (contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            return new StagedObject(file, digested.size(), digested.checksumSha256(), ct);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,18 @@
+package com.todo.storage;
+
+import java.io.IOException;
+
+/**
+ * The store could not take the request right now: too many requests already in flight, or no response
+ * within the operation's timeout. Retrying later may succeed.
+ */
+public class StorageUnavailableException extends IOException {
+
+    public StorageUnavailableException(String message) {
+        super(message);
+    }
+
+    public StorageUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
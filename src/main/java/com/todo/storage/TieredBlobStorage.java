@@ -0,0 +1,231 @@
+package com.todo.storage;
+
+import com.todo.storage.BlobStorageImpl.LocalBlobStorageImpl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Two storage tiers behind one {@link BlobStorage}: new objects are written to local disk (the hot tier) and
+ * served from there, and {@link BlobTierManager} moves objects nobody has read for a while to the remote
+ * store (the cold tier), and back again when they are read.
+ * <p>
+ * The tier is part of the key. Hot keys start with {@value #LOCAL_PREFIX}; every other key, including all
+ * keys written before tiering was enabled, is a cold key. A read therefore goes straight to the one tier
+ * that holds the object. Moving an object gives it a new key in the other tier, which the manager writes
+ * to the rows that reference it.
+ * <p>
+ * Reads are only noted in memory here: hot keys read, cold keys read, and hot keys written. The manager
+ * drains these periodically into the access-time index and the promotion queue, so a read never waits on
+ * the database or on a copy between tiers.
+ * <p>
+ * The hot tier is local to the instance, so with more than one instance its directory must be shared.
+ */
+public class TieredBlobStorage implements BlobStorage {
+
+    public static final String LOCAL_PREFIX = "local:";
+
+    // Cold reads noted between two drains; beyond this they are dropped and noted again on the next read
+    private static final int MAX_PENDING_PROMOTIONS = 10_000;
+
+    private final LocalBlobStorageImpl hot;
+    private final BlobStorage cold;
+
+    private final Set<String> hotReads = ConcurrentHashMap.newKeySet();
+    private final Set<String> coldReads = ConcurrentHashMap.newKeySet();
+    private final Map<String, Written> written = new ConcurrentHashMap<>();
+
+    /** A new hot object that is not in the access-time index yet. */
+    public record Written(String contentType, long size) {}
+
+    /** An object copied to the other tier under {@code to}; the original at {@code from} is still in place. */
+    public record Moved(String from, String to) {}
+
+    public TieredBlobStorage(LocalBlobStorageImpl hot, BlobStorage cold) {
+        this.hot = hot;
+        this.cold = cold;
+    }
+
+    public static boolean isLocal(String key) {
+        return key != null && key.startsWith(LOCAL_PREFIX);
+    }
+
+    @Override
+    public StagedObject stage(InputStream in, String contentType) throws IOException {
+        return hot.stage(in, contentType);
+    }
+
+    @Override
+    public StoredObject commit(StagedObject staged, String originalName) throws IOException {
+        StoredObject stored = hot.commit(staged, originalName);
+        stored.setKey(LOCAL_PREFIX + stored.getKey());
+        written.put(stored.getKey(), new Written(stored.getContentType(), stored.getSize()));
+        return stored;
+    }
+
+    @Override
+    public byte[] load(String key) throws IOException {
+        if (isLocal(key)) {
+            hotReads.add(key);
+            return hot.load(localKey(key));
+        }
+        noteColdRead(key);
+        return cold.load(key);
+    }
+
+    @Override
+    public BlobContent open(String key, long offset, long length) throws IOException {
+        if (isLocal(key)) {
+            hotReads.add(key);
+            return hot.open(localKey(key), offset, length);
+        }
+        noteColdRead(key);
+        return cold.open(key, offset, length);
+    }
+
+    @Override
+    public BlobContent openRaw(String key) throws IOException {
+        if (isLocal(key)) {
+            hotReads.add(key);
+            return hot.openRaw(localKey(key));
+        }
+        noteColdRead(key);
+        return cold.openRaw(key);
+    }
+
+    @Override
+    public CompletableFuture<BlobContent> openAsync(String key, long offset, long length) {
+        if (isLocal(key)) {
+            hotReads.add(key);
+            return hot.openAsync(localKey(key), offset, length);
+        }
+        noteColdRead(key);
+        return cold.openAsync(key, offset, length);
+    }
+
+    @Override
+    public CompletableFuture<BlobContent> openRawAsync(String key) {
+        if (isLocal(key)) {
+            hotReads.add(key);
+            return hot.openRawAsync(localKey(key));
+        }
+        noteColdRead(key);
+        return cold.openRawAsync(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        if (isLocal(key)) {
+            hot.delete(localKey(key));
+            hotReads.remove(key);
+            written.remove(key);
+        } else {
+            cold.delete(key);
+            coldReads.remove(key);
+        }
+    }
+
+    @Override
+    public Stream<ListedObject> list() throws IOException {
+        Stream<ListedObject> local = hot.list()
+                .map(o -> new ListedObject(LOCAL_PREFIX + o.key(), o.size(), o.lastModified()));
+        try {
+            return Stream.concat(local, cold.list());
+        } catch (IOException | RuntimeException e) {
+            local.close();
+            throw e;
+        }
+    }
+
+    /** Copies a cold object into the hot tier. */
+    public Moved promote(String key) throws IOException {
+        if (isLocal(key)) {
+            throw new IllegalArgumentException("Already in the local tier: " + key);
+        }
+        try (BlobContent content = cold.openRaw(key);
+             InputStream in = content.getInputStream()) {
+            StoredObject stored = copy(hot, in, key, null);
+            if (content.getLength() >= 0 && stored.getSize() != content.getLength()) {
+                hot.delete(stored.getKey());
+                throw new IOException("Promoting " + key + " copied " + stored.getSize() + " of "
+                        + content.getLength() + " bytes");
+            }
+            return new Moved(key, LOCAL_PREFIX + stored.getKey());
+        }
+    }
+
+    /** Copies a hot object to the cold tier. {@code contentType} is recorded with the remote object. */
+    public Moved demote(String key, String contentType) throws IOException {
+        if (!isLocal(key)) {
+            throw new IllegalArgumentException("Not in the local tier: " + key);
+        }
+        String local = localKey(key);
+        try (BlobContent content = hot.openRaw(local);
+             InputStream in = content.getInputStream()) {
+            StoredObject stored = copy(cold, in, local, contentType);
+            return new Moved(key, stored.getKey());
+        }
+    }
+
+    /** Hot keys read since the last call. */
+    public Set<String> drainHotReads() {
+        return drain(hotReads);
+    }
+
+    /** Cold keys read since the last call: the candidates for promotion. */
+    public Set<String> drainColdReads() {
+        return drain(coldReads);
+    }
+
+    /** Hot objects written since the last call. */
+    public Map<String, Written> drainWritten() {
+        Map<String, Written> drained = new HashMap<>();
+        for (Iterator<Map.Entry<String, Written>> it = written.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Written> e = it.next();
+            drained.put(e.getKey(), e.getValue());
+            it.remove();
+        }
+        return drained;
+    }
+
+    private void noteColdRead(String key) {
+        if (coldReads.size() < MAX_PENDING_PROMOTIONS) {
+            coldReads.add(key);
+        }
+    }
+
+    private static Set<String> drain(Set<String> keys) {
+        Set<String> drained = new HashSet<>();
+        for (Iterator<String> it = keys.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    private static String localKey(String key) {
+        return key.substring(LOCAL_PREFIX.length());
+    }
+
+    // The copy keeps the extension and, for compressed objects, the codec marker, which stores only add
+    // to content staged as encoded
+    private static StoredObject copy(BlobStorage target, InputStream in, String key, String contentType)
+            throws IOException {
+        try (StagedObject staged = target.stage(in, contentType)) {
+            return target.commit(CompressingBlobStorage.isCompressed(key)
+                    ? staged.withContentEncoding(CompressingBlobStorage.GZIP) : staged, fileName(key));
+        }
+    }
+
+    private static String fileName(String key) {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+}
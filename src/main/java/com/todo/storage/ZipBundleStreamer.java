@@ -0,0 +1,145 @@
+package com.todo.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams a set of stored objects as one ZIP archive, straight from {@link BlobStorage} reads to the
+ * output. Entries are written in order while the next {@code prefetch} objects are opened in parallel, so
+ * the time to first byte of each read (an S3 round trip) overlaps with writing the previous entries. Only
+ * open streams are held ahead, never their content, so memory stays bounded by the lookahead.
+ * <p>
+ * Already-compressed content types are STORED; everything else is deflated.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ZipBundleStreamer {
+
+    private final BlobStorage blobStorage;
+
+    @Value("${app.archive.prefetch:4}")
+    private int prefetch;
+
+    @Value("${app.archive.threads:8}")
+    private int threads;
+
+    @Value("${app.archive.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${app.archive.level:5}")
+    private int level;
+
+    private ExecutorService executor;
+
+    /** One object to add; {@code size} is its logical (uncompressed) size. */
+    public record Entry(String name, String key, String contentType, long size, Instant modified) {}
+
+    @PostConstruct
+    void startExecutor() {
+        AtomicInteger n = new AtomicInteger();
+        // When the queue is full the writer opens the object itself, which is just no prefetch
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "zip-prefetch-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    public void write(List<Entry> entries, OutputStream out) throws IOException {
+        Deque<Future<BlobContent>> opened = new ArrayDeque<>(prefetch + 1);
+        int next = 0;
+        try {
+            ZipStreamWriter zip = new ZipStreamWriter(out, level);
+            Set<String> names = new HashSet<>();
+            for (Entry entry : entries) {
+                while (next < entries.size() && opened.size() <= prefetch) {
+                    String key = entries.get(next++).key();
+                    opened.addLast(executor.submit(() -> blobStorage.open(key, 0, -1)));
+                }
+                try (BlobContent content = await(opened.removeFirst());
+                     InputStream in = content.getInputStream()) {
+                    boolean deflate = !CompressingBlobStorage.isPrecompressed(entry.contentType());
+                    zip.write(uniqueName(entry.name(), names), deflate, entry.modified(), entry.size(), in);
+                }
+            }
+            zip.finish();
+        } finally {
+            // Opens still in flight when the client went away; they are few and short, so wait and close
+            for (Future<BlobContent> future : opened) {
+                try {
+                    await(future).close();
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Failed to close prefetched blob", e);
+                }
+            }
+        }
+    }
+
+    private static BlobContent await(Future<BlobContent> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while opening blob");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * A flat, safe entry name: no directories (so no zip-slip on extraction), and "name (2).ext" for
+     * repeated names, which attachments on one task often have.
+     */
+    static String uniqueName(String name, Set<String> taken) {
+        String base = name == null ? "" : name.replaceAll("[/\\\\\\p{Cntrl}]", "_").trim();
+        if (base.isEmpty() || base.equals(".") || base.equals("..")) {
+            base = "file";
+        }
+        String candidate = base;
+        int dot = base.lastIndexOf('.');
+        String stem = dot > 0 ? base.substring(0, dot) : base;
+        String extension = dot > 0 ? base.substring(dot) : "";
+        for (int i = 2; !taken.add(candidate.toLowerCase(Locale.ROOT)); i++) {
+            candidate = stem + " (" + i + ")" + extension;
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,270 @@
+package com.todo.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Writes a ZIP archive strictly front to back, one entry at a time, without knowing any entry's CRC or
+ * compressed size up front: every entry has the data-descriptor flag set and its CRC and sizes follow the
+ * data, so nothing is buffered or written twice. {@link java.util.zip.ZipOutputStream} cannot do this for
+ * STORED entries, which is why the format is written by hand.
+ * <p>
+ * Entries whose expected size is close to 4 GiB, and archives with more than 65535 entries or past 4 GiB,
+ * get ZIP64 records. STORED entries with a data descriptor are read fine by tools that use the central
+ * directory ({@code unzip}, 7-Zip, {@link java.util.zip.ZipFile}) but not by
+ * {@link java.util.zip.ZipInputStream}.
+ * <p>
+ * There is deliberately no {@code close()}: an archive whose writing failed midway must not be completed
+ * with a central directory that makes it look whole.
+ */
+public class ZipStreamWriter {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int ZIP64_END = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int END = 0x06054b50;
+
+    private static final int FLAG_DESCRIPTOR = 1 << 3;
+    private static final int FLAG_UTF8 = 1 << 11;
+    private static final int VERSION = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final long MAX_32 = 0xFFFFFFFFL;
+    private static final int MAX_16 = 0xFFFF;
+    // Leaves room for deflate overhead on incompressible data, so an entry is never caught short of ZIP64
+    static final long ZIP64_THRESHOLD = MAX_32 - 64L * 1024 * 1024;
+
+    private final CountingOutputStream out;
+    private final int level;
+    private final byte[] buffer = new byte[BlobStreams.BUFFER_SIZE];
+    private final List<Written> entries = new ArrayList<>();
+    private boolean finished;
+
+    private record Written(byte[] name, int method, int dosTime, long crc, long compressedSize, long size,
+                           long offset, boolean zip64) {}
+
+    public ZipStreamWriter(OutputStream out, int level) {
+        this.out = new CountingOutputStream(out);
+        this.level = level;
+    }
+
+    /**
+     * Copies {@code in} into a new entry. {@code expectedSize} only decides whether the entry needs ZIP64
+     * sizes; pass -1 if unknown to always use them.
+     */
+    public void write(String name, boolean deflate, Instant modified, long expectedSize, InputStream in)
+            throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Archive already finished");
+        }
+        byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+        int method = deflate ? Deflater.DEFLATED : 0;
+        int dosTime = dosTime(modified);
+        boolean zip64 = expectedSize < 0 || expectedSize >= ZIP64_THRESHOLD;
+        long offset = out.count;
+
+        writeInt(LOCAL_HEADER);
+        writeShort(zip64 ? VERSION_ZIP64 : VERSION);
+        writeShort(FLAG_DESCRIPTOR | FLAG_UTF8);
+        writeShort(method);
+        writeInt(dosTime);
+        writeInt(0); // CRC, in the data descriptor
+        writeInt(zip64 ? MAX_32 : 0);
+        writeInt(zip64 ? MAX_32 : 0);
+        writeShort(encodedName.length);
+        writeShort(zip64 ? 20 : 0);
+        out.write(encodedName);
+        if (zip64) {
+            writeShort(0x0001);
+            writeShort(16);
+            writeLong(0);
+            writeLong(0);
+        }
+
+        CRC32 crc = new CRC32();
+        long size = 0;
+        long start = out.count;
+        if (deflate) {
+            Deflater deflater = new Deflater(level, true);
+            try {
+                DeflaterOutputStream data = new DeflaterOutputStream(out, deflater, BlobStreams.BUFFER_SIZE);
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, n);
+                    data.write(buffer, 0, n);
+                    size += n;
+                }
+                data.finish();
+            } finally {
+                deflater.end();
+            }
+        } else {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, n);
+                out.write(buffer, 0, n);
+                size += n;
+            }
+        }
+        long compressedSize = out.count - start;
+        if (!zip64 && (size > MAX_32 || compressedSize > MAX_32)) {
+            throw new ZipException("Entry " + name + " exceeds 4 GiB but was not announced as ZIP64");
+        }
+
+        writeInt(DATA_DESCRIPTOR);
+        writeInt(crc.getValue());
+        if (zip64) {
+            writeLong(compressedSize);
+            writeLong(size);
+        } else {
+            writeInt(compressedSize);
+            writeInt(size);
+        }
+        entries.add(new Written(encodedName, method, dosTime, crc.getValue(), compressedSize, size, offset, zip64));
+    }
+
+    /** Writes the central directory. The underlying stream is flushed but not closed. */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        long directoryOffset = out.count;
+        for (Written e : entries) {
+            writeCentralHeader(e);
+        }
+        long directorySize = out.count - directoryOffset;
+
+        boolean zip64 = entries.size() >= MAX_16 || directoryOffset >= MAX_32 || directorySize >= MAX_32;
+        if (zip64) {
+            long zip64EndOffset = out.count;
+            writeInt(ZIP64_END);
+            writeLong(44);
+            writeShort(VERSION_ZIP64);
+            writeShort(VERSION_ZIP64);
+            writeInt(0);
+            writeInt(0);
+            writeLong(entries.size());
+            writeLong(entries.size());
+            writeLong(directorySize);
+            writeLong(directoryOffset);
+
+            writeInt(ZIP64_LOCATOR);
+            writeInt(0);
+            writeLong(zip64EndOffset);
+            writeInt(1);
+        }
+
+        writeInt(END);
+        writeShort(0);
+        writeShort(0);
+        writeShort(Math.min(entries.size(), MAX_16));
+        writeShort(Math.min(entries.size(), MAX_16));
+        writeInt(Math.min(directorySize, MAX_32));
+        writeInt(Math.min(directoryOffset, MAX_32));
+        writeShort(0);
+        out.flush();
+    }
+
+    private void writeCentralHeader(Written e) throws IOException {
+        boolean sizes64 = e.zip64() || e.size() >= MAX_32 || e.compressedSize() >= MAX_32;
+        boolean offset64 = e.offset() >= MAX_32;
+        int extraLength = (sizes64 || offset64) ? 4 + (sizes64 ? 16 : 0) + (offset64 ? 8 : 0) : 0;
+        int version = extraLength > 0 ? VERSION_ZIP64 : VERSION;
+
+        writeInt(CENTRAL_HEADER);
+        writeShort(version);
+        writeShort(version);
+        writeShort(FLAG_DESCRIPTOR | FLAG_UTF8);
+        writeShort(e.method());
+        writeInt(e.dosTime());
+        writeInt(e.crc());
+        writeInt(sizes64 ? MAX_32 : e.compressedSize());
+        writeInt(sizes64 ? MAX_32 : e.size());
+        writeShort(e.name().length);
+        writeShort(extraLength);
+        writeShort(0); // comment
+        writeShort(0); // disk
+        writeShort(0); // internal attributes
+        writeInt(0); // external attributes
+        writeInt(offset64 ? MAX_32 : e.offset());
+        out.write(e.name());
+        if (extraLength > 0) {
+            writeShort(0x0001);
+            writeShort(extraLength - 4);
+            if (sizes64) {
+                writeLong(e.size());
+                writeLong(e.compressedSize());
+            }
+            if (offset64) {
+                writeLong(e.offset());
+            }
+        }
+    }
+
+    // MS-DOS date/time in local time, clamped to the format's 1980 epoch
+    static int dosTime(Instant instant) {
+        LocalDateTime t = LocalDateTime.ofInstant(instant != null ? instant : Instant.now(), ZoneId.systemDefault());
+        if (t.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (t.getYear() - 1980) << 25 | t.getMonthValue() << 21 | t.getDayOfMonth() << 16
+                | t.getHour() << 11 | t.getMinute() << 5 | t.getSecond() >> 1;
+    }
+
+    private void writeShort(int v) throws IOException {
+        out.write(v);
+        out.write(v >>> 8);
+    }
+
+    private void writeInt(long v) throws IOException {
+        out.write((int) v);
+        out.write((int) (v >>> 8));
+        out.write((int) (v >>> 16));
+        out.write((int) (v >>> 24));
+    }
+
+    private void writeLong(long v) throws IOException {
+        writeInt(v);
+        writeInt(v >>> 32);
+    }
+
+    /** Tracks the archive offset; closing it does not close the response stream. */
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+        long count;
+
+        private CountingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+    }
+}
@@ -5,18 +5,70 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.UUID;
 import java.util.function.Function;
 
 public class PaginationUtils {
 
     private static final int MAX_PAGE_SIZE = 100;
 
+    /** Position after the last row of a keyset page: the (created_at, id) of that row. */
+    public record KeysetCursor(Instant createdAt, UUID id) {
+        // Sorts after every real row, so "before FIRST_PAGE" is the newest page
+        public static final KeysetCursor FIRST_PAGE =
+                new KeysetCursor(Instant.parse("9999-12-31T00:00:00Z"), new UUID(-1L, -1L));
+    }
+
+    public static int clampPageSize(int size) {
+        return Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+    }
+
+    /** Opaque, URL-safe token for a keyset position. */
+    public static String encodeCursor(KeysetCursor cursor) {
+        String raw = cursor.createdAt() + "|" + cursor.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Decodes a token from {@link #encodeCursor}; null or blank means the first page. */
+    public static KeysetCursor decodeCursor(String token) {
+        if (token == null || token.isBlank()) {
+            return KeysetCursor.FIRST_PAGE;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int bar = raw.indexOf('|');
+            return new KeysetCursor(Instant.parse(raw.substring(0, bar)), UUID.fromString(raw.substring(bar + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    /** Link (rel="next") and X-Next-Cursor headers for a keyset page; empty when it is the last page. */
+    public static HttpHeaders buildCursorHeaders(String nextCursor) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", nextCursor)
+                    .build()
+                    .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            headers.add("X-Next-Cursor", nextCursor);
+        }
+        return headers;
+    }
+
     public static Pageable buildPageable(int page, int size, String sort) {
         // page index - non negative
         int p = Math.max(0, page);
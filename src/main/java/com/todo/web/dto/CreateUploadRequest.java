@@ -0,0 +1,20 @@
+package com.todo.web.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class CreateUploadRequest {
+    @NotBlank(message = "fileName is required")
+    @Size(max = 255, message = "fileName must be <= 255 characters")
+    private String fileName;
+
+    @Size(max = 255, message = "contentType must be <= 255 characters")
+    private String contentType;
+
+    // Total size of the file; the upload is complete once this many bytes have been received
+    @Positive(message = "length must be positive")
+    private long length;
+}
@@ -0,0 +1,29 @@
+package com.todo.web.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class PresignedUploadRequest {
+    @NotBlank(message = "fileName is required")
+    @Size(max = 255, message = "fileName must be <= 255 characters")
+    private String fileName;
+
+    @Size(max = 255, message = "contentType must be <= 255 characters")
+    private String contentType;
+
+    @Positive(message = "sizeBytes must be positive")
+    private long sizeBytes;
+
+    @NotBlank(message = "checksumSha256 is required")
+    @Pattern(regexp = "[0-9a-fA-F]{64}", message = "checksumSha256 must be 64 hex characters")
+    private String checksumSha256;
+
+    // Optional task to attach the file to once the upload is confirmed
+    private UUID taskId;
+}
@@ -0,0 +1,27 @@
+-- Content-addressed blob registry: one physical object per distinct SHA-256, shared by all attachments with that content
+CREATE TABLE stored_blob (
+    checksum_sha256 VARCHAR(64) PRIMARY KEY,
+    storage_path TEXT NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- Backfill: keep the oldest copy of each distinct content as the canonical blob
+INSERT INTO stored_blob (checksum_sha256, storage_path, size_bytes, ref_count, created_at)
+SELECT DISTINCT ON (checksum_sha256) checksum_sha256, storage_path, size_bytes, 0, created_at
+FROM attachment
+ORDER BY checksum_sha256, created_at ASC;
+
+-- Point duplicate attachments at the canonical copy (the now-unreferenced copies are left for cleanup)
+UPDATE attachment a
+SET storage_path = b.storage_path
+FROM stored_blob b
+WHERE a.checksum_sha256 = b.checksum_sha256
+  AND a.storage_path <> b.storage_path;
+
+UPDATE stored_blob b
+SET ref_count = (SELECT COUNT(*) FROM attachment a WHERE a.checksum_sha256 = b.checksum_sha256);
+
+CREATE INDEX IF NOT EXISTS idx_attachment_checksum_sha256
+    ON attachment(checksum_sha256);
@@ -0,0 +1,13 @@
+-- Resized previews of image blobs. Keyed by content hash so deduplicated attachments share them.
+CREATE TABLE blob_thumbnail (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    checksum_sha256 VARCHAR(64) NOT NULL,
+    max_dimension INTEGER NOT NULL,
+    width INTEGER NOT NULL,
+    height INTEGER NOT NULL,
+    content_type VARCHAR(255) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    storage_path TEXT NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT uq_blob_thumbnail_checksum_dimension UNIQUE (checksum_sha256, max_dimension)
+);
@@ -0,0 +1,5 @@
+-- The orphan blob collector checks listed keys against every table that references a stored object
+CREATE INDEX IF NOT EXISTS idx_attachment_storage_path ON attachment(storage_path);
+CREATE INDEX IF NOT EXISTS idx_stored_blob_storage_path ON stored_blob(storage_path);
+CREATE INDEX IF NOT EXISTS idx_blob_thumbnail_storage_path ON blob_thumbnail(storage_path);
+CREATE INDEX IF NOT EXISTS idx_pending_upload_storage_path ON pending_upload(storage_path);
@@ -0,0 +1,15 @@
+-- Side effects (blob deletes, ...) recorded in the same transaction as the change that causes them,
+-- and carried out afterwards by the outbox relay
+CREATE TABLE outbox_event (
+    id BIGSERIAL PRIMARY KEY,
+    type VARCHAR(64) NOT NULL,
+    payload TEXT NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    available_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    last_error TEXT NULL,
+    dead_at TIMESTAMPTZ NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- The relay only ever scans live events that are due
+CREATE INDEX idx_outbox_event_available_at ON outbox_event(available_at) WHERE dead_at IS NULL;
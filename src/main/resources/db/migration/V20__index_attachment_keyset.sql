@@ -0,0 +1,8 @@
+-- Keyset pagination of a user's attachments (newest first) and first-task lookup per attachment
+CREATE INDEX IF NOT EXISTS idx_attachment_user_created_id
+    ON attachment(user_id, created_at DESC, id DESC);
+
+-- Supersedes idx_task_attachment_attachment_id (same leading column), ordered for "first linked task"
+CREATE INDEX IF NOT EXISTS idx_task_attachment_attachment_created
+    ON task_attachment(attachment_id, created_at, task_id);
+DROP INDEX IF EXISTS idx_task_attachment_attachment_id;
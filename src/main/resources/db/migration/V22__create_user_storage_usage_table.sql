@@ -0,0 +1,14 @@
+-- Per-user totals over attachment, maintained in the same transaction as every attachment insert and
+-- delete, so quota checks read one row instead of summing the user's attachments.
+CREATE TABLE user_storage_usage (
+    user_id UUID PRIMARY KEY,
+    bytes_used BIGINT NOT NULL DEFAULT 0,
+    attachment_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+INSERT INTO user_storage_usage (user_id, bytes_used, attachment_count)
+SELECT user_id, SUM(size_bytes), COUNT(*)
+FROM attachment
+WHERE user_id IS NOT NULL
+GROUP BY user_id;
@@ -0,0 +1,10 @@
+-- Last-read times of objects in the local (hot) storage tier, used to pick objects to move to S3.
+-- Only hot objects have a row; keys are the tier-prefixed storage paths.
+CREATE TABLE blob_access (
+    storage_path TEXT PRIMARY KEY,
+    content_type VARCHAR(255) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    last_accessed_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_blob_access_last_accessed_at ON blob_access (last_accessed_at);
@@ -0,0 +1,59 @@
+package com.todo.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogFilterTest {
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/tasks");
+        request.setQueryString("page=0");
+        request.addHeader("Authorization", "Bearer secret-token");
+        request.addHeader("X-User-Id", "0b6f1c9e-1111-2222-3333-444455556666");
+        request.addHeader("User-Agent", "JUnit \"agent\"");
+        return request;
+    }
+
+    @Test
+    void shouldWriteCompactRecordWhenNotSampled() {
+        AccessLogFilter filter = new AccessLogFilter(0.0, List.of("authorization"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(200);
+
+        String record = filter.buildRecord(request(), response, System.nanoTime(), null);
+
+        assertThat(record).startsWith("{\"method\":\"GET\",\"path\":\"/tasks\",\"status\":200");
+        assertThat(record).contains("\"userId\":\"0b6f1c9e-1111-2222-3333-444455556666\"");
+        assertThat(record).doesNotContain("headers", "query", "userAgent");
+    }
+
+    @Test
+    void shouldIncludeRedactedHeadersWhenSampled() {
+        AccessLogFilter filter = new AccessLogFilter(1.0, List.of(" Authorization "));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String record = filter.buildRecord(request(), response, System.nanoTime(), null);
+
+        assertThat(record).contains("\"query\":\"page=0\"");
+        assertThat(record).contains("\"Authorization\":\"[REDACTED]\"");
+        assertThat(record).contains("\"userAgent\":\"JUnit \\\"agent\\\"\"");
+        assertThat(record).doesNotContain("secret-token");
+    }
+
+    @Test
+    void shouldAlwaysIncludeVerboseFieldsForFailures() {
+        AccessLogFilter filter = new AccessLogFilter(0.0, List.of("authorization"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String record = filter.buildRecord(request(), response, System.nanoTime(), new IllegalStateException("boom"));
+
+        assertThat(record).contains("\"status\":500");
+        assertThat(record).contains("\"error\":\"java.lang.IllegalStateException\"");
+        assertThat(record).contains("\"headers\":{");
+    }
+}
@@ -0,0 +1,31 @@
+package com.todo.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SchedulingConfigTest {
+
+    @Autowired
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    @Autowired
+    private List<ScheduledTaskHolder> scheduledTaskHolders;
+
+    @Test
+    void shouldGiveEveryScheduledJobItsOwnThread() {
+        int jobs = scheduledTaskHolders.stream().mapToInt(holder -> holder.getScheduledTasks().size()).sum();
+
+        assertThat(jobs).isGreaterThan(1);
+        assertThat(taskScheduler.getPoolSize()).isGreaterThanOrEqualTo(jobs);
+    }
+}
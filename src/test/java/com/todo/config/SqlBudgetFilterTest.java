@@ -0,0 +1,83 @@
+package com.todo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlBudgetFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SqlStatementCounter inspector = new SqlStatementCounter();
+
+    private SqlBudgetFilter filter(int maxStatements) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("registry", registry);
+        return new SqlBudgetFilter(maxStatements, beans.getBeanProvider(MeterRegistry.class));
+    }
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/tasks/details");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/tasks/details");
+        return request;
+    }
+
+    @Test
+    void shouldCountStatementsPerRequest() throws Exception {
+        MockHttpServletRequest request = request();
+
+        filter(10).doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            inspector.inspect("select t.id from task t where t.user_id=?");
+            inspector.inspect("select a.id from attachment a where a.id=?");
+        });
+        // Outside a request nothing is counted
+        inspector.inspect("select 1");
+
+        assertThat(registry.get("http.server.requests.statements").tag("uri", "/tasks/details")
+                .summary().totalAmount()).isEqualTo(2);
+        assertThat(registry.find("sql.budget.exceeded").counter()).isNull();
+    }
+
+    @Test
+    void shouldFlagRequestsOverBudget() throws Exception {
+        filter(2).doFilter(request(), new MockHttpServletResponse(), (req, res) -> {
+            inspector.inspect("select t.id from task t where t.user_id=?");
+            for (int i = 0; i < 3; i++) {
+                inspector.inspect("select ta.attachment_id from task_attachment ta where ta.task_id=?");
+            }
+        });
+
+        assertThat(registry.get("sql.budget.exceeded").tag("uri", "/tasks/details").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldGroupStatementsByShape() {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            inspector.inspect("select a.id from attachment a where a.id in (?, ?)");
+            inspector.inspect("select a.id\n  from attachment a where a.id in (?,?,?)");
+            inspector.inspect("select t.id from task t");
+
+            assertThat(scope.count()).isEqualTo(3);
+            assertThat(scope.mostRepeated()).hasValue(
+                    new SqlStatementCounter.Shape("select a.id from attachment a where a.id in (?...)", 2));
+        }
+    }
+
+    @Test
+    void shouldCountNestedScopesInBoth() {
+        try (SqlStatementCounter.Scope outer = SqlStatementCounter.open()) {
+            try (SqlStatementCounter.Scope inner = SqlStatementCounter.open()) {
+                inspector.inspect("select 1");
+                assertThat(inner.count()).isEqualTo(1);
+            }
+            inspector.inspect("select 2");
+            assertThat(outer.count()).isEqualTo(2);
+            assertThat(outer.mostRepeated()).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.todo.controller;
+
+import com.todo.api.dto.AttachmentDownload;
+import com.todo.api.dto.AttachmentInfo;
+import com.todo.api.dto.AttachmentThumbnail;
+import com.todo.api.dto.BatchUploadResult;
+import com.todo.service.AttachmentService;
+import com.todo.service.QuotaService;
+import com.todo.service.ThumbnailService;
+import com.todo.service.UserService;
+import com.todo.storage.BlobContent;
+import com.todo.storage.InputStreamContent;
+import com.todo.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = AttachmentController.class, excludeAutoConfiguration = SecurityAutoConfiguration.class)
+class AttachmentControllerTest {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AttachmentService attachmentService;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private ThumbnailService thumbnailService;
+
+    @MockBean
+    private QuotaService quotaService;
+
+    @MockBean
+    private JwtUtil jwtUtil;
+
+    private UUID userId;
+    private UUID attachmentId;
+    private AttachmentInfo info;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        attachmentId = UUID.randomUUID();
+        info = AttachmentInfo.builder()
+                .id(attachmentId)
+                .fileName("notes.txt")
+                .contentType("text/plain")
+                .sizeBytes(CONTENT.length)
+                .build();
+    }
+
+    @Test
+    void shouldStreamWholeFile() throws Exception {
+        // Given
+        when(attachmentService.openDownload(eq(attachmentId), eq(userId), isNull(), anyBoolean(), isNull()))
+                .thenReturn(CompletableFuture.completedFuture(AttachmentDownload.builder()
+                        .info(info)
+                        .content(new InputStreamContent(new ByteArrayInputStream(CONTENT), CONTENT.length))
+                        .rangeStart(0).rangeEnd(CONTENT.length - 1).totalSize(CONTENT.length)
+                        .build()));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/attachments/{id}/download", attachmentId)
+                        .header("X-User-Id", userId.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(streamed(result)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void shouldSendEtagAndImmutableCacheControl() throws Exception {
+        // Given
+        when(attachmentService.openDownload(eq(attachmentId), eq(userId), isNull(), anyBoolean(), isNull()))
+                .thenReturn(CompletableFuture.completedFuture(AttachmentDownload.builder()
+                        .info(info)
+                        .content(new InputStreamContent(new ByteArrayInputStream(CONTENT), CONTENT.length))
+                        .rangeStart(0).rangeEnd(CONTENT.length - 1).totalSize(CONTENT.length)
+                        .etag("\"abc\"")
+                        .build()));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/attachments/{id}/download", attachmentId)
+                        .header("X-User-Id", userId.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(streamed(result)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, private, immutable"));
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWithoutBody() throws Exception {
+        // Given
+        when(attachmentService.openDownload(eq(attachmentId), eq(userId), isNull(), anyBoolean(), eq("\"abc\"")))
+                .thenReturn(CompletableFuture.completedFuture(AttachmentDownload.builder()
+                        .info(info)
+                        .totalSize(CONTENT.length)
+                        .etag("\"abc\"")
+                        .notModified(true)
+                        .build()));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/attachments/{id}/download", attachmentId)
+                        .header("X-User-Id", userId.toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"abc\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, private, immutable"))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void shouldSendStoredGzipToClientsThatAcceptIt() throws Exception {
+        // Given
+        byte[] gzipped = {0x1f, (byte) 0x8b, 8, 0, 0, 0};
+        BlobContent encoded = new InputStreamContent(new ByteArrayInputStream(gzipped), gzipped.length) {
+            @Override
+            public String getContentEncoding() {
+                return "gzip";
+            }
+        };
+        when(attachmentService.openDownload(eq(attachmentId), eq(userId), isNull(), eq(true), isNull()))
+                .thenReturn(CompletableFuture.completedFuture(AttachmentDownload.builder()
+                        .info(info)
+                        .content(encoded)
+                        .rangeStart(0).rangeEnd(CONTENT.length - 1).totalSize(CONTENT.length)
+                        .build()));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/attachments/{id}/download", attachmentId)
+                        .header("X-User-Id", userId.toString())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, gzip;q=0.8"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(streamed(result)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, gzipped.length))
+                .andExpect(content().bytes(gzipped));
+    }
+
+    @Test
+    void shouldParseAcceptEncoding() {
+        assertThat(AttachmentController.acceptsGzip("gzip, deflate")).isTrue();
+        assertThat(AttachmentController.acceptsGzip("*;q=0.1")).isTrue();
+        assertThat(AttachmentController.acceptsGzip("gzip;q=0, br")).isFalse();
+        assertThat(AttachmentController.acceptsGzip("identity")).isFalse();
+        assertThat(AttachmentController.acceptsGzip(null)).isFalse();
+    }
+
+    @Test
+    void shouldReturnPartialContentForRange() throws Exception {
+        // Given
+        when(attachmentService.openDownload(eq(attachmentId), eq(userId), any(HttpRange.class), anyBoolean(), isNull()))
+                .thenReturn(CompletableFuture.completedFuture(AttachmentDownload.builder()
+                        .info(info)
+                        .content(new InputStreamContent(new ByteArrayInputStream(CONTENT, 2, 4), 4))
+                        .rangeStart(2).rangeEnd(5).totalSize(CONTENT.length).partial(true)
+                        .build()));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/attachments/{id}/download", attachmentId)
+                        .header("X-User-Id", userId.toString())
+                        .header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(streamed(result)))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    void shouldStreamThumbnailWithCacheHeaders() throws Exception {
+        // Given
+        when(thumbnailService.open(attachmentId, userId, 512))
+                .thenReturn(Optional.of(AttachmentThumbnail.builder()
+                        .contentType("image/jpeg")
+                        .width(512).height(300)
+                        .content(new InputStreamContent(new ByteArrayInputStream(CONTENT), CONTENT.length))
+                        .build()));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/attachments/{id}/thumbnail", attachmentId)
+                        .param("size", "512")
+                        .header("X-User-Id", userId.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, private"))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void shouldAcceptThumbnailRequestWhileGenerating() throws Exception {
+        // Given
+        when(thumbnailService.open(attachmentId, userId, 128)).thenReturn(Optional.empty());
+
+        // When/Then
+        mockMvc.perform(get("/attachments/{id}/thumbnail", attachmentId)
+                        .header("X-User-Id", userId.toString()))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+    }
+
+    @Test
+    void shouldRejectOverQuotaUploadBeforeReadingIt() throws Exception {
+        // Given
+        doThrow(new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Storage quota exceeded"))
+                .when(quotaService).checkUpload(eq(userId), anyLong());
+
+        // When/Then
+        mockMvc.perform(multipart("/attachments")
+                        .file(new MockMultipartFile("file", "notes.txt", "text/plain", CONTENT))
+                        .header("X-User-Id", userId.toString()))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.message").value("Storage quota exceeded"));
+        verifyNoInteractions(attachmentService);
+    }
+
+    @Test
+    void shouldPassUploadWithinQuota() throws Exception {
+        // Given
+        when(attachmentService.uploadUnlinked(any(), eq(userId))).thenReturn(info);
+
+        // When/Then
+        mockMvc.perform(multipart("/attachments")
+                        .file(new MockMultipartFile("file", "notes.txt", "text/plain", CONTENT))
+                        .header("X-User-Id", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fileName").value("notes.txt"));
+        verify(quotaService).checkUpload(eq(userId), anyLong());
+    }
+
+    @Test
+    void shouldReturnPerFileResultsForBatchUpload() throws Exception {
+        // Given
+        UUID taskId = UUID.randomUUID();
+        when(attachmentService.uploadBatch(eq(taskId), any(), eq(userId))).thenReturn(BatchUploadResult.builder()
+                .succeeded(1)
+                .failed(1)
+                .items(List.of(
+                        BatchUploadResult.Item.builder().fileName("notes.txt").status(201).attachment(info).build(),
+                        BatchUploadResult.Item.builder().fileName("big.bin").status(413).error("Storage quota exceeded").build()))
+                .build());
+
+        // When/Then
+        mockMvc.perform(multipart("/attachments/task/{taskId}/batch", taskId)
+                        .file(new MockMultipartFile("files", "notes.txt", "text/plain", CONTENT))
+                        .file(new MockMultipartFile("files", "big.bin", "application/octet-stream", CONTENT))
+                        .header("X-User-Id", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.items[0].attachment.fileName").value("notes.txt"))
+                .andExpect(jsonPath("$.items[1].status").value(413));
+        verify(attachmentService).uploadBatch(eq(taskId), argThat(files -> files.size() == 2), eq(userId));
+    }
+
+    // The download resolves a DeferredResult first, then streams its body in a second async round
+    private MvcResult streamed(MvcResult opened) throws Exception {
+        return mockMvc.perform(asyncDispatch(opened))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+}
@@ -3,6 +3,7 @@ package com.todo.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.todo.api.dto.AuthResponse;
 import com.todo.service.AuthService;
+import com.todo.service.QuotaService;
 import com.todo.util.JwtUtil;
 import com.todo.util.TestDataFactory;
 import com.todo.web.dto.LoginRequest;
@@ -34,6 +35,9 @@ class AuthControllerTest {
     @MockBean
     private AuthService authService;
 
+    @MockBean
+    private QuotaService quotaService;
+
     @MockBean
     private JwtUtil jwtUtil;
 
@@ -0,0 +1,106 @@
+package com.todo.controller;
+
+import com.todo.api.dto.UploadSessionInfo;
+import com.todo.service.QuotaService;
+import com.todo.service.ResumableUploadService;
+import com.todo.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = ResumableUploadController.class, excludeAutoConfiguration = SecurityAutoConfiguration.class)
+class ResumableUploadControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ResumableUploadService resumableUploadService;
+
+    @MockBean
+    private QuotaService quotaService;
+
+    @MockBean
+    private JwtUtil jwtUtil;
+
+    private UUID userId;
+    private UUID uploadId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        uploadId = UUID.randomUUID();
+    }
+
+    @Test
+    void shouldCreateSessionWithLocation() throws Exception {
+        // Given
+        when(resumableUploadService.create(any(), eq(userId)))
+                .thenReturn(UploadSessionInfo.builder().id(uploadId).fileName("big.mov").length(50_000_000).build());
+
+        // When/Then
+        mockMvc.perform(post("/attachments/uploads")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fileName\":\"big.mov\",\"contentType\":\"video/quicktime\",\"length\":50000000}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "http://localhost/attachments/uploads/" + uploadId))
+                .andExpect(header().string("Upload-Length", "50000000"))
+                .andExpect(jsonPath("$.id").value(uploadId.toString()));
+    }
+
+    @Test
+    void shouldAppendRawChunkAndReportOffset() throws Exception {
+        // Given
+        when(resumableUploadService.append(eq(uploadId), eq(userId), eq(1024L), any(InputStream.class)))
+                .thenAnswer(inv -> 1024L + inv.<InputStream>getArgument(3).readAllBytes().length);
+
+        // When/Then
+        mockMvc.perform(patch("/attachments/uploads/{id}", uploadId)
+                        .header("X-User-Id", userId.toString())
+                        .header("Upload-Offset", "1024")
+                        .contentType("application/offset+octet-stream")
+                        .content(new byte[512]))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("Upload-Offset", "1536"));
+    }
+
+    @Test
+    void shouldReportOffsetOnHead() throws Exception {
+        // Given
+        when(resumableUploadService.status(uploadId, userId))
+                .thenReturn(UploadSessionInfo.builder().id(uploadId).length(4096).offset(2048).build());
+
+        // When/Then
+        String cacheControl = mockMvc.perform(head("/attachments/uploads/{id}", uploadId)
+                        .header("X-User-Id", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Upload-Offset", "2048"))
+                .andExpect(header().string("Upload-Length", "4096"))
+                .andReturn().getResponse().getHeader("Cache-Control");
+        assertThat(cacheControl).contains("no-store");
+    }
+
+    @Test
+    void shouldRequireUploadOffsetHeader() throws Exception {
+        mockMvc.perform(patch("/attachments/uploads/{id}", uploadId)
+                        .header("X-User-Id", userId.toString())
+                        .content(new byte[1]))
+                .andExpect(status().isBadRequest());
+    }
+}
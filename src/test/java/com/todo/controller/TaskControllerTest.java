@@ -1,9 +1,12 @@
 package com.todo.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.api.dto.TaskArchive;
 import com.todo.api.dto.TaskDetailInfo;
 import com.todo.entity.Task;
 import com.todo.entity.User;
+import com.todo.service.AttachmentService;
+import com.todo.service.QuotaService;
 import com.todo.service.TaskService;
 import com.todo.service.UserService;
 import com.todo.util.JwtUtil;
@@ -16,9 +19,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
@@ -43,6 +52,12 @@ class TaskControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private AttachmentService attachmentService;
+
+    @MockBean
+    private QuotaService quotaService;
+
     @MockBean
     private JwtUtil jwtUtil;
 
@@ -222,5 +237,42 @@ class TaskControllerTest {
 
         verify(taskService).getTaskDetail(taskId, userId);
     }
-}
 
+    @Test
+    void shouldStreamAttachmentsAsZip() throws Exception {
+        // Given
+        TaskArchive archive = TaskArchive.builder().fileName("task-" + taskId + "-attachments.zip").entries(List.of()).build();
+        when(attachmentService.openTaskArchive(taskId, userId)).thenReturn(archive);
+        doAnswer(inv -> {
+            inv.getArgument(1, OutputStream.class).write("PK".getBytes(StandardCharsets.US_ASCII));
+            return null;
+        }).when(attachmentService).writeTaskArchive(eq(archive), any());
+
+        // When
+        MvcResult result = mockMvc.perform(get("/tasks/id/{id}/attachments.zip", taskId)
+                        .header("X-User-Id", userId.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/zip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"task-" + taskId + "-attachments.zip\""))
+                .andExpect(content().bytes("PK".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void shouldReturn404ForZipOfUnknownTask() throws Exception {
+        // Given
+        when(attachmentService.openTaskArchive(taskId, userId))
+                .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Task not found"));
+
+        // When/Then
+        mockMvc.perform(get("/tasks/id/{id}/attachments.zip", taskId)
+                        .header("X-User-Id", userId.toString()))
+                .andExpect(status().isNotFound());
+        verify(attachmentService, never()).writeTaskArchive(any(), any());
+    }
+}
@@ -3,6 +3,7 @@ package com.todo.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.todo.entity.Task;
 import com.todo.entity.User;
+import com.todo.service.QuotaService;
 import com.todo.service.TaskService;
 import com.todo.service.UserService;
 import com.todo.util.JwtUtil;
@@ -42,6 +43,9 @@ class UserControllerTest {
     @MockBean
     private TaskService taskService;
 
+    @MockBean
+    private QuotaService quotaService;
+
     @MockBean
     private JwtUtil jwtUtil;
 
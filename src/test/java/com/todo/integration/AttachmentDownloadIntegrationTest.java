@@ -0,0 +1,141 @@
+package com.todo.integration;
+
+import com.todo.entity.Attachment;
+import com.todo.entity.Task;
+import com.todo.entity.TaskAttachment;
+import com.todo.entity.User;
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.TaskAttachmentRepository;
+import com.todo.repository.TaskRepository;
+import com.todo.service.UserService;
+import com.todo.storage.BlobStorage;
+import com.todo.util.JwtUtil;
+import com.todo.util.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Downloads through the real security filter chain: the response is rendered in an async dispatch,
+ * which is authorized again and therefore needs the bearer token read a second time.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AttachmentDownloadIntegrationTest {
+
+    private static final byte[] CONTENT = "downloaded through the security chain".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BlobStorage blobStorage;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskAttachmentRepository taskAttachmentRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void shouldDownloadWithBearerTokenAfterAsyncDispatch() throws Exception {
+        // Given
+        User user = createUser();
+        Attachment attachment = storeAttachment(user);
+        String token = jwtUtil.generateToken(user.getUsername(), user.getId().toString());
+
+        // When
+        MvcResult started = mockMvc.perform(get("/attachments/{id}/download", attachment.getId())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .header("X-User-Id", user.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then - no async time limit cuts a long download off
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isNotPositive();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void shouldStreamTaskArchiveWithoutTimeLimit() throws Exception {
+        // Given
+        User user = createUser();
+        Task task = taskRepository.save(TestDataFactory.createTestTask(user, "Archive", "Zipped attachments"));
+        taskAttachmentRepository.save(TaskAttachment.builder().task(task).attachment(storeAttachment(user)).build());
+        String token = jwtUtil.generateToken(user.getUsername(), user.getId().toString());
+
+        // When
+        MvcResult started = mockMvc.perform(get("/tasks/id/{id}/attachments.zip", task.getId())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .header("X-User-Id", user.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then - an archive cut off by a time limit would lack its central directory
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isNotPositive();
+        byte[] zip = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry = in.getNextEntry();
+            assertThat(entry.getName()).isEqualTo("notes.txt");
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+            assertThat(in.getNextEntry()).isNull();
+        }
+    }
+
+    @Test
+    void shouldRejectDownloadWithoutToken() throws Exception {
+        mockMvc.perform(get("/attachments/{id}/download", UUID.randomUUID())
+                        .header("X-User-Id", UUID.randomUUID()))
+                .andExpect(status().isForbidden());
+    }
+
+    private User createUser() {
+        String name = "download-" + UUID.randomUUID().toString().substring(0, 8);
+        return userService.createUser(name, name + "@example.com", "password123", "Download", "User");
+    }
+
+    // Stored directly: the upload path's blob bookkeeping uses Postgres-only SQL
+    private Attachment storeAttachment(User user) throws IOException {
+        BlobStorage.StoredObject stored = blobStorage.store(
+                new ByteArrayInputStream(CONTENT), "notes.txt", "text/plain", CONTENT.length);
+        return attachmentRepository.save(Attachment.builder()
+                .userId(user.getId())
+                .filename("notes.txt")
+                .contentType("text/plain")
+                .sizeBytes(stored.getSize())
+                .checksumSha256(stored.getChecksumSha256())
+                .storagePath(stored.getKey())
+                .build());
+    }
+}
@@ -0,0 +1,43 @@
+package com.todo.integration;
+
+import com.todo.entity.User;
+import com.todo.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class MetricsIntegrationTest {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void shouldPublishHibernatePoolStorageAndTokenMeters() {
+        // Given
+        double statementsBefore = registry.get("hibernate.statements").functionCounter().count();
+
+        // When
+        User created = userService.createUser("metrics-user", "metrics@example.com", "password123", "Metrics", "User");
+        userService.getUserById(created.getId());
+
+        // Then
+        assertThat(registry.get("hibernate.statements").functionCounter().count()).isGreaterThan(statementsBefore);
+        assertThat(registry.get("hibernate.entities.loads").functionCounter()).isNotNull();
+        assertThat(registry.get("hibernate.second.level.cache.requests").tag("result", "hit").functionCounter())
+                .isNotNull();
+        assertThat(registry.get("hikaricp.connections.active").gauge()).isNotNull();
+        assertThat(registry.get("blob.storage.bytes").tag("direction", "read").counter()).isNotNull();
+        assertThat(registry.get("jwt.verification").tag("outcome", "valid").timer()).isNotNull();
+    }
+}
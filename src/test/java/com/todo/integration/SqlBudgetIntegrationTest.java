@@ -0,0 +1,79 @@
+package com.todo.integration;
+
+import com.todo.entity.Task;
+import com.todo.entity.User;
+import com.todo.repository.TaskRepository;
+import com.todo.repository.UserRepository;
+import com.todo.service.TaskService;
+import com.todo.util.SqlStatements;
+import com.todo.util.TestDataFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class SqlBudgetIntegrationTest {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User user;
+    private List<Task> tasks;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(TestDataFactory.createTestUser("sql-budget", "sql-budget@example.com"));
+        tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(taskRepository.save(TestDataFactory.createTestTask(user, "Task " + i, "Description " + i)));
+        }
+        // Reads below must reach the database, not the persistence context
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void shouldKeepTaskDetailWithinBudget() throws Throwable {
+        // When
+        var detail = SqlStatements.assertAtMost(3,
+                () -> taskService.getTaskDetail(tasks.get(0).getId(), user.getId()));
+
+        // Then
+        assertThat(detail.getTitle()).isEqualTo("Task 0");
+    }
+
+    @Test
+    void shouldReportRepeatedStatementWhenBudgetIsExceeded() throws Throwable {
+        // Given
+        int statements = SqlStatements.count(() -> taskService.listAllTaskDetails(user.getId()));
+        entityManager.clear();
+
+        // When / Then
+        assertThat(statements).isGreaterThan(tasks.size());
+        assertThatThrownBy(() -> SqlStatements.assertAtMost(2, () -> taskService.listAllTaskDetails(user.getId())))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("Expected at most 2 SQL statements but " + statements + " ran")
+                .hasMessageContaining("repeated");
+    }
+}
@@ -0,0 +1,454 @@
+package com.todo.service;
+
+import com.todo.api.dto.AttachmentDownload;
+import com.todo.api.dto.AttachmentInfo;
+import com.todo.api.dto.AttachmentPage;
+import com.todo.api.dto.BatchUploadResult;
+import com.todo.api.dto.TaskArchive;
+import com.todo.entity.Attachment;
+import com.todo.entity.Task;
+import com.todo.entity.User;
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.TaskAttachmentRepository;
+import com.todo.repository.TaskRepository;
+import com.todo.repository.UserRepository;
+import com.todo.service.impl.AttachmentServiceImpl;
+import com.todo.storage.BatchBlobWriter;
+import com.todo.storage.BlobStorage;
+import com.todo.storage.ContentAddressedBlobStore;
+import com.todo.storage.InputStreamContent;
+import com.todo.storage.StorageUnavailableException;
+import com.todo.storage.ZipBundleStreamer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttachmentServiceTest {
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private TaskAttachmentRepository taskAttachmentRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private BlobStorage blobStorage;
+
+    @Mock
+    private ContentAddressedBlobStore contentStore;
+
+    @Mock
+    private ThumbnailService thumbnailService;
+
+    @Mock
+    private ZipBundleStreamer zipBundleStreamer;
+
+    @Mock
+    private QuotaService quotaService;
+
+    @Mock
+    private BatchBlobWriter batchBlobWriter;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private AttachmentServiceImpl attachmentService;
+
+    private UUID userId;
+    private UUID attachmentId;
+    private Attachment attachment;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        attachmentId = UUID.randomUUID();
+        attachment = Attachment.builder()
+                .id(attachmentId)
+                .userId(userId)
+                .filename("video.mp4")
+                .contentType("video/mp4")
+                .sizeBytes(1000)
+                .checksumSha256("a".repeat(64))
+                .storagePath("attachments/video.mp4")
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build();
+    }
+
+    @Test
+    void shouldOpenWholeObjectWithoutRange() throws Exception {
+        // Given
+        when(attachmentRepository.findById(attachmentId)).thenReturn(Optional.of(attachment));
+        when(blobStorage.openAsync("attachments/video.mp4", 0, -1))
+                .thenReturn(CompletableFuture.completedFuture(new InputStreamContent(new ByteArrayInputStream(new byte[1000]), 1000)));
+
+        // When
+        AttachmentDownload download = attachmentService.openDownload(attachmentId, userId, null, false, null).join();
+
+        // Then
+        assertThat(download.isPartial()).isFalse();
+        assertThat(download.getTotalSize()).isEqualTo(1000);
+        assertThat(download.getInfo().getFileName()).isEqualTo("video.mp4");
+        assertThat(download.getEtag()).isEqualTo("\"" + "a".repeat(64) + "\"");
+        verify(attachmentRepository, times(1)).findById(attachmentId);
+    }
+
+    @Test
+    void shouldAnswerMatchingEtagWithoutOpeningContent() throws Exception {
+        // Given - the client holds the gzip representation, listed after an unrelated tag
+        when(attachmentRepository.findById(attachmentId)).thenReturn(Optional.of(attachment));
+        String gzipTag = "\"" + "a".repeat(64) + "-gzip\"";
+
+        // When
+        AttachmentDownload download = attachmentService.openDownload(attachmentId, userId, null, true,
+                "\"other\", W/" + gzipTag).join();
+
+        // Then
+        assertThat(download.isNotModified()).isTrue();
+        assertThat(download.getEtag()).isEqualTo(gzipTag);
+        assertThat(download.getContent()).isNull();
+        verifyNoInteractions(blobStorage);
+    }
+
+    @Test
+    void shouldOpenStoredBytesWhenClientAcceptsGzip() throws Exception {
+        // Given
+        when(attachmentRepository.findById(attachmentId)).thenReturn(Optional.of(attachment));
+        when(blobStorage.openRawAsync("attachments/video.mp4"))
+                .thenReturn(CompletableFuture.completedFuture(new InputStreamContent(new ByteArrayInputStream(new byte[400]), 400)));
+
+        // When
+        AttachmentDownload download = attachmentService.openDownload(attachmentId, userId, null, true, null).join();
+
+        // Then
+        assertThat(download.getContent().getLength()).isEqualTo(400);
+        assertThat(download.getTotalSize()).isEqualTo(1000);
+        verify(blobStorage, never()).openAsync(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void shouldOpenOnlyRequestedRange() throws Exception {
+        // Given
+        when(attachmentRepository.findById(attachmentId)).thenReturn(Optional.of(attachment));
+        when(blobStorage.openAsync("attachments/video.mp4", 900, 100))
+                .thenReturn(CompletableFuture.completedFuture(new InputStreamContent(new ByteArrayInputStream(new byte[100]), 100)));
+
+        // When - suffix range: last 100 bytes
+        AttachmentDownload download = attachmentService.openDownload(attachmentId, userId, HttpRange.createSuffixRange(100), true, null).join();
+
+        // Then
+        assertThat(download.isPartial()).isTrue();
+        assertThat(download.getRangeStart()).isEqualTo(900);
+        assertThat(download.getRangeEnd()).isEqualTo(999);
+    }
+
+    @Test
+    void shouldAnswerServiceUnavailableWhenStorageIsSaturated() {
+        // Given
+        when(attachmentRepository.findById(attachmentId)).thenReturn(Optional.of(attachment));
+        when(blobStorage.openAsync("attachments/video.mp4", 0, -1))
+                .thenReturn(CompletableFuture.failedFuture(new StorageUnavailableException("64 S3 requests already in flight")));
+
+        // When
+        CompletableFuture<AttachmentDownload> download = attachmentService.openDownload(attachmentId, userId, null, false, null);
+
+        // Then
+        assertThatThrownBy(download::join)
+                .hasCauseInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e.getCause()).getStatusCode())
+                        .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    @Test
+    void shouldRejectUnsatisfiableRange() {
+        // Given
+        when(attachmentRepository.findById(attachmentId)).thenReturn(Optional.of(attachment));
+
+        // When/Then
+        assertThatThrownBy(() -> attachmentService.openDownload(attachmentId, userId, HttpRange.createByteRange(5000), false, null))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode())
+                        .isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE));
+        verifyNoInteractions(blobStorage);
+    }
+
+    @Test
+    void shouldRejectDownloadOfOtherUsersAttachment() {
+        // Given
+        when(attachmentRepository.findById(attachmentId)).thenReturn(Optional.of(attachment));
+
+        // When/Then
+        assertThatThrownBy(() -> attachmentService.openDownload(attachmentId, UUID.randomUUID(), null, false, null))
+                .isInstanceOf(ResponseStatusException.class);
+        verifyNoInteractions(blobStorage);
+    }
+
+    @Test
+    void shouldReleaseBlobReferenceOnDelete() {
+        // Given
+        when(attachmentRepository.findById(attachmentId)).thenReturn(Optional.of(attachment));
+
+        // When
+        attachmentService.delete(attachmentId, userId);
+
+        // Then
+        verify(contentStore).release("a".repeat(64), "attachments/video.mp4");
+        verify(attachmentRepository).delete(attachment);
+        verify(quotaService).release(userId, 1000);
+        verifyNoInteractions(blobStorage);
+    }
+
+    private static Object[] listRow(UUID id, Instant createdAt, UUID taskId) {
+        return new Object[]{id, "file.txt", "text/plain", 10L, "b".repeat(64),
+                createdAt.atOffset(ZoneOffset.UTC), Timestamp.from(createdAt), taskId};
+    }
+
+    @Test
+    void shouldListFirstPageWithFirstTaskAndCursor() {
+        // Given - limit 2, the repository returns one extra row, so there is a next page
+        Instant now = Instant.parse("2026-05-01T10:00:00Z");
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID taskId = UUID.randomUUID();
+        when(attachmentRepository.findPageWithFirstTask(eq(userId), any(Instant.class), any(UUID.class), eq(3)))
+                .thenReturn(List.of(
+                        listRow(first, now, taskId),
+                        listRow(second, now.minusSeconds(1), null),
+                        listRow(UUID.randomUUID(), now.minusSeconds(2), null)));
+
+        // When
+        AttachmentPage page = attachmentService.listByUser(userId, null, 2);
+
+        // Then
+        assertThat(page.getItems()).extracting(AttachmentInfo::getId).containsExactly(first, second);
+        assertThat(page.getItems().get(0).getTaskId()).isEqualTo(taskId);
+        assertThat(page.getItems().get(0).getCreatedAt()).isEqualTo(now);
+        assertThat(page.getNextCursor()).isNotNull();
+        verify(taskAttachmentRepository, never()).findByAttachmentId(any());
+
+        // And the cursor resumes after the last row
+        when(attachmentRepository.findPageWithFirstTask(userId, now.minusSeconds(1), second, 3)).thenReturn(List.of());
+        assertThat(attachmentService.listByUser(userId, page.getNextCursor(), 2).getItems()).isEmpty();
+    }
+
+    @Test
+    void shouldOmitCursorOnLastPage() {
+        // Given
+        when(attachmentRepository.findPageWithFirstTask(eq(userId), any(Instant.class), any(UUID.class), eq(51)))
+                .thenReturn(List.<Object[]>of(listRow(UUID.randomUUID(), Instant.now(), null)));
+
+        // When
+        AttachmentPage page = attachmentService.listByUser(userId, null, 50);
+
+        // Then
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() {
+        assertThatThrownBy(() -> attachmentService.listByUser(userId, "not-a-cursor", 10))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    void shouldResolveFirstTaskWithoutLoadingLinks() {
+        // Given
+        UUID taskId = UUID.randomUUID();
+        when(attachmentRepository.findById(attachmentId)).thenReturn(Optional.of(attachment));
+        when(taskAttachmentRepository.findFirstTaskId(attachmentId)).thenReturn(Optional.of(taskId));
+
+        // When
+        AttachmentInfo info = attachmentService.getInfo(attachmentId, userId);
+
+        // Then
+        assertThat(info.getTaskId()).isEqualTo(taskId);
+        verify(taskAttachmentRepository, never()).findByAttachmentId(any());
+    }
+
+    @Test
+    void shouldResolveTaskArchiveEntriesOfOwnAttachments() {
+        // Given
+        User user = User.builder().id(userId).build();
+        UUID taskId = UUID.randomUUID();
+        Task task = Task.builder().id(taskId).user(user).build();
+        Attachment foreign = Attachment.builder().id(UUID.randomUUID()).userId(UUID.randomUUID())
+                .filename("other.txt").storagePath("xx/yy/other.txt").build();
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(taskRepository.findByIdAndUserAndIsDeletedFalse(taskId, user)).thenReturn(Optional.of(task));
+        when(attachmentRepository.findByTaskId(taskId)).thenReturn(List.of(attachment, foreign));
+
+        // When
+        TaskArchive archive = attachmentService.openTaskArchive(taskId, userId);
+
+        // Then
+        assertThat(archive.getFileName()).isEqualTo("task-" + taskId + "-attachments.zip");
+        assertThat(archive.getEntries()).containsExactly(new ZipBundleStreamer.Entry("video.mp4",
+                "attachments/video.mp4", "video/mp4", 1000, attachment.getCreatedAt()));
+    }
+
+    @Test
+    void shouldRejectArchiveOfUnknownTask() {
+        // Given
+        User user = User.builder().id(userId).build();
+        UUID taskId = UUID.randomUUID();
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(taskRepository.findByIdAndUserAndIsDeletedFalse(taskId, user)).thenReturn(Optional.empty());
+
+        // When / Then
+        assertThatThrownBy(() -> attachmentService.openTaskArchive(taskId, userId))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+        verify(attachmentRepository, never()).findByTaskId(any());
+    }
+
+    @Test
+    void shouldAttachStoredFilesAndReportFailedOnesInBatch() throws Exception {
+        // Given - the second file cannot be stored, the third does not fit the quota
+        Task task = givenOwnTask();
+        ContentAddressedBlobStore.Prepared stored = mock(ContentAddressedBlobStore.Prepared.class);
+        ContentAddressedBlobStore.Prepared tooBig = mock(ContentAddressedBlobStore.Prepared.class);
+        when(stored.getSize()).thenReturn(10L);
+        when(tooBig.getSize()).thenReturn(5000L);
+        when(batchBlobWriter.write(anyList())).thenReturn(List.of(
+                new BatchBlobWriter.Result(stored, null),
+                new BatchBlobWriter.Result(null, new IOException("disk full")),
+                new BatchBlobWriter.Result(tooBig, null)));
+        when(quotaService.tryReserve(userId, 10)).thenReturn(true);
+        when(quotaService.tryReserve(userId, 5000)).thenReturn(false);
+        when(contentStore.register(stored, "a.txt"))
+                .thenReturn(new BlobStorage.StoredObject("ab/cd/a.txt", "text/plain", 10, "d".repeat(64)));
+        when(attachmentRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        runTransactionsInline();
+
+        // When
+        BatchUploadResult result = attachmentService.uploadBatch(task.getId(),
+                List.of(file("a.txt"), file("b.txt"), file("c.txt")), userId);
+
+        // Then
+        assertThat(result.getSucceeded()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getItems()).extracting(BatchUploadResult.Item::getStatus).containsExactly(201, 500, 413);
+        assertThat(result.getItems().get(0).getAttachment().getTaskId()).isEqualTo(task.getId());
+        verify(taskAttachmentRepository).saveAll(argThat(links -> links.iterator().hasNext()));
+        verify(contentStore, never()).register(eq(tooBig), any());
+        verify(stored).close();
+        verify(tooBig).close();
+    }
+
+    @Test
+    void shouldCheckQuotaBeforeRegisteringUpload() throws Exception {
+        // Given
+        User user = User.builder().id(userId).build();
+        Task task = Task.builder().id(UUID.randomUUID()).user(user).build();
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(taskRepository.findByIdAndUserAndIsDeletedFalse(task.getId(), user)).thenReturn(Optional.of(task));
+        ContentAddressedBlobStore.Prepared prepared = mock(ContentAddressedBlobStore.Prepared.class);
+        when(prepared.getSize()).thenReturn(10L);
+        when(contentStore.prepare(any(), eq("a.txt"), eq("text/plain"))).thenReturn(prepared);
+        when(contentStore.register(prepared, "a.txt"))
+                .thenReturn(new BlobStorage.StoredObject("ab/cd/a.txt", "text/plain", 10, "d".repeat(64)));
+        when(attachmentRepository.save(any(Attachment.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        AttachmentInfo info = attachmentService.uploadAndAttach(task.getId(), file("a.txt"), userId);
+
+        // Then
+        assertThat(info.getTaskId()).isEqualTo(task.getId());
+        var order = inOrder(quotaService, contentStore, prepared);
+        order.verify(quotaService).reserve(userId, 10);
+        order.verify(contentStore).register(prepared, "a.txt");
+        order.verify(prepared).close();
+    }
+
+    @Test
+    void shouldDeleteUploadRejectedByQuotaAtOnce() throws Exception {
+        // Given
+        ContentAddressedBlobStore.Prepared prepared = mock(ContentAddressedBlobStore.Prepared.class);
+        when(prepared.getSize()).thenReturn(5000L);
+        when(contentStore.prepare(any(), eq("big.txt"), eq("text/plain"))).thenReturn(prepared);
+        doThrow(new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Storage quota exceeded"))
+                .when(quotaService).reserve(userId, 5000);
+
+        // When / Then
+        assertThatThrownBy(() -> attachmentService.uploadUnlinked(file("big.txt"), userId))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode())
+                        .isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+        verify(contentStore, never()).register(any(), any());
+        verify(attachmentRepository, never()).save(any());
+        // Closing unregistered content deletes its object
+        verify(prepared).close();
+    }
+
+    @Test
+    void shouldRejectOversizedBatchBeforeStoringAnything() {
+        // Given
+        ReflectionTestUtils.setField(attachmentService, "maxBatchFiles", 2);
+
+        // When / Then
+        assertThatThrownBy(() -> attachmentService.uploadBatch(UUID.randomUUID(),
+                        List.of(file("a.txt"), file("b.txt"), file("c.txt")), userId))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        verifyNoInteractions(batchBlobWriter);
+    }
+
+    private Task givenOwnTask() {
+        ReflectionTestUtils.setField(attachmentService, "maxBatchFiles", 50);
+        User user = User.builder().id(userId).build();
+        Task task = Task.builder().id(UUID.randomUUID()).user(user).build();
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(taskRepository.findByIdAndUserAndIsDeletedFalse(task.getId(), user)).thenReturn(Optional.of(task));
+        when(taskRepository.getReferenceById(task.getId())).thenReturn(task);
+        return task;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static MockMultipartFile file(String name) {
+        return new MockMultipartFile("files", name, "text/plain", name.getBytes());
+    }
+}
@@ -0,0 +1,133 @@
+package com.todo.service;
+
+import com.todo.entity.OutboxEvent;
+import com.todo.repository.OutboxEventRepository;
+import com.todo.service.impl.OutboxServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class OutboxServiceTest {
+
+    private OutboxEventRepository outboxRepo;
+    private List<String> delivered;
+    private OutboxServiceImpl outbox;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepo = mock(OutboxEventRepository.class);
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        when(tx.execute(any())).thenAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+
+        delivered = new ArrayList<>();
+        OutboxHandler handler = new OutboxHandler() {
+            @Override
+            public String type() {
+                return "test.effect";
+            }
+
+            @Override
+            public void handle(String payload) throws IOException {
+                if (payload.startsWith("fail")) {
+                    throw new IOException("store unavailable");
+                }
+                delivered.add(payload);
+            }
+        };
+
+        outbox = new OutboxServiceImpl(outboxRepo, List.of(handler), tx, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(outbox, "batchSize", 2);
+        ReflectionTestUtils.setField(outbox, "maxAttempts", 3);
+        ReflectionTestUtils.setField(outbox, "initialBackoff", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(outbox, "maxBackoff", Duration.ofSeconds(30));
+        ReflectionTestUtils.invokeMethod(outbox, "init");
+    }
+
+    private static OutboxEvent event(long id, String payload, int attempts) {
+        return OutboxEvent.builder().id(id).type("test.effect").payload(payload).attempts(attempts)
+                .availableAt(Instant.now()).build();
+    }
+
+    @Test
+    void shouldDrainInBatchesAndDeleteHandledEvents() {
+        // Given - a full batch, then a short one that ends the drain
+        OutboxEvent e1 = event(1, "a", 0);
+        OutboxEvent e2 = event(2, "b", 0);
+        OutboxEvent e3 = event(3, "c", 0);
+        when(outboxRepo.lockDue(any(Instant.class), anyInt()))
+                .thenReturn(List.of(e1, e2))
+                .thenReturn(List.of(e3));
+
+        // When
+        int handled = outbox.drain();
+
+        // Then
+        assertThat(handled).isEqualTo(3);
+        assertThat(delivered).containsExactly("a", "b", "c");
+        verify(outboxRepo).deleteAllInBatch(List.of(e1, e2));
+        verify(outboxRepo).deleteAllInBatch(List.of(e3));
+        verify(outboxRepo, times(2)).lockDue(any(Instant.class), eq(2));
+    }
+
+    @Test
+    void shouldRescheduleFailedEventWithBackoff() {
+        // Given
+        OutboxEvent failing = event(1, "fail-once", 1);
+        OutboxEvent ok = event(2, "ok", 0);
+        when(outboxRepo.lockDue(any(Instant.class), anyInt())).thenReturn(List.of(failing, ok), List.of());
+        Instant before = Instant.now();
+
+        // When
+        outbox.drain();
+
+        // Then - second attempt waits 2 x 5s; the successful event is still removed
+        assertThat(failing.getAttempts()).isEqualTo(2);
+        assertThat(failing.getLastError()).contains("store unavailable");
+        assertThat(failing.getAvailableAt()).isAfterOrEqualTo(before.plusSeconds(10));
+        assertThat(failing.getDeadAt()).isNull();
+        verify(outboxRepo).deleteAllInBatch(List.of(ok));
+    }
+
+    @Test
+    void shouldParkEventAfterMaxAttempts() {
+        // Given
+        OutboxEvent failing = event(1, "fail-always", 2);
+        when(outboxRepo.lockDue(any(Instant.class), anyInt())).thenReturn(List.of(failing));
+
+        // When
+        outbox.drain();
+
+        // Then
+        assertThat(failing.getAttempts()).isEqualTo(3);
+        assertThat(failing.getDeadAt()).isNotNull();
+    }
+
+    @Test
+    void shouldCapBackoff() {
+        assertThat(outbox.backoff(1)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(outbox.backoff(3)).isEqualTo(Duration.ofSeconds(20));
+        assertThat(outbox.backoff(40)).isEqualTo(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void shouldRejectEventsWithoutHandler() {
+        assertThatThrownBy(() -> outbox.enqueue("unknown.effect", "x"))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(outboxRepo, never()).save(any());
+    }
+}
@@ -0,0 +1,204 @@
+package com.todo.service;
+
+import com.todo.api.dto.AttachmentInfo;
+import com.todo.api.dto.PresignedTransfer;
+import com.todo.entity.Attachment;
+import com.todo.entity.PendingUpload;
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.PendingUploadRepository;
+import com.todo.repository.TaskAttachmentRepository;
+import com.todo.repository.TaskRepository;
+import com.todo.repository.UserRepository;
+import com.todo.service.impl.PresignedAttachmentServiceImpl;
+import com.todo.storage.BlobStorage;
+import com.todo.storage.ContentAddressedBlobStore;
+import com.todo.storage.PresignedBlobStorage;
+import com.todo.web.dto.PresignedUploadRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PresignedAttachmentServiceTest {
+
+    private static final String CHECKSUM = "ab".repeat(32);
+    private static final String KEY = "attachments/upload.pdf";
+
+    @Mock
+    private PendingUploadRepository pendingUploadRepository;
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private TaskAttachmentRepository taskAttachmentRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ContentAddressedBlobStore contentStore;
+
+    @Mock
+    private PresignedBlobStorage presignedStorage;
+
+    @Mock
+    private ThumbnailService thumbnailService;
+
+    @Mock
+    private QuotaService quotaService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private PresignedAttachmentServiceImpl service;
+
+    private UUID userId;
+    private UUID uploadId;
+    private PendingUpload pending;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "maxSize", 1024L * 1024);
+        userId = UUID.randomUUID();
+        uploadId = UUID.randomUUID();
+        pending = PendingUpload.builder()
+                .id(uploadId)
+                .userId(userId)
+                .filename("upload.pdf")
+                .contentType("application/pdf")
+                .sizeBytes(2048)
+                .checksumSha256(CHECKSUM)
+                .storagePath(KEY)
+                .expiresAt(Instant.now().plusSeconds(600))
+                .build();
+    }
+
+    @Test
+    void shouldSignUploadAndRecordPendingUpload() {
+        // Given
+        PresignedUploadRequest request = new PresignedUploadRequest();
+        request.setFileName("upload.pdf");
+        request.setSizeBytes(2048);
+        request.setChecksumSha256(CHECKSUM.toUpperCase());
+        when(presignedStorage.newKey("upload.pdf")).thenReturn(KEY);
+        when(presignedStorage.presignUpload(KEY, "application/octet-stream", 2048, CHECKSUM))
+                .thenReturn(new PresignedBlobStorage.PresignedRequest("PUT", "https://signed", Map.of(), Instant.now()));
+        when(pendingUploadRepository.save(any(PendingUpload.class))).thenAnswer(inv -> {
+            PendingUpload saved = inv.getArgument(0);
+            saved.setId(uploadId);
+            return saved;
+        });
+
+        // When
+        PresignedTransfer transfer = service.initiateUpload(request, userId);
+
+        // Then
+        assertThat(transfer.getUploadId()).isEqualTo(uploadId);
+        assertThat(transfer.getUrl()).isEqualTo("https://signed");
+        verifyNoInteractions(attachmentRepository);
+    }
+
+    @Test
+    void shouldRejectUploadAboveLimit() {
+        // Given
+        PresignedUploadRequest request = new PresignedUploadRequest();
+        request.setFileName("huge.bin");
+        request.setSizeBytes(2L * 1024 * 1024);
+        request.setChecksumSha256(CHECKSUM);
+
+        // When/Then
+        assertThatThrownBy(() -> service.initiateUpload(request, userId))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+        verifyNoInteractions(presignedStorage);
+    }
+
+    @Test
+    void shouldCreateAttachmentWhenUploadMatches() {
+        // Given
+        BlobStorage.StoredObject uploaded = new BlobStorage.StoredObject(KEY, "application/pdf", 2048, CHECKSUM);
+        when(pendingUploadRepository.findById(uploadId)).thenReturn(Optional.of(pending));
+        when(presignedStorage.describe(KEY)).thenReturn(Optional.of(uploaded));
+        when(contentStore.adopt(any())).thenReturn(uploaded);
+        when(attachmentRepository.save(any(Attachment.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        AttachmentInfo info = service.confirmUpload(uploadId, userId);
+
+        // Then
+        assertThat(info.getChecksumSha256()).isEqualTo(CHECKSUM);
+        assertThat(info.getSizeBytes()).isEqualTo(2048);
+        verify(quotaService).reserve(userId, 2048);
+        verify(pendingUploadRepository).delete(pending);
+        verify(presignedStorage, never()).delete(any());
+    }
+
+    @Test
+    void shouldDiscardUploadWithWrongChecksum() {
+        // Given
+        when(pendingUploadRepository.findById(uploadId)).thenReturn(Optional.of(pending));
+        when(presignedStorage.describe(KEY))
+                .thenReturn(Optional.of(new BlobStorage.StoredObject(KEY, "application/pdf", 2048, "cd".repeat(32))));
+
+        // When/Then
+        assertThatThrownBy(() -> service.confirmUpload(uploadId, userId))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+        verify(presignedStorage).delete(KEY);
+        verify(pendingUploadRepository).delete(pending);
+        // Committed on its own, so it survives the rollback of the failed confirmation
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        verify(transactionManager).commit(any());
+        verifyNoInteractions(attachmentRepository, contentStore);
+    }
+
+    @Test
+    void shouldReportConflictWhenNothingUploadedYet() {
+        // Given
+        when(pendingUploadRepository.findById(uploadId)).thenReturn(Optional.of(pending));
+        when(presignedStorage.describe(KEY)).thenReturn(Optional.empty());
+
+        // When/Then
+        assertThatThrownBy(() -> service.confirmUpload(uploadId, userId))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        verify(pendingUploadRepository, never()).delete(any());
+    }
+
+    @Test
+    void shouldNotConfirmOtherUsersUpload() {
+        // Given
+        when(pendingUploadRepository.findById(uploadId)).thenReturn(Optional.of(pending));
+
+        // When/Then
+        assertThatThrownBy(() -> service.confirmUpload(uploadId, UUID.randomUUID()))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN));
+        verifyNoInteractions(presignedStorage);
+    }
+}
@@ -0,0 +1,154 @@
+package com.todo.service;
+
+import com.todo.entity.UserStorageUsage;
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.UserStorageUsageRepository;
+import com.todo.service.impl.QuotaServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class QuotaServiceTest {
+
+    private static final long MAX_BYTES = DataSize.ofMegabytes(10).toBytes();
+
+    private UserStorageUsageRepository usageRepo;
+    private AttachmentRepository attachmentRepo;
+    private QuotaServiceImpl service;
+    private UUID userId;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        usageRepo = mock(UserStorageUsageRepository.class);
+        attachmentRepo = mock(AttachmentRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        service = new QuotaServiceImpl(usageRepo, attachmentRepo, transactionTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "maxBytes", DataSize.ofBytes(MAX_BYTES));
+        ReflectionTestUtils.setField(service, "maxAttachments", 100L);
+        ReflectionTestUtils.setField(service, "cacheTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(service, "cacheMaxEntries", 100);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    void shouldRejectUploadThatCannotFitFromCachedUsage() {
+        // Given
+        when(usageRepo.findById(userId)).thenReturn(Optional.of(usage(userId, MAX_BYTES - 100, 5)));
+
+        // When
+        service.checkUpload(userId, 100);
+
+        // Then - refused without reading the row again
+        assertThatThrownBy(() -> service.checkUpload(userId, 101))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+        verify(usageRepo, times(1)).findById(userId);
+    }
+
+    @Test
+    void shouldCreateUsageRowOnFirstReservation() {
+        // Given - no row yet
+        when(usageRepo.reserve(userId, 500, MAX_BYTES, 100)).thenReturn(0, 1);
+
+        // When
+        service.reserve(userId, 500);
+
+        // Then
+        verify(usageRepo).insertIfAbsent(userId);
+        verify(usageRepo, times(2)).reserve(userId, 500, MAX_BYTES, 100);
+    }
+
+    @Test
+    void shouldRejectReservationOverQuota() {
+        // Given - the guarded update matches nothing even though the row exists
+        when(usageRepo.reserve(eq(userId), anyLong(), anyLong(), anyLong())).thenReturn(0);
+
+        // When / Then
+        assertThatThrownBy(() -> service.reserve(userId, MAX_BYTES))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+    }
+
+    @Test
+    void shouldSeeOwnReservationsInLaterChecks() {
+        // Given
+        when(usageRepo.findById(userId)).thenReturn(
+                Optional.of(usage(userId, 0, 0)), Optional.of(usage(userId, MAX_BYTES, 1)));
+        when(usageRepo.reserve(eq(userId), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        service.checkUpload(userId, MAX_BYTES);
+
+        // When
+        service.reserve(userId, MAX_BYTES);
+
+        // Then
+        assertThatThrownBy(() -> service.checkUpload(userId, 1)).isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void shouldCorrectDriftedCountersPageByPage() {
+        // Given - three users in pages of two; one has drifted, one lost all attachments, one has no row
+        UUID a = new UUID(0, 1);
+        UUID b = new UUID(0, 2);
+        UUID c = new UUID(0, 3);
+        UserStorageUsage usageA = usage(a, 100, 1);
+        UserStorageUsage usageB = usage(b, 300, 2);
+        UserStorageUsage usageC = usage(c, 0, 0);
+        when(attachmentRepo.findUserIdsWithoutUsage()).thenReturn(List.of(c));
+        when(usageRepo.findUserIdsAfter(eq(new UUID(0, 0)), any())).thenReturn(List.of(a, b));
+        when(usageRepo.findUserIdsAfter(eq(b), any())).thenReturn(List.of(c));
+        when(usageRepo.lockAll(List.of(a, b))).thenReturn(List.of(usageA, usageB));
+        when(usageRepo.lockAll(List.of(c))).thenReturn(List.of(usageC));
+        when(attachmentRepo.sumUsageByUser(List.of(a, b))).thenReturn(List.<Object[]>of(new Object[]{a, 100L, 1L}));
+        when(attachmentRepo.sumUsageByUser(List.of(c))).thenReturn(List.<Object[]>of(new Object[]{c, 700L, 3L}));
+
+        // When
+        int corrected = service.reconcile();
+
+        // Then
+        assertThat(corrected).isEqualTo(2);
+        verify(usageRepo).insertIfAbsent(c);
+        assertThat(usageA.getBytesUsed()).isEqualTo(100);
+        assertThat(usageB.getBytesUsed()).isZero();
+        assertThat(usageB.getAttachmentCount()).isZero();
+        assertThat(usageC.getBytesUsed()).isEqualTo(700);
+        assertThat(usageC.getAttachmentCount()).isEqualTo(3);
+    }
+
+    private static UserStorageUsage usage(UUID userId, long bytes, long count) {
+        return UserStorageUsage.builder()
+                .userId(userId)
+                .bytesUsed(bytes)
+                .attachmentCount(count)
+                .updatedAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,220 @@
+package com.todo.service;
+
+import com.todo.api.dto.AttachmentInfo;
+import com.todo.api.dto.UploadSessionInfo;
+import com.todo.entity.UploadSession;
+import com.todo.repository.UploadSessionRepository;
+import com.todo.service.impl.ResumableUploadServiceImpl;
+import com.todo.storage.StagedObject;
+import com.todo.web.dto.CreateUploadRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ResumableUploadServiceTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefghij".repeat(1000).getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path partDir;
+
+    private UploadSessionRepository sessionRepo;
+    private AttachmentService attachmentService;
+    private QuotaService quotaService;
+    private final Map<UUID, UploadSession> sessions = new HashMap<>();
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        sessionRepo = mock(UploadSessionRepository.class);
+        attachmentService = mock(AttachmentService.class);
+        quotaService = mock(QuotaService.class);
+        when(sessionRepo.save(any())).thenAnswer(inv -> {
+            UploadSession s = inv.getArgument(0);
+            if (s.getId() == null) {
+                s.setId(UUID.randomUUID());
+            }
+            sessions.put(s.getId(), s);
+            return s;
+        });
+        when(sessionRepo.findById(any())).thenAnswer(inv -> Optional.ofNullable(sessions.get(inv.<UUID>getArgument(0))));
+        doAnswer(inv -> sessions.remove(inv.<UploadSession>getArgument(0).getId())).when(sessionRepo).delete(any());
+        userId = UUID.randomUUID();
+    }
+
+    private ResumableUploadServiceImpl newService() {
+        ResumableUploadServiceImpl service = new ResumableUploadServiceImpl(sessionRepo, attachmentService, quotaService);
+        ReflectionTestUtils.setField(service, "dir", partDir.toString());
+        ReflectionTestUtils.setField(service, "maxSize", 1_000_000L);
+        ReflectionTestUtils.setField(service, "expiry", Duration.ofHours(1));
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    @Test
+    void shouldAssembleChunksAndCreateAttachmentWithChecksum() throws Exception {
+        // Given
+        ResumableUploadServiceImpl service = newService();
+        UploadSessionInfo session = service.create(request(CONTENT.length), userId);
+        AtomicReference<String> checksum = new AtomicReference<>();
+        AtomicReference<byte[]> assembled = new AtomicReference<>();
+        when(attachmentService.createUnlinked(any(), eq("data.txt"), eq(userId))).thenAnswer(inv -> {
+            StagedObject staged = inv.getArgument(0);
+            checksum.set(staged.getChecksumSha256());
+            assembled.set(Files.readAllBytes(staged.getFile()));
+            return AttachmentInfo.builder().id(UUID.randomUUID()).build();
+        });
+
+        // When
+        long offset = service.append(session.getId(), userId, 0, chunk(0, 7000));
+        offset = service.append(session.getId(), userId, offset, chunk(7000, CONTENT.length));
+        AttachmentInfo info = service.complete(session.getId(), userId);
+
+        // Then
+        assertThat(offset).isEqualTo(CONTENT.length);
+        assertThat(info).isNotNull();
+        assertThat(assembled.get()).isEqualTo(CONTENT);
+        assertThat(checksum.get()).isEqualTo(sha256(CONTENT));
+        assertThat(sessions).isEmpty();
+        try (var files = Files.list(partDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldRejectChunkAtWrongOffset() throws Exception {
+        // Given
+        ResumableUploadServiceImpl service = newService();
+        UploadSessionInfo session = service.create(request(CONTENT.length), userId);
+        service.append(session.getId(), userId, 0, chunk(0, 100));
+
+        // When / Then
+        assertThatThrownBy(() -> service.append(session.getId(), userId, 0, chunk(0, 100)))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(service.status(session.getId(), userId).getOffset()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldKeepBytesReceivedBeforeConnectionDrops() throws Exception {
+        // Given - the body fails after 5000 bytes
+        ResumableUploadServiceImpl service = newService();
+        UploadSessionInfo session = service.create(request(CONTENT.length), userId);
+        InputStream dropping = new InputStream() {
+            private final InputStream in = chunk(0, 5000);
+
+            @Override
+            public int read() throws IOException {
+                int b = in.read();
+                if (b < 0) {
+                    throw new IOException("connection reset");
+                }
+                return b;
+            }
+        };
+
+        // When
+        assertThatThrownBy(() -> service.append(session.getId(), userId, 0, dropping)).isInstanceOf(IOException.class);
+
+        // Then - the client resumes from what arrived
+        assertThat(service.status(session.getId(), userId).getOffset()).isEqualTo(5000);
+        assertThat(service.append(session.getId(), userId, 5000, chunk(5000, CONTENT.length))).isEqualTo(CONTENT.length);
+    }
+
+    @Test
+    void shouldRebuildHashAfterRestartAndDropUnrecordedBytes() throws Exception {
+        // Given - 3000 bytes recorded, but the file also has a tail that was never acknowledged
+        ResumableUploadServiceImpl first = newService();
+        UploadSessionInfo session = first.create(request(CONTENT.length), userId);
+        first.append(session.getId(), userId, 0, chunk(0, 3000));
+        Path part = Path.of(sessions.get(session.getId()).getPartPath());
+        Files.write(part, "garbage".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        AtomicReference<String> checksum = new AtomicReference<>();
+        when(attachmentService.createUnlinked(any(), any(), any())).thenAnswer(inv -> {
+            checksum.set(inv.<StagedObject>getArgument(0).getChecksumSha256());
+            return AttachmentInfo.builder().build();
+        });
+
+        // When - a new instance continues the upload
+        ResumableUploadServiceImpl restarted = newService();
+        restarted.append(session.getId(), userId, 3000, chunk(3000, CONTENT.length));
+        restarted.complete(session.getId(), userId);
+
+        // Then
+        assertThat(checksum.get()).isEqualTo(sha256(CONTENT));
+    }
+
+    @Test
+    void shouldRejectBytesPastDeclaredLengthAndIncompleteCompletion() throws Exception {
+        // Given
+        ResumableUploadServiceImpl service = newService();
+        UploadSessionInfo session = service.create(request(100), userId);
+
+        // When / Then
+        assertThatThrownBy(() -> service.append(session.getId(), userId, 0, chunk(0, 150)))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+        assertThat(service.status(session.getId(), userId).getOffset()).isEqualTo(100);
+
+        UploadSessionInfo other = service.create(request(100), userId);
+        service.append(other.getId(), userId, 0, chunk(0, 50));
+        assertThatThrownBy(() -> service.complete(other.getId(), userId))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        verify(attachmentService, never()).createUnlinked(any(), any(), any());
+    }
+
+    @Test
+    void shouldHideOtherUsersUploads() {
+        // Given
+        ResumableUploadServiceImpl service = newService();
+        UploadSessionInfo session = service.create(request(100), userId);
+
+        // When / Then
+        assertThatThrownBy(() -> service.status(session.getId(), UUID.randomUUID()))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+
+    private static CreateUploadRequest request(long length) {
+        CreateUploadRequest request = new CreateUploadRequest();
+        request.setFileName("data.txt");
+        request.setContentType("text/plain");
+        request.setLength(length);
+        return request;
+    }
+
+    private static InputStream chunk(int from, int to) {
+        return new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, from, Math.min(to, CONTENT.length)));
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
@@ -0,0 +1,213 @@
+package com.todo.service;
+
+import com.todo.api.dto.AttachmentThumbnail;
+import com.todo.entity.Attachment;
+import com.todo.entity.BlobThumbnail;
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.BlobThumbnailRepository;
+import com.todo.service.impl.ThumbnailServiceImpl;
+import com.todo.storage.BlobDeleteHandler;
+import com.todo.storage.BlobStorage;
+import com.todo.storage.InputStreamContent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ThumbnailServiceTest {
+
+    private static final String CHECKSUM = "e".repeat(64);
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private BlobThumbnailRepository thumbnailRepository;
+
+    @Mock
+    private BlobStorage blobStorage;
+
+    @Mock
+    private OutboxService outbox;
+
+    @InjectMocks
+    private ThumbnailServiceImpl thumbnailService;
+
+    private UUID userId;
+    private UUID attachmentId;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(thumbnailService, "sizes", List.of(512, 128));
+        ReflectionTestUtils.setField(thumbnailService, "concurrency", 1);
+        ReflectionTestUtils.setField(thumbnailService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(thumbnailService, "maxSourcePixels", 50_000_000L);
+        ReflectionTestUtils.invokeMethod(thumbnailService, "startExecutor");
+        userId = UUID.randomUUID();
+        attachmentId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(thumbnailService, "stopExecutor");
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillRect(0, 0, width / 2, height);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private Attachment attachment(String contentType) {
+        return Attachment.builder()
+                .id(attachmentId)
+                .userId(userId)
+                .filename("photo.png")
+                .contentType(contentType)
+                .sizeBytes(1000)
+                .checksumSha256(CHECKSUM)
+                .storagePath("attachments/photo.png")
+                .build();
+    }
+
+    @Test
+    void shouldGenerateEachSizeWithinItsBox() throws Exception {
+        // Given
+        byte[] source = png(2000, 1200);
+        when(thumbnailRepository.findByChecksumSha256OrderByMaxDimension(CHECKSUM)).thenReturn(List.of());
+        when(blobStorage.open("attachments/photo.png", 0, -1))
+                .thenReturn(new InputStreamContent(new ByteArrayInputStream(source), source.length));
+        when(blobStorage.store(any(), anyString(), eq("image/jpeg"), anyLong()))
+                .thenAnswer(inv -> new BlobStorage.StoredObject("thumbs/" + inv.getArgument(1), "image/jpeg",
+                        inv.<Long>getArgument(3), "x"));
+
+        // When
+        thumbnailService.generate(CHECKSUM, "attachments/photo.png");
+
+        // Then - opaque source, so JPEG; aspect ratio kept
+        ArgumentCaptor<BlobThumbnail> saved = ArgumentCaptor.forClass(BlobThumbnail.class);
+        verify(thumbnailRepository, times(2)).save(saved.capture());
+        assertThat(saved.getAllValues())
+                .extracting(BlobThumbnail::getMaxDimension, BlobThumbnail::getWidth, BlobThumbnail::getHeight)
+                .containsExactly(
+                        tuple(128, 128, 77),
+                        tuple(512, 512, 307));
+        assertThat(saved.getAllValues()).allSatisfy(t -> {
+            assertThat(t.getContentType()).isEqualTo("image/jpeg");
+            assertThat(t.getSizeBytes()).isLessThan(source.length);
+        });
+    }
+
+    @Test
+    void shouldSkipSizesThatAlreadyExist() throws Exception {
+        // Given
+        when(thumbnailRepository.findByChecksumSha256OrderByMaxDimension(CHECKSUM)).thenReturn(List.of(
+                BlobThumbnail.builder().maxDimension(128).build(),
+                BlobThumbnail.builder().maxDimension(512).build()));
+
+        // When
+        thumbnailService.generate(CHECKSUM, "attachments/photo.png");
+
+        // Then
+        verifyNoInteractions(blobStorage);
+    }
+
+    @Test
+    void shouldServeSmallestThumbnailCoveringRequestedSize() throws Exception {
+        // Given
+        when(attachmentRepository.findById(attachmentId)).thenReturn(Optional.of(attachment("image/png")));
+        when(thumbnailRepository.findByChecksumSha256OrderByMaxDimension(CHECKSUM)).thenReturn(List.of(
+                BlobThumbnail.builder().maxDimension(128).storagePath("t/128.jpg").contentType("image/jpeg").build(),
+                BlobThumbnail.builder().maxDimension(512).storagePath("t/512.jpg").contentType("image/jpeg").build()));
+        when(blobStorage.open(anyString(), eq(0L), eq(-1L)))
+                .thenReturn(new InputStreamContent(new ByteArrayInputStream(new byte[0]), 0));
+
+        // When
+        Optional<AttachmentThumbnail> medium = thumbnailService.open(attachmentId, userId, 200);
+        Optional<AttachmentThumbnail> huge = thumbnailService.open(attachmentId, userId, 2000);
+
+        // Then
+        assertThat(medium).isPresent();
+        assertThat(huge).isPresent();
+        verify(blobStorage, times(2)).open("t/512.jpg", 0, -1);
+    }
+
+    @Test
+    void shouldReportPendingAndQueueGenerationWhenMissing() throws Exception {
+        // Given
+        when(attachmentRepository.findById(attachmentId)).thenReturn(Optional.of(attachment("image/png")));
+        when(thumbnailRepository.findByChecksumSha256OrderByMaxDimension(CHECKSUM)).thenReturn(List.of());
+        when(blobStorage.open("attachments/photo.png", 0, -1))
+                .thenReturn(new InputStreamContent(new ByteArrayInputStream(new byte[0]), 0));
+
+        // When
+        Optional<AttachmentThumbnail> thumbnail = thumbnailService.open(attachmentId, userId, 128);
+
+        // Then - the worker picks it up in the background
+        assertThat(thumbnail).isEmpty();
+        verify(blobStorage, timeout(2000)).open("attachments/photo.png", 0, -1);
+    }
+
+    @Test
+    void shouldRejectNonImages() {
+        // Given
+        when(attachmentRepository.findById(attachmentId)).thenReturn(Optional.of(attachment("application/pdf")));
+
+        // When/Then
+        assertThatThrownBy(() -> thumbnailService.open(attachmentId, userId, 128))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    void shouldDeleteThumbnailRowsAndQueueTheirBlobs() throws Exception {
+        // Given
+        BlobThumbnail small = BlobThumbnail.builder().checksumSha256(CHECKSUM).maxDimension(128)
+                .storagePath("attachments/thumb-128.jpg").build();
+        BlobThumbnail large = BlobThumbnail.builder().checksumSha256(CHECKSUM).maxDimension(512)
+                .storagePath("attachments/thumb-512.jpg").build();
+        when(thumbnailRepository.findByChecksumSha256OrderByMaxDimension(CHECKSUM)).thenReturn(List.of(small, large));
+
+        // When
+        thumbnailService.deleteFor(CHECKSUM);
+
+        // Then
+        verify(thumbnailRepository).delete(small);
+        verify(thumbnailRepository).delete(large);
+        verify(outbox).enqueue(BlobDeleteHandler.TYPE, "attachments/thumb-128.jpg");
+        verify(outbox).enqueue(BlobDeleteHandler.TYPE, "attachments/thumb-512.jpg");
+        verify(blobStorage, never()).delete(anyString());
+    }
+}
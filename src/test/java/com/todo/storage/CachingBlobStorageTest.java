@@ -0,0 +1,277 @@
+package com.todo.storage;
+
+import com.todo.storage.BlobStorageImpl.S3BlobStorageImpl;
+import io.awspring.cloud.s3.S3Template;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class CachingBlobStorageTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private InMemoryS3Client s3;
+    private S3BlobStorageImpl remote;
+    private SimpleMeterRegistry registry;
+    private CachingBlobStorage cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // 50ms per request makes overlapping misses reliable
+        s3 = new InMemoryS3Client(50, 0);
+        remote = new S3BlobStorageImpl(mock(S3Template.class), s3, mock(S3AsyncClient.class));
+        ReflectionTestUtils.setField(remote, "bucket", "test-bucket");
+        ReflectionTestUtils.setField(remote, "prefix", "attachments");
+        ReflectionTestUtils.setField(remote, "multipartThreshold", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(remote, "partConcurrency", 1);
+        ReflectionTestUtils.invokeMethod(remote, "init");
+
+        registry = new SimpleMeterRegistry();
+        // memory: objects <= 1KB, 4KB total; disk: objects <= 64KB, 128KB total
+        cache = new CachingBlobStorage(new AsyncOpening(remote), cacheDir, 1024, 4096, 64 * 1024, 128 * 1024, 2, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(remote, "shutdown");
+    }
+
+    private String put(int size) throws IOException {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return cache.store(new ByteArrayInputStream(bytes), "f.bin", null, size).getKey();
+    }
+
+    private byte[] read(String key, long offset, long length) throws IOException {
+        try (BlobContent content = cache.open(key, offset, length)) {
+            return content.getInputStream().readAllBytes();
+        }
+    }
+
+    private double requests(String result) {
+        return registry.get("blob.cache.requests").tag("result", result).counter().count();
+    }
+
+    @Test
+    void shouldServeRepeatReadsFromMemoryAndDisk() throws Exception {
+        // Given
+        String small = put(500);
+        String large = put(10_000);
+        s3.getRequests.set(0);
+
+        // When
+        byte[] first = read(small, 0, -1);
+        byte[] again = read(small, 0, -1);
+        byte[] largeFirst = read(large, 0, -1);
+        byte[] largeRange = read(large, 100, 50);
+
+        // Then
+        assertThat(again).isEqualTo(first);
+        assertThat(largeRange).isEqualTo(Arrays.copyOfRange(largeFirst, 100, 150));
+        assertThat(s3.getRequests.get()).isEqualTo(2);
+        assertThat(requests("memory_hit")).isEqualTo(1);
+        assertThat(requests("disk_hit")).isEqualTo(1);
+        assertThat(cache.hitRatio()).isEqualTo(0.5);
+        assertThat(cache.memoryBytes()).isEqualTo(500);
+        assertThat(cache.diskBytes()).isEqualTo(10_000);
+    }
+
+    @Test
+    void shouldCoalesceConcurrentMisses() throws Exception {
+        // Given
+        String key = put(20_000);
+        s3.getRequests.set(0);
+        int readers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(readers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<byte[]>> results = new ArrayList<>();
+
+        // When
+        try {
+            for (int i = 0; i < readers; i++) {
+                Callable<byte[]> reader = () -> {
+                    start.await();
+                    return read(key, 0, -1);
+                };
+                results.add(pool.submit(reader));
+            }
+            start.countDown();
+            for (Future<byte[]> result : results) {
+                assertThat(result.get()).hasSize(20_000);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Then
+        assertThat(s3.getRequests.get()).isEqualTo(1);
+        assertThat(requests("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFillCacheOnAsyncMissesAndCoalesceThem() throws Exception {
+        // Given - one object for the memory tier, one for disk
+        String small = put(500);
+        String large = put(20_000);
+        s3.getRequests.set(0);
+
+        // When - concurrent async misses, then repeat reads
+        List<CompletableFuture<BlobContent>> opens = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            opens.add(cache.openAsync(small, 0, -1));
+            opens.add(cache.openAsync(large, 100, 50));
+        }
+        for (CompletableFuture<BlobContent> open : opens) {
+            try (BlobContent content = open.get(5, TimeUnit.SECONDS)) {
+                content.getInputStream().readAllBytes();
+            }
+        }
+        byte[] again;
+        try (BlobContent content = cache.openAsync(large, 0, -1).get(5, TimeUnit.SECONDS)) {
+            again = content.getInputStream().readAllBytes();
+        }
+        cache.openAsync(small, 0, -1).get(5, TimeUnit.SECONDS).close();
+
+        // Then - one fetch per object; everything after it is served from the cache
+        assertThat(s3.getRequests.get()).isEqualTo(2);
+        assertThat(requests("miss")).isEqualTo(2);
+        assertThat(requests("coalesced")).isEqualTo(6);
+        assertThat(requests("memory_hit")).isEqualTo(1);
+        assertThat(requests("disk_hit")).isEqualTo(1);
+        assertThat(again).isEqualTo(read(large, 0, -1));
+        assertThat(cache.memoryBytes()).isEqualTo(500);
+        assertThat(cache.diskBytes()).isEqualTo(20_000);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedAndBypassOversizedObjects() throws Exception {
+        // Given - three 50KB objects fit only two at a time on disk
+        String a = put(50_000);
+        String b = put(50_000);
+        String c = put(50_000);
+        String huge = put(100_000);
+
+        // When
+        read(a, 0, -1);
+        read(b, 0, -1);
+        read(a, 0, -1); // a is now more recent than b
+        read(c, 0, -1); // evicts b
+        s3.getRequests.set(0);
+        read(a, 0, -1);
+        read(b, 0, -1);
+        read(huge, 0, 10);
+        read(huge, 0, 10);
+
+        // Then - a hit, b refetched; huge fetched once to learn its size, then streamed ranged
+        assertThat(cache.diskBytes()).isLessThanOrEqualTo(128 * 1024);
+        assertThat(s3.getRequests.get()).isEqualTo(4);
+        assertThat(requests("bypass")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRefuseToCacheContentFailingChecksum() throws Exception {
+        // Given - stored bytes no longer match the checksum recorded at upload
+        String key = put(500);
+        InMemoryS3Client.StoredS3Object stored = s3.objects().get(key);
+        s3.objects().put(key, new InMemoryS3Client.StoredS3Object(new byte[500], stored.contentType(),
+                stored.metadata(), Instant.now()));
+
+        // When/Then
+        assertThatThrownBy(() -> read(key, 0, -1)).isInstanceOf(IOException.class).hasMessageContaining("Checksum");
+        assertThat(cache.memoryBytes()).isZero();
+    }
+
+    @Test
+    void shouldDropEntryOnDelete() throws Exception {
+        // Given
+        String key = put(10_000);
+        read(key, 0, -1);
+
+        // When
+        cache.delete(key);
+
+        // Then - nothing cached any more (the S3 delete itself goes through the mocked S3Template)
+        assertThat(cache.diskBytes()).isZero();
+        s3.getRequests.set(0);
+        read(key, 0, -1);
+        assertThat(s3.getRequests.get()).isEqualTo(1);
+    }
+
+    /** The remote store with its opens also offered as non-blocking reads, completed on another thread. */
+    private static final class AsyncOpening implements BlobStorage {
+        private final BlobStorage delegate;
+
+        private AsyncOpening(BlobStorage delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public StagedObject stage(InputStream in, String contentType) throws IOException {
+            return delegate.stage(in, contentType);
+        }
+
+        @Override
+        public StoredObject commit(StagedObject staged, String originalName) throws IOException {
+            return delegate.commit(staged, originalName);
+        }
+
+        @Override
+        public byte[] load(String key) throws IOException {
+            return delegate.load(key);
+        }
+
+        @Override
+        public BlobContent open(String key, long offset, long length) throws IOException {
+            return delegate.open(key, offset, length);
+        }
+
+        @Override
+        public CompletableFuture<BlobContent> openAsync(String key, long offset, long length) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return delegate.open(key, offset, length);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            });
+        }
+
+        @Override
+        public void delete(String key) throws IOException {
+            delegate.delete(key);
+        }
+
+        @Override
+        public Stream<ListedObject> list() throws IOException {
+            return delegate.list();
+        }
+    }
+}
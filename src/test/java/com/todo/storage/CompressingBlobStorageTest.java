@@ -0,0 +1,211 @@
+package com.todo.storage;
+
+import com.todo.storage.BlobStorageImpl.LocalBlobStorageImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressingBlobStorageTest {
+
+    @TempDir
+    Path rootDir;
+
+    private LocalBlobStorageImpl local;
+    private CompressingBlobStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        local = new LocalBlobStorageImpl();
+        ReflectionTestUtils.setField(local, "rootDir", rootDir.toString());
+        ReflectionTestUtils.invokeMethod(local, "init");
+        storage = new CompressingBlobStorage(local, 1024, 6, 0.9);
+    }
+
+    @Test
+    void shouldCompressTextAndReportOriginalSizeAndChecksum() throws Exception {
+        // Given
+        byte[] text = csv(5000);
+        String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text));
+
+        // When
+        BlobStorage.StoredObject stored = storage.store(new ByteArrayInputStream(text), "export.csv", "text/csv", text.length);
+
+        // Then
+        assertThat(stored.getKey()).endsWith(".csv" + CompressingBlobStorage.GZIP_SUFFIX);
+        assertThat(CompressingBlobStorage.isCompressed(stored.getKey())).isTrue();
+        assertThat(stored.getSize()).isEqualTo(text.length);
+        assertThat(stored.getChecksumSha256()).isEqualTo(expected);
+        assertThat(stored.getContentType()).isEqualTo("text/csv");
+        assertThat(Files.size(rootDir.resolve(stored.getKey()))).isLessThan(text.length / 3);
+        assertThat(storage.load(stored.getKey())).isEqualTo(text);
+    }
+
+    @Test
+    void shouldServeRangesOfCompressedObjects() throws Exception {
+        // Given
+        byte[] text = csv(20000);
+        BlobStorage.StoredObject stored = storage.store(new ByteArrayInputStream(text), "export.csv", "text/csv", text.length);
+
+        // When
+        byte[] slice;
+        long length;
+        try (BlobContent content = storage.open(stored.getKey(), 100_000, 5000)) {
+            length = content.getLength();
+            slice = content.getInputStream().readAllBytes();
+        }
+        long tailLength;
+        try (BlobContent tail = storage.open(stored.getKey(), text.length - 10, -1)) {
+            tailLength = tail.getLength();
+        }
+
+        // Then
+        assertThat(length).isEqualTo(5000);
+        assertThat(slice).isEqualTo(Arrays.copyOfRange(text, 100_000, 105_000));
+        assertThat(tailLength).isEqualTo(10);
+    }
+
+    @Test
+    void shouldStoreHighEntropyContentUncompressed() throws Exception {
+        // Given - random bytes labelled as text still do not compress
+        byte[] random = new byte[8192];
+        new Random(7).nextBytes(random);
+
+        // When
+        BlobStorage.StoredObject stored = storage.store(new ByteArrayInputStream(random), "blob.txt", "text/plain", random.length);
+
+        // Then
+        assertThat(stored.getKey()).endsWith(".txt");
+        assertThat(Files.size(rootDir.resolve(stored.getKey()))).isEqualTo(random.length);
+    }
+
+    @Test
+    void shouldSkipKnownCompressedTypesAndSmallObjects() throws Exception {
+        // Given
+        byte[] text = csv(5000);
+        byte[] small = "a,b,c\n".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        BlobStorage.StoredObject jpeg = storage.store(new ByteArrayInputStream(text), "photo.jpg", "image/jpeg", text.length);
+        BlobStorage.StoredObject tiny = storage.store(new ByteArrayInputStream(small), "tiny.csv", "text/csv", small.length);
+
+        // Then
+        assertThat(CompressingBlobStorage.isCompressed(jpeg.getKey())).isFalse();
+        assertThat(CompressingBlobStorage.isCompressed(tiny.getKey())).isFalse();
+        assertThat(storage.load(tiny.getKey())).isEqualTo(small);
+    }
+
+    @Test
+    void shouldReadBackUserGzipFilesAsStored() throws Exception {
+        // Given - an archive that is gzip already, and a file named like the codec marker
+        byte[] archive = gzip(csv(5000));
+        byte[] random = new byte[8192];
+        new Random(7).nextBytes(random);
+
+        // When
+        BlobStorage.StoredObject tarGz = storage.store(new ByteArrayInputStream(archive), "archive.tar.gz",
+                "application/gzip", archive.length);
+        BlobStorage.StoredObject lookalike = storage.store(new ByteArrayInputStream(random), "blob" + CompressingBlobStorage.GZIP_SUFFIX,
+                "application/octet-stream", random.length);
+
+        // Then - neither carries the codec marker, so both come back byte for byte and unlabelled
+        assertThat(tarGz.getKey()).endsWith(".gz");
+        assertThat(CompressingBlobStorage.isCompressed(tarGz.getKey())).isFalse();
+        assertThat(storage.load(tarGz.getKey())).isEqualTo(archive);
+        try (BlobContent content = storage.open(tarGz.getKey(), 0, -1)) {
+            assertThat(content.getInputStream().readAllBytes()).isEqualTo(archive);
+        }
+        try (BlobContent raw = storage.openRaw(tarGz.getKey())) {
+            assertThat(raw.getContentEncoding()).isNull();
+            assertThat(raw.getInputStream().readAllBytes()).isEqualTo(archive);
+        }
+        try (BlobContent raw = storage.openRawAsync(tarGz.getKey()).join()) {
+            assertThat(raw.getContentEncoding()).isNull();
+        }
+        try (BlobContent content = storage.openAsync(tarGz.getKey(), 0, -1).join()) {
+            assertThat(content.getLength()).isEqualTo(archive.length);
+        }
+        assertThat(CompressingBlobStorage.isCompressed(lookalike.getKey())).isFalse();
+        assertThat(storage.load(lookalike.getKey())).isEqualTo(random);
+    }
+
+    @Test
+    void shouldCompressUnlabelledButRedundantContent() throws Exception {
+        // Given
+        byte[] text = csv(5000);
+
+        // When
+        BlobStorage.StoredObject stored = storage.store(new ByteArrayInputStream(text), "dump", null, text.length);
+
+        // Then
+        assertThat(CompressingBlobStorage.isCompressed(stored.getKey())).isTrue();
+    }
+
+    @Test
+    void shouldHandOutStoredGzipAsIs() throws Exception {
+        // Given
+        byte[] text = csv(5000);
+        BlobStorage.StoredObject stored = storage.store(new ByteArrayInputStream(text), "export.csv", "text/csv", text.length);
+
+        // When
+        byte[] raw;
+        String encoding;
+        long length;
+        try (BlobContent content = storage.openRaw(stored.getKey())) {
+            encoding = content.getContentEncoding();
+            length = content.getLength();
+            raw = content.getInputStream().readAllBytes();
+        }
+
+        // Then - a standard gzip reader decodes it
+        assertThat(encoding).isEqualTo("gzip");
+        assertThat(length).isEqualTo(raw.length).isLessThan(text.length);
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(raw)).readAllBytes()).isEqualTo(text);
+    }
+
+    @Test
+    void shouldReadObjectsStoredBeforeCompressionWasEnabled() throws Exception {
+        // Given
+        byte[] text = csv(5000);
+        BlobStorage.StoredObject plain = local.store(new ByteArrayInputStream(text), "old.csv", "text/csv", text.length);
+
+        // When
+        BlobContent raw = storage.openRaw(plain.getKey());
+        raw.close();
+
+        // Then
+        assertThat(raw.getContentEncoding()).isNull();
+        assertThat(storage.load(plain.getKey())).isEqualTo(text);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] csv(int rows) {
+        StringBuilder sb = new StringBuilder("id,name,status\n");
+        for (int i = 0; i < rows; i++) {
+            sb.append(i).append(",task-").append(i % 97).append(i % 3 == 0 ? ",done\n" : ",open\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
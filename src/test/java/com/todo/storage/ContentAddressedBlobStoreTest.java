@@ -0,0 +1,184 @@
+package com.todo.storage;
+
+import com.todo.entity.StoredBlob;
+import com.todo.repository.StoredBlobRepository;
+import com.todo.service.OutboxService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContentAddressedBlobStoreTest {
+
+    private static final String CHECKSUM = "c".repeat(64);
+
+    @Mock
+    private BlobStorage blobStorage;
+
+    @Mock
+    private StoredBlobRepository storedBlobRepo;
+
+    @Mock
+    private OutboxService outbox;
+
+    @InjectMocks
+    private ContentAddressedBlobStore store;
+
+    @TempDir
+    Path tempDir;
+
+    private StagedObject staged() throws Exception {
+        StagedObject real = StagedObject.spool(new ByteArrayInputStream("same bytes".getBytes()), "image/png", tempDir);
+        return new StagedObject(real.getFile(), real.getSize(), CHECKSUM, real.getContentType());
+    }
+
+    @Test
+    void shouldLinkToExistingBlobWithoutWriting() throws Exception {
+        // Given
+        when(storedBlobRepo.incrementRefCount(CHECKSUM)).thenReturn(1);
+        when(storedBlobRepo.findById(CHECKSUM)).thenReturn(Optional.of(StoredBlob.builder()
+                .checksumSha256(CHECKSUM).storagePath("attachments/original.png").sizeBytes(10).refCount(2).build()));
+
+        // When
+        BlobStorage.StoredObject stored = store.storeStaged(staged(), "copy.png");
+
+        // Then
+        assertThat(stored.getKey()).isEqualTo("attachments/original.png");
+        assertThat(stored.getChecksumSha256()).isEqualTo(CHECKSUM);
+        verify(blobStorage, never()).commit(any(), anyString());
+    }
+
+    @Test
+    void shouldCommitAndRegisterNewContent() throws Exception {
+        // Given
+        StagedObject staged = staged();
+        when(storedBlobRepo.incrementRefCount(CHECKSUM)).thenReturn(0);
+        when(blobStorage.commit(staged, "new.png"))
+                .thenReturn(new BlobStorage.StoredObject("attachments/new.png", "image/png", 10, CHECKSUM));
+        when(storedBlobRepo.insertIfAbsent(CHECKSUM, "attachments/new.png", 10)).thenReturn(1);
+
+        // When
+        BlobStorage.StoredObject stored = store.storeStaged(staged, "new.png");
+
+        // Then
+        assertThat(stored.getKey()).isEqualTo("attachments/new.png");
+        verify(blobStorage, never()).delete(anyString());
+    }
+
+    @Test
+    void shouldDropOwnCopyWhenConcurrentUploadWins() throws Exception {
+        // Given
+        StagedObject staged = staged();
+        when(storedBlobRepo.incrementRefCount(CHECKSUM)).thenReturn(0, 1);
+        when(blobStorage.commit(staged, "new.png"))
+                .thenReturn(new BlobStorage.StoredObject("attachments/mine.png", "image/png", 10, CHECKSUM));
+        when(storedBlobRepo.insertIfAbsent(eq(CHECKSUM), anyString(), anyLong())).thenReturn(0);
+        when(storedBlobRepo.findById(CHECKSUM)).thenReturn(Optional.of(StoredBlob.builder()
+                .checksumSha256(CHECKSUM).storagePath("attachments/theirs.png").sizeBytes(10).refCount(2).build()));
+
+        // When
+        BlobStorage.StoredObject stored = store.storeStaged(staged, "new.png");
+
+        // Then
+        assertThat(stored.getKey()).isEqualTo("attachments/theirs.png");
+        verify(blobStorage).delete("attachments/mine.png");
+    }
+
+    @Test
+    void shouldDropDirectUploadOfKnownContent() throws Exception {
+        // Given
+        when(storedBlobRepo.incrementRefCount(CHECKSUM)).thenReturn(1);
+        when(storedBlobRepo.findById(CHECKSUM)).thenReturn(Optional.of(StoredBlob.builder()
+                .checksumSha256(CHECKSUM).storagePath("attachments/original.png").sizeBytes(10).refCount(2).build()));
+
+        // When
+        BlobStorage.StoredObject stored = store.adopt(
+                new BlobStorage.StoredObject("attachments/direct.png", "image/png", 10, CHECKSUM));
+
+        // Then
+        assertThat(stored.getKey()).isEqualTo("attachments/original.png");
+        verify(blobStorage).delete("attachments/direct.png");
+        verify(storedBlobRepo, never()).insertIfAbsent(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void shouldKeepBlobWhileOtherReferencesRemain() throws Exception {
+        // Given
+        when(storedBlobRepo.decrementRefCount(CHECKSUM)).thenReturn(1);
+        when(storedBlobRepo.deleteIfUnreferenced(CHECKSUM)).thenReturn(0);
+
+        // When/Then
+        assertThat(store.release(CHECKSUM, "attachments/shared.png")).isFalse();
+        verify(outbox, never()).enqueue(anyString(), anyString());
+    }
+
+    @Test
+    void shouldQueueBlobDeleteWithLastReference() throws Exception {
+        // Given
+        when(storedBlobRepo.decrementRefCount(CHECKSUM)).thenReturn(1);
+        when(storedBlobRepo.deleteIfUnreferenced(CHECKSUM)).thenReturn(1);
+
+        // When/Then - deleted by the outbox relay after commit, not inside the transaction
+        assertThat(store.release(CHECKSUM, "attachments/shared.png")).isTrue();
+        verify(outbox).enqueue(BlobDeleteHandler.TYPE, "attachments/shared.png");
+        verify(blobStorage, never()).delete(anyString());
+    }
+
+    @Test
+    void shouldPrepareKnownContentWithoutWritingAndLinkOnRegister() throws Exception {
+        // Given
+        StagedObject staged = staged();
+        when(blobStorage.stage(any(), eq("image/png"))).thenReturn(staged);
+        when(storedBlobRepo.existsById(CHECKSUM)).thenReturn(true);
+        when(storedBlobRepo.incrementRefCount(CHECKSUM)).thenReturn(1);
+        when(storedBlobRepo.findById(CHECKSUM)).thenReturn(Optional.of(StoredBlob.builder()
+                .checksumSha256(CHECKSUM).storagePath("attachments/original.png").sizeBytes(10).refCount(2).build()));
+
+        // When
+        BlobStorage.StoredObject stored;
+        try (ContentAddressedBlobStore.Prepared prepared =
+                     store.prepare(new ByteArrayInputStream(new byte[0]), "copy.png", "image/png")) {
+            stored = store.register(prepared, "copy.png");
+        }
+
+        // Then
+        assertThat(stored.getKey()).isEqualTo("attachments/original.png");
+        verify(blobStorage, never()).commit(any(), anyString());
+        verify(blobStorage, never()).delete(anyString());
+    }
+
+    @Test
+    void shouldDeleteWrittenObjectWhenRegistrationIsDiscarded() throws Exception {
+        // Given
+        StagedObject staged = staged();
+        when(blobStorage.stage(any(), eq("image/png"))).thenReturn(staged);
+        when(blobStorage.commit(staged, "new.png"))
+                .thenReturn(new BlobStorage.StoredObject("attachments/new.png", "image/png", 10, CHECKSUM));
+        when(storedBlobRepo.incrementRefCount(CHECKSUM)).thenReturn(0);
+        when(storedBlobRepo.insertIfAbsent(CHECKSUM, "attachments/new.png", 10)).thenReturn(1);
+
+        // When - registered, but the transaction rolls back
+        try (ContentAddressedBlobStore.Prepared prepared =
+                     store.prepare(new ByteArrayInputStream(new byte[0]), "new.png", "image/png")) {
+            store.register(prepared, "new.png");
+            prepared.discard();
+        }
+
+        // Then
+        verify(blobStorage).delete("attachments/new.png");
+    }
+}
@@ -0,0 +1,248 @@
+package com.todo.storage;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process S3 stand-in for tests and benchmarks. Implements the subset of {@link S3Client} the blob
+ * stores use, and can simulate per-request latency and per-connection bandwidth plus transient part failures.
+ */
+public class InMemoryS3Client implements S3Client {
+
+    public record StoredS3Object(byte[] bytes, String contentType, Map<String, String> metadata, Instant lastModified) {}
+
+    private final Map<String, StoredS3Object> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+    private final long latencyMillis;
+    private final long bytesPerSecond;
+
+    public final AtomicInteger putRequests = new AtomicInteger();
+    public final AtomicInteger getRequests = new AtomicInteger();
+    public final AtomicInteger partRequests = new AtomicInteger();
+    public final AtomicInteger abortedUploads = new AtomicInteger();
+    public final AtomicInteger listRequests = new AtomicInteger();
+    private final AtomicInteger failingParts = new AtomicInteger();
+
+    public InMemoryS3Client() {
+        this(0, 0);
+    }
+
+    /**
+     * @param latencyMillis  fixed delay added to every request
+     * @param bytesPerSecond simulated throughput of a single connection, 0 for unlimited
+     */
+    public InMemoryS3Client(long latencyMillis, long bytesPerSecond) {
+        this.latencyMillis = latencyMillis;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /** Makes the next {@code count} UploadPart calls fail with a 500. */
+    public void failNextParts(int count) {
+        failingParts.set(count);
+    }
+
+    public Map<String, StoredS3Object> objects() {
+        return objects;
+    }
+
+    public int openUploads() {
+        return uploads.size();
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+        putRequests.incrementAndGet();
+        byte[] bytes = transfer(body);
+        objects.put(request.key(), new StoredS3Object(bytes, request.contentType(),
+                request.metadata(), Instant.now()));
+        return PutObjectResponse.builder().eTag(UUID.randomUUID().toString()).build();
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+        simulateLatency(0);
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new ConcurrentHashMap<>());
+        return CreateMultipartUploadResponse.builder().uploadId(uploadId).key(request.key()).build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+        partRequests.incrementAndGet();
+        if (failingParts.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            throw (S3Exception) S3Exception.builder().statusCode(500).message("Simulated part failure").build();
+        }
+        Map<Integer, byte[]> parts = uploads.get(request.uploadId());
+        if (parts == null) {
+            throw NoSuchUploadException.builder().message("No such upload").build();
+        }
+        byte[] bytes = transfer(body);
+        parts.put(request.partNumber(), bytes);
+        return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        simulateLatency(0);
+        Map<Integer, byte[]> parts = uploads.remove(request.uploadId());
+        if (parts == null) {
+            throw NoSuchUploadException.builder().message("No such upload").build();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new TreeMap<>(parts).values().forEach(out::writeBytes);
+        objects.put(request.key(), new StoredS3Object(out.toByteArray(), null, Map.of(), Instant.now()));
+        return CompleteMultipartUploadResponse.builder().key(request.key()).build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+        abortedUploads.incrementAndGet();
+        uploads.remove(request.uploadId());
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+        getRequests.incrementAndGet();
+        StoredS3Object object = objects.get(request.key());
+        if (object == null) {
+            throw NoSuchKeyException.builder().statusCode(404).message("No such key").build();
+        }
+        int start = 0;
+        int end = object.bytes().length - 1;
+        if (request.range() != null) {
+            String[] range = request.range().substring("bytes=".length()).split("-", -1);
+            start = Integer.parseInt(range[0]);
+            if (!range[1].isEmpty()) {
+                end = Math.min(end, Integer.parseInt(range[1]));
+            }
+        }
+        int length = Math.max(0, end - start + 1);
+        simulateLatency(length);
+        GetObjectResponse response = GetObjectResponse.builder()
+                .contentLength((long) length)
+                .contentType(object.contentType())
+                .metadata(object.metadata())
+                .build();
+        return new ResponseInputStream<>(response,
+                AbortableInputStream.create(new ByteArrayInputStream(object.bytes(), start, length)));
+    }
+
+    @Override
+    public HeadObjectResponse headObject(HeadObjectRequest request) {
+        StoredS3Object object = objects.get(request.key());
+        if (object == null) {
+            throw NoSuchKeyException.builder().statusCode(404).message("No such key").build();
+        }
+        return HeadObjectResponse.builder()
+                .contentLength((long) object.bytes().length)
+                .contentType(object.contentType())
+                .metadata(object.metadata())
+                .lastModified(object.lastModified())
+                // Like S3 for single-PUT objects: the full-object checksum, when asked for
+                .checksumSHA256(request.checksumMode() == ChecksumMode.ENABLED ? sha256Base64(object.bytes()) : null)
+                .build();
+    }
+
+    @Override
+    public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+        simulateLatency(0);
+        objects.remove(request.key());
+        return DeleteObjectResponse.builder().build();
+    }
+
+    @Override
+    public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+        simulateLatency(0);
+        listRequests.incrementAndGet();
+        String prefix = request.prefix() != null ? request.prefix() : "";
+        String after = request.continuationToken();
+        int max = request.maxKeys() != null ? request.maxKeys() : 1000;
+
+        // Keys are kept sorted, as S3 returns them
+        List<S3Object> page = new ArrayList<>();
+        String last = null;
+        boolean truncated = false;
+        for (Map.Entry<String, StoredS3Object> e : objects.entrySet()) {
+            if (!e.getKey().startsWith(prefix) || (after != null && e.getKey().compareTo(after) <= 0)) {
+                continue;
+            }
+            if (page.size() == max) {
+                truncated = true;
+                break;
+            }
+            page.add(S3Object.builder()
+                    .key(e.getKey())
+                    .size((long) e.getValue().bytes().length)
+                    .lastModified(e.getValue().lastModified())
+                    .build());
+            last = e.getKey();
+        }
+        return ListObjectsV2Response.builder()
+                .contents(page)
+                .keyCount(page.size())
+                .isTruncated(truncated)
+                .nextContinuationToken(truncated ? last : null)
+                .build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static String sha256Base64(byte[] bytes) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] transfer(RequestBody body) {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            byte[] bytes = in.readAllBytes();
+            simulateLatency(bytes.length);
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void simulateLatency(long bytes) {
+        long millis = latencyMillis + (bytesPerSecond > 0 ? bytes * 1000 / bytesPerSecond : 0);
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.todo.storage;
+
+import com.todo.storage.BlobStorageImpl.LocalBlobStorageImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalBlobStorageImplTest {
+
+    @TempDir
+    Path rootDir;
+
+    private LocalBlobStorageImpl storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalBlobStorageImpl();
+        ReflectionTestUtils.setField(storage, "rootDir", rootDir.toString());
+        ReflectionTestUtils.invokeMethod(storage, "init");
+    }
+
+    @Test
+    void shouldStreamFileAndComputeChecksumInOnePass() throws Exception {
+        // Given - larger than the copy buffer so several reads are digested
+        byte[] bytes = new byte[BlobStreams.BUFFER_SIZE * 3 + 17];
+        new Random(42).nextBytes(bytes);
+        String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+
+        // When
+        BlobStorage.StoredObject stored = storage.store(new ByteArrayInputStream(bytes), "report.pdf", null, bytes.length);
+
+        // Then
+        assertThat(stored.getSize()).isEqualTo(bytes.length);
+        assertThat(stored.getChecksumSha256()).isEqualTo(expected);
+        assertThat(stored.getContentType()).isEqualTo("application/octet-stream");
+        assertThat(stored.getKey()).matches("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f-]{36}\\.pdf");
+        assertThat(Files.exists(rootDir.resolve(stored.getKey()))).isTrue();
+        assertThat(storage.load(stored.getKey())).isEqualTo(bytes);
+    }
+
+    @Test
+    void shouldStreamRequestedRange() throws Exception {
+        // Given
+        byte[] bytes = "0123456789".getBytes();
+        BlobStorage.StoredObject stored = storage.store(new ByteArrayInputStream(bytes), "digits.txt", "text/plain", bytes.length);
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BlobContent content = storage.open(stored.getKey(), 3, 4)) {
+            assertThat(content.getLength()).isEqualTo(4);
+            content.transferTo(out);
+        }
+
+        // Then
+        assertThat(out.toString()).isEqualTo("3456");
+        try (BlobContent content = storage.open(stored.getKey(), 8, -1)) {
+            assertThat(content.getInputStream().readAllBytes()).isEqualTo("89".getBytes());
+        }
+    }
+
+    @Test
+    void shouldNotWriteToStoreUntilCommitted() throws Exception {
+        // Given
+        byte[] bytes = "hello".getBytes();
+
+        // When
+        try (StagedObject staged = storage.stage(new ByteArrayInputStream(bytes), "text/plain")) {
+            // Then - hashed and sized, but only the staging file exists
+            assertThat(staged.getSize()).isEqualTo(5);
+            assertThat(staged.getChecksumSha256()).hasSize(64);
+            try (var files = Files.list(rootDir)) {
+                assertThat(files.filter(Files::isRegularFile)).isEmpty();
+            }
+        }
+    }
+
+    @Test
+    void shouldDeleteStoredFile() throws Exception {
+        BlobStorage.StoredObject stored = storage.store(new ByteArrayInputStream(new byte[]{1, 2, 3}), "a.txt", "text/plain", 3);
+
+        storage.delete(stored.getKey());
+
+        assertThat(Files.exists(rootDir.resolve(stored.getKey()))).isFalse();
+    }
+
+    @Test
+    void shouldStillReadLegacyAbsoluteKeys() throws Exception {
+        Path legacy = Files.write(rootDir.resolve("legacy.txt"), "old".getBytes());
+
+        assertThat(storage.load(legacy.toString())).isEqualTo("old".getBytes());
+    }
+
+    @Test
+    void shouldRejectKeysEscapingRoot() {
+        assertThatThrownBy(() -> storage.load("../outside.txt")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
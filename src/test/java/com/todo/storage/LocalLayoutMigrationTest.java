@@ -0,0 +1,80 @@
+package com.todo.storage;
+
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.StoredBlobRepository;
+import com.todo.storage.BlobStorageImpl.LocalBlobStorageImpl;
+import com.todo.storage.BlobStorageImpl.LocalLayoutMigration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LocalLayoutMigrationTest {
+
+    @TempDir
+    Path rootDir;
+
+    private AttachmentRepository attachmentRepo;
+    private StoredBlobRepository storedBlobRepo;
+    private LocalBlobStorageImpl storage;
+    private LocalLayoutMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalBlobStorageImpl();
+        ReflectionTestUtils.setField(storage, "rootDir", rootDir.toString());
+        ReflectionTestUtils.invokeMethod(storage, "init");
+
+        attachmentRepo = mock(AttachmentRepository.class);
+        storedBlobRepo = mock(StoredBlobRepository.class);
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        when(tx.execute(any())).thenAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+
+        migration = new LocalLayoutMigration(storage, attachmentRepo, storedBlobRepo, tx);
+        ReflectionTestUtils.setField(migration, "batchSize", 2);
+        ReflectionTestUtils.setField(migration, "legacyRoot", "");
+    }
+
+    @Test
+    void shouldRelocateLegacyFilesIntoShardsInBatches() throws Exception {
+        // Given - three flat files (one of them gone) referenced by absolute keys
+        String name1 = "0a1b2c3d-0000-0000-0000-000000000001.txt";
+        String name2 = "ffeeddcc-0000-0000-0000-000000000002.txt";
+        Path file1 = Files.writeString(storage.root().resolve(name1), "one");
+        Path file2 = Files.writeString(storage.root().resolve(name2), "two");
+        String missing = storage.root().resolve("99999999-0000-0000-0000-000000000003.txt").toString();
+        String prefix = storage.root() + rootDir.getFileSystem().getSeparator();
+
+        when(attachmentRepo.findStoragePathsAfter(eq(prefix), eq(""), any(Pageable.class)))
+                .thenReturn(List.of(file1.toString(), file2.toString()));
+        when(attachmentRepo.findStoragePathsAfter(eq(prefix), eq(file2.toString()), any(Pageable.class)))
+                .thenReturn(List.of(missing));
+        when(attachmentRepo.findStoragePathsAfter(eq(prefix), eq(missing), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        // When
+        LocalLayoutMigration.Result result = migration.migrate();
+
+        // Then
+        assertThat(result.relocated()).isEqualTo(2);
+        assertThat(result.missing()).isEqualTo(1);
+        assertThat(Files.exists(file1)).isFalse();
+        assertThat(storage.load("0a/1b/" + name1)).isEqualTo("one".getBytes());
+        assertThat(storage.load("ff/ee/" + name2)).isEqualTo("two".getBytes());
+        verify(attachmentRepo).updateStoragePath(file1.toString(), "0a/1b/" + name1);
+        verify(storedBlobRepo).updateStoragePath(file2.toString(), "ff/ee/" + name2);
+        verify(attachmentRepo, never()).updateStoragePath(eq(missing), any());
+    }
+}
@@ -0,0 +1,90 @@
+package com.todo.storage;
+
+import com.todo.storage.BlobStorageImpl.MemoryBlobStorageImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemoryBlobStorageImplTest {
+
+    @TempDir
+    Path stagingDir;
+
+    private MemoryBlobStorageImpl storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new MemoryBlobStorageImpl();
+        ReflectionTestUtils.setField(storage, "maxSize", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.setField(storage, "latency", Duration.ZERO);
+        ReflectionTestUtils.setField(storage, "bandwidth", DataSize.ofBytes(0));
+        ReflectionTestUtils.setField(storage, "stagingDir", stagingDir.toString());
+        ReflectionTestUtils.invokeMethod(storage, "init");
+    }
+
+    @Test
+    void shouldStoreOpenRangeAndDelete() throws Exception {
+        // Given
+        byte[] bytes = new byte[10_000];
+        new Random(5).nextBytes(bytes);
+
+        // When
+        BlobStorage.StoredObject stored = storage.store(new ByteArrayInputStream(bytes), "data.bin", null, bytes.length);
+
+        // Then
+        assertThat(storage.load(stored.getKey())).isEqualTo(bytes);
+        assertThat(storage.bytesStored()).isEqualTo(bytes.length);
+        try (BlobContent range = storage.open(stored.getKey(), 100, 50)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertThat(range.transferTo(out)).isEqualTo(50);
+            assertThat(out.toByteArray()).isEqualTo(Arrays.copyOfRange(bytes, 100, 150));
+            assertThat(range.getInputStream().readAllBytes()).isEqualTo(out.toByteArray());
+        }
+        assertThat(storage.list()).extracting(BlobStorage.ListedObject::key).containsExactly(stored.getKey());
+
+        storage.delete(stored.getKey());
+        assertThat(storage.bytesStored()).isZero();
+        assertThatThrownBy(() -> storage.open(stored.getKey(), 0, -1)).isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void shouldRefuseObjectsPastCapacity() throws Exception {
+        // Given
+        storage.store(new ByteArrayInputStream(new byte[40_000]), "a.bin", null, 40_000);
+
+        // When / Then
+        assertThatThrownBy(() -> storage.store(new ByteArrayInputStream(new byte[40_000]), "b.bin", null, 40_000))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("full");
+        assertThat(storage.bytesStored()).isEqualTo(40_000);
+    }
+
+    @Test
+    void shouldAddSimulatedLatencyAndTransferTime() throws Exception {
+        // Given - 20ms per request plus 10KB at 1MB/s
+        ReflectionTestUtils.setField(storage, "latency", Duration.ofMillis(20));
+        ReflectionTestUtils.setField(storage, "bandwidth", DataSize.ofMegabytes(1));
+
+        // When
+        long start = System.nanoTime();
+        storage.store(new ByteArrayInputStream(new byte[10_240]), "c.bin", null, 10_240);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Then
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(29);
+    }
+}
@@ -0,0 +1,80 @@
+package com.todo.storage;
+
+import com.todo.storage.BlobStorageImpl.MemoryBlobStorageImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MeteredBlobStorageTest {
+
+    @TempDir
+    Path stagingDir;
+
+    private SimpleMeterRegistry registry;
+    private MeteredBlobStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        MemoryBlobStorageImpl memory = new MemoryBlobStorageImpl();
+        ReflectionTestUtils.setField(memory, "maxSize", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.setField(memory, "latency", Duration.ZERO);
+        ReflectionTestUtils.setField(memory, "bandwidth", DataSize.ofBytes(0));
+        ReflectionTestUtils.setField(memory, "stagingDir", stagingDir.toString());
+        ReflectionTestUtils.invokeMethod(memory, "init");
+        registry = new SimpleMeterRegistry();
+        storage = new MeteredBlobStorage(memory, registry);
+    }
+
+    @Test
+    void shouldTimeOperationsAndCountBytes() throws Exception {
+        // Given
+        byte[] bytes = new byte[5_000];
+        new Random(3).nextBytes(bytes);
+
+        // When
+        BlobStorage.StoredObject stored = storage.store(new ByteArrayInputStream(bytes), "data.bin", null, bytes.length);
+        storage.load(stored.getKey());
+        storage.open(stored.getKey(), 0, 1_000).close();
+        storage.openAsync(stored.getKey(), 0, -1).join().close();
+        storage.delete(stored.getKey());
+
+        // Then
+        assertThat(operations("stage", "success")).isEqualTo(1);
+        assertThat(operations("commit", "success")).isEqualTo(1);
+        assertThat(operations("load", "success")).isEqualTo(1);
+        assertThat(operations("open", "success")).isEqualTo(2);
+        assertThat(operations("delete", "success")).isEqualTo(1);
+        assertThat(registry.get("blob.storage.bytes").tag("direction", "written").counter().count())
+                .isEqualTo(5_000);
+        assertThat(registry.get("blob.storage.bytes").tag("direction", "read").counter().count())
+                .isEqualTo(5_000 + 1_000 + 5_000);
+    }
+
+    @Test
+    void shouldRecordFailures() {
+        // When / Then
+        assertThatThrownBy(() -> storage.load("missing")).isNotNull();
+        assertThatThrownBy(() -> storage.openAsync("missing", 0, -1).join()).isInstanceOf(CompletionException.class);
+
+        assertThat(operations("load", "error")).isEqualTo(1);
+        assertThat(operations("open", "error")).isEqualTo(1);
+        assertThat(registry.get("blob.storage.bytes").tag("direction", "read").counter().count()).isZero();
+    }
+
+    private long operations(String operation, String outcome) {
+        return registry.get("blob.storage.operations").tag("operation", operation).tag("outcome", outcome)
+                .timer().count();
+    }
+}
@@ -0,0 +1,149 @@
+package com.todo.storage;
+
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.BlobThumbnailRepository;
+import com.todo.repository.PendingUploadRepository;
+import com.todo.repository.StoredBlobRepository;
+import com.todo.storage.BlobStorageImpl.LocalBlobStorageImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class OrphanBlobCollectorTest {
+
+    @TempDir
+    Path rootDir;
+
+    private LocalBlobStorageImpl storage;
+    private AttachmentRepository attachmentRepo;
+    private StoredBlobRepository storedBlobRepo;
+    private BlobThumbnailRepository thumbnailRepo;
+    private PendingUploadRepository pendingUploadRepo;
+    private SimpleMeterRegistry registry;
+    private OrphanBlobCollector collector;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        storage = new LocalBlobStorageImpl();
+        ReflectionTestUtils.setField(storage, "rootDir", rootDir.toString());
+        ReflectionTestUtils.invokeMethod(storage, "init");
+
+        attachmentRepo = mock(AttachmentRepository.class);
+        storedBlobRepo = mock(StoredBlobRepository.class);
+        thumbnailRepo = mock(BlobThumbnailRepository.class);
+        pendingUploadRepo = mock(PendingUploadRepository.class);
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        doAnswer(inv -> {
+            ((Consumer<Object>) inv.getArgument(0)).accept(null);
+            return null;
+        }).when(tx).executeWithoutResult(any());
+        registry = new SimpleMeterRegistry();
+
+        collector = new OrphanBlobCollector(storage, attachmentRepo, storedBlobRepo, thumbnailRepo,
+                pendingUploadRepo, tx, registry);
+        ReflectionTestUtils.setField(collector, "batchSize", 2);
+        ReflectionTestUtils.setField(collector, "gracePeriod", Duration.ofHours(1));
+        ReflectionTestUtils.setField(collector, "maxDeletesPerSecond", 0.0);
+        ReflectionTestUtils.invokeMethod(collector, "init");
+    }
+
+    @Test
+    void shouldDeleteOldUnreferencedObjectsOnly() throws Exception {
+        // Given - five old objects referenced from different tables or not at all, and one fresh orphan
+        String attached = store("attached", true);
+        String blob = store("canonical", true);
+        String thumbnail = store("thumbnail", true);
+        String orphan1 = store("orphan-one", true);
+        String orphan2 = store("orphan-two", true);
+        String fresh = store("fresh-upload", false);
+        when(attachmentRepo.findStoragePathsIn(anyCollection()))
+                .thenAnswer(inv -> present(inv.getArgument(0), attached));
+        when(storedBlobRepo.findStoragePathsIn(anyCollection()))
+                .thenAnswer(inv -> present(inv.getArgument(0), blob));
+        when(thumbnailRepo.findStoragePathsIn(anyCollection()))
+                .thenAnswer(inv -> present(inv.getArgument(0), thumbnail));
+        when(pendingUploadRepo.findStoragePathsIn(anyCollection())).thenReturn(List.of());
+
+        // When
+        OrphanBlobCollector.Result result = collector.sweep();
+
+        // Then
+        assertThat(result.scanned()).isEqualTo(6);
+        assertThat(result.deleted()).isEqualTo(2);
+        assertThat(result.reclaimedBytes()).isEqualTo("orphan-one".length() + "orphan-two".length());
+        assertThat(exists(orphan1)).isFalse();
+        assertThat(exists(orphan2)).isFalse();
+        assertThat(exists(attached)).isTrue();
+        assertThat(exists(blob)).isTrue();
+        assertThat(exists(thumbnail)).isTrue();
+        assertThat(exists(fresh)).isTrue();
+        // five old candidates in batches of two
+        verify(attachmentRepo, times(3)).findStoragePathsIn(anyCollection());
+        assertThat(registry.get("blob.gc.reclaimed").counter().count()).isEqualTo(result.reclaimedBytes());
+        assertThat(registry.get("blob.gc.deleted").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldDropExpiredPendingUploadsAndOrphanedThumbnailsFirst() throws Exception {
+        // When
+        collector.sweep();
+
+        // Then
+        verify(pendingUploadRepo).deleteExpired(any(Instant.class));
+        verify(thumbnailRepo).deleteOrphaned(any(Instant.class));
+    }
+
+    @Test
+    void shouldNotListStagingOrLegacyFlatFiles() throws Exception {
+        // Given
+        Files.writeString(storage.root().resolve("0a1b2c3d-0000-0000-0000-000000000001.txt"), "legacy");
+        storage.stage(new ByteArrayInputStream("staged".getBytes(StandardCharsets.UTF_8)), "text/plain");
+        String sharded = store("sharded", true);
+
+        // When
+        List<BlobStorage.ListedObject> listed;
+        try (var objects = storage.list()) {
+            listed = objects.toList();
+        }
+
+        // Then
+        assertThat(listed).extracting(BlobStorage.ListedObject::key).containsExactly(sharded);
+    }
+
+    private String store(String content, boolean old) throws Exception {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String key = storage.store(new ByteArrayInputStream(bytes), content + ".txt", "text/plain", bytes.length).getKey();
+        if (old) {
+            Files.setLastModifiedTime(storage.resolve(key), FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        }
+        return key;
+    }
+
+    private boolean exists(String key) {
+        return Files.exists(storage.resolve(key));
+    }
+
+    private static List<String> present(Collection<String> keys, String referenced) {
+        return keys.contains(referenced) ? List.of(referenced) : List.of();
+    }
+}
@@ -0,0 +1,251 @@
+package com.todo.storage;
+
+import com.todo.storage.BlobStorageImpl.S3BlobStorageImpl;
+import io.awspring.cloud.s3.S3Template;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class S3BlobStorageImplTest {
+
+    // One endpoint and client for the class: shutting down a Netty event loop takes a couple of seconds
+    private static S3StubServer server;
+    private static S3AsyncClient asyncClient;
+
+    private InMemoryS3Client s3;
+    private S3BlobStorageImpl storage;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = new S3StubServer(new InMemoryS3Client());
+        asyncClient = S3AsyncClient.builder()
+                .endpointOverride(server.endpoint())
+                .forcePathStyle(true)
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder())
+                .build();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        asyncClient.close();
+        server.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        s3 = new InMemoryS3Client();
+        server.serve(s3);
+        storage = new S3BlobStorageImpl(mock(S3Template.class), s3, asyncClient);
+        ReflectionTestUtils.setField(storage, "bucket", "test-bucket");
+        ReflectionTestUtils.setField(storage, "prefix", "attachments");
+        ReflectionTestUtils.setField(storage, "multipartThreshold", 64 * 1024L);
+        ReflectionTestUtils.setField(storage, "partSize", 16 * 1024L);
+        ReflectionTestUtils.setField(storage, "partConcurrency", 3);
+        ReflectionTestUtils.setField(storage, "partMaxAttempts", 3);
+        ReflectionTestUtils.setField(storage, "maxInFlight", 2);
+        ReflectionTestUtils.setField(storage, "openTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(storage, "deleteTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.invokeMethod(storage, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(storage, "shutdown");
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    @Test
+    void shouldUseSinglePutBelowThreshold() throws Exception {
+        byte[] bytes = randomBytes(10_000);
+
+        BlobStorage.StoredObject stored = storage.store(new ByteArrayInputStream(bytes), "small.png", "image/png", bytes.length);
+
+        assertThat(s3.putRequests.get()).isEqualTo(1);
+        assertThat(s3.partRequests.get()).isZero();
+        assertThat(stored.getKey()).startsWith("attachments/").endsWith(".png");
+        assertThat(s3.objects().get(stored.getKey()).metadata()).containsEntry("sha256", sha256(bytes));
+    }
+
+    @Test
+    void shouldUploadLargeFileInParts() throws Exception {
+        // 100KB with 16KB parts -> 7 parts, the last one short
+        byte[] bytes = randomBytes(100 * 1024);
+
+        BlobStorage.StoredObject stored = storage.store(new ByteArrayInputStream(bytes), "video.mp4", "video/mp4", bytes.length);
+
+        assertThat(s3.putRequests.get()).isZero();
+        assertThat(s3.partRequests.get()).isEqualTo(7);
+        assertThat(stored.getSize()).isEqualTo(bytes.length);
+        assertThat(stored.getChecksumSha256()).isEqualTo(sha256(bytes));
+        assertThat(s3.objects().get(stored.getKey()).bytes()).isEqualTo(bytes);
+        assertThat(s3.openUploads()).isZero();
+    }
+
+    @Test
+    void shouldRetryFailedParts() throws Exception {
+        byte[] bytes = randomBytes(100 * 1024);
+        s3.failNextParts(2);
+
+        BlobStorage.StoredObject stored = storage.store(new ByteArrayInputStream(bytes), "video.mp4", "video/mp4", bytes.length);
+
+        assertThat(s3.partRequests.get()).isEqualTo(9);
+        assertThat(s3.objects().get(stored.getKey()).bytes()).isEqualTo(bytes);
+    }
+
+    @Test
+    void shouldAbortUploadWhenPartKeepsFailing() {
+        byte[] bytes = randomBytes(100 * 1024);
+        s3.failNextParts(100);
+
+        assertThatThrownBy(() -> storage.store(new ByteArrayInputStream(bytes), "video.mp4", "video/mp4", bytes.length))
+                .isInstanceOf(IOException.class);
+
+        assertThat(s3.abortedUploads.get()).isEqualTo(1);
+        assertThat(s3.openUploads()).isZero();
+        assertThat(s3.objects()).isEmpty();
+    }
+
+    @Test
+    void shouldStopSendingPartsOnceOnePartFails() {
+        // Two part threads on a slow link; whichever part is sent first fails without retries
+        s3 = new InMemoryS3Client(300, 0);
+        storage = new S3BlobStorageImpl(mock(S3Template.class), s3, asyncClient);
+        ReflectionTestUtils.setField(storage, "bucket", "test-bucket");
+        ReflectionTestUtils.setField(storage, "prefix", "attachments");
+        ReflectionTestUtils.setField(storage, "multipartThreshold", 64 * 1024L);
+        ReflectionTestUtils.setField(storage, "partSize", 16 * 1024L);
+        ReflectionTestUtils.setField(storage, "partConcurrency", 2);
+        ReflectionTestUtils.setField(storage, "partMaxAttempts", 1);
+        ReflectionTestUtils.invokeMethod(storage, "init");
+        byte[] bytes = randomBytes(100 * 1024);
+        s3.failNextParts(1);
+
+        assertThatThrownBy(() -> storage.store(new ByteArrayInputStream(bytes), "video.mp4", "video/mp4", bytes.length))
+                .isInstanceOf(IOException.class)
+                .hasRootCauseMessage("Simulated part failure");
+
+        // The queued parts are never sent; at most the other part already on the wire was
+        assertThat(s3.partRequests.get()).isLessThanOrEqualTo(2);
+        assertThat(s3.abortedUploads.get()).isEqualTo(1);
+        assertThat(s3.openUploads()).isZero();
+    }
+
+    @Test
+    void shouldListObjectsUnderPrefixPageByPage() throws Exception {
+        // 2500 objects -> three ListObjectsV2 pages of up to 1000 keys; the foreign key is outside the prefix
+        Instant now = Instant.now();
+        for (int i = 0; i < 2500; i++) {
+            s3.objects().put(String.format("attachments/%05d.bin", i),
+                    new InMemoryS3Client.StoredS3Object(new byte[i % 7], "application/octet-stream", Map.of(), now));
+        }
+        s3.objects().put("other/foreign.bin",
+                new InMemoryS3Client.StoredS3Object(new byte[1], "application/octet-stream", Map.of(), now));
+
+        List<BlobStorage.ListedObject> listed;
+        try (Stream<BlobStorage.ListedObject> objects = storage.list()) {
+            listed = objects.toList();
+        }
+
+        assertThat(listed).hasSize(2500);
+        assertThat(listed.get(2499).key()).isEqualTo("attachments/02499.bin");
+        assertThat(listed.get(13).size()).isEqualTo(6);
+        assertThat(s3.listRequests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldOpenRangeAsyncWithStoredChecksum() throws Exception {
+        byte[] bytes = randomBytes(10_000);
+        String key = storage.store(new ByteArrayInputStream(bytes), "small.png", "image/png", bytes.length).getKey();
+
+        try (BlobContent content = storage.openAsync(key, 100, 50).get(5, TimeUnit.SECONDS)) {
+            assertThat(content.getLength()).isEqualTo(50);
+            assertThat(content.getInputStream().readAllBytes()).isEqualTo(Arrays.copyOfRange(bytes, 100, 150));
+            assertThat(content.getChecksumSha256()).isEqualTo(sha256(bytes));
+        }
+        assertThat(server.requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectOpensBeyondInFlightCapUntilContentIsClosed() throws Exception {
+        byte[] bytes = randomBytes(1000);
+        String key = storage.store(new ByteArrayInputStream(bytes), "a.bin", "application/octet-stream", bytes.length).getKey();
+        BlobContent first = storage.openAsync(key, 0, -1).get(5, TimeUnit.SECONDS);
+        BlobContent second = storage.openRawAsync(key).get(5, TimeUnit.SECONDS);
+
+        assertThatThrownBy(() -> storage.openAsync(key, 0, -1).join())
+                .hasCauseInstanceOf(StorageUnavailableException.class);
+        assertThat(server.requests.get()).isEqualTo(2);
+
+        first.close();
+        first.close();
+        try (BlobContent third = storage.openAsync(key, 0, -1).get(5, TimeUnit.SECONDS)) {
+            assertThat(third.getInputStream().readAllBytes()).isEqualTo(bytes);
+        }
+        second.close();
+        assertThat(((Semaphore) ReflectionTestUtils.getField(storage, "inFlight")).availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldTimeOutSlowOpenAndReleaseItsPermit() throws Exception {
+        byte[] bytes = randomBytes(1000);
+        String key = storage.store(new ByteArrayInputStream(bytes), "a.bin", "application/octet-stream", bytes.length).getKey();
+        ReflectionTestUtils.setField(storage, "openTimeout", Duration.ofMillis(200));
+        server.delay(1000);
+
+        assertThatThrownBy(() -> storage.openAsync(key, 0, -1).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(StorageUnavailableException.class);
+        assertThat(((Semaphore) ReflectionTestUtils.getField(storage, "inFlight")).availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldDeleteAsyncAndReportMissingKeys() throws Exception {
+        byte[] bytes = randomBytes(1000);
+        String key = storage.store(new ByteArrayInputStream(bytes), "a.bin", "application/octet-stream", bytes.length).getKey();
+
+        storage.deleteAsync(key).get(5, TimeUnit.SECONDS);
+
+        assertThat(s3.objects()).doesNotContainKey(key);
+        assertThatThrownBy(() -> storage.openAsync(key, 0, -1).get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(NoSuchKeyException.class);
+    }
+}
@@ -0,0 +1,112 @@
+package com.todo.storage;
+
+import com.todo.storage.BlobStorageImpl.S3PresignedBlobStorageImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class S3PresignedBlobStorageImplTest {
+
+    private static final byte[] CONTENT = "direct upload".getBytes();
+
+    private InMemoryS3Client s3;
+    private S3Presigner presigner;
+    private S3PresignedBlobStorageImpl storage;
+
+    @BeforeEach
+    void setUp() {
+        s3 = new InMemoryS3Client();
+        // Signing is purely local, no bucket needs to exist
+        presigner = S3Presigner.builder()
+                .region(Region.US_EAST_2)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret")))
+                .build();
+        storage = new S3PresignedBlobStorageImpl(presigner, s3);
+        ReflectionTestUtils.setField(storage, "bucket", "test-bucket");
+        ReflectionTestUtils.setField(storage, "prefix", "attachments");
+        ReflectionTestUtils.setField(storage, "ttl", Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        presigner.close();
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    @Test
+    void shouldSignSizeAndChecksumIntoUpload() throws Exception {
+        // Given
+        String key = storage.newKey("report.pdf");
+
+        // When
+        PresignedBlobStorage.PresignedRequest signed =
+                storage.presignUpload(key, "application/pdf", CONTENT.length, sha256(CONTENT));
+
+        // Then
+        assertThat(key).startsWith("attachments/").endsWith(".pdf");
+        assertThat(signed.getMethod()).isEqualTo("PUT");
+        assertThat(signed.getUrl()).contains("test-bucket").contains(key).contains("X-Amz-Signature=");
+        assertThat(signed.getHeaders())
+                .containsEntry("content-length", String.valueOf(CONTENT.length))
+                .containsKey("x-amz-checksum-sha256")
+                .doesNotContainKey("host");
+        assertThat(signed.getExpiresAt()).isBetween(Instant.now(), Instant.now().plus(Duration.ofMinutes(6)));
+    }
+
+    @Test
+    void shouldSignDownloadAsAttachment() {
+        // When
+        PresignedBlobStorage.PresignedRequest signed =
+                storage.presignDownload("attachments/a.pdf", "report.pdf", "application/pdf");
+
+        // Then
+        assertThat(signed.getMethod()).isEqualTo("GET");
+        assertThat(signed.getUrl()).contains("response-content-disposition=").contains("report.pdf")
+                .doesNotContain("response-content-encoding=");
+    }
+
+    @Test
+    void shouldSignDownloadOfCompressedObjectAsGzipEncoded() {
+        // When
+        PresignedBlobStorage.PresignedRequest compressed =
+                storage.presignDownload("attachments/a.json" + CompressingBlobStorage.GZIP_SUFFIX, "data.json", "application/json");
+        PresignedBlobStorage.PresignedRequest archive =
+                storage.presignDownload("attachments/a.gz", "logs.tar.gz", "application/gzip");
+
+        // Then - a user's own .gz file is not encoded, just gzip content
+        assertThat(compressed.getUrl()).contains("response-content-encoding=gzip");
+        assertThat(archive.getUrl()).doesNotContain("response-content-encoding=");
+    }
+
+    @Test
+    void shouldDescribeUploadedObjectWithStoreChecksum() throws Exception {
+        // Given - what the client's PUT would leave behind
+        s3.objects().put("attachments/a.bin", new InMemoryS3Client.StoredS3Object(
+                CONTENT, "application/octet-stream", Map.of(), Instant.now()));
+
+        String expected = sha256(CONTENT);
+
+        // When/Then
+        assertThat(storage.describe("attachments/a.bin")).hasValueSatisfying(stored -> {
+            assertThat(stored.getSize()).isEqualTo(CONTENT.length);
+            assertThat(stored.getChecksumSha256()).isEqualTo(expected);
+        });
+        assertThat(storage.describe("attachments/missing.bin")).isEmpty();
+    }
+}
@@ -0,0 +1,124 @@
+package com.todo.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local S3-compatible HTTP endpoint for tests of the async client path. Serves path-style GetObject
+ * (with single ranges and user metadata) and DeleteObject over the objects of an {@link InMemoryS3Client},
+ * so a real SDK client talks to it over a socket. Every request can be held for a configurable delay.
+ */
+public class S3StubServer implements AutoCloseable {
+
+    private volatile InMemoryS3Client s3;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private volatile long delayMillis;
+
+    public final AtomicInteger requests = new AtomicInteger();
+
+    public S3StubServer(InMemoryS3Client s3) throws IOException {
+        this.s3 = s3;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public URI endpoint() {
+        return URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    /** Serves the objects of {@code s3} from now on, without delay. */
+    public void serve(InMemoryS3Client s3) {
+        this.s3 = s3;
+        delayMillis = 0;
+        requests.set(0);
+    }
+
+    /** Holds every following request for {@code millis} before answering. */
+    public void delay(long millis) {
+        delayMillis = millis;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+            // Path style: /<bucket>/<key>
+            String path = exchange.getRequestURI().getRawPath();
+            String key = URLDecoder.decode(path.substring(path.indexOf('/', 1) + 1), StandardCharsets.UTF_8);
+            switch (exchange.getRequestMethod()) {
+                case "GET" -> get(exchange, key);
+                case "DELETE" -> {
+                    s3.objects().remove(key);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> error(exchange, 405, "MethodNotAllowed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void get(HttpExchange exchange, String key) throws IOException {
+        InMemoryS3Client.StoredS3Object object = s3.objects().get(key);
+        if (object == null) {
+            error(exchange, 404, "NoSuchKey");
+            return;
+        }
+        byte[] bytes = object.bytes();
+        int start = 0;
+        int end = bytes.length - 1;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null) {
+            String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            start = Integer.parseInt(bounds[0]);
+            if (!bounds[1].isEmpty()) {
+                end = Math.min(end, Integer.parseInt(bounds[1]));
+            }
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + bytes.length);
+        }
+        if (object.contentType() != null) {
+            exchange.getResponseHeaders().set("Content-Type", object.contentType());
+        }
+        for (Map.Entry<String, String> e : object.metadata().entrySet()) {
+            exchange.getResponseHeaders().set("x-amz-meta-" + e.getKey(), e.getValue());
+        }
+        int length = Math.max(0, end - start + 1);
+        exchange.sendResponseHeaders(range != null ? 206 : 200, length == 0 ? -1 : length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes, start, length);
+        }
+    }
+
+    private static void error(HttpExchange exchange, int status, String code) throws IOException {
+        byte[] body = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>" + code + "</Code><Message>" + code
+                + "</Message></Error>").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
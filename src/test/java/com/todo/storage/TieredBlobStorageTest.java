@@ -0,0 +1,182 @@
+package com.todo.storage;
+
+import com.todo.entity.BlobAccess;
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.BlobAccessRepository;
+import com.todo.repository.BlobThumbnailRepository;
+import com.todo.repository.StoredBlobRepository;
+import com.todo.storage.BlobStorageImpl.LocalBlobStorageImpl;
+import com.todo.storage.BlobStorageImpl.MemoryBlobStorageImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TieredBlobStorageTest {
+
+    private static final byte[] CONTENT = "tiered content\n".repeat(500).getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path dir;
+
+    private MemoryBlobStorageImpl cold;
+    private TieredBlobStorage storage;
+    private BlobAccessRepository accessRepo;
+    private AttachmentRepository attachmentRepo;
+    private StoredBlobRepository storedBlobRepo;
+    private BlobThumbnailRepository thumbnailRepo;
+    private BlobTierManager manager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        cold = new MemoryBlobStorageImpl();
+        ReflectionTestUtils.setField(cold, "maxSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(cold, "latency", Duration.ZERO);
+        ReflectionTestUtils.setField(cold, "bandwidth", DataSize.ofBytes(0));
+        ReflectionTestUtils.setField(cold, "stagingDir", dir.resolve("cold-staging").toString());
+        ReflectionTestUtils.invokeMethod(cold, "init");
+        storage = new TieredBlobStorage(new LocalBlobStorageImpl(dir.resolve("local").toString()), cold);
+
+        accessRepo = mock(BlobAccessRepository.class);
+        attachmentRepo = mock(AttachmentRepository.class);
+        storedBlobRepo = mock(StoredBlobRepository.class);
+        thumbnailRepo = mock(BlobThumbnailRepository.class);
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        when(tx.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(tx).executeWithoutResult(any());
+
+        manager = new BlobTierManager(storage, accessRepo, attachmentRepo, storedBlobRepo, thumbnailRepo, tx,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(manager, "demoteAfter", Duration.ofDays(30));
+        ReflectionTestUtils.setField(manager, "batchSize", 10);
+        ReflectionTestUtils.setField(manager, "promotionThreads", 1);
+        ReflectionTestUtils.setField(manager, "promotionQueueCapacity", 10);
+        ReflectionTestUtils.invokeMethod(manager, "startExecutor");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(manager, "stopExecutor");
+    }
+
+    @Test
+    void shouldWriteLocallyAndRouteReadsByKeyPrefix() throws Exception {
+        // Given - one new object, and one written to S3 before tiering was enabled
+        BlobStorage.StoredObject local = storage.store(new ByteArrayInputStream(CONTENT), "a.txt", "text/plain", CONTENT.length);
+        String legacy = cold.store(new ByteArrayInputStream(CONTENT), "b.txt", "text/plain", CONTENT.length).getKey();
+
+        // When
+        byte[] localBytes = storage.load(local.getKey());
+        byte[] legacyBytes = storage.load(legacy);
+
+        // Then
+        assertThat(local.getKey()).startsWith(TieredBlobStorage.LOCAL_PREFIX);
+        assertThat(cold.bytesStored()).isEqualTo(CONTENT.length);
+        assertThat(localBytes).isEqualTo(CONTENT);
+        assertThat(legacyBytes).isEqualTo(CONTENT);
+        assertThat(storage.drainWritten()).containsOnlyKeys(local.getKey());
+        assertThat(storage.drainHotReads()).containsExactly(local.getKey());
+        assertThat(storage.drainColdReads()).containsExactly(legacy);
+        try (Stream<BlobStorage.ListedObject> listed = storage.list()) {
+            assertThat(listed).extracting(BlobStorage.ListedObject::key).containsExactlyInAnyOrder(local.getKey(), legacy);
+        }
+    }
+
+    @Test
+    void shouldDemoteIdleObjectAndRepointItsRows() throws Exception {
+        // Given
+        String key;
+        try (StagedObject staged = storage.stage(new ByteArrayInputStream(CONTENT), "text/plain")) {
+            key = storage.commit(staged.withContentEncoding(CompressingBlobStorage.GZIP), "a.txt").getKey();
+        }
+        when(accessRepo.findIdle(any(), any())).thenReturn(List.of(access(key)));
+        when(accessRepo.deleteIdle(eq(key), any())).thenReturn(1);
+        when(attachmentRepo.updateStoragePath(eq(key), anyString())).thenReturn(2);
+
+        // When
+        int demoted = manager.demoteIdle();
+
+        // Then - the rows point at the S3 copy, which keeps the compression marker, and the local file is gone
+        assertThat(demoted).isEqualTo(1);
+        String coldKey = cold.list().findFirst().orElseThrow().key();
+        assertThat(coldKey).endsWith(".txt" + CompressingBlobStorage.GZIP_SUFFIX).doesNotStartWith(TieredBlobStorage.LOCAL_PREFIX);
+        verify(attachmentRepo).updateStoragePath(key, coldKey);
+        verify(storedBlobRepo).updateStoragePath(key, coldKey);
+        assertThat(storage.load(coldKey)).isEqualTo(CONTENT);
+        assertThatThrownBy(() -> storage.load(key)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldKeepObjectLocalWhenReadAgainBeforeDemotionCommits() throws Exception {
+        // Given - another instance recorded a read after the idle rows were selected
+        String key = storage.store(new ByteArrayInputStream(CONTENT), "a.txt", "text/plain", CONTENT.length).getKey();
+        when(accessRepo.findIdle(any(), any())).thenReturn(List.of(access(key)));
+        when(accessRepo.deleteIdle(eq(key), any())).thenReturn(0);
+
+        // When
+        int demoted = manager.demoteIdle();
+
+        // Then - the S3 copy is dropped
+        assertThat(demoted).isZero();
+        assertThat(cold.bytesStored()).isZero();
+        assertThat(storage.load(key)).isEqualTo(CONTENT);
+        verify(attachmentRepo, never()).updateStoragePath(any(), any());
+    }
+
+    @Test
+    void shouldPromoteColdObjectOnReadAndDeleteTheRemoteCopy() throws Exception {
+        // Given
+        String coldKey = cold.store(new ByteArrayInputStream(CONTENT), "b.txt", "text/plain", CONTENT.length).getKey();
+        when(storedBlobRepo.updateStoragePath(eq(coldKey), anyString())).thenReturn(1);
+        storage.load(coldKey);
+
+        // When
+        String promotedKey = storage.drainColdReads().stream().findFirst().orElseThrow();
+        boolean promoted = manager.promote(promotedKey);
+
+        // Then
+        assertThat(promoted).isTrue();
+        assertThat(cold.bytesStored()).isZero();
+        verify(storedBlobRepo).updateStoragePath(eq(coldKey), argThat(TieredBlobStorage::isLocal));
+        verify(accessRepo).insertFrom(argThat(TieredBlobStorage::isLocal), any());
+        try (Stream<BlobStorage.ListedObject> listed = storage.list()) {
+            String localKey = listed.findFirst().orElseThrow().key();
+            assertThat(storage.load(localKey)).isEqualTo(CONTENT);
+        }
+    }
+
+    private static BlobAccess access(String key) {
+        return BlobAccess.builder()
+                .storagePath(key)
+                .contentType("text/plain")
+                .sizeBytes(CONTENT.length)
+                .lastAccessedAt(Instant.now().minus(Duration.ofDays(40)))
+                .build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.todo.storage;
+
+import com.todo.storage.BlobStorageImpl.LocalBlobStorageImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ZipBundleStreamerTest {
+
+    @TempDir
+    Path rootDir;
+
+    private LocalBlobStorageImpl storage;
+    private ZipBundleStreamer streamer;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalBlobStorageImpl();
+        ReflectionTestUtils.setField(storage, "rootDir", rootDir.resolve("blobs").toString());
+        ReflectionTestUtils.invokeMethod(storage, "init");
+
+        streamer = new ZipBundleStreamer(storage);
+        ReflectionTestUtils.setField(streamer, "prefetch", 2);
+        ReflectionTestUtils.setField(streamer, "threads", 2);
+        ReflectionTestUtils.setField(streamer, "queueCapacity", 8);
+        ReflectionTestUtils.setField(streamer, "level", 5);
+        ReflectionTestUtils.invokeMethod(streamer, "startExecutor");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(streamer, "stopExecutor");
+    }
+
+    @Test
+    void shouldStreamEntriesStoredOrDeflatedByType() throws Exception {
+        // Given - more entries than the lookahead, one already compressed, and two with the same name
+        byte[] text = "line of text\n".repeat(2000).getBytes(StandardCharsets.UTF_8);
+        byte[] photo = new byte[5000];
+        new Random(3).nextBytes(photo);
+        List<ZipBundleStreamer.Entry> entries = List.of(
+                entry("notes.txt", "text/plain", text),
+                entry("photo.jpg", "image/jpeg", photo),
+                entry("notes.txt", "text/plain", "second".getBytes(StandardCharsets.UTF_8)),
+                entry("../../etc/passwd", "text/plain", "x".getBytes(StandardCharsets.UTF_8)),
+                entry("empty.bin", "application/octet-stream", new byte[0]));
+
+        // When
+        Path zip = rootDir.resolve("bundle.zip");
+        try (OutputStream out = Files.newOutputStream(zip)) {
+            streamer.write(entries, out);
+        }
+
+        // Then
+        try (ZipFile file = new ZipFile(zip.toFile())) {
+            List<String> names = new ArrayList<>();
+            file.stream().forEach(e -> names.add(e.getName()));
+            assertThat(names).containsExactly("notes.txt", "photo.jpg", "notes (2).txt", ".._.._etc_passwd", "empty.bin");
+
+            ZipEntry textEntry = file.getEntry("notes.txt");
+            assertThat(textEntry.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+            assertThat(textEntry.getCompressedSize()).isLessThan(text.length / 10);
+            assertThat(file.getInputStream(textEntry).readAllBytes()).isEqualTo(text);
+
+            ZipEntry photoEntry = file.getEntry("photo.jpg");
+            assertThat(photoEntry.getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(photoEntry.getCompressedSize()).isEqualTo(photo.length);
+            assertThat(file.getInputStream(photoEntry).readAllBytes()).isEqualTo(photo);
+
+            assertThat(file.getInputStream(file.getEntry("notes (2).txt")).readAllBytes())
+                    .isEqualTo("second".getBytes(StandardCharsets.UTF_8));
+            assertThat(file.getEntry("empty.bin").getSize()).isZero();
+        }
+    }
+
+    @Test
+    void shouldWriteZip64RecordsReadableByZipFile() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ZipStreamWriter writer = new ZipStreamWriter(out, 5);
+        byte[] data = "zip64".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        // When - an unknown size always gets ZIP64 sizes
+        writer.write("a.txt", true, Instant.now(), -1, new ByteArrayInputStream(data));
+        writer.write("b.bin", false, Instant.now(), -1, new ByteArrayInputStream(data));
+        writer.finish();
+
+        // Then
+        Path zip = rootDir.resolve("zip64.zip");
+        Files.write(zip, out.toByteArray());
+        try (ZipFile file = new ZipFile(zip.toFile())) {
+            assertThat(file.size()).isEqualTo(2);
+            assertThat(file.getInputStream(file.getEntry("a.txt")).readAllBytes()).isEqualTo(data);
+            assertThat(file.getInputStream(file.getEntry("b.bin")).readAllBytes()).isEqualTo(data);
+        }
+    }
+
+    @Test
+    void shouldFailWithoutCompletingArchiveWhenAnObjectIsMissing() throws Exception {
+        // Given
+        List<ZipBundleStreamer.Entry> entries = List.of(
+                entry("a.txt", "text/plain", "a".getBytes(StandardCharsets.UTF_8)),
+                new ZipBundleStreamer.Entry("gone.txt", "ab/cd/missing.txt", "text/plain", 1, Instant.now()),
+                entry("c.txt", "text/plain", "c".getBytes(StandardCharsets.UTF_8)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When / Then - no central directory is written, so the partial download is not a valid archive
+        assertThatThrownBy(() -> streamer.write(entries, out)).isInstanceOf(IOException.class);
+        Path zip = rootDir.resolve("partial.zip");
+        Files.write(zip, out.toByteArray());
+        assertThatThrownBy(() -> new ZipFile(zip.toFile()).close()).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldMakeNamesFlatAndUnique() {
+        Set<String> taken = new HashSet<>();
+        assertThat(ZipBundleStreamer.uniqueName("report.pdf", taken)).isEqualTo("report.pdf");
+        assertThat(ZipBundleStreamer.uniqueName("Report.PDF", taken)).isEqualTo("Report (2).PDF");
+        assertThat(ZipBundleStreamer.uniqueName("report.pdf", taken)).isEqualTo("report (3).pdf");
+        assertThat(ZipBundleStreamer.uniqueName("dir\\file", taken)).isEqualTo("dir_file");
+        assertThat(ZipBundleStreamer.uniqueName("..", taken)).isEqualTo("file");
+        assertThat(ZipBundleStreamer.uniqueName(null, taken)).isEqualTo("file (2)");
+    }
+
+    private ZipBundleStreamer.Entry entry(String name, String contentType, byte[] content) throws IOException {
+        String key = storage.store(new ByteArrayInputStream(content), name, contentType, content.length).getKey();
+        return new ZipBundleStreamer.Entry(name, key, contentType, content.length, Instant.now());
+    }
+}
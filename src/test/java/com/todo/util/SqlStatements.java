@@ -0,0 +1,47 @@
+package com.todo.util;
+
+import com.todo.config.SqlStatementCounter;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.function.ThrowingSupplier;
+
+/**
+ * Statement budgets for tests: runs a piece of code under a {@link SqlStatementCounter} scope and fails
+ * when it sends more SQL than allowed, naming the statement that repeated most. Only statements sent to
+ * the database count, so flush and clear the persistence context first when the data was just written in
+ * the same transaction.
+ */
+public final class SqlStatements {
+
+    private SqlStatements() {
+    }
+
+    /** Runs {@code action} and returns how many statements it ran. */
+    public static int count(Executable action) throws Throwable {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            action.execute();
+            return scope.count();
+        }
+    }
+
+    /** Runs {@code action}, failing if it ran more than {@code max} statements. */
+    public static void assertAtMost(int max, Executable action) throws Throwable {
+        assertAtMost(max, () -> {
+            action.execute();
+            return null;
+        });
+    }
+
+    /** Runs {@code action}, failing if it ran more than {@code max} statements, and returns its result. */
+    public static <T> T assertAtMost(int max, ThrowingSupplier<T> action) throws Throwable {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            T result = action.get();
+            if (scope.count() > max) {
+                throw new AssertionError("Expected at most " + max + " SQL statements but " + scope.count() + " ran"
+                        + scope.mostRepeated()
+                                .map(shape -> "; repeated " + shape.count() + " times: " + shape.sql())
+                                .orElse(""));
+            }
+            return result;
+        }
+    }
+}